@@ -0,0 +1,47 @@
+-- *************************************************************************************
+-- **
+-- **   OPTIONAL : partitioned and indexed layout for TESTTRANSACTIONS
+-- **
+-- **   Only worth considering if you keep raw results (trends-load option 'keeprawresults')
+-- **   for many runs, so that TESTTRANSACTIONS holds millions of rows.
+-- **   -------------------------------------------------------------------------------
+-- **   TESTTRANSACTIONS is range partitioned on RUN_TIME, and each range is sub-partitioned
+-- **   by a hash (KEY) of APPLICATION :
+-- **    - p_loading holds rows of runs currently being loaded (RUN_TIME '000000000000'). All
+-- **      trends-load queries on TESTTRANSACTIONS include RUN_TIME, so during a load only this
+-- **      (small) partition is read, however much raw data has been kept for earlier runs.
+-- **    - yearly partitions hold kept raw results, with a catch-all p_max partition.  Add
+-- **      further yearly partitions with REORGANIZE PARTITION p_max as required.
+-- **
+-- **   A secondary index is also added (on all partitions).  MySQL cannot hold an index on
+-- **   just some partitions of a table, so on MySQL trends-load does not drop and re-create it
+-- **   around the bulk insert, but it does analyze the loading partition once rows have been
+-- **   inserted.
+-- **
+-- **   The ALTER TABLE rebuilds the table, so may take some time on a large table.  Run it
+-- **   when no trends-load is running.
+-- **
+-- **   To return to the standard layout :
+-- **     ALTER TABLE TESTTRANSACTIONS REMOVE PARTITIONING;
+-- **     ALTER TABLE TESTTRANSACTIONS DROP INDEX TESTTRANSACTIONS_APP_RUN_IX;
+-- **
+-- *************************************************************************************
+
+USE mark59trendsdb;
+
+ALTER TABLE TESTTRANSACTIONS
+  PARTITION BY RANGE COLUMNS (RUN_TIME)
+  SUBPARTITION BY KEY (APPLICATION) SUBPARTITIONS 4 (
+    PARTITION p_loading VALUES LESS THAN ('000000000001'),
+    PARTITION p2024     VALUES LESS THAN ('202501010000'),
+    PARTITION p2025     VALUES LESS THAN ('202601010000'),
+    PARTITION p2026     VALUES LESS THAN ('202701010000'),
+    PARTITION p2027     VALUES LESS THAN ('202801010000'),
+    PARTITION p2028     VALUES LESS THAN ('202901010000'),
+    PARTITION p_max     VALUES LESS THAN (MAXVALUE)
+  );
+
+ALTER TABLE TESTTRANSACTIONS ADD INDEX TESTTRANSACTIONS_APP_RUN_IX (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+
+-- check :
+-- SELECT PARTITION_NAME, SUBPARTITION_NAME, TABLE_ROWS FROM information_schema.PARTITIONS WHERE TABLE_NAME = 'TESTTRANSACTIONS';
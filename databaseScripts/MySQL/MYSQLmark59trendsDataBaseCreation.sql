@@ -118,6 +118,7 @@ CREATE TABLE IF NOT EXISTS TESTTRANSACTIONS (
   TXN_EPOCH_TIME varchar(13) DEFAULT NULL
   -- INDEX (APPLICATION,RUN_TIME,TXN_ID,TXN_TYPE,IS_CDP_TXN)
   -- the index seemed to slow large datasets 
+  -- for a partitioned and indexed layout see MYSQL_mark59_optional_partitioned_TESTTRANSACTIONS.sql
 );
  
 
@@ -127,25 +128,45 @@ CREATE TABLE IF NOT EXISTS TRANSACTION (
   TXN_ID varchar(128)  NOT NULL DEFAULT '',
   TXN_TYPE varchar(32)  NOT NULL DEFAULT '',
   IS_CDP_TXN char(1) NOT NULL DEFAULT 'N',  
-  TXN_MINIMUM decimal(18,3) NOT NULL,
-  TXN_AVERAGE decimal(18,3) NOT NULL,
-  TXN_MEDIAN decimal(18,3) NOT NULL,   
-  TXN_MAXIMUM decimal(18,3) NOT NULL,
-  TXN_STD_DEVIATION decimal(18,3) NOT NULL,
-  TXN_90TH decimal(18,3) NOT NULL,
-  TXN_95TH decimal(18,3) NOT NULL DEFAULT '-1.000',
-  TXN_99TH decimal(18,3) NOT NULL DEFAULT '-1.000',  
+  TXN_MINIMUM decimal(21,6) NOT NULL,
+  TXN_AVERAGE decimal(21,6) NOT NULL,
+  TXN_MEDIAN decimal(21,6) NOT NULL,   
+  TXN_MAXIMUM decimal(21,6) NOT NULL,
+  TXN_STD_DEVIATION decimal(21,6) NOT NULL,
+  TXN_90TH decimal(21,6) NOT NULL,
+  TXN_95TH decimal(21,6) NOT NULL DEFAULT '-1.000',
+  TXN_99TH decimal(21,6) NOT NULL DEFAULT '-1.000',  
   TXN_PASS bigint NOT NULL,
   TXN_FAIL bigint NOT NULL,
   TXN_STOP bigint NOT NULL,
-  TXN_FIRST decimal(18,3) NOT NULL DEFAULT '-1.000',
-  TXN_LAST decimal(18,3) NOT NULL DEFAULT '-1.000',
-  TXN_SUM decimal(18,3) NOT NULL DEFAULT '-1.000',
+  TXN_FIRST decimal(21,6) NOT NULL DEFAULT '-1.000',
+  TXN_LAST decimal(21,6) NOT NULL DEFAULT '-1.000',
+  TXN_SUM decimal(21,6) NOT NULL DEFAULT '-1.000',
   TXN_DELAY decimal(18,3) NOT NULL DEFAULT '0.000',  
   PRIMARY KEY (APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN)
 );
 
 
+CREATE TABLE IF NOT EXISTS TXNHISTOGRAM (
+  APPLICATION varchar(32) NOT NULL DEFAULT '',
+  RUN_TIME char(12)  NOT NULL DEFAULT '',
+  TXN_ID varchar(128)  NOT NULL DEFAULT '',
+  TXN_TYPE varchar(32)  NOT NULL DEFAULT '',
+  IS_CDP_TXN char(1) NOT NULL DEFAULT 'N',
+  TXN_COUNT bigint NOT NULL,
+  HISTOGRAM text NOT NULL,
+  PRIMARY KEY (APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN)
+);
+
+
+CREATE TABLE IF NOT EXISTS PURGEREQUEST (
+  APPLICATION varchar(32) NOT NULL DEFAULT '',
+  RUN_TIME char(12)  NOT NULL DEFAULT '',
+  REQUESTED_AT bigint NOT NULL,
+  PRIMARY KEY (APPLICATION, RUN_TIME)
+);
+
+
 INSERT INTO `APPLICATIONS` VALUES ('DataHunter','Y','');
 INSERT INTO `APPLICATIONS` VALUES ('DataHunterDistributed','Y','');
 
@@ -169,6 +190,7 @@ INSERT INTO `GRAPHMAPPING` VALUES (10,'TXN_90TH','TRANSACTION','90th','secs','SE
 INSERT INTO `GRAPHMAPPING` VALUES (15,'TXN_90TH_EX_DELAY','TRANSACTION','TXN_90TH - TXN_DELAY','secs','SELECT TXN_ID, TXN_90TH-TXN_DELAY AS BAR_MIN, TXN_90TH AS BAR_MAX FROM TRANSACTION WHERE TXN_TYPE = \'TRANSACTION\' AND RUN_TIME = :runTime AND APPLICATION = :application','Delay','Delay set from SLA.TXN_DELAY at run time');
 INSERT INTO `GRAPHMAPPING` VALUES (20,'TXN_95TH','TRANSACTION','95th','secs','SELECT TXN_ID, TXN_90TH AS BAR_MIN, TXN_99TH BAR_MAX FROM TRANSACTION WHERE TXN_TYPE = ''TRANSACTION'' AND RUN_TIME = :runTime AND APPLICATION = :application','90th to 99th Percentiles','');
 INSERT INTO `GRAPHMAPPING` VALUES (30,'TXN_99TH','TRANSACTION','99th','secs','SELECT TXN_ID, TXN_90TH AS BAR_MIN, TXN_99TH BAR_MAX FROM TRANSACTION WHERE TXN_TYPE = ''TRANSACTION'' AND RUN_TIME = :runTime AND APPLICATION = :application','90th to 99th Percentiles','');
+INSERT INTO `GRAPHMAPPING` VALUES (35,'TXN_99_9TH','TRANSACTION','Percentile(99.9)','secs','SELECT TXN_ID, TXN_99TH AS BAR_MIN, TXN_MAXIMUM AS BAR_MAX FROM TRANSACTION WHERE TXN_TYPE = ''TRANSACTION'' AND RUN_TIME = :runTime AND APPLICATION = :application','99th Percentile to Maximum','99.9th from the run histogram (TXNHISTOGRAM)');
 INSERT INTO `GRAPHMAPPING` VALUES (40,'TXN_PASS','TRANSACTION','Pass','txn count','select TXN_ID, SLA_PASS_COUNT-SLA_PASS_COUNT*SLA_PASS_COUNT_VARIANCE_PERCENT*0.01 as BAR_MIN,SLA_PASS_COUNT+SLA_PASS_COUNT*SLA_PASS_COUNT_VARIANCE_PERCENT*0.01 as BAR_MAX from SLA where SLA_PASS_COUNT>0 and SLA.APPLICATION = :application ','SLA Pass Rates :  Minimum to Maximum','');
 INSERT INTO `GRAPHMAPPING` VALUES (50,'TXN_FAIL','TRANSACTION','Fail','txn count','','','');
 INSERT INTO `GRAPHMAPPING` VALUES (60,'TXN_FAIL_PERCENT','TRANSACTION','COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)','% txn failed',NULL,NULL,'calculated  using pass and fail');
@@ -0,0 +1,66 @@
+-- *************************************************************************************
+-- **
+-- **   OPTIONAL : partitioned and indexed layout for TESTTRANSACTIONS
+-- **
+-- **   Only worth considering if you keep raw results (trends-load option 'keeprawresults')
+-- **   for many runs, so that TESTTRANSACTIONS holds millions of rows.
+-- **   -------------------------------------------------------------------------------
+-- **   TESTTRANSACTIONS is range partitioned on RUN_TIME :
+-- **    - TESTTRANSACTIONS_LOADING holds rows of runs currently being loaded (RUN_TIME
+-- **      '000000000000').  All trends-load queries on TESTTRANSACTIONS include RUN_TIME, so
+-- **      during a load only this (small) partition is read, however much raw data has been
+-- **      kept for earlier runs.  Kept rows of the just loaded run move to their yearly
+-- **      partition when the run time is set at the end of the load.
+-- **    - yearly partitions hold kept raw results, with a DEFAULT partition for anything else.
+-- **      Add further yearly partitions as required (you will need to detach the default
+-- **      partition to do so if it holds rows in the new range).
+-- **
+-- **   The partitions holding kept raw results are indexed by APPLICATION and RUN_TIME.
+-- **   The loading partition is indexed by trends-load itself, AFTER the bulk insert of a run
+-- **   has completed (and the index dropped again before the next bulk insert, as long as no
+-- **   other application is being loaded at the time).
+-- **
+-- **   Run when no trends-load is running. Existing rows are copied to the new table, and the
+-- **   original table is kept as TESTTRANSACTIONS_UNPARTITIONED until you drop it.
+-- **
+-- **   To return to the standard layout :
+-- **     ALTER TABLE TESTTRANSACTIONS RENAME TO TESTTRANSACTIONS_PARTITIONED;
+-- **     ALTER TABLE TESTTRANSACTIONS_UNPARTITIONED RENAME TO TESTTRANSACTIONS;
+-- **   (after copying back any rows added since conversion), then drop TESTTRANSACTIONS_PARTITIONED
+-- **
+-- *************************************************************************************
+
+ALTER TABLE TESTTRANSACTIONS RENAME TO TESTTRANSACTIONS_UNPARTITIONED;
+
+CREATE TABLE TESTTRANSACTIONS (
+  APPLICATION varchar(32) DEFAULT NULL,
+  RUN_TIME char(12) DEFAULT NULL,
+  TXN_ID varchar(128) DEFAULT NULL,
+  TXN_TYPE varchar(32) DEFAULT NULL,
+  IS_CDP_TXN char(1) NOT NULL DEFAULT 'N',
+  TXN_RESULT decimal(18,6) NOT NULL,
+  TXN_PASSED varchar(4) DEFAULT NULL,
+  TXN_EPOCH_TIME varchar(13) DEFAULT NULL
+) PARTITION BY RANGE (RUN_TIME);
+
+CREATE TABLE TESTTRANSACTIONS_LOADING PARTITION OF TESTTRANSACTIONS FOR VALUES FROM ('000000000000') TO ('000000000001');
+CREATE TABLE TESTTRANSACTIONS_2024    PARTITION OF TESTTRANSACTIONS FOR VALUES FROM ('202401010000') TO ('202501010000');
+CREATE TABLE TESTTRANSACTIONS_2025    PARTITION OF TESTTRANSACTIONS FOR VALUES FROM ('202501010000') TO ('202601010000');
+CREATE TABLE TESTTRANSACTIONS_2026    PARTITION OF TESTTRANSACTIONS FOR VALUES FROM ('202601010000') TO ('202701010000');
+CREATE TABLE TESTTRANSACTIONS_2027    PARTITION OF TESTTRANSACTIONS FOR VALUES FROM ('202701010000') TO ('202801010000');
+CREATE TABLE TESTTRANSACTIONS_2028    PARTITION OF TESTTRANSACTIONS FOR VALUES FROM ('202801010000') TO ('202901010000');
+CREATE TABLE TESTTRANSACTIONS_OTHER   PARTITION OF TESTTRANSACTIONS DEFAULT;
+
+INSERT INTO TESTTRANSACTIONS SELECT * FROM TESTTRANSACTIONS_UNPARTITIONED;
+
+-- indexes are created after the copy (faster than maintaining them row by row)
+CREATE INDEX ON TESTTRANSACTIONS_2024  (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+CREATE INDEX ON TESTTRANSACTIONS_2025  (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+CREATE INDEX ON TESTTRANSACTIONS_2026  (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+CREATE INDEX ON TESTTRANSACTIONS_2027  (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+CREATE INDEX ON TESTTRANSACTIONS_2028  (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+CREATE INDEX ON TESTTRANSACTIONS_OTHER (APPLICATION, RUN_TIME, TXN_TYPE, TXN_ID);
+
+ANALYZE TESTTRANSACTIONS;
+
+-- DROP TABLE TESTTRANSACTIONS_UNPARTITIONED;
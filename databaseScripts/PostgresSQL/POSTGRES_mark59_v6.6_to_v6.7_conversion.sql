@@ -0,0 +1,61 @@
+
+-- *************************************************************************************
+-- **
+-- **   from 6.6 to 6.7   
+-- **
+-- **   This is required to be run only if you are using the Mark59 Trends Application
+-- **   -------------------------------------------------------------------------------
+-- **   Transaction summaries are held to 6 decimal places (microseconds), the same as 
+-- **   the TESTTRANSACTIONS TXN_RESULT column, so nano-timed transactions are not 
+-- **   rounded back to milliseconds.  
+-- **
+-- *************************************************************************************
+
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_MINIMUM TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_AVERAGE TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_MEDIAN TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_MAXIMUM TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_STD_DEVIATION TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_90TH TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_95TH TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_99TH TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_FIRST TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_LAST TYPE decimal(21,6);
+ALTER TABLE TRANSACTION ALTER COLUMN TXN_SUM TYPE decimal(21,6);
+
+
+-- *************************************************************************************
+-- **
+-- **   from 6.6 to 6.7   
+-- **
+-- **   This is required to be run only if you are using the Mark59 Trends Application
+-- **   -------------------------------------------------------------------------------
+-- **   A histogram of the response times of each transaction is stored for each run 
+-- **   (TXNHISTOGRAM), so any percentile can be graphed.  The 99.9th percentile graph 
+-- **   (TXN_99_9TH) is added.  
+-- **   
+-- **   Purge requests are recorded (PURGEREQUEST) so that an interrupted purge can be 
+-- **   completed.  
+-- **
+-- *************************************************************************************
+
+CREATE TABLE IF NOT EXISTS TXNHISTOGRAM (
+  APPLICATION varchar(32) NOT NULL DEFAULT '',
+  RUN_TIME char(12)  NOT NULL DEFAULT '',
+  TXN_ID varchar(128)  NOT NULL DEFAULT '',
+  TXN_TYPE varchar(32)  NOT NULL DEFAULT '',
+  IS_CDP_TXN char(1) NOT NULL DEFAULT 'N',
+  TXN_COUNT bigint NOT NULL,
+  HISTOGRAM text NOT NULL,
+  PRIMARY KEY (APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN)
+);
+
+CREATE TABLE IF NOT EXISTS PURGEREQUEST (
+  APPLICATION varchar(32) NOT NULL DEFAULT '',
+  RUN_TIME char(12)  NOT NULL DEFAULT '',
+  REQUESTED_AT bigint NOT NULL,
+  PRIMARY KEY (APPLICATION, RUN_TIME)
+);
+
+DELETE FROM GRAPHMAPPING WHERE GRAPH = 'TXN_99_9TH';
+INSERT INTO GRAPHMAPPING VALUES (35,'TXN_99_9TH','TRANSACTION','Percentile(99.9)','secs','SELECT TXN_ID, TXN_99TH AS BAR_MIN, TXN_MAXIMUM AS BAR_MAX FROM TRANSACTION WHERE TXN_TYPE = ''TRANSACTION'' AND RUN_TIME = :runTime AND APPLICATION = :application','99th Percentile to Maximum','99.9th from the run histogram (TXNHISTOGRAM)');
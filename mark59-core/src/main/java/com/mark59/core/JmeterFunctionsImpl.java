@@ -17,20 +17,19 @@
 package com.mark59.core;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -46,6 +45,7 @@ import org.apache.logging.log4j.Logger;
 
 import com.mark59.core.interfaces.JmeterFunctions;
 import com.mark59.core.utils.Mark59Constants;
+import com.mark59.core.utils.Mark59ArtifactWriter;
 import com.mark59.core.utils.Mark59Constants.JMeterFileDatatypes;
 import com.mark59.core.utils.Mark59LogLevels;
 import com.mark59.core.utils.Mark59LoggingConfig;
@@ -96,6 +96,23 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 */
 	public static final String PRINT_RESULTS_SUMMARY = "PRINT_RESULTS_SUMMARY";
 
+	/**
+	 * Intention is that this string is used as a JMeter Parameter to turn on nanosecond timing of transactions (set to
+	 * "true").  The default is off.
+	 *
+	 * <p>When on, transactions timed using {@link #startTransaction(String)} / {@link #endTransaction(String)} are also
+	 * timed using <code>System.nanoTime</code>, and held as a {@link NanoTimedSampleResult}.  The JMeter millisecond
+	 * elapsed time is still set as normal.  Also see {@link #setTransactionNanos(String, long, boolean)}
+	 * and {@link #nanoTiming(boolean)}
+	 */
+	public static final String NANO_TIMING = "NANO_TIMING";
+
+	/**
+	 * Maximum time tearDown waits for logs queued by the script to be written (when logs are written asynchronously)
+	 * @see Mark59ArtifactWriter
+	 */
+	public static final long PENDING_LOG_WRITES_TIMEOUT_MS = 60000L;
+
 
 	/**
 	 * see {@link Mark59LoggingConfig}
@@ -114,6 +131,17 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 */
 	protected Map<String, SampleResult> transactionMap = new ConcurrentHashMap<>();
 
+	/**
+	 * transactions and datapoints recorded using the <code>record..</code> methods, not yet added to the main result
+	 */
+	private final TransactionRecorder transactionRecorder = new TransactionRecorder();
+
+	/**
+	 * guards the replacement of the sub-results of the main result when transactions are deleted (a ReentrantLock rather
+	 * than a monitor, so a script user running on a virtual thread does not pin its carrier thread while waiting)
+	 */
+	private final ReentrantLock deleteTransactionsLock = new ReentrantLock();
+
 	/**
 	 * holds most Recent Transaction Started  (used in the sample scripts by the DevTools DSL)
 	 */
@@ -141,11 +169,22 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 */
 	protected boolean isPrintResultsSummary = false;
 
+	/**
+	 * Used to flag if transactions should also be timed in nanoseconds.
+	 * The default is not to. Also see {@link #NANO_TIMING}
+	 */
+	protected boolean isNanoTiming = false;
+
 	/**
 	 * map of captured logs as a byte array
-	 * (key would usually be expected to be filename for most implementations)
+	 * (key would usually be expected to be filename for most implementations), held in the order the logs were buffered
+	 */
+	protected Map<String, byte[]> bufferedArtifacts = new LinkedHashMap<>();
+
+	/**
+	 * logs queued by this script for asynchronous writing (see {@link Mark59ArtifactWriter}) which are yet to be written
 	 */
-	protected Map<String, byte[]> bufferedArtifacts = new HashMap<>();
+	protected Mark59ArtifactWriter.PendingWrites pendingLogWrites = new Mark59ArtifactWriter.PendingWrites();
 
 	/**
 	 * the 'constant' bit of all mark59 log names for a particular script
@@ -211,6 +250,11 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 			printResultSummary(true);
 		}
 
+		nanoTiming(false);
+		if (context!=null && String.valueOf(true).equalsIgnoreCase(context.getParameter(JmeterFunctionsImpl.NANO_TIMING,String.valueOf(false)))){
+			nanoTiming(true);
+		}
+
 		mainResult.sampleStart();
 	}
 
@@ -296,12 +340,15 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 			throw new IllegalArgumentException("Error -  a transaction using the passed transaction name appears to be currently"
 					+ " in use (running) in this script : " + transactionLabel);
 		}
-		SampleResult sampleResult = new SampleResult();
+		SampleResult sampleResult = isNanoTiming ? new NanoTimedSampleResult() : new SampleResult();
 		sampleResult.setSampleLabel(transactionLabel);
 		sampleResult.setDataType(jMeterFileDatatypes.getDatatypeText());   // eg "CDP" for DevTools, blank for standard txn.
 		transactionMap.put(transactionLabel, sampleResult);
 		mostRecentTransactionStarted = transactionLabel;
 		sampleResult.sampleStart();
+		if (isNanoTiming) {
+			((NanoTimedSampleResult)sampleResult).nanoStart();
+		}
 	}
 
 
@@ -371,22 +418,24 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 		if (StringUtils.isBlank(transactionLabel))
 			throw new IllegalArgumentException("transactionLabel cannot be null or empty");
 
-		if (!transactionMap.containsKey(transactionLabel))
+		SampleResult subResult = transactionMap.remove(transactionLabel);
+		if (subResult == null)
 			throw new NoSuchElementException(
 					"Could not find a transactionn to end matching the passed label : "	+ transactionLabel);
 
+		if (subResult instanceof NanoTimedSampleResult)
+			((NanoTimedSampleResult)subResult).nanoEnd();
+
 		if (StringUtils.isBlank(responseCode))
 			responseCode = result.getOutcomeResponseCode();
 
-		SampleResult subResult = transactionMap.get(transactionLabel);
 		subResult.sampleEnd();
 		subResult.setSuccessful(result.isOutcomeSuccess());
 		subResult.setResponseMessage(result.getOutcomeText());
 		subResult.setResponseCode(responseCode);     // 200 | -1 | responseCode (passed string)
 		subResult.setSampleLabel(transactionLabel);
+		addRecordedTransactionsToMainResult();
 		mainResult.addSubResult(subResult, false);   // 'false' prevents strange indexed named transactions (from Jmeter 5.0)
-
-		transactionMap.remove(transactionLabel);
 		return subResult;
 	}
 
@@ -406,21 +455,23 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 		if (StringUtils.isBlank(transactionLabel))
 			throw new IllegalArgumentException("transactionLabel cannot be null or empty");
 
-		if (!transactionMap.containsKey(transactionLabel))
+		SampleResult subResult = transactionMap.remove(transactionLabel);
+		if (subResult == null)
 			throw new NoSuchElementException(
 					"Could not find a transactionn to end matching the passed label : "	+ transactionLabel);
 
 		if (StringUtils.isBlank(responseCode))
 			responseCode = result.getOutcomeResponseCode();
 
+		if (subResult instanceof NanoTimedSampleResult)
+			((NanoTimedSampleResult)subResult).nanoEnd();
+
 		// timing is captured and returned but NOT added to the main Result
-		SampleResult subResult = transactionMap.get(transactionLabel);
 		subResult.sampleEnd();
 		subResult.setSuccessful(result.isOutcomeSuccess());
 		subResult.setResponseMessage(result.getOutcomeText());
 		subResult.setResponseCode(responseCode);     // 200 | -1 | responseCode (passed string)
 		subResult.setSampleLabel(transactionLabel);
-		transactionMap.remove(transactionLabel);
 		return subResult;
 	}
 
@@ -508,6 +559,47 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	}
 
 
+	/**
+	 * As per {@link #setTransaction(String, long, boolean)}, but the transaction time is given in nanoseconds (for example
+	 * a time calculated from <code>System.nanoTime</code>, or from DevTools event timestamps).
+	 *
+	 * <p>The transaction is added as a {@link NanoTimedSampleResult}, with the JMeter elapsed time set to the transaction
+	 * time rounded to milliseconds.  It does not depend on {@link #NANO_TIMING} being set.
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param elapsedNanos time taken for the transaction (nanoseconds)
+	 * @param success the success (true) or failure (false) state of the transaction
+	 * @throws IllegalArgumentException if the transactionLabel is null or empty
+	 * @return SampleResult (a NanoTimedSampleResult)
+	 */
+	@Override
+	public SampleResult setTransactionNanos(String transactionLabel, long elapsedNanos, boolean success) {
+		return setTransactionNanos(transactionLabel, JMeterFileDatatypes.TRANSACTION, elapsedNanos, success, null);
+	}
+
+
+	/**
+	 * As per {@link #setTransactionNanos(String, long, boolean)}, with the additional options of setting the data type
+	 * field of the JMeter results file and a response code.
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param jMeterFileDatatypes  a {@link JMeterFileDatatypes} (it's text value will be written in the data type field of the JMeter results file)
+	 * @param elapsedNanos time taken for the transaction (nanoseconds)
+	 * @param success success state of the transaction
+	 * @param responseCode response message (useful for error transactions)
+	 * @throws IllegalArgumentException if the transactionLabel is null or empty
+	 * @return SampleResult (a NanoTimedSampleResult)
+	 */
+	@Override
+	public SampleResult setTransactionNanos(String transactionLabel, JMeterFileDatatypes jMeterFileDatatypes, long elapsedNanos,
+			boolean success, String responseCode) {
+		NanoTimedSampleResult subResult = new NanoTimedSampleResult();
+		subResult.setElapsedNanos(elapsedNanos);
+		return addSubResult(subResult, transactionLabel, NanoTimedSampleResult.nanosToMillis(elapsedNanos),
+				success ? Outcome.PASS : Outcome.FAIL, jMeterFileDatatypes, responseCode);
+	}
+
+
 
 	/**
 	 * Similar to this.{@link #userDataPoint(String, long)}, but instead of just being able to create a JMeter sub-result of
@@ -550,12 +642,17 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 
 
 	private SampleResult createSubResult(String dataPointName, long dataPointValue, Outcome result, JMeterFileDatatypes jmeterFileDatatypes, String responseCode){
+		return addSubResult(new SampleResult(), dataPointName, dataPointValue, result, jmeterFileDatatypes, responseCode);
+	}
+
+
+	private SampleResult addSubResult(SampleResult subResult, String dataPointName, long dataPointValue, Outcome result,
+			JMeterFileDatatypes jmeterFileDatatypes, String responseCode){
 		if (StringUtils.isBlank(dataPointName))
 			throw new IllegalArgumentException("dataPointName cannot be null or empty");
 		if (StringUtils.isBlank(responseCode))
 			responseCode = result.getOutcomeResponseCode();
 
-		SampleResult subResult = new SampleResult();
 		subResult.setSuccessful(result.isOutcomeSuccess());             // true | false
 		subResult.setResponseCode(responseCode);                        // 200 | -1 | responseCode (passed string)
 		subResult.setResponseMessage(result.getOutcomeText());          // PASS | FAIL
@@ -563,11 +660,77 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 		subResult.setSampleLabel(dataPointName);
 		subResult.sampleStart();
 		subResult.setEndTime(subResult.getStartTime() + dataPointValue );
+		addRecordedTransactionsToMainResult();
 		mainResult.addSubResult(subResult, false);
 		return subResult;
 	}
 
 
+	/**
+	 * Records a transaction with a given time, as per {@link #setTransaction(String, long, boolean)}, but without creating
+	 * a JMeter SampleResult at this point.  The transaction is held in a compact form, and is added to the main result
+	 * (as a sub-result) when the main result is next accessed or changed, at the latest at {@link #tearDown()}.
+	 *
+	 * <p>Intended for scripts which set a large number of transactions or datapoints (for example, transactions derived
+	 * from DevTools network events).  Sub-results are added to the main result in the order they were set or recorded.
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param transactionTime time taken for the transaction (ms)
+	 * @param success the success (true) or failure (false) state of the transaction
+	 * @throws IllegalArgumentException if the transactionLabel is null or empty
+	 */
+	@Override
+	public void recordTransaction(String transactionLabel, long transactionTime, boolean success) {
+		recordTransaction(transactionLabel, JMeterFileDatatypes.TRANSACTION, transactionTime, success, null);
+	}
+
+
+	/**
+	 * As per {@link #recordTransaction(String, long, boolean)}, with the additional options of setting the data type
+	 * field of the JMeter results file and a response code.
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param jMeterFileDatatypes  a {@link JMeterFileDatatypes} (it's text value will be written in the data type field of the JMeter results file)
+	 * @param transactionTime time taken for the transaction (ms)
+	 * @param success success state of the transaction
+	 * @param responseCode response message (defaults to "200" / "-1" for a passed/failed transaction when blank or null)
+	 * @throws IllegalArgumentException if the transactionLabel is null or empty
+	 */
+	@Override
+	public void recordTransaction(String transactionLabel, JMeterFileDatatypes jMeterFileDatatypes, long transactionTime, boolean success,
+			String responseCode) {
+		if (StringUtils.isBlank(transactionLabel))
+			throw new IllegalArgumentException("transactionLabel cannot be null or empty");
+		transactionRecorder.record(transactionLabel, jMeterFileDatatypes, transactionTime, success, responseCode);
+	}
+
+
+	/**
+	 * Records a DATAPOINT, as per {@link #userDataPoint(String, long)}, but without creating a JMeter SampleResult at this
+	 * point (see {@link #recordTransaction(String, long, boolean)}).
+	 *
+	 * @param dataPointName label for the DATAPOINT
+	 * @param dataPointValue an arbitrary non-timing metric
+	 * @throws IllegalArgumentException if the dataPointName is null or empty
+	 */
+	@Override
+	public void recordDataPoint(String dataPointName, long dataPointValue) {
+		if (StringUtils.isBlank(dataPointName))
+			throw new IllegalArgumentException("dataPointName cannot be null or empty");
+		transactionRecorder.record(dataPointName, JMeterFileDatatypes.DATAPOINT, dataPointValue, true, null);
+	}
+
+
+	/**
+	 * Adds any transactions and datapoints held by the recorder to the main result
+	 */
+	private void addRecordedTransactionsToMainResult() {
+		if (transactionRecorder.size() > 0) {
+			transactionRecorder.addTo(mainResult);
+		}
+	}
+
+
 	/**
 	 * Rename a transaction that has already completed within a running script.  If the same transaction
 	 * name is used multiple times, all occurrences of the transaction name will be renamed.
@@ -624,6 +787,7 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 * @see JmeterFunctionsImpl#renameTransactionsPrefixedBy(String, String)
 	 */
 	public void renameTransactions(Predicate<SampleResult> transactionSelection, Function<SampleResult, String> transactionRename){
+		addRecordedTransactionsToMainResult();
 		SampleResult[] subresults =  mainResult.getSubResults();
 
 		for (int i = 0; i < subresults.length; i++) {
@@ -680,21 +844,27 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 * @see JmeterFunctionsImpl#deleteTransaction(String)
 	 * @see JmeterFunctionsImpl#deleteTransactionsPrefixedBy(String)
 	 */
-	public synchronized void deleteTransactions(Predicate<SampleResult> transactionSelection){
-		SampleResult[] originalResults = mainResult.getSubResults();
-
-		// Build the filtered results list atomically before modifying main result
-		List<SampleResult> filteredResults = new ArrayList<>();
-		for (SampleResult sampleResult : originalResults) {
-			if (!transactionSelection.test(sampleResult)) {
-				filteredResults.add(sampleResult);
+	public void deleteTransactions(Predicate<SampleResult> transactionSelection){
+		deleteTransactionsLock.lock();
+		try {
+			addRecordedTransactionsToMainResult();
+			SampleResult[] originalResults = mainResult.getSubResults();
+
+			// Build the filtered results list atomically before modifying main result
+			List<SampleResult> filteredResults = new ArrayList<>();
+			for (SampleResult sampleResult : originalResults) {
+				if (!transactionSelection.test(sampleResult)) {
+					filteredResults.add(sampleResult);
+				}
 			}
-		}
 
-		// Perform atomic replacement: remove all then add filtered results
-		mainResult.removeSubResults();
-		for (SampleResult sampleResult : filteredResults) {
-			mainResult.addSubResult(sampleResult, false);
+			// Perform atomic replacement: remove all then add filtered results
+			mainResult.removeSubResults();
+			for (SampleResult sampleResult : filteredResults) {
+				mainResult.addSubResult(sampleResult, false);
+			}
+		} finally {
+			deleteTransactionsLock.unlock();
 		}
 	}
 	/**
@@ -704,6 +874,7 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 */
 	@Override
 	public SampleResult getMainResult() {
+		addRecordedTransactionsToMainResult();
 		return mainResult;
 	}
 
@@ -733,6 +904,9 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 * <p>Once any outstanding transactions are completed, the SampleResult object is
 	 * finalised (its status is set as PASS or FAIL).</p>
 	 *
+	 * <p>When logs are being written asynchronously (see {@link Mark59ArtifactWriter}), waits for the logs queued
+	 * by this script to be written first.  The script is failed if any of them could not be written.</p>
+	 *
 	 * <p>This method implements comprehensive error handling to ensure that failures in individual
 	 * teardown operations don't prevent the overall teardown process from completing. Critical
 	 * operations like finalizing the main result are prioritized over optional operations like logging.</p>
@@ -747,9 +921,24 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 		boolean tearDownSuccessful = true;
 		StringBuilder errorMessages = new StringBuilder();
 
+		// Step 0: Wait for any logs queued for asynchronous writing
+		if (!pendingLogWrites.awaitCompletion(PENDING_LOG_WRITES_TIMEOUT_MS)) {
+			tearDownSuccessful = false;
+			errorMessages.append(pendingLogWrites.getPending()).append(" queued logs were still not written after ")
+					.append(PENDING_LOG_WRITES_TIMEOUT_MS).append(" ms; ");
+			failTest();
+		}
+		if (pendingLogWrites.getFailed() > 0) {
+			tearDownSuccessful = false;
+			errorMessages.append("Failed to write ").append(pendingLogWrites.getFailed()).append(" queued logs; ");
+			failTest();
+		}
+
 		// Step 1: Handle in-flight transactions (critical - must complete)
 		try {
+			addRecordedTransactionsToMainResult();
 			failInFlightTransactions();
+			carryElapsedNanosInResponseMessages();
 		} catch (Exception e) {
 			tearDownSuccessful = false;
 			errorMessages.append("Failed to handle in-flight transactions: ").append(e.getMessage()).append("; ");
@@ -806,6 +995,21 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 			LOG.debug("TearDown completed successfully for thread: " + Thread.currentThread().getName());
 		}
 	}
+
+
+	/**
+	 * Appends the nanosecond time of each passed nano-timed transaction to its response message, so the time is
+	 * written to the JMeter results file (see {@link NanoTimedSampleResult#carryElapsedNanosInResponseMessage()}).
+	 */
+	private void carryElapsedNanosInResponseMessages() {
+		for (SampleResult sampleResult : mainResult.getSubResults()) {
+			if (sampleResult instanceof NanoTimedSampleResult) {
+				((NanoTimedSampleResult)sampleResult).carryElapsedNanosInResponseMessage();
+			}
+		}
+	}
+
+
 	/**
 	 * <p>Traverses the internal created transactions Map, looking for any transactions that had been
 	 * started but not completed.</p>
@@ -914,6 +1118,16 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	}
 
 
+	/**
+	 * Used to flag if transactions started from now on should also be timed in nanoseconds.<br>
+	 * See {@link #NANO_TIMING}
+	 * @param isNanoTiming flag if transactions should be nano-timed
+	 */
+	public void nanoTiming(boolean isNanoTiming) {
+		this.isNanoTiming = isNanoTiming;
+	}
+
+
 	/**
 	 * @return a map of the buffered logs (keyed by name)
 	 */
@@ -1203,6 +1417,17 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 			throw new RuntimeException(errorMsg);
 		}
 
+		if (mark59LogBytes == null) {
+			mark59LogBytes = "(null)".getBytes();
+		}
+
+		Mark59ArtifactWriter artifactWriter = Mark59ArtifactWriter.getInstance();
+		if (artifactWriter.isAsync()) {
+			LOG.debug("Queueing log to be written to disk: " + fullyQualifiedMark59LogName);
+			artifactWriter.submit(fullyQualifiedMark59LogName, mark59LogBytes, pendingLogWrites);
+			return;
+		}
+
 		LOG.info(MessageFormat.format("Writing log to disk: {0}", fullyQualifiedMark59LogName));
 		System.out.println("[" + Thread.currentThread().getName() + "]  Writing log to disk: " + fullyQualifiedMark59LogName);
 
@@ -1225,14 +1450,9 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 			}
 		}
 
-		if (mark59LogBytes == null) {
-			mark59LogBytes = "(null)".getBytes();
-		}
-
 		// Write file with comprehensive error handling
-		try (OutputStream stream = new FileOutputStream(fullyQualifiedMark59LogFile)) {
-			stream.write(mark59LogBytes);
-			stream.flush(); // Ensure data is written to disk
+		try {
+			artifactWriter.writeToDisk(fullyQualifiedMark59LogFile.getPath(), mark59LogBytes);
 			LOG.debug("Successfully wrote " + mark59LogBytes.length + " bytes to: " + fullyQualifiedMark59LogName);
 		} catch (SecurityException e) {
 			String errorMsg = "Security error writing log file '" + fullyQualifiedMark59LogName + "': " + e.getMessage();
@@ -1292,6 +1512,7 @@ public class JmeterFunctionsImpl implements JmeterFunctions {
 	 * @return  a list of sample results
 	 */
 	public List<SampleResult> getSampleResultFromMainResultWithLabel(String label) {
+		addRecordedTransactionsToMainResult();
 		return Arrays.stream(mainResult.getSubResults())
 				.filter(sr -> sr.getSampleLabel().equals(label))
 				.collect(Collectors.toList());
@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.core;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.core.utils.Mark59Utils;
+
+/**
+ * A JMeter {@link SampleResult} which also holds the elapsed time of a transaction in nanoseconds, timed using the
+ * monotonic {@link System#nanoTime()} clock.
+ *
+ * <p>The millisecond fields of the JMeter sample result are set as normal, so JMeter listeners and reports are
+ * unaffected.  JMeter results files have no field for the nanosecond time, so at tear down the nanosecond time of a
+ * passed transaction is appended to its response message (see {@link #carryElapsedNanosInResponseMessage()} and
+ * {@link Mark59Constants#ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER}), which the JMeter CSV and XML results writers write
+ * as normal.  The Results Splitter and Trends Load use it in preference to the millisecond elapsed time of the
+ * transaction.
+ *
+ * <p>Created by {@link JmeterFunctionsImpl} when nanosecond timing is on (see {@link JmeterFunctionsImpl#NANO_TIMING}).
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class NanoTimedSampleResult extends SampleResult {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * value returned by {@link #elapsedNanosOf(SampleResult)} for a sample result which has not been nano-timed
+	 */
+	public static final long NOT_NANO_TIMED = -1L;
+
+	private transient long startNanos;
+	private long elapsedNanos = NOT_NANO_TIMED;
+
+
+	/**
+	 * Start the nanosecond timer (expected to be called along with {@link #sampleStart()})
+	 */
+	public void nanoStart() {
+		startNanos = System.nanoTime();
+	}
+
+
+	/**
+	 * Stop the nanosecond timer (expected to be called along with {@link #sampleEnd()})
+	 */
+	public void nanoEnd() {
+		elapsedNanos = System.nanoTime() - startNanos;
+	}
+
+
+	/**
+	 * @return the elapsed time in nanoseconds, or {@link #NOT_NANO_TIMED} if the timer has not been stopped (or set)
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+
+	/**
+	 * @param elapsedNanos elapsed time in nanoseconds (for a transaction timed outside of this sample result)
+	 */
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+
+	/**
+	 * @param sampleResult any sample result (transaction)
+	 * @return the nanosecond elapsed time of the sample result, or {@link #NOT_NANO_TIMED} if it was not nano-timed
+	 */
+	public static long elapsedNanosOf(SampleResult sampleResult) {
+		if (sampleResult instanceof NanoTimedSampleResult) {
+			return ((NanoTimedSampleResult)sampleResult).getElapsedNanos();
+		}
+		return NOT_NANO_TIMED;
+	}
+
+
+	/**
+	 * Appends the nanosecond elapsed time to the response message of this transaction if it has passed (see
+	 * {@link Mark59Utils#responseMessageWithElapsedNanos(String, long)}), so the time is written to the JMeter results
+	 * file along with the transaction.  A failed transaction keeps its response message as is, so JMeter error reports
+	 * still group its failures.  Does nothing if the time has already been appended, or the transaction was not nano-timed.
+	 */
+	public void carryElapsedNanosInResponseMessage() {
+		if (elapsedNanos == NOT_NANO_TIMED || !isSuccessful()
+				|| Mark59Utils.elapsedNanosInResponseMessage(getResponseMessage()) != NOT_NANO_TIMED) {
+			return;
+		}
+		setResponseMessage(Mark59Utils.responseMessageWithElapsedNanos(getResponseMessage(), elapsedNanos));
+	}
+
+
+	/**
+	 * Convert a nanosecond elapsed time to milliseconds (rounded), as held in the JMeter elapsed time
+	 * @param elapsedNanos elapsed time in nanoseconds
+	 * @return elapsed time in milliseconds
+	 */
+	public static long nanosToMillis(long elapsedNanos) {
+		return (elapsedNanos + 500_000L) / 1_000_000L;
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jmeter.samplers.SampleResult;
+
+import com.mark59.core.utils.Mark59Constants.JMeterFileDatatypes;
+
+/**
+ * Holds transactions and datapoints recorded by the <code>record..</code> methods of {@link JmeterFunctionsImpl} in
+ * primitive arrays, so that no JMeter {@link SampleResult} is created until the recorded entries are added to the main
+ * result (see {@link #addTo(SampleResult)}).
+ *
+ * <p>The arrays are pre-sized and only grow when full.  Labels are pooled, so labels built at runtime (such as
+ * DevTools transaction names derived from a URL) are held as one String per distinct label.
+ *
+ * <p>A recorder belongs to the one script instance, but the recording methods are locked as entries may be recorded by
+ * a listener thread (eg a DevTools event listener) as well as the script thread.  A ReentrantLock is used rather than a
+ * monitor, so that a script user running on a virtual thread does not pin its carrier thread while waiting for the lock.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class TransactionRecorder {
+
+	static final int INITIAL_CAPACITY = 64;
+
+	private static final int LABEL_POOL_MAX_SIZE = 10000;
+	private static final Map<String, String> labelPool = new ConcurrentHashMap<>();
+
+	private String[] labels = new String[INITIAL_CAPACITY];
+	private JMeterFileDatatypes[] datatypes = new JMeterFileDatatypes[INITIAL_CAPACITY];
+	private long[] startTimes = new long[INITIAL_CAPACITY];
+	private long[] values = new long[INITIAL_CAPACITY];
+	private boolean[] successes = new boolean[INITIAL_CAPACITY];
+	private String[] responseCodes = new String[INITIAL_CAPACITY];
+	private int size = 0;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+
+	/**
+	 * Record a transaction or datapoint which started now
+	 *
+	 * @param label label of the transaction or datapoint (already validated)
+	 * @param datatype the data type for the JMeter results file
+	 * @param value transaction time (ms), or the datapoint value
+	 * @param success success state
+	 * @param responseCode response code (null for the default of the success state)
+	 */
+	void record(String label, JMeterFileDatatypes datatype, long value, boolean success, String responseCode) {
+		String pooledLabel = pooled(label);
+		lock.lock();
+		try {
+			if (size == labels.length) {
+				grow();
+			}
+			labels[size] = pooledLabel;
+			datatypes[size] = datatype;
+			startTimes[size] = System.currentTimeMillis();
+			values[size] = value;
+			successes[size] = success;
+			responseCodes[size] = responseCode;
+			size++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * @return the number of recorded entries not yet added to a main result
+	 */
+	int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Create a sub-result for each recorded entry, in the order they were recorded, add them to the main result and
+	 * clear the recorder
+	 *
+	 * @param mainResult the main result of the script
+	 */
+	void addTo(SampleResult mainResult) {
+		lock.lock();
+		try {
+			for (int i = 0; i < size; i++) {
+				Outcome outcome = successes[i] ? Outcome.PASS : Outcome.FAIL;
+				String responseCode = StringUtils.isBlank(responseCodes[i]) ? outcome.getOutcomeResponseCode() : responseCodes[i];
+
+				SampleResult subResult = new SampleResult();
+				subResult.setSuccessful(outcome.isOutcomeSuccess());
+				subResult.setResponseCode(responseCode);
+				subResult.setResponseMessage(outcome.getOutcomeText());
+				subResult.setDataType(datatypes[i].getDatatypeText());
+				subResult.setSampleLabel(labels[i]);
+				subResult.setStartTime(startTimes[i]);
+				subResult.setEndTime(startTimes[i] + values[i]);
+				mainResult.addSubResult(subResult, false);
+
+				labels[i] = null;
+				responseCodes[i] = null;
+			}
+			size = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+
+	private void grow() {
+		int newCapacity = labels.length * 2;
+		labels = Arrays.copyOf(labels, newCapacity);
+		datatypes = Arrays.copyOf(datatypes, newCapacity);
+		startTimes = Arrays.copyOf(startTimes, newCapacity);
+		values = Arrays.copyOf(values, newCapacity);
+		successes = Arrays.copyOf(successes, newCapacity);
+		responseCodes = Arrays.copyOf(responseCodes, newCapacity);
+	}
+
+
+	private static String pooled(String label) {
+		String pooledLabel = labelPool.get(label);
+		if (pooledLabel != null) {
+			return pooledLabel;
+		}
+		if (labelPool.size() >= LABEL_POOL_MAX_SIZE) {
+			return label;
+		}
+		pooledLabel = labelPool.putIfAbsent(label, label);
+		return pooledLabel != null ? pooledLabel : label;
+	}
+
+}
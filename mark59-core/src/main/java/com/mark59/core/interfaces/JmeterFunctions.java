@@ -122,7 +122,30 @@ public interface JmeterFunctions {
 	 */
 	SampleResult setTransaction(String transactionLabel, JMeterFileDatatypes jMeterFileDatatypes, long transactionTime,
 			boolean success, String responseCode);
-	
+
+	/**
+	 * Add a transaction with a given time in nanoseconds (the JMeter elapsed time is set to the time rounded to milliseconds).
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param elapsedNanos time taken for the transaction (nanoseconds)
+	 * @param success success state of the transaction
+	 * @return SampleResult
+	 */
+	SampleResult setTransactionNanos(String transactionLabel, long elapsedNanos, boolean success);
+
+	/**
+	 * As per {@link #setTransactionNanos(String, long, boolean)}, with the data type and response code.
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param jMeterFileDatatypes  a {@link JMeterFileDatatypes} (it's text value will be written in the data type field of the JMeter results file)
+	 * @param elapsedNanos time taken for the transaction (nanoseconds)
+	 * @param success success state of the transaction
+	 * @param responseCode response message (useful for error transactions)
+	 * @return SampleResult
+	 */
+	SampleResult setTransactionNanos(String transactionLabel, JMeterFileDatatypes jMeterFileDatatypes, long elapsedNanos,
+			boolean success, String responseCode);
+
 	/**
 	 * Add a single datapoint.
 	 * <p>A datapoint reflects an arbitrary discrete value, other than time to complete a transaction.</p>
@@ -145,6 +168,41 @@ public interface JmeterFunctions {
 	 */
 	SampleResult userDatatypeEntry(String dataPointName, long dataPointValue,  JMeterFileDatatypes jmeterFileDatatypes);
 
+
+	/**
+	 * Record a transaction with a given time, without creating a JMeter SampleResult until the main result is
+	 * next accessed (a lower overhead alternative to {@link #setTransaction(String, long, boolean)} for scripts
+	 * setting many transactions).
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param transactionTime time taken for the transaction (ms)
+	 * @param success success state of the transaction
+	 */
+	void recordTransaction(String transactionLabel, long transactionTime, boolean success);
+
+
+	/**
+	 * As per {@link #recordTransaction(String, long, boolean)}, with the data type and response code.
+	 *
+	 * @param transactionLabel label for the transaction
+	 * @param jMeterFileDatatypes the data type for the JMeter results file
+	 * @param transactionTime time taken for the transaction (ms)
+	 * @param success success state of the transaction
+	 * @param responseCode response message (useful for error transactions)
+	 */
+	void recordTransaction(String transactionLabel, JMeterFileDatatypes jMeterFileDatatypes, long transactionTime,
+			boolean success, String responseCode);
+
+
+	/**
+	 * Record a single datapoint, without creating a JMeter SampleResult until the main result is next accessed
+	 * (a lower overhead alternative to {@link #userDataPoint(String, long)}).
+	 *
+	 * @param dataPointName label for the datapoint
+	 * @param dataPointValue value for the datapoint
+	 */
+	void recordDataPoint(String dataPointName, long dataPointValue);
+
 	
 	/**
 	 * Return results from running the test
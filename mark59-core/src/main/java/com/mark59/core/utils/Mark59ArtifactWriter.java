@@ -0,0 +1,404 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.core.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes Mark59 log artifacts (screenshots, page sources, performance logs, stack traces..) to disk.
+ *
+ * <p>By default artifacts are written on the script thread as they are logged.  When property
+ * <b>mark59.log.writer.async</b> is set to true, the script thread only queues the artifact, and it is written
+ * by a writer thread, so disk I/O is kept out of the script's transaction and think times.  The queue is bounded.
+ * What happens when it is full is set by <b>mark59.log.writer.full.policy</b>:
+ * <ul>
+ * <li>BLOCK (the default) - the script waits for space in the queue (back-pressure).  If no space becomes free
+ * within {@link #BLOCK_TIMEOUT_MS} the artifact is written by the script thread</li>
+ * <li>DROP - the artifact is discarded (dropped artifacts are counted and logged)</li>
+ * <li>CALLER_WRITES - the artifact is written by the script thread</li>
+ * </ul>
+ *
+ * <p>Each script tracks the artifacts it has queued using a {@link PendingWrites}, and waits for them to be written
+ * as it finishes (see {@link PendingWrites#awaitCompletion(long)}).  Any artifacts still queued at JVM shutdown are
+ * written by a shutdown hook.
+ *
+ * <p>When <b>mark59.log.writer.compress</b> is set to true, artifacts other than images are gzip compressed as they
+ * are written (and '.gz' appended to the file name).
+ *
+ * <p>A Singleton pattern is used, so one set of writer threads is shared by all scripts in the JVM.
+ *
+ * @see PropertiesKeys#MARK59_PROP_LOG_WRITER_ASYNC
+ * @see PropertiesKeys#MARK59_PROP_LOG_WRITER_THREADS
+ * @see PropertiesKeys#MARK59_PROP_LOG_WRITER_QUEUE_SIZE
+ * @see PropertiesKeys#MARK59_PROP_LOG_WRITER_FULL_POLICY
+ * @see PropertiesKeys#MARK59_PROP_LOG_WRITER_COMPRESS
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class Mark59ArtifactWriter {
+
+	private static final Logger LOG = LogManager.getLogger(Mark59ArtifactWriter.class);
+
+	/** Action taken when the queue of artifacts waiting to be written is full */
+	public enum FullQueuePolicy {
+		/** wait for space in the queue (back-pressure), for up to {@link Mark59ArtifactWriter#BLOCK_TIMEOUT_MS} */
+		BLOCK,
+		/** discard the artifact */
+		DROP,
+		/** write the artifact on the script thread */
+		CALLER_WRITES
+	}
+
+	/** maximum time a script waits for space in a full queue (BLOCK policy) before writing the artifact itself */
+	public static final long BLOCK_TIMEOUT_MS = 30000L;
+
+	private static final int DEFAULT_WRITER_THREADS = 2;
+	private static final int DEFAULT_QUEUE_SIZE = 1000;
+	private static final long SHUTDOWN_WAIT_MS = 60000L;
+	private static final List<String> UNCOMPRESSED_SUFFIXES = List.of("jpg", "jpeg", "png", "gif", "webp", "gz", "zip");
+
+	private static Mark59ArtifactWriter instance;
+
+	private final boolean async;
+	private final FullQueuePolicy fullQueuePolicy;
+	private final boolean compress;
+	private final BlockingQueue<QueuedArtifact> queue;
+
+	private final AtomicInteger writesInProgress	= new AtomicInteger();
+	private final AtomicLong artifactsQueued		= new AtomicLong();
+	private final AtomicLong artifactsWritten		= new AtomicLong();
+	private final AtomicLong artifactsDropped		= new AtomicLong();
+	private final AtomicLong artifactsFailed		= new AtomicLong();
+	private final AtomicLong callerWrites			= new AtomicLong();
+	private final AtomicLong bytesWritten			= new AtomicLong();
+
+
+	/**
+	 * @param async true to write artifacts on writer threads
+	 * @param writerThreads number of writer threads (when async)
+	 * @param queueSize maximum number of artifacts waiting to be written (when async)
+	 * @param fullQueuePolicy action when the queue is full
+	 * @param compress gzip compress artifacts (other than images) as they are written
+	 */
+	public Mark59ArtifactWriter(boolean async, int writerThreads, int queueSize, FullQueuePolicy fullQueuePolicy, boolean compress) {
+		this.async = async;
+		this.fullQueuePolicy = fullQueuePolicy;
+		this.compress = compress;
+		this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+
+		if (async) {
+			for (int i = 1; i <= Math.max(writerThreads, 1); i++) {
+				Thread writerThread = new Thread(this::drainQueue, "Mark59ArtifactWriter-" + i);
+				writerThread.setDaemon(true);
+				writerThread.start();
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "Mark59ArtifactWriter-shutdown"));
+			LOG.info("Mark59 artifacts will be written asynchronously (writer threads " + Math.max(writerThreads, 1)
+					+ ", queue size " + queue.remainingCapacity() + ", full queue policy " + fullQueuePolicy
+					+ ", compress " + compress + ")");
+		}
+	}
+
+
+	/**
+	 * @return the Mark59ArtifactWriter for this JVM, configured from mark59.properties
+	 */
+	public static synchronized Mark59ArtifactWriter getInstance() {
+		if (instance == null) {
+			instance = createFromProperties();
+		}
+		return instance;
+	}
+
+
+	private static Mark59ArtifactWriter createFromProperties() {
+		boolean async = false;
+		int writerThreads = DEFAULT_WRITER_THREADS;
+		int queueSize = DEFAULT_QUEUE_SIZE;
+		FullQueuePolicy fullQueuePolicy = FullQueuePolicy.BLOCK;
+		boolean compress = false;
+		try {
+			PropertiesReader pr = PropertiesReader.getInstance();
+			async = Mark59Constants.TRUE.equalsIgnoreCase(StringUtils.trim(pr.getProperty(PropertiesKeys.MARK59_PROP_LOG_WRITER_ASYNC)));
+			compress = Mark59Constants.TRUE.equalsIgnoreCase(StringUtils.trim(pr.getProperty(PropertiesKeys.MARK59_PROP_LOG_WRITER_COMPRESS)));
+			writerThreads = intProperty(pr, PropertiesKeys.MARK59_PROP_LOG_WRITER_THREADS, DEFAULT_WRITER_THREADS);
+			queueSize = intProperty(pr, PropertiesKeys.MARK59_PROP_LOG_WRITER_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+
+			String policy = StringUtils.trim(pr.getProperty(PropertiesKeys.MARK59_PROP_LOG_WRITER_FULL_POLICY));
+			if (StringUtils.isNotBlank(policy)) {
+				try {
+					fullQueuePolicy = FullQueuePolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+				} catch (IllegalArgumentException e) {
+					LOG.warn("Property " + PropertiesKeys.MARK59_PROP_LOG_WRITER_FULL_POLICY + " should be one of BLOCK, DROP or "
+							+ "CALLER_WRITES (was " + policy + "). BLOCK will be assumed.");
+				}
+			}
+		} catch (IOException e) {
+			LOG.info("Failed to read Mark59.properties while configuring the artifact writer. Artifacts will be written synchronously.");
+		}
+		return new Mark59ArtifactWriter(async, writerThreads, queueSize, fullQueuePolicy, compress);
+	}
+
+
+	private static int intProperty(PropertiesReader pr, String propertyKey, int defaultValue) {
+		String value = StringUtils.trim(pr.getProperty(propertyKey));
+		if (StringUtils.isBlank(value)) {
+			return defaultValue;
+		}
+		if (!StringUtils.isNumeric(value) || Integer.parseInt(value) < 1) {
+			LOG.warn("Property " + propertyKey + " should be a whole number greater than zero (was " + value + "). "
+					+ defaultValue + " will be assumed.");
+			return defaultValue;
+		}
+		return Integer.parseInt(value);
+	}
+
+
+	/**
+	 * @return true if artifacts are written on writer threads
+	 */
+	public boolean isAsync() {
+		return async;
+	}
+
+
+	/**
+	 * Queue an artifact to be written by a writer thread (or write it, or drop it, when the queue is full as
+	 * determined by the full queue policy).  Should only be called when {@link #isAsync()}.
+	 *
+	 * @param fullyQualifiedName name of the file to be written
+	 * @param bytes artifact data
+	 * @param pendingWrites tracks the artifacts queued by a script
+	 */
+	public void submit(String fullyQualifiedName, byte[] bytes, PendingWrites pendingWrites) {
+		QueuedArtifact artifact = new QueuedArtifact(fullyQualifiedName, bytes, pendingWrites);
+		pendingWrites.increment();
+		boolean queued;
+		try {
+			if (fullQueuePolicy == FullQueuePolicy.BLOCK) {
+				queued = queue.offer(artifact, BLOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			} else {
+				queued = queue.offer(artifact);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			queued = false;
+		}
+		if (queued) {
+			artifactsQueued.incrementAndGet();
+			return;
+		}
+
+		if (fullQueuePolicy == FullQueuePolicy.DROP) {
+			long dropped = artifactsDropped.incrementAndGet();
+			pendingWrites.decrement(false);
+			if (dropped == 1 || dropped % 100 == 0) {
+				LOG.warn("The Mark59 artifact writer queue is full, artifacts are being dropped (" + dropped + " so far). Latest : "
+						+ fullyQualifiedName);
+			}
+			return;
+		}
+		callerWrites.incrementAndGet();
+		write(artifact);
+	}
+
+
+	/**
+	 * Writes the bytes to file, creating the parent directory if need be.  Artifacts (other than images)
+	 * are gzip compressed when compression is on.
+	 *
+	 * @param fullyQualifiedName name of the file to be written
+	 * @param bytes artifact data
+	 * @return the file written
+	 * @throws IOException on failure
+	 */
+	public File writeToDisk(String fullyQualifiedName, byte[] bytes) throws IOException {
+		boolean compressArtifact = compress && !UNCOMPRESSED_SUFFIXES.contains(
+				StringUtils.substringAfterLast(fullyQualifiedName, ".").toLowerCase(Locale.ROOT));
+		File file = new File(compressArtifact ? fullyQualifiedName + ".gz" : fullyQualifiedName);
+
+		File parentDir = file.getParentFile();
+		if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs() && !parentDir.exists()) {
+			throw new IOException("Failed to create log directory: " + parentDir.getAbsolutePath());
+		}
+		try (OutputStream stream = compressArtifact ? new GZIPOutputStream(new FileOutputStream(file)) : new FileOutputStream(file)) {
+			stream.write(bytes);
+			stream.flush();
+		}
+		bytesWritten.addAndGet(bytes.length);
+		return file;
+	}
+
+
+	/**
+	 * @return summary of the writer statistics
+	 */
+	public String getStatistics() {
+		return "Mark59 artifact writer : queued " + artifactsQueued.get() + ", written " + artifactsWritten.get()
+				+ ", written by script threads " + callerWrites.get() + ", dropped " + artifactsDropped.get()
+				+ ", failed " + artifactsFailed.get() + ", bytes written " + bytesWritten.get() + ", waiting " + queue.size();
+	}
+
+	public long getArtifactsDropped() {
+		return artifactsDropped.get();
+	}
+
+	public long getArtifactsFailed() {
+		return artifactsFailed.get();
+	}
+
+
+	private void drainQueue() {
+		while (true) {
+			try {
+				QueuedArtifact artifact = queue.take();
+				writesInProgress.incrementAndGet();
+				try {
+					write(artifact);
+				} finally {
+					writesInProgress.decrementAndGet();
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+
+	private void write(QueuedArtifact artifact) {
+		boolean failedWrite = true;
+		try {
+			writeToDisk(artifact.fullyQualifiedName, artifact.bytes);
+			artifactsWritten.incrementAndGet();
+			failedWrite = false;
+			if (LOG.isDebugEnabled()) LOG.debug("Wrote " + artifact.bytes.length + " bytes to: " + artifact.fullyQualifiedName);
+		} catch (IOException | RuntimeException e) {
+			artifactsFailed.incrementAndGet();
+			LOG.error("Failed to write log '" + artifact.fullyQualifiedName + "': " + e.getMessage());
+		} finally {
+			artifact.pendingWrites.decrement(failedWrite);
+		}
+	}
+
+
+	/**
+	 * Write anything still queued (the writer threads are daemons, so will not hold up JVM exit)
+	 */
+	private void shutdown() {
+		List<QueuedArtifact> remaining = new ArrayList<>();
+		queue.drainTo(remaining);
+		for (QueuedArtifact artifact : remaining) {
+			write(artifact);
+		}
+		long waitUntilMs = System.currentTimeMillis() + SHUTDOWN_WAIT_MS;
+		while (writesInProgress.get() > 0 && System.currentTimeMillis() < waitUntilMs) {
+			SafeSleep.sleep(50);
+		}
+		LOG.info(getStatistics());
+	}
+
+
+	private static class QueuedArtifact {
+		private final String fullyQualifiedName;
+		private final byte[] bytes;
+		private final PendingWrites pendingWrites;
+
+		QueuedArtifact(String fullyQualifiedName, byte[] bytes, PendingWrites pendingWrites) {
+			this.fullyQualifiedName = fullyQualifiedName;
+			this.bytes = bytes;
+			this.pendingWrites = pendingWrites;
+		}
+	}
+
+
+	/**
+	 * The artifacts queued by a script which have not yet been written, and a count of those that failed to write
+	 * (dropped artifacts are not counted as failures)
+	 */
+	public static class PendingWrites {
+		private int pending = 0;
+		private int failed = 0;
+
+		synchronized void increment() {
+			pending++;
+		}
+
+		synchronized void decrement(boolean failedWrite) {
+			pending--;
+			if (failedWrite) {
+				failed++;
+			}
+			if (pending == 0) {
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Wait for all the queued artifacts to be written
+		 * @param timeoutMs maximum time to wait
+		 * @return true if there are no artifacts still waiting to be written
+		 */
+		public synchronized boolean awaitCompletion(long timeoutMs) {
+			long waitUntilMs = System.currentTimeMillis() + timeoutMs;
+			try {
+				while (pending > 0) {
+					long remainingMs = waitUntilMs - System.currentTimeMillis();
+					if (remainingMs <= 0) {
+						return false;
+					}
+					wait(remainingMs);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return pending == 0;
+			}
+			return true;
+		}
+
+		/**
+		 * @return number of artifacts still to be written
+		 */
+		public synchronized int getPending() {
+			return pending;
+		}
+
+		/**
+		 * @return number of artifacts that failed to be written
+		 */
+		public synchronized int getFailed() {
+			return failed;
+		}
+	}
+
+}
@@ -135,6 +135,11 @@ public class Mark59Constants {
      * Count used in log names (ensures uniqueness, and indicates order the log occurred in the run)
      */  
     public static final String LOG_COUNTER	 = "LOG_COUNTER";
+    /**
+     * Marks the nanosecond elapsed time appended to the response message of a passed nano-timed transaction,
+     * eg <code>PASS elapsedNanos=2600000</code> (see com.mark59.core.NanoTimedSampleResult)
+     */
+    public static final String ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER = " elapsedNanos=";
     /**
      * The (ordered) allowable value(s) used to define the format of log names in a Mark59 screenshot directory.
      * Done via setting the via setting the values in a comma delimited list in property 
@@ -173,6 +173,47 @@ public class Mark59Utils {
 	}
 
 
+	/**
+	 * Appends a nanosecond elapsed time to the response message of a transaction, so it is written to the JMeter results
+	 * file with the transaction (eg <code>PASS elapsedNanos=2600000</code>).
+	 *
+	 * @see Mark59Constants#ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER
+	 * @param responseMessage the response message of the transaction (the outcome text)
+	 * @param elapsedNanos the elapsed time of the transaction in nanoseconds
+	 * @return the response message with the nanosecond time appended
+	 */
+	public static String responseMessageWithElapsedNanos(String responseMessage, long elapsedNanos) {
+		return StringUtils.defaultString(responseMessage) + Mark59Constants.ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER + elapsedNanos;
+	}
+
+
+	/**
+	 * @see #responseMessageWithElapsedNanos(String, long)
+	 * @param responseMessage the response message of a sample, as written in a JMeter results file (may be null)
+	 * @return the nanosecond elapsed time carried in the response message, or -1 if there isn't one
+	 */
+	public static long elapsedNanosInResponseMessage(String responseMessage) {
+		String elapsedNanos = StringUtils.substringAfterLast(responseMessage, Mark59Constants.ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER);
+		if (!StringUtils.isNumeric(elapsedNanos) || elapsedNanos.length() > 18) {
+			return -1L;
+		}
+		return Long.parseLong(elapsedNanos);
+	}
+
+
+	/**
+	 * @see #responseMessageWithElapsedNanos(String, long)
+	 * @param responseMessage the response message of a sample (may be null)
+	 * @return the response message without any nanosecond elapsed time appended to it (eg <code>PASS</code>)
+	 */
+	public static String responseMessageWithoutElapsedNanos(String responseMessage) {
+		if (elapsedNanosInResponseMessage(responseMessage) == -1L) {
+			return responseMessage;
+		}
+		return StringUtils.substringBeforeLast(responseMessage, Mark59Constants.ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER);
+	}
+
+
 	/**
 	 * Constructs metric transaction names based on server id and rules (using data that can be obtained from commandResponseParser)
 	 *
@@ -28,7 +28,12 @@ package com.mark59.core.utils;
  * <b>mark59.selenium.driver.path.firefox</b> :  location of the geokodriver executable <br>
  * <b>mark59.server.profiles.excel.file.path</b> :  location of a excel file to be used for server metrics capture<br> 
  * <b>mark59.browser.executable</b> :  location of an alternate browser executable <br> 
- * <b>mark59.print.startup.console.messages</b> :  set true to print basic console messages on startup  
+ * <b>mark59.print.startup.console.messages</b> :  set true to print basic console messages on startup<br>
+ * <b>mark59.log.writer.async</b> :  set true to write logs (screenshots etc) on background writer threads<br>
+ * <b>mark59.log.writer.threads</b> :  number of background log writer threads<br>
+ * <b>mark59.log.writer.queue.size</b> :  maximum number of logs waiting to be written by the background writer threads<br>
+ * <b>mark59.log.writer.full.policy</b> :  action when the log writer queue is full (BLOCK, DROP or CALLER_WRITES)<br>
+ * <b>mark59.log.writer.compress</b> :  set true to gzip logs (other than images) as they are written
  * </p>
  * 
  * @author Michael Cohen
@@ -92,6 +97,38 @@ public class PropertiesKeys {
 	public static final String MARK59_PRINT_STARTUP_CONSOLE_MESSAGES = "mark59.print.startup.console.messages";
 	
 	
+	/**
+	 * mark59.log.writer.async. Set to 'true' to write logs (screenshots, page sources, perf logs..) on background writer
+	 * threads, rather than on the script thread (default is false)
+	 * @see Mark59ArtifactWriter
+	 */
+	public static final String MARK59_PROP_LOG_WRITER_ASYNC = "mark59.log.writer.async";
+
+	/**
+	 * mark59.log.writer.threads. Number of background log writer threads (default 2)
+	 * @see Mark59ArtifactWriter
+	 */
+	public static final String MARK59_PROP_LOG_WRITER_THREADS = "mark59.log.writer.threads";
+
+	/**
+	 * mark59.log.writer.queue.size. Maximum number of logs waiting to be written by the background writer threads (default 1000)
+	 * @see Mark59ArtifactWriter
+	 */
+	public static final String MARK59_PROP_LOG_WRITER_QUEUE_SIZE = "mark59.log.writer.queue.size";
+
+	/**
+	 * mark59.log.writer.full.policy. Action when the log writer queue is full : BLOCK (default), DROP or CALLER_WRITES
+	 * @see Mark59ArtifactWriter.FullQueuePolicy
+	 */
+	public static final String MARK59_PROP_LOG_WRITER_FULL_POLICY = "mark59.log.writer.full.policy";
+
+	/**
+	 * mark59.log.writer.compress. Set to 'true' to gzip logs (other than images) as they are written (default is false)
+	 * @see Mark59ArtifactWriter
+	 */
+	public static final String MARK59_PROP_LOG_WRITER_COMPRESS = "mark59.log.writer.compress";
+
+
 	/**
 	 * list of valid Mark59 property keys 
 	 */
@@ -104,5 +141,10 @@ public class PropertiesKeys {
 								MARK59_PROP_DRIVER_FIREFOX,
 								MARK59_PROP_SERVER_PROFILES_EXCEL_FILE_PATH,
 								MARK59_PROP_BROWSER_EXECUTABLE,
-								MARK59_PRINT_STARTUP_CONSOLE_MESSAGES};
+								MARK59_PRINT_STARTUP_CONSOLE_MESSAGES,
+								MARK59_PROP_LOG_WRITER_ASYNC,
+								MARK59_PROP_LOG_WRITER_THREADS,
+								MARK59_PROP_LOG_WRITER_QUEUE_SIZE,
+								MARK59_PROP_LOG_WRITER_FULL_POLICY,
+								MARK59_PROP_LOG_WRITER_COMPRESS};
 }
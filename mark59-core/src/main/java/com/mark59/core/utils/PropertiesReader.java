@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.net.InetAddress;
 import java.util.Properties;
 import java.util.StringTokenizer;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -55,7 +56,10 @@ public class PropertiesReader {
 	private String osNameLowerCase = "nix";
 	private final Properties properties = new Properties();
 
-	private static PropertiesReader instance;
+	private static volatile PropertiesReader instance;
+
+	/* a ReentrantLock rather than a monitor, so a virtual thread reading the properties file does not pin its carrier */
+	private static final ReentrantLock instanceLock = new ReentrantLock();
 
 	@SuppressWarnings("deprecation")
 	private PropertiesReader() throws IOException {
@@ -110,6 +114,11 @@ public class PropertiesReader {
 		setMark59property(PropertiesKeys.MARK59_PROP_SERVER_PROFILES_EXCEL_FILE_PATH);
 		setMark59property(PropertiesKeys.MARK59_PROP_BROWSER_EXECUTABLE, EXECUTABLE, NOT_DEPRECATED);
 		setMark59property(PropertiesKeys.MARK59_PRINT_STARTUP_CONSOLE_MESSAGES);
+		setMark59property(PropertiesKeys.MARK59_PROP_LOG_WRITER_ASYNC);
+		setMark59property(PropertiesKeys.MARK59_PROP_LOG_WRITER_THREADS);
+		setMark59property(PropertiesKeys.MARK59_PROP_LOG_WRITER_QUEUE_SIZE);
+		setMark59property(PropertiesKeys.MARK59_PROP_LOG_WRITER_FULL_POLICY);
+		setMark59property(PropertiesKeys.MARK59_PROP_LOG_WRITER_COMPRESS);
 		LOG.info("    ----------------------- ");
 
 		if (Mark59Constants.TRUE.equalsIgnoreCase(getProperty(PropertiesKeys.MARK59_PRINT_STARTUP_CONSOLE_MESSAGES))){
@@ -285,11 +294,21 @@ public class PropertiesReader {
 	 * @return PropertiesReader instance
 	 * @throws IOException when attempting to read mark59.properties
 	 */
-	public static synchronized PropertiesReader getInstance() throws IOException {
-		if (instance == null) {
-			instance = new PropertiesReader();
+	public static PropertiesReader getInstance() throws IOException {
+		PropertiesReader propertiesReader = instance;
+		if (propertiesReader == null) {
+			instanceLock.lock();
+			try {
+				propertiesReader = instance;
+				if (propertiesReader == null) {
+					propertiesReader = new PropertiesReader();
+					instance = propertiesReader;
+				}
+			} finally {
+				instanceLock.unlock();
+			}
 		}
-		return instance;
+		return propertiesReader;
 	}
 
 }
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.core;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.core.utils.Mark59Constants.JMeterFileDatatypes;
+import com.mark59.core.utils.Mark59Utils;
+
+/**
+ * Tests for nanosecond timing of transactions.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class JmeterFunctionsImplNanoTimingTest {
+
+    private JmeterFunctionsImpl jmeterFunctionsWithNanoTiming(String nanoTiming) {
+        JavaSamplerContext context = mock(JavaSamplerContext.class);
+        when(context.getParameter(anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(context.getParameter(JmeterFunctionsImpl.NANO_TIMING, String.valueOf(false))).thenReturn(nanoTiming);
+        return new JmeterFunctionsImpl(context, false);
+    }
+
+    @Test
+    public void testTransactionsAreNotNanoTimedByDefault() {
+        JmeterFunctionsImpl jm = jmeterFunctionsWithNanoTiming("false");
+        jm.startTransaction("txn");
+        SampleResult subResult = jm.endTransaction("txn");
+
+        assertFalse(subResult instanceof NanoTimedSampleResult);
+        assertEquals(NanoTimedSampleResult.NOT_NANO_TIMED, NanoTimedSampleResult.elapsedNanosOf(subResult));
+    }
+
+    @Test
+    public void testNanoTimedTransactionHoldsNanosAlongsideMillis() throws InterruptedException {
+        JmeterFunctionsImpl jm = jmeterFunctionsWithNanoTiming("true");
+        jm.startTransaction("txn", JMeterFileDatatypes.CDP);
+        Thread.sleep(5);
+        SampleResult subResult = jm.endTransaction("txn");
+
+        assertTrue(subResult instanceof NanoTimedSampleResult);
+        long elapsedNanos = NanoTimedSampleResult.elapsedNanosOf(subResult);
+        assertTrue(elapsedNanos >= 5_000_000L);
+        assertTrue(subResult.getTime() >= 5);
+        assertEquals(JMeterFileDatatypes.CDP.getDatatypeText(), subResult.getDataType());
+        assertSame(subResult, jm.getMainResult().getSubResults()[0]);
+    }
+
+    @Test
+    public void testSetTransactionNanosRoundsTheJmeterElapsedTime() {
+        JmeterFunctionsImpl jm = jmeterFunctionsWithNanoTiming("false");
+        SampleResult subMilli = jm.setTransactionNanos("sub_milli", 400_000L, true);
+        SampleResult roundedUp = jm.setTransactionNanos("rounded_up", JMeterFileDatatypes.TRANSACTION, 2_500_000L, false, "500");
+
+        assertEquals(400_000L, NanoTimedSampleResult.elapsedNanosOf(subMilli));
+        assertEquals(0, subMilli.getTime());
+        assertEquals(2_500_000L, NanoTimedSampleResult.elapsedNanosOf(roundedUp));
+        assertEquals(3, roundedUp.getTime());
+        assertFalse(roundedUp.isSuccessful());
+        assertEquals("500", roundedUp.getResponseCode());
+        assertEquals(2, jm.getMainResult().getSubResults().length);
+    }
+
+    @Test
+    public void testTearDownCarriesTheNanosOfPassedTransactionsInTheirResponseMessage() {
+        JmeterFunctionsImpl jm = jmeterFunctionsWithNanoTiming("false");
+        jm.setTransaction("millis_only", 7);
+        SampleResult nanoTimed = jm.setTransactionNanos("nano_timed", 1_234_567L, true);
+        SampleResult nanoTimedFail = jm.setTransactionNanos("nano_timed_fail", 2_345_678L, false);
+        jm.userDataPoint("datapoint", 3);
+        jm.tearDown();
+        jm.tearDown();
+
+        SampleResult[] subResults = jm.getMainResult().getSubResults();
+        assertEquals(4, subResults.length);
+        assertEquals("millis_only", subResults[0].getSampleLabel());
+        assertEquals("PASS", subResults[0].getResponseMessage());
+
+        assertSame(nanoTimed, subResults[1]);
+        assertEquals("PASS" + Mark59Constants.ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER + "1234567", nanoTimed.getResponseMessage());
+        assertEquals(1_234_567L, Mark59Utils.elapsedNanosInResponseMessage(nanoTimed.getResponseMessage()));
+        assertEquals("PASS", Mark59Utils.responseMessageWithoutElapsedNanos(nanoTimed.getResponseMessage()));
+        assertEquals(1, nanoTimed.getTime());
+
+        // failures are left as they are, so they group together in JMeter error reports
+        assertSame(nanoTimedFail, subResults[2]);
+        assertEquals("FAIL", nanoTimedFail.getResponseMessage());
+
+        assertEquals("datapoint", subResults[3].getSampleLabel());
+        assertEquals(-1L, Mark59Utils.elapsedNanosInResponseMessage(subResults[3].getResponseMessage()));
+    }
+
+    @Test
+    public void testElapsedNanosInResponseMessageOfOtherMessages() {
+        assertEquals(-1L, Mark59Utils.elapsedNanosInResponseMessage(null));
+        assertEquals(-1L, Mark59Utils.elapsedNanosInResponseMessage("PASS"));
+        assertEquals(-1L, Mark59Utils.elapsedNanosInResponseMessage("PASS elapsedNanos="));
+        assertEquals(-1L, Mark59Utils.elapsedNanosInResponseMessage("PASS elapsedNanos=12x"));
+        assertEquals(42L, Mark59Utils.elapsedNanosInResponseMessage("an elapsedNanos= message elapsedNanos=42"));
+        assertEquals("PASS elapsedNanos=12x", Mark59Utils.responseMessageWithoutElapsedNanos("PASS elapsedNanos=12x"));
+        assertNull(Mark59Utils.responseMessageWithoutElapsedNanos(null));
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.core;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mark59.core.utils.Mark59Constants.JMeterFileDatatypes;
+
+/**
+ * Tests for transactions and datapoints recorded without creating a SampleResult until the main result is accessed.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class JmeterFunctionsImplRecordTransactionTest {
+
+    private JmeterFunctionsImpl jmeterFunctions;
+
+    @Before
+    public void setUp() {
+        jmeterFunctions = new JmeterFunctionsImpl(mock(JavaSamplerContext.class), false);
+    }
+
+    @Test
+    public void testRecordedEntriesMatchSetTransactionResults() {
+        jmeterFunctions.recordTransaction("recorded_txn", 150, true);
+        jmeterFunctions.recordTransaction("recorded_cdp", JMeterFileDatatypes.CDP, 20, false, null);
+        jmeterFunctions.recordDataPoint("recorded_datapoint", 42);
+
+        SampleResult[] subResults = jmeterFunctions.getMainResult().getSubResults();
+        assertEquals(3, subResults.length);
+
+        assertEquals("recorded_txn", subResults[0].getSampleLabel());
+        assertEquals(150, subResults[0].getTime());
+        assertTrue(subResults[0].isSuccessful());
+        assertEquals(Outcome.PASS.getOutcomeText(), subResults[0].getResponseMessage());
+        assertEquals(Outcome.PASS.getOutcomeResponseCode(), subResults[0].getResponseCode());
+        assertEquals(JMeterFileDatatypes.TRANSACTION.getDatatypeText(), subResults[0].getDataType());
+
+        assertEquals(JMeterFileDatatypes.CDP.getDatatypeText(), subResults[1].getDataType());
+        assertFalse(subResults[1].isSuccessful());
+        assertEquals(Outcome.FAIL.getOutcomeResponseCode(), subResults[1].getResponseCode());
+
+        assertEquals(JMeterFileDatatypes.DATAPOINT.getDatatypeText(), subResults[2].getDataType());
+        assertEquals(42, subResults[2].getTime());
+    }
+
+    @Test
+    public void testRecordedEntriesKeepOrderWithSetTransactions() {
+        jmeterFunctions.recordTransaction("first", 1, true);
+        jmeterFunctions.setTransaction("second", 2);
+        jmeterFunctions.recordDataPoint("third", 3);
+        jmeterFunctions.startTransaction("fourth");
+        jmeterFunctions.endTransaction("fourth");
+
+        SampleResult[] subResults = jmeterFunctions.getMainResult().getSubResults();
+        assertEquals(4, subResults.length);
+        assertEquals("first", subResults[0].getSampleLabel());
+        assertEquals("second", subResults[1].getSampleLabel());
+        assertEquals("third", subResults[2].getSampleLabel());
+        assertEquals("fourth", subResults[3].getSampleLabel());
+    }
+
+    @Test
+    public void testRecorderGrowsBeyondInitialCapacity() {
+        int entries = TransactionRecorder.INITIAL_CAPACITY * 3 + 1;
+        for (int i = 0; i < entries; i++) {
+            jmeterFunctions.recordTransaction("txn_" + (i % 5), i, true);
+        }
+        SampleResult[] subResults = jmeterFunctions.getMainResult().getSubResults();
+        assertEquals(entries, subResults.length);
+        assertEquals(entries - 1, subResults[entries - 1].getTime());
+    }
+
+    @Test
+    public void testRecordedEntriesCanBeRenamedAndDeleted() {
+        jmeterFunctions.recordTransaction("cdp_page1", 10, true);
+        jmeterFunctions.recordTransaction("cdp_page2", 10, true);
+        jmeterFunctions.renameTransactionsPrefixedBy("cdp_", "devtools_");
+        jmeterFunctions.recordTransaction("cdp_page3", 10, true);
+        jmeterFunctions.deleteTransaction("devtools_page2");
+
+        SampleResult[] subResults = jmeterFunctions.getMainResult().getSubResults();
+        assertEquals(2, subResults.length);
+        assertEquals("devtools_page1", subResults[0].getSampleLabel());
+        assertEquals("cdp_page3", subResults[1].getSampleLabel());
+    }
+
+    @Test
+    public void testRecordedEntriesFoundByLabel() {
+        jmeterFunctions.recordTransaction("recorded_txn", 10, true);
+        jmeterFunctions.setTransaction("set_txn", 20);
+        jmeterFunctions.recordTransaction("recorded_txn", 30, true);
+
+        List<SampleResult> found = jmeterFunctions.getSampleResultFromMainResultWithLabel("recorded_txn");
+        assertEquals(2, found.size());
+        assertEquals(10, found.get(0).getTime());
+        assertEquals(30, found.get(1).getTime());
+    }
+
+    @Test
+    public void testFailedRecordedTransactionFailsTheScript() {
+        jmeterFunctions.recordTransaction("passed", 10, true);
+        jmeterFunctions.recordTransaction("failed", 10, false);
+        jmeterFunctions.tearDown();
+        assertFalse(jmeterFunctions.getMainResult().isSuccessful());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordTransactionRejectsBlankLabel() {
+        jmeterFunctions.recordTransaction(" ", 10, true);
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.core.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mark59.core.utils.Mark59ArtifactWriter.FullQueuePolicy;
+import com.mark59.core.utils.Mark59ArtifactWriter.PendingWrites;
+
+/**
+ * Tests for the asynchronous writing of Mark59 log artifacts.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class Mark59ArtifactWriterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testQueuedArtifactsAreWrittenBeforeCompletion() throws IOException {
+        Mark59ArtifactWriter writer = new Mark59ArtifactWriter(true, 2, 10, FullQueuePolicy.BLOCK, false);
+        PendingWrites pendingWrites = new PendingWrites();
+        File logDir = new File(tempFolder.getRoot(), "logs");
+
+        for (int i = 0; i < 50; i++) {
+            writer.submit(new File(logDir, "artifact_" + i + ".txt").getPath(), ("data " + i).getBytes(), pendingWrites);
+        }
+
+        assertTrue("all queued artifacts should be written", pendingWrites.awaitCompletion(10000));
+        assertEquals(0, pendingWrites.getPending());
+        assertEquals(0, pendingWrites.getFailed());
+        assertEquals(50, logDir.listFiles().length);
+        assertEquals("data 7", new String(Files.readAllBytes(new File(logDir, "artifact_7.txt").toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCompressionSkipsImages() throws IOException {
+        Mark59ArtifactWriter writer = new Mark59ArtifactWriter(false, 1, 1, FullQueuePolicy.BLOCK, true);
+
+        File textFile = writer.writeToDisk(new File(tempFolder.getRoot(), "pagesource.html").getPath(), "<html/>".getBytes());
+        File imageFile = writer.writeToDisk(new File(tempFolder.getRoot(), "screenshot.png").getPath(), new byte[] {1, 2, 3});
+
+        assertEquals("pagesource.html.gz", textFile.getName());
+        try (GZIPInputStream in = new GZIPInputStream(new FileInputStream(textFile))) {
+            assertEquals("<html/>", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("screenshot.png", imageFile.getName());
+        assertEquals(3, imageFile.length());
+    }
+
+    @Test
+    public void testFailedWriteIsCounted() throws IOException {
+        Mark59ArtifactWriter writer = new Mark59ArtifactWriter(true, 1, 10, FullQueuePolicy.BLOCK, false);
+        PendingWrites pendingWrites = new PendingWrites();
+        File notADirectory = tempFolder.newFile("notADirectory");
+
+        writer.submit(new File(notADirectory, "artifact.txt").getPath(), "data".getBytes(), pendingWrites);
+
+        assertTrue(pendingWrites.awaitCompletion(10000));
+        assertEquals(1, pendingWrites.getFailed());
+        assertEquals(1, writer.getArtifactsFailed());
+    }
+
+}
@@ -74,6 +74,10 @@ import com.opencsv.exceptions.CsvValidationException;
  *
  * <p>For both CSV and XML files, additional entries may be produced for ERROR reporting,  See the "errortransactionnaming (e)" program argument description.
  *
+ * <p>A passed nano-timed transaction carries its nanosecond time at the end of its response message (eg
+ * <code>PASS elapsedNanos=2600000</code>), which is used to set the elapsed time of the transaction (rounded to the nearest
+ * millisecond).
+ *
  * <p>Will process all the JMeter results files (suffixes .xml, .csv or .jtl) residing in the top level of the input directory.
  *
  * @author Philip Webb
@@ -93,6 +97,9 @@ public class ResultsSplitter {
 
 	private static final String IGNORE = "IGNORE";
 
+	/* marks the nanosecond time at the end of the response message of a passed nano-timed transaction */
+	private static final String ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER = " elapsedNanos=";
+
 	/* taken from Commons StringUtils */
 	public static final int INDEX_NOT_FOUND = -1;
 
@@ -549,6 +556,9 @@ public class ResultsSplitter {
 		String success = nodeItems.getNamedItem("s").getNodeValue();
 		String inputFileDatatype = nodeItems.getNamedItem("dt").getNodeValue();
 
+		String elapsed = elapsedUsingAnyNanos(nodeItems.getNamedItem("rm") == null ? null : nodeItems.getNamedItem("rm").getNodeValue(),
+				nodeItems.getNamedItem("t").getNodeValue());
+
 		if (! "true".equalsIgnoreCase(success)) {
 			// the response message is used as the failure message
 			if  (nodeItems.getNamedItem("rm") != null) {
@@ -561,7 +571,7 @@ public class ResultsSplitter {
 			System.arraycopy(blankLine, 0, nextLine, 0, blankLine.length);
 
 			nextLine[0]  =  nodeItems.getNamedItem("ts").getNodeValue();
-			nextLine[1]  =  nodeItems.getNamedItem("t").getNodeValue();
+			nextLine[1]  =  elapsed;
 			nextLine[2]  =  transactionNameLabel;
 			if (nodeItems.getNamedItem("rc")!=null) nextLine[3]  = nodeItems.getNamedItem("rc").getNodeValue();
 			if (nodeItems.getNamedItem("rm")!=null) nextLine[4]  = nodeItems.getNamedItem("rm").getNodeValue();
@@ -671,6 +681,8 @@ public class ResultsSplitter {
 					String transactionNameLabel = csvDataLineFields[fieldPoslabel];
 					String inputFileDatatype = csvDataLineFields[fieldPosdataType];
 					String success = csvDataLineFields[fieldPossuccess];
+					String elapsed = elapsedUsingAnyNanos(fieldPosresponseMessage > 0 ? csvDataLineFields[fieldPosresponseMessage] : null,
+							csvDataLineFields[fieldPoselapsed]);
 
 					if (!(transactionNameLabel.startsWith(IGNORE)
 							|| (inputFileDatatype.equals(JMeterFileDatatypes.PARENT.getDatatypeText())
@@ -679,7 +691,7 @@ public class ResultsSplitter {
 						System.arraycopy(blankLine, 0, nextLine, 0, blankLine.length);
 
 						nextLine[0] = csvDataLineFields[fieldPostimeStamp];
-						nextLine[1] = csvDataLineFields[fieldPoselapsed];
+						nextLine[1] = elapsed;
 						nextLine[2] = transactionNameLabel;
 						if (fieldPosresponseCode > 0)    {nextLine[3]  = csvDataLineFields[fieldPosresponseCode];}
 						if (fieldPosresponseMessage > 0) {nextLine[4]  = csvDataLineFields[fieldPosresponseMessage];}
@@ -738,6 +750,23 @@ public class ResultsSplitter {
 	}
 
 
+	/**
+	 * The elapsed time of a sample, in milliseconds.  When the response message of the sample carries a nanosecond time
+	 * (a passed nano-timed transaction), the nanosecond time rounded to the nearest millisecond is used.
+	 */
+	private String elapsedUsingAnyNanos(String responseMessage, String elapsed) {
+		int markerIndex = responseMessage == null ? INDEX_NOT_FOUND : responseMessage.lastIndexOf(ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER);
+		if (markerIndex == INDEX_NOT_FOUND) {
+			return elapsed;
+		}
+		String nanos = responseMessage.substring(markerIndex + ELAPSED_NANOS_RESPONSE_MESSAGE_MARKER.length());
+		if (!nanos.isEmpty() && nanos.length() <= 18 && nanos.chars().allMatch(Character::isDigit)) {
+			return String.valueOf((Long.parseLong(nanos) + 500_000L) / 1_000_000L);
+		}
+		return elapsed;
+	}
+
+
 	private String[] csvReadNextLine( CSVReader csvReader, File inputCsvFileName) throws IOException {
 		String[] csvDataLineFields;
 		try {
@@ -277,6 +277,59 @@ public class ResultsSplitterTest extends TestCase
     }
     
     
+    /**
+     * JMeter format csv and xml files with passed nano-timed transactions, their nanosecond times carried in their response
+     * messages.  The millisecond elapsed time of each nano-timed transaction is deliberately lower than its nanosecond time,
+     * so the nanosecond time can be seen to have been used.
+     */
+    public void testJmterResultsNanoTimedTransactionsTest() throws IOException, ParserConfigurationException, SAXException, CsvValidationException
+    {
+    	Files.deleteIfExists(Paths.get("./TESTDATA/NanoTimed/MERGED/jmterResultsFileConvertedToCSV.csv"));
+    	Files.deleteIfExists(Paths.get("./TESTDATA/NanoTimed/MERGED"));
+    	Files.createDirectory(Paths.get("./TESTDATA/NanoTimed/MERGED"));
+
+		String[] args = { "-i./TESTDATA/NanoTimed",
+    						"-fjmterResultsFileConvertedToCSV.csv",
+    						"-m" +  ResultsSplitter.METRICS_FILE_NO,
+    						"-e" +  ResultsSplitter.ERROR_TXNS_NO,
+    						"-x" +  "True"};
+
+		ResultsSplitter resultsSplitter = new ResultsSplitter();
+		resultsSplitter.parseArguments(args);
+		resultsSplitter.clearOutputDirectory();
+		actualSamplesCount=resultsSplitter.convert();
+        assertEquals(3, actualSamplesCount);
+
+		CSVReader csvReader = new CSVReader(new BufferedReader(new FileReader("./TESTDATA/NanoTimed/MERGED/jmterResultsFileConvertedToCSV.csv")));
+		String[] csvDataLineFields = csvReader.readNext();						// header (standard JMeter layout, no extra columns)
+		assertEquals(18, csvDataLineFields.length);
+		List<String> csvHeaderFieldsList = Arrays.asList(csvDataLineFields);
+		int fieldPoslabel     		= csvHeaderFieldsList.indexOf("label");
+		int fieldPoselapsed   		= csvHeaderFieldsList.indexOf("elapsed");
+		csvDataLineFields = csvReader.readNext();
+		int dataLines = 0;
+	   	while ( csvDataLineFields != null ) {
+	   		String label = csvDataLineFields[fieldPoslabel];
+	   		if ("NT_0100_csv".equals(label)) {
+	   			assertEquals("2600000 nanos", "3", csvDataLineFields[fieldPoselapsed]);
+	   		} else if ("NT_0200_csv_ms_only".equals(label)) {
+	   			assertEquals("2", csvDataLineFields[fieldPoselapsed]);
+	   		} else if ("NT_0300_xml".equals(label)) {
+	   			assertEquals("4700000 nanos", "5", csvDataLineFields[fieldPoselapsed]);
+	   		} else {
+	   			fail("unexpected label : " + label);
+	   		}
+	   		dataLines++;
+	   		csvDataLineFields = csvReader.readNext();
+	   	}
+	   	csvReader.close();
+	   	assertEquals(3, dataLines);
+
+    	Files.delete(Paths.get("./TESTDATA/NanoTimed/MERGED/jmterResultsFileConvertedToCSV.csv"));
+    	Files.delete(Paths.get("./TESTDATA/NanoTimed/MERGED"));
+    }
+
+
 	public int linecount(String filename) {  // count includes header line
 		int lineCount = 0;
 		Scanner scanner;
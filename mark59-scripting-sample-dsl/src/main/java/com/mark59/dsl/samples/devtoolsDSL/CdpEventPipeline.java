@@ -0,0 +1,557 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.dsl.samples.devtoolsDSL;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.devtools.v149.network.model.LoadingFinished;
+import org.openqa.selenium.devtools.v149.network.model.RequestWillBeSent;
+import org.openqa.selenium.devtools.v149.network.model.ResponseReceived;
+
+import com.mark59.core.utils.Mark59Constants.JMeterFileDatatypes;
+import com.mark59.scripting.selenium.JmeterFunctionsForSeleniumScripts;
+
+
+/**
+ * Creates CDP transactions from DevTools network events without doing the work on the DevTools listener thread.
+ *
+ * <p>The listeners added by {@link DevToolsDSL#addCdpEventPipeline(CdpEventPipeline)} only place each event (with the
+ * most recent transaction started by the script at that time) on a bounded lock-free ring buffer.  A pipeline thread
+ * takes the events off the buffer, applies the URL filters, correlates request, response and loading finished events by
+ * request id, and records the resulting CDP transactions in batches (using <code>jm.recordTransaction</code>).
+ *
+ * <ul>
+ * <li>URL filters are regular expressions, compiled once when added.  A request is accepted if it matches any include
+ * filter (or there are none), and does not match an exclude filter.</li>
+ * <li>The transaction time is from the request being sent to the response being received, or to loading finished
+ * when {@link #timeToLoadingFinished(boolean)} is set.</li>
+ * <li>Requests without a response (or loading finished) after {@link #orphanTimeoutMs(long)} are evicted.</li>
+ * <li>When the ring buffer is full the event is dropped and counted ({@link #getDroppedEventCount()}), so the DevTools
+ * connection is never held up.</li>
+ * <li>When there are no events to process the pipeline thread is parked, and is unparked by the next event offered.  While
+ * requests are in flight it also wakes after the orphan timeout, to evict any which have not completed.</li>
+ * </ul>
+ *
+ * <p>For example
+ * <pre><code>
+ * CdpEventPipeline cdpPipeline = new CdpEventPipeline(jm, exchange -&gt; exchange.getMostRecentTransactionStarted() + "__net")
+ * 		.includeUrls(".*mark59-datahunter/.*_action.*")
+ * 		.excludeUrls(".*\\.(css|js|png|ico)(\\?.*)?$");
+ * devToolsDsl.addCdpEventPipeline(cdpPipeline);
+ * ...
+ * cdpPipeline.close();    // before the script ends
+ * </code></pre>
+ *
+ * @see DevToolsDSL
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class CdpEventPipeline implements AutoCloseable {
+
+	private static final Logger LOG = LogManager.getLogger(CdpEventPipeline.class);
+
+	private static final int REQUEST = 0;
+	private static final int RESPONSE = 1;
+	private static final int LOADING_FINISHED = 2;
+
+	private static final int DEFAULT_RING_BUFFER_SIZE = 4096;
+	private static final int DEFAULT_BATCH_SIZE = 64;
+	private static final long DEFAULT_ORPHAN_TIMEOUT_MS = 60000L;
+
+	private final JmeterFunctionsForSeleniumScripts jm;
+	private final Function<CdpExchange, String> computeTxnId;
+	private final List<Pattern> includeUrls = new ArrayList<>();
+	private final List<Pattern> excludeUrls = new ArrayList<>();
+	private Predicate<CdpExchange> exchangeFilter = exchange -> true;
+	private boolean timeToLoadingFinished = false;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private long orphanTimeoutMs = DEFAULT_ORPHAN_TIMEOUT_MS;
+
+	private final RingBuffer ringBuffer;
+	private final Map<String, CdpExchange> inFlight = new LinkedHashMap<>();  // pipeline thread only, in request order
+	private final List<CdpTransaction> batch = new ArrayList<>();            // pipeline thread only
+
+	private final AtomicLong droppedEvents = new AtomicLong();
+	private final AtomicLong evictedOrphans = new AtomicLong();
+	private final AtomicLong filteredRequests = new AtomicLong();
+	private final AtomicLong cdpTransactions = new AtomicLong();
+
+	private Thread pipelineThread;
+	private volatile boolean running = false;
+	private volatile boolean pipelineThreadParked = false;
+
+
+	/**
+	 * Create a pipeline with the default ring buffer size (4096 events)
+	 *
+	 * @param jm the script's JmeterFunctionsForSeleniumScripts, to which the CDP transactions are added
+	 * @param computeTxnId computes the CDP transaction name for an exchange (null or blank to not create a transaction)
+	 */
+	public CdpEventPipeline(JmeterFunctionsForSeleniumScripts jm, Function<CdpExchange, String> computeTxnId) {
+		this(jm, computeTxnId, DEFAULT_RING_BUFFER_SIZE);
+	}
+
+
+	/**
+	 * @param jm the script's JmeterFunctionsForSeleniumScripts, to which the CDP transactions are added
+	 * @param computeTxnId computes the CDP transaction name for an exchange (null or blank to not create a transaction)
+	 * @param ringBufferSize maximum number of events waiting to be processed (rounded up to a power of two)
+	 */
+	public CdpEventPipeline(JmeterFunctionsForSeleniumScripts jm, Function<CdpExchange, String> computeTxnId, int ringBufferSize) {
+		this.jm = jm;
+		this.computeTxnId = computeTxnId;
+		this.ringBuffer = new RingBuffer(ringBufferSize);
+	}
+
+
+	/**
+	 * @param urlRegexes only requests with a URL matching one of these regular expressions are timed
+	 * @return this pipeline
+	 */
+	public CdpEventPipeline includeUrls(String... urlRegexes) {
+		for (String urlRegex : urlRegexes) {
+			includeUrls.add(Pattern.compile(urlRegex));
+		}
+		return this;
+	}
+
+
+	/**
+	 * @param urlRegexes requests with a URL matching one of these regular expressions are not timed
+	 * @return this pipeline
+	 */
+	public CdpEventPipeline excludeUrls(String... urlRegexes) {
+		for (String urlRegex : urlRegexes) {
+			excludeUrls.add(Pattern.compile(urlRegex));
+		}
+		return this;
+	}
+
+
+	/**
+	 * @param exchangeFilter further filter applied to an exchange once its response is received (for example on the
+	 * response type).  Runs on the pipeline thread.
+	 * @return this pipeline
+	 */
+	public CdpEventPipeline exchangeFilter(Predicate<CdpExchange> exchangeFilter) {
+		this.exchangeFilter = exchangeFilter;
+		return this;
+	}
+
+
+	/**
+	 * @param timeToLoadingFinished time transactions to the loading finished event, rather than the response received event
+	 * @return this pipeline
+	 */
+	public CdpEventPipeline timeToLoadingFinished(boolean timeToLoadingFinished) {
+		this.timeToLoadingFinished = timeToLoadingFinished;
+		return this;
+	}
+
+
+	/**
+	 * @param batchSize the maximum number of CDP transactions recorded together
+	 * @return this pipeline
+	 */
+	public CdpEventPipeline batchSize(int batchSize) {
+		this.batchSize = Math.max(batchSize, 1);
+		return this;
+	}
+
+
+	/**
+	 * @param orphanTimeoutMs time after which a request which has not completed is discarded
+	 * @return this pipeline
+	 */
+	public CdpEventPipeline orphanTimeoutMs(long orphanTimeoutMs) {
+		this.orphanTimeoutMs = orphanTimeoutMs;
+		return this;
+	}
+
+
+	/**
+	 * Start the pipeline thread (done by {@link DevToolsDSL#addCdpEventPipeline(CdpEventPipeline)})
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		pipelineThread = new Thread(this::processEvents, "mark59-cdp-pipeline-" + Thread.currentThread().getName());
+		pipelineThread.setDaemon(true);
+		pipelineThread.start();
+	}
+
+
+	/**
+	 * Queue a request event (called on the DevTools listener thread)
+	 * @param request the request event
+	 */
+	public void offerRequest(RequestWillBeSent request) {
+		offer(REQUEST, request.getRequestId().toString(), request);
+	}
+
+
+	/**
+	 * Queue a response event (called on the DevTools listener thread)
+	 * @param response the response event
+	 */
+	public void offerResponse(ResponseReceived response) {
+		offer(RESPONSE, response.getRequestId().toString(), response);
+	}
+
+
+	/**
+	 * Queue a loading finished event (called on the DevTools listener thread)
+	 * @param loadingFinished the loading finished event
+	 */
+	public void offerLoadingFinished(LoadingFinished loadingFinished) {
+		offer(LOADING_FINISHED, loadingFinished.getRequestId().toString(), loadingFinished);
+	}
+
+
+	private void offer(int eventType, String requestId, Object event) {
+		if (!ringBuffer.offer(new CdpEvent(eventType, requestId, event, jm.getMostRecentTransactionStarted()))) {
+			droppedEvents.incrementAndGet();
+			return;
+		}
+		if (pipelineThreadParked) {
+			LockSupport.unpark(pipelineThread);
+		}
+	}
+
+
+	private void processEvents() {
+		while (running) {
+			if (!processAvailableEvents()) {
+				awaitEvent();
+			}
+		}
+		processAvailableEvents();
+	}
+
+
+	/*
+	 * Parks the pipeline thread until an event is offered or the pipeline is closed (or, while requests are in flight,
+	 * until the orphan timeout).  The parked flag is set before the ring buffer is re-checked, and the producer publishes
+	 * an event before checking the flag, so an event offered while the thread is going to sleep always unparks it.
+	 */
+	private void awaitEvent() {
+		pipelineThreadParked = true;
+		if (running && ringBuffer.isEmpty()) {
+			if (inFlight.isEmpty()) {
+				LockSupport.park(this);
+			} else {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(orphanTimeoutMs));
+			}
+		}
+		pipelineThreadParked = false;
+	}
+
+
+	/*
+	 * processes events on the ring buffer, and records the batch of transactions when no more events are waiting
+	 */
+	private boolean processAvailableEvents() {
+		boolean processedAnEvent = false;
+		for (CdpEvent cdpEvent = ringBuffer.poll(); cdpEvent != null; cdpEvent = ringBuffer.poll()) {
+			processedAnEvent = true;
+			try {
+				process(cdpEvent);
+			} catch (RuntimeException e) {
+				LOG.warn("CDP event for request id " + cdpEvent.requestId + " not processed : " + e.getMessage());
+			}
+			if (batch.size() >= batchSize) {
+				recordBatch();
+			}
+		}
+		recordBatch();
+		evictOrphans();
+		return processedAnEvent;
+	}
+
+
+	private void process(CdpEvent cdpEvent) {
+		if (cdpEvent.eventType == REQUEST) {
+			RequestWillBeSent request = (RequestWillBeSent)cdpEvent.event;
+			if (isUrlAccepted(request.getRequest().getUrl())) {
+				inFlight.put(cdpEvent.requestId, new CdpExchange(request, cdpEvent.mostRecentTransactionStarted, cdpEvent.queuedAtMs));
+			} else {
+				filteredRequests.incrementAndGet();
+			}
+			return;
+		}
+
+		CdpExchange exchange = inFlight.get(cdpEvent.requestId);
+		if (exchange == null) {
+			return;
+		}
+		if (cdpEvent.eventType == RESPONSE) {
+			exchange.response = (ResponseReceived)cdpEvent.event;
+			if (!timeToLoadingFinished) {
+				inFlight.remove(cdpEvent.requestId);
+				addToBatch(exchange, exchange.response.getTimestamp().toString());
+			}
+		} else if (cdpEvent.eventType == LOADING_FINISHED) {
+			inFlight.remove(cdpEvent.requestId);
+			exchange.loadingFinished = (LoadingFinished)cdpEvent.event;
+			if (timeToLoadingFinished && exchange.response != null) {
+				addToBatch(exchange, exchange.loadingFinished.getTimestamp().toString());
+			}
+		}
+	}
+
+
+	private boolean isUrlAccepted(String url) {
+		boolean included = includeUrls.isEmpty();
+		for (int i = 0; !included && i < includeUrls.size(); i++) {
+			included = includeUrls.get(i).matcher(url).matches();
+		}
+		if (!included) {
+			return false;
+		}
+		for (Pattern excludeUrl : excludeUrls) {
+			if (excludeUrl.matcher(url).matches()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private void addToBatch(CdpExchange exchange, String endTimestamp) {
+		String requestTimestamp = exchange.request.getTimestamp().toString();
+		if (!NumberUtils.isCreatable(requestTimestamp) || !NumberUtils.isCreatable(endTimestamp) || !exchangeFilter.test(exchange)) {
+			return;
+		}
+		String txnId = computeTxnId.apply(exchange);
+		if (txnId == null || txnId.isBlank()) {
+			return;
+		}
+		double timestampDiffSecs = Double.parseDouble(endTimestamp) - Double.parseDouble(requestTimestamp);
+		int status = exchange.response.getResponse().getStatus();
+		batch.add(new CdpTransaction(txnId, Double.valueOf(timestampDiffSecs * 1000L).longValue(), status < 400, String.valueOf(status)));
+	}
+
+
+	private void recordBatch() {
+		for (CdpTransaction cdpTransaction : batch) {
+			jm.recordTransaction(cdpTransaction.txnId, JMeterFileDatatypes.CDP, cdpTransaction.timeMs, cdpTransaction.success,
+					cdpTransaction.responseCode);
+		}
+		cdpTransactions.addAndGet(batch.size());
+		batch.clear();
+	}
+
+
+	private void evictOrphans() {
+		long evictBeforeMs = System.currentTimeMillis() - orphanTimeoutMs;
+		Iterator<CdpExchange> exchanges = inFlight.values().iterator();
+		while (exchanges.hasNext() && exchanges.next().queuedAtMs < evictBeforeMs) {
+			exchanges.remove();
+			evictedOrphans.incrementAndGet();
+		}
+	}
+
+
+	/**
+	 * Stops the pipeline, after processing the events already queued.  Should be called before the end of the script
+	 * (CDP transactions are not recorded after the pipeline is closed).
+	 */
+	@Override
+	public synchronized void close() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(pipelineThread);
+		try {
+			pipelineThread.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (droppedEvents.get() > 0 || evictedOrphans.get() > 0) {
+			LOG.warn("CDP event pipeline closed : " + cdpTransactions.get() + " CDP transactions, " + droppedEvents.get()
+					+ " events dropped (ring buffer full), " + evictedOrphans.get() + " incomplete requests evicted");
+		} else if (LOG.isDebugEnabled()) {
+			LOG.debug("CDP event pipeline closed : " + cdpTransactions.get() + " CDP transactions, " + filteredRequests.get()
+					+ " requests filtered out");
+		}
+	}
+
+
+	/**
+	 * @return number of events dropped because the ring buffer was full
+	 */
+	public long getDroppedEventCount() {
+		return droppedEvents.get();
+	}
+
+	/**
+	 * @return number of requests discarded because they did not complete within the orphan timeout
+	 */
+	public long getEvictedOrphanCount() {
+		return evictedOrphans.get();
+	}
+
+	/**
+	 * @return number of requests not timed because of the URL filters
+	 */
+	public long getFilteredRequestCount() {
+		return filteredRequests.get();
+	}
+
+	/**
+	 * @return number of CDP transactions recorded
+	 */
+	public long getCdpTransactionCount() {
+		return cdpTransactions.get();
+	}
+
+
+
+	/**
+	 * A network request being correlated, with the events received for it so far
+	 */
+	public static class CdpExchange {
+		private final RequestWillBeSent request;
+		private final String mostRecentTransactionStarted;
+		private final long queuedAtMs;
+		private ResponseReceived response;
+		private LoadingFinished loadingFinished;
+
+		CdpExchange(RequestWillBeSent request, String mostRecentTransactionStarted, long queuedAtMs) {
+			this.request = request;
+			this.mostRecentTransactionStarted = mostRecentTransactionStarted;
+			this.queuedAtMs = queuedAtMs;
+		}
+
+		/** @return the request event */
+		public RequestWillBeSent getRequest() {
+			return request;
+		}
+
+		/** @return the response event */
+		public ResponseReceived getResponse() {
+			return response;
+		}
+
+		/** @return the loading finished event (null unless timing to loading finished) */
+		public LoadingFinished getLoadingFinished() {
+			return loadingFinished;
+		}
+
+		/** @return the most recent transaction started by the script when the request was sent (may be null) */
+		public String getMostRecentTransactionStarted() {
+			return mostRecentTransactionStarted;
+		}
+	}
+
+
+	private static class CdpEvent {
+		final int eventType;
+		final String requestId;
+		final Object event;
+		final String mostRecentTransactionStarted;
+		final long queuedAtMs = System.currentTimeMillis();
+
+		CdpEvent(int eventType, String requestId, Object event, String mostRecentTransactionStarted) {
+			this.eventType = eventType;
+			this.requestId = requestId;
+			this.event = event;
+			this.mostRecentTransactionStarted = mostRecentTransactionStarted;
+		}
+	}
+
+
+	private static class CdpTransaction {
+		final String txnId;
+		final long timeMs;
+		final boolean success;
+		final String responseCode;
+
+		CdpTransaction(String txnId, long timeMs, boolean success, String responseCode) {
+			this.txnId = txnId;
+			this.timeMs = timeMs;
+			this.success = success;
+			this.responseCode = responseCode;
+		}
+	}
+
+
+	/**
+	 * Bounded multi-producer, single-consumer ring buffer.  Producers claim a slot by advancing the tail, then publish the
+	 * event into it; the single consumer takes published events in order.  Neither side takes a lock.
+	 *
+	 * <p>Events are published with a volatile write (rather than a lazy set), so a producer's following read of the
+	 * parked flag cannot be reordered before it.
+	 */
+	private static class RingBuffer {
+		private final AtomicReferenceArray<CdpEvent> slots;
+		private final int mask;
+		private final AtomicLong tail = new AtomicLong();
+		private volatile long head = 0;
+
+		RingBuffer(int requestedSize) {
+			int size = Integer.highestOneBit(Math.max(requestedSize, 2) - 1) << 1;
+			slots = new AtomicReferenceArray<>(size);
+			mask = size - 1;
+		}
+
+		boolean offer(CdpEvent cdpEvent) {
+			long claimed;
+			do {
+				claimed = tail.get();
+				if (claimed - head >= slots.length()) {
+					return false;
+				}
+			} while (!tail.compareAndSet(claimed, claimed + 1));
+			slots.set((int)(claimed & mask), cdpEvent);
+			return true;
+		}
+
+		boolean isEmpty() {
+			return slots.get((int)(head & mask)) == null;
+		}
+
+		CdpEvent poll() {
+			int index = (int)(head & mask);
+			CdpEvent cdpEvent = slots.get(index);
+			if (cdpEvent == null) {
+				return null;    // empty, or the next claimed slot is not yet published
+			}
+			slots.lazySet(index, null);
+			head = head + 1;
+			return cdpEvent;
+		}
+	}
+
+}
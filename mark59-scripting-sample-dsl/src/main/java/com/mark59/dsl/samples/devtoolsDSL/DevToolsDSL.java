@@ -45,6 +45,9 @@ import com.mark59.scripting.selenium.JmeterFunctionsForSeleniumScripts;
  * 
  * <p>For 'ChromiumWebDrivers only (Chrome/Chromium).   
  * 
+ * <p>The listeners process each event on the DevTools listener thread.  For pages making a large number of requests, 
+ * see {@link #addCdpEventPipeline(CdpEventPipeline)}.
+ * 
  * <p>When creating CDP transactions (eg <code>jm.setCdpTransaction("duffTxnName", 59)</code>, you could in theory use the same transaction name as one
  * of your standard transactions (<code>jm.setTransaction("duffTxnName", 300)</code>, unless the transactions are running concurrently. Although the
  * framework can handle this, it could cause confusion and we suggest against it.   
@@ -170,6 +173,24 @@ public class DevToolsDSL  {
 	
 	
 	
+	/**
+	 * Adds request, response and loading finished listeners which just queue the events to the passed pipeline,
+	 * and starts the pipeline.  An alternative to the listeners above for pages making a large number of requests,
+	 * as the events are correlated and the CDP transactions are created off the DevTools listener thread.
+	 * 
+	 * @param cdpEventPipeline the pipeline (close it before the end of the script)
+	 * @return the pipeline
+	 * @see CdpEventPipeline
+	 */
+	public CdpEventPipeline addCdpEventPipeline(CdpEventPipeline cdpEventPipeline) {
+		cdpEventPipeline.start();
+		devTools.addListener(Network.requestWillBeSent(), cdpEventPipeline::offerRequest);
+		devTools.addListener(Network.responseReceived(), cdpEventPipeline::offerResponse);
+		devTools.addListener(Network.loadingFinished(), cdpEventPipeline::offerLoadingFinished);
+		return cdpEventPipeline;
+	}
+	
+	
 	public DevTools getDevTools() {
 		return devTools;
 	}
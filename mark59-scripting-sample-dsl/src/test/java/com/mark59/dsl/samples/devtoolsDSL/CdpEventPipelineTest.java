@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.dsl.samples.devtoolsDSL;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+import org.openqa.selenium.devtools.v149.network.model.LoadingFinished;
+import org.openqa.selenium.devtools.v149.network.model.MonotonicTime;
+import org.openqa.selenium.devtools.v149.network.model.Request;
+import org.openqa.selenium.devtools.v149.network.model.RequestId;
+import org.openqa.selenium.devtools.v149.network.model.RequestWillBeSent;
+import org.openqa.selenium.devtools.v149.network.model.Response;
+import org.openqa.selenium.devtools.v149.network.model.ResponseReceived;
+
+import com.mark59.core.utils.Mark59Constants.JMeterFileDatatypes;
+import com.mark59.scripting.selenium.JmeterFunctionsForSeleniumScripts;
+
+/**
+ * Tests for the CDP event pipeline : ring buffer overflow, correlation of request, response and loading finished events,
+ * and the pipeline thread being woken by offered events.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class CdpEventPipelineTest {
+
+    private static final String BASE_URL = "http://localhost:8081/mark59-datahunter/";
+
+    private JmeterFunctionsForSeleniumScripts mockJm() {
+        JmeterFunctionsForSeleniumScripts jm = mock(JmeterFunctionsForSeleniumScripts.class);
+        when(jm.getMostRecentTransactionStarted()).thenReturn("DH_0100_txn");
+        return jm;
+    }
+
+    private CdpEventPipeline pipeline(JmeterFunctionsForSeleniumScripts jm, int ringBufferSize) {
+        return new CdpEventPipeline(jm, exchange -> exchange.getMostRecentTransactionStarted() + "__"
+                + exchange.getRequest().getRequest().getUrl().substring(BASE_URL.length()), ringBufferSize);
+    }
+
+    private RequestWillBeSent request(String requestId, String path, double timestampSecs) {
+        RequestWillBeSent requestWillBeSent = mock(RequestWillBeSent.class);
+        Request request = mock(Request.class);
+        when(request.getUrl()).thenReturn(BASE_URL + path);
+        when(requestWillBeSent.getRequestId()).thenReturn(new RequestId(requestId));
+        when(requestWillBeSent.getRequest()).thenReturn(request);
+        when(requestWillBeSent.getTimestamp()).thenReturn(new MonotonicTime(timestampSecs));
+        return requestWillBeSent;
+    }
+
+    private ResponseReceived response(String requestId, int status, double timestampSecs) {
+        ResponseReceived responseReceived = mock(ResponseReceived.class);
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(status);
+        when(responseReceived.getRequestId()).thenReturn(new RequestId(requestId));
+        when(responseReceived.getResponse()).thenReturn(response);
+        when(responseReceived.getTimestamp()).thenReturn(new MonotonicTime(timestampSecs));
+        return responseReceived;
+    }
+
+    private LoadingFinished loadingFinished(String requestId, double timestampSecs) {
+        LoadingFinished loadingFinished = mock(LoadingFinished.class);
+        when(loadingFinished.getRequestId()).thenReturn(new RequestId(requestId));
+        when(loadingFinished.getTimestamp()).thenReturn(new MonotonicTime(timestampSecs));
+        return loadingFinished;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long giveUpAtMs = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < giveUpAtMs) {
+            Thread.sleep(5);
+        }
+        assertTrue("condition not met within 5 secs", condition.getAsBoolean());
+    }
+
+
+    @Test
+    public void testEventsOfferedWhenTheRingBufferIsFullAreDroppedAndCounted() {
+        JmeterFunctionsForSeleniumScripts jm = mockJm();
+        CdpEventPipeline cdpPipeline = pipeline(jm, 3);    // rounded up to 4 events
+
+        // the pipeline thread is not started, so nothing is taken off the buffer
+        cdpPipeline.offerRequest(request("1", "one", 10.0));
+        cdpPipeline.offerResponse(response("1", 200, 10.25));
+        cdpPipeline.offerRequest(request("2", "two", 10.5));
+        cdpPipeline.offerResponse(response("2", 200, 10.625));
+        cdpPipeline.offerRequest(request("3", "three", 11.0));
+        cdpPipeline.offerResponse(response("3", 200, 11.5));
+        assertEquals(2, cdpPipeline.getDroppedEventCount());
+
+        cdpPipeline.start();
+        cdpPipeline.close();
+
+        verify(jm).recordTransaction("DH_0100_txn__one", JMeterFileDatatypes.CDP, 250L, true, "200");
+        verify(jm).recordTransaction("DH_0100_txn__two", JMeterFileDatatypes.CDP, 125L, true, "200");
+        verify(jm, never()).recordTransaction(eq("DH_0100_txn__three"), any(), anyLong(), anyBoolean(), anyString());
+        assertEquals(2, cdpPipeline.getCdpTransactionCount());
+        assertEquals(2, cdpPipeline.getDroppedEventCount());
+    }
+
+
+    @Test
+    public void testResponsesAreCorrelatedToTheirRequestsByRequestId() throws InterruptedException {
+        JmeterFunctionsForSeleniumScripts jm = mockJm();
+        CdpEventPipeline cdpPipeline = pipeline(jm, 16).excludeUrls(".*\\.css$");
+        cdpPipeline.start();
+
+        cdpPipeline.offerRequest(request("1", "one", 10.0));
+        cdpPipeline.offerRequest(request("2", "two", 10.5));
+        cdpPipeline.offerRequest(request("3", "style.css", 10.5));
+        cdpPipeline.offerResponse(response("2", 404, 10.625));     // responses out of request order
+        cdpPipeline.offerResponse(response("unknown", 200, 10.75));
+        cdpPipeline.offerResponse(response("3", 200, 10.75));
+        cdpPipeline.offerResponse(response("1", 200, 10.25));
+
+        // the parked pipeline thread is woken by the offered events (the pipeline has not been closed)
+        awaitCondition(() -> cdpPipeline.getCdpTransactionCount() == 2);
+        cdpPipeline.close();
+
+        verify(jm).recordTransaction("DH_0100_txn__one", JMeterFileDatatypes.CDP, 250L, true, "200");
+        verify(jm).recordTransaction("DH_0100_txn__two", JMeterFileDatatypes.CDP, 125L, false, "404");
+        verify(jm, times(2)).recordTransaction(anyString(), any(), anyLong(), anyBoolean(), anyString());
+        assertEquals(1, cdpPipeline.getFilteredRequestCount());
+        assertEquals(0, cdpPipeline.getDroppedEventCount());
+    }
+
+
+    @Test
+    public void testTimedToLoadingFinishedWhenSet() {
+        JmeterFunctionsForSeleniumScripts jm = mockJm();
+        CdpEventPipeline cdpPipeline = pipeline(jm, 16).timeToLoadingFinished(true);
+        cdpPipeline.start();
+
+        cdpPipeline.offerRequest(request("1", "one", 10.0));
+        cdpPipeline.offerResponse(response("1", 200, 10.25));
+        cdpPipeline.offerLoadingFinished(loadingFinished("1", 10.5));
+        cdpPipeline.offerLoadingFinished(loadingFinished("2", 11.0));    // no request for it
+        cdpPipeline.close();
+
+        verify(jm).recordTransaction("DH_0100_txn__one", JMeterFileDatatypes.CDP, 500L, true, "200");
+        assertEquals(1, cdpPipeline.getCdpTransactionCount());
+    }
+
+
+    @Test
+    public void testIncompleteRequestsAreEvictedWhileThePipelineIsIdle() throws InterruptedException {
+        JmeterFunctionsForSeleniumScripts jm = mockJm();
+        CdpEventPipeline cdpPipeline = pipeline(jm, 16).orphanTimeoutMs(50);
+        cdpPipeline.start();
+
+        cdpPipeline.offerRequest(request("1", "one", 10.0));
+        awaitCondition(() -> cdpPipeline.getEvictedOrphanCount() == 1);
+
+        cdpPipeline.offerResponse(response("1", 200, 10.25));
+        cdpPipeline.close();
+        assertEquals(0, cdpPipeline.getCdpTransactionCount());
+        verify(jm, never()).recordTransaction(anyString(), any(), anyLong(), anyBoolean(), anyString());
+    }
+
+}
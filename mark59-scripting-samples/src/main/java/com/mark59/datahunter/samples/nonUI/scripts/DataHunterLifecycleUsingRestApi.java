@@ -300,6 +300,10 @@ public class DataHunterLifecycleUsingRestApi extends AbstractJavaSamplerClient
 //		jmeterParameters.removeArgument(JmeterFunctionsImpl.PRINT_RESULTS_SUMMARY);
 //		jmeterParameters.addArgument(JmeterFunctionsImpl.PRINT_RESULTS_SUMMARY, String.valueOf(true));		
 		thisTest.runTest(new JavaSamplerContext( jmeterParameters));
+
+//		alternatively, run many users of this script (on virtual threads with Java 21 or later, see LocalSamplerRunner):
+//		new com.mark59.scripting.LocalSamplerRunner(DataHunterLifecycleUsingRestApi.class,
+//				com.mark59.scripting.LocalSamplerRunner.ThreadMode.VIRTUAL).run(500, 10, 2, 1000, null).printResultsSummary();
 	}
 
 }
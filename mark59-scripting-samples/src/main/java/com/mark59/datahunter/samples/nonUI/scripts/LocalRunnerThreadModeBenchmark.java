@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.datahunter.samples.nonUI.scripts;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.jmeter.config.Arguments;
+import org.apache.jmeter.protocol.java.sampler.AbstractJavaSamplerClient;
+import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.logging.log4j.Level;
+
+import com.mark59.core.JmeterFunctionsImpl;
+import com.mark59.core.utils.Log4jConfigurationHelper;
+import com.mark59.scripting.LocalRunResults;
+import com.mark59.scripting.LocalRunResults.TransactionTimes;
+import com.mark59.scripting.LocalSamplerRunner;
+import com.mark59.scripting.LocalSamplerRunner.ThreadMode;
+
+
+/**
+ * Compares running many users of an I/O bound script on platform threads and on virtual threads, using the
+ * {@link LocalSamplerRunner}.
+ *
+ * <p>The script ({@link SimulatedApiCallScript}) times a transaction which just blocks for a fixed time, as a REST API
+ * call waiting on a response would.  For each thread mode the benchmark prints:
+ * <ul>
+ * <li>the elapsed time of the run, and the achieved transaction rate (density)</li>
+ * <li>the peak number of platform threads in the JVM during the run</li>
+ * <li>how far the recorded transaction times are over the blocking time (timing accuracy)</li>
+ * </ul>
+ *
+ * <p>Virtual threads require Java 21 or later to run the benchmark (otherwise both runs use platform threads).
+ *
+ * @see LocalSamplerRunner
+ * @see DataHunterLifecycleUsingRestApi
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class LocalRunnerThreadModeBenchmark {
+
+	private static final int USERS = 2000;
+	private static final int ITERATIONS_PER_USER = 5;
+	private static final long SIMULATED_API_CALL_MS = 200;
+	private static final String TXN = "simulated_api_call";
+
+
+	/**
+	 * A script whose single transaction blocks for {@link LocalRunnerThreadModeBenchmark#SIMULATED_API_CALL_MS}
+	 */
+	public static class SimulatedApiCallScript extends AbstractJavaSamplerClient {
+
+		@Override
+		public Arguments getDefaultParameters() {
+			return new Arguments();
+		}
+
+		@Override
+		public SampleResult runTest(JavaSamplerContext context) {
+			JmeterFunctionsImpl jm = new JmeterFunctionsImpl(context, false);
+			jm.startTransaction(TXN);
+			try {
+				Thread.sleep(SIMULATED_API_CALL_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			jm.endTransaction(TXN);
+			jm.tearDown();
+			return jm.getMainResult();
+		}
+	}
+
+
+	private static void runBenchmark(ThreadMode threadMode) {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		threadMXBean.resetPeakThreadCount();
+
+		long startMs = System.currentTimeMillis();
+		LocalRunResults results = new LocalSamplerRunner(SimulatedApiCallScript.class, threadMode).run(USERS, 0, ITERATIONS_PER_USER, 0, null);
+		long elapsedMs = System.currentTimeMillis() - startMs;
+
+		TransactionTimes times = results.getTransactions().get(TXN);
+
+		System.out.println();
+		System.out.println(threadMode + " threads (" + USERS + " users x " + ITERATIONS_PER_USER + " iterations, "
+				+ SIMULATED_API_CALL_MS + " ms blocking call)");
+		System.out.println("    elapsed ms               : " + elapsedMs);
+		System.out.println("    transactions / sec       : " + (times.getPassCount() * 1000L / Math.max(elapsedMs, 1)));
+		System.out.println("    peak platform threads    : " + threadMXBean.getPeakThreadCount());
+		System.out.println("    avg ms over blocking time: " + (times.getAverage() - SIMULATED_API_CALL_MS));
+		System.out.println("    99th ms over blocking    : " + (times.getPercentile(0.99) - SIMULATED_API_CALL_MS));
+		System.out.println("    max ms over blocking     : " + (times.getMax() - SIMULATED_API_CALL_MS));
+	}
+
+
+	/**
+	 * Run the benchmark for platform threads, then virtual threads
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		Log4jConfigurationHelper.init(Level.WARN);
+		System.out.println("Virtual threads available : " + LocalSamplerRunner.isVirtualThreadsAvailable()
+				+ " (Java " + System.getProperty("java.version") + ")");
+		runBenchmark(ThreadMode.PLATFORM);
+		runBenchmark(ThreadMode.VIRTUAL);
+	}
+
+}
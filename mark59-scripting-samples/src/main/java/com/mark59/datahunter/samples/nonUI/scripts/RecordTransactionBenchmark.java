@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.datahunter.samples.nonUI.scripts;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.logging.log4j.Level;
+
+import com.mark59.core.JmeterFunctionsImpl;
+import com.mark59.core.utils.Log4jConfigurationHelper;
+
+
+/**
+ * Compares the cost of adding transactions and datapoints to a script's results using the
+ * {@link JmeterFunctionsImpl#setTransaction(String, long)} / {@link JmeterFunctionsImpl#userDataPoint(String, long)}
+ * methods (a SampleResult is created as each is set) and using the
+ * {@link JmeterFunctionsImpl#recordTransaction(String, long, boolean)} / {@link JmeterFunctionsImpl#recordDataPoint(String, long)}
+ * methods (SampleResults are only created when the main result is next used).
+ *
+ * <p>Each 'script iteration' adds {@link #TXNS_PER_ITERATION} transactions and a datapoint per transaction, then
+ * tears down, so both approaches end with the same SampleResults on the main result.  For each approach the benchmark
+ * prints the average time per iteration spent adding the results (before tear down), the average time for the whole
+ * iteration, and (where the JVM supports it) the bytes allocated per iteration.
+ *
+ * @see LocalRunnerThreadModeBenchmark
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class RecordTransactionBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 20000;
+	private static final int MEASURED_ITERATIONS = 50000;
+	private static final int TXNS_PER_ITERATION = 20;
+
+	private static final String[] TXN_NAMES = new String[TXNS_PER_ITERATION];
+	private static final String[] DATAPOINT_NAMES = new String[TXNS_PER_ITERATION];
+	static {
+		for (int i = 0; i < TXNS_PER_ITERATION; i++) {
+			TXN_NAMES[i] = "benchmark_txn_" + i;
+			DATAPOINT_NAMES[i] = "benchmark_datapoint_" + i;
+		}
+	}
+
+	private static long blackhole = 0;
+
+
+	private enum Approach {SET_TRANSACTION, RECORD_TRANSACTION}
+
+
+	/**
+	 * @return nanoseconds spent adding the transactions and datapoints (the tear down is not included)
+	 */
+	private static long runIteration(Approach approach) {
+		JmeterFunctionsImpl jm = new JmeterFunctionsImpl(null, false);
+		long startNanos = System.nanoTime();
+		for (int i = 0; i < TXNS_PER_ITERATION; i++) {
+			if (approach == Approach.SET_TRANSACTION) {
+				jm.setTransaction(TXN_NAMES[i], i);
+				jm.userDataPoint(DATAPOINT_NAMES[i], i);
+			} else {
+				jm.recordTransaction(TXN_NAMES[i], i, true);
+				jm.recordDataPoint(DATAPOINT_NAMES[i], i);
+			}
+		}
+		long addNanos = System.nanoTime() - startNanos;
+		jm.tearDown();
+		blackhole += jm.getMainResult().getSubResults().length;
+		return addNanos;
+	}
+
+
+	private static void runBenchmark(Approach approach) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			runIteration(approach);
+		}
+
+		long allocatedBytesAtStart = allocatedBytes();
+		long addNanos = 0;
+		long startNanos = System.nanoTime();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			addNanos += runIteration(approach);
+		}
+		long elapsedNanos = System.nanoTime() - startNanos;
+		long allocatedBytes = allocatedBytes() - allocatedBytesAtStart;
+
+		System.out.println();
+		System.out.println(approach + " (" + MEASURED_ITERATIONS + " iterations of " + TXNS_PER_ITERATION
+				+ " transactions and " + TXNS_PER_ITERATION + " datapoints)");
+		System.out.println("    ns / iteration adding results  : " + addNanos / MEASURED_ITERATIONS);
+		System.out.println("    ns / iteration incl. tear down : " + elapsedNanos / MEASURED_ITERATIONS);
+		if (allocatedBytesAtStart >= 0) {
+			System.out.println("    bytes allocated / iteration    : " + allocatedBytes / MEASURED_ITERATIONS);
+		}
+	}
+
+
+	/**
+	 * @return bytes allocated by this thread so far, or -1 if the JVM does not report it
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Run the benchmark for setTransaction/userDataPoint (before), then recordTransaction/recordDataPoint (after)
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		Log4jConfigurationHelper.init(Level.WARN);
+		System.out.println("Java " + System.getProperty("java.version"));
+		runBenchmark(Approach.SET_TRANSACTION);
+		runBenchmark(Approach.RECORD_TRANSACTION);
+		System.out.println("\n(" + blackhole + " sub-results created)");
+	}
+
+}
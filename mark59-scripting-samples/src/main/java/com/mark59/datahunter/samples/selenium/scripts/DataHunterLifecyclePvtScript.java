@@ -367,6 +367,16 @@ public class DataHunterLifecyclePvtScript  extends SeleniumAbstractJavaSamplerCl
 	 *			, res -> "Document".equalsIgnoreCase(res.getType().toJson()) && jm.getMostRecentTransactionStarted() != null
 	 *			, computeTxnId);
 	 *
+	 *	For pages making a large number of requests, the events can instead be correlated off the DevTools listener thread
+	 *	using a CdpEventPipeline (which needs to be closed before the end of the script, eg in a 'finally' block) :
+	 *
+	 *	CdpEventPipeline cdpPipeline = devToolsDsl.addCdpEventPipeline(new CdpEventPipeline(jm
+	 *			, exchange -> exchange.getMostRecentTransactionStarted() + "__net_" + StringUtils.substringBeforeLast(
+	 *					StringUtils.substringAfter(exchange.getResponse().getResponse().getUrl(), "mark59-datahunter/"), "?"))
+	 *			.includeUrls(".*mark59-datahunter/.*")
+	 *			.exchangeFilter(exchange -> "Document".equalsIgnoreCase(exchange.getResponse().getType().toJson())
+	 *					&& exchange.getMostRecentTransactionStarted() != null));
+	 *
 	 * @param jm JmeterFunctionsForSeleniumScripts
 	 * @param driver WebDriver
 	 */
@@ -16,8 +16,11 @@
 
 package com.mark59.scripting;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
 import org.apache.jmeter.samplers.SampleResult;
@@ -68,6 +71,9 @@ import com.mark59.core.utils.Mark59LogLevels;
  *
  * <p>Finer grained control within a script can be achieved using methods to setting the individual logging flags.
  *
+ * <p>The volume of transaction-level logs which are written (rather than buffered) can be limited by sampling script
+ * executions and setting a per-minute byte budget.  See {@link UiCapturePolicy}.
+ *
  * <p>An example of transaction-level logging:
  * <pre><code>
  * if (LOG.isInfoEnabled()) jm.logScreenshotsAtStartOfTransactions(Mark59LogLevels.WRITE);
@@ -104,6 +110,21 @@ public abstract class AbstractJmeterFunctionsUiCommon extends JmeterFunctionsImp
 	/** Parameter name for controlling performance log at transaction end (Selenium only).
 	 *  @see #logPerformanceLogAtEndOfTransactions */
 	public static final String LOG_PERF_LOG_AT_END_OF_TRANSACTIONS 		= "Log_Perf_Log_At_End_Of_Transactions";
+	/** Parameter name for writing transaction-level logs for only one in N script executions.
+	 *  @see UiCapturePolicy */
+	public static final String LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS 	= "Log_Capture_Sample_One_In_N_Iterations";
+	/** Parameter name for the KB of transaction-level logs that can be written each minute.
+	 *  @see UiCapturePolicy */
+	public static final String LOG_CAPTURE_BUDGET_KB_PER_MINUTE 		= "Log_Capture_Budget_KB_Per_Minute";
+	/** Parameter name for applying the transaction-level log budget to each thread, rather than the JVM.
+	 *  @see UiCapturePolicy */
+	public static final String LOG_CAPTURE_BUDGET_PER_THREAD 			= "Log_Capture_Budget_Per_Thread";
+	/** Parameter name for always writing end of transaction logs for a failed transaction.
+	 *  @see UiCapturePolicy */
+	public static final String LOG_CAPTURE_ALWAYS_ON_FAILED_TRANSACTION = "Log_Capture_Always_On_Failed_Transaction";
+	/** Parameter name for buffering transaction-level logs which are not written, keeping the last N.
+	 *  @see UiCapturePolicy */
+	public static final String LOG_CAPTURE_BUFFER_LAST_N 				= "Log_Capture_Buffer_Last_N";
 
 
 	private boolean writeScreenshotsAtStartOfTransactions = false;
@@ -117,6 +138,9 @@ public abstract class AbstractJmeterFunctionsUiCommon extends JmeterFunctionsImp
 	private boolean writePerformanceLogAtEndOfTransactions = false;
 	private boolean bufferPerformanceLogAtEndOfTransactions = false;
 
+	private final UiCapturePolicy capturePolicy;
+	private boolean writingTransactionLog = false;
+
 	/**
 	 * Constructs an AbstractJmeterFunctionsUiCommon instance and initializes logging behavior.
 	 *
@@ -127,6 +151,7 @@ public abstract class AbstractJmeterFunctionsUiCommon extends JmeterFunctionsImp
 		super(context);
 		setDefaultTxnLoggingBehaviourBasedOnLog4j();
 		overrideTxnLoggingBehaviourUsingJmeterParameters(jmeterRuntimeArgumentsMap);
+		capturePolicy = UiCapturePolicy.fromArguments(jmeterRuntimeArgumentsMap);
 	}
 
 
@@ -252,18 +277,10 @@ public abstract class AbstractJmeterFunctionsUiCommon extends JmeterFunctionsImp
 	@Override
 	public void startTransaction(String transactionLabel, JMeterFileDatatypes jMeterFileDatatypes, boolean includeInStartOfTransactionLogs){
 		if (includeInStartOfTransactionLogs) {
-			if (bufferScreenshotsAtStartOfTransactions) {
-				bufferScreenshot(transactionLabel + "_before" );
-			}
-			if (writeScreenshotsAtStartOfTransactions) {
-				writeScreenshot(transactionLabel + "_before" );
-			}
-			if (bufferPageSourceAtStartOfTransactions) {
-				bufferPageSource(transactionLabel + "_source_before" );
-			}
-			if (writePageSourceAtStartOfTransactions) {
-				writePageSource(transactionLabel + "_source_before" );
-			}
+			transactionLog(transactionLabel + "_before", bufferScreenshotsAtStartOfTransactions,
+					writeScreenshotsAtStartOfTransactions, false, this::bufferScreenshot, this::writeScreenshot);
+			transactionLog(transactionLabel + "_source_before", bufferPageSourceAtStartOfTransactions,
+					writePageSourceAtStartOfTransactions, false, this::bufferPageSource, this::writePageSource);
 		}
 		super.startTransaction(transactionLabel, jMeterFileDatatypes);
 	}
@@ -346,30 +363,19 @@ public abstract class AbstractJmeterFunctionsUiCommon extends JmeterFunctionsImp
 
 		SampleResult sampleResult = super.endTransaction(transactionLabel, result, responseCode);
 
+		boolean failedTxn = result.getOutcomeText().equals(Outcome.FAIL.getOutcomeText());
 		String markIfailedTxnTag = "";
-		if (result.getOutcomeText().equals(Outcome.FAIL.getOutcomeText())){
+		if (failedTxn){
 			markIfailedTxnTag = "_FAILED";
 		}
 
 		if (includeInEndOfTransactionLogs) {
-			if (bufferScreenshotsAtEndOfTransactions) {
-				bufferScreenshot(transactionLabel + markIfailedTxnTag + "_ends" );
-			}
-			if (writeScreenshotsAtEndOfTransactions) {
-				writeScreenshot(transactionLabel + markIfailedTxnTag + "_ends" );
-			}
-			if (bufferPageSourceAtEndOfTransactions) {
-				bufferPageSource(transactionLabel + markIfailedTxnTag + "_source_at_end" );
-			}
-			if (writePageSourceAtEndOfTransactions) {
-				writePageSource(transactionLabel + markIfailedTxnTag + "_source_at_end" );
-			}
-			if (bufferPerformanceLogAtEndOfTransactions) {
-				bufferDriverPerfLogs(transactionLabel + markIfailedTxnTag + "_perflog");
-			}
-			if (writePerformanceLogAtEndOfTransactions) {
-				writeDriverPerfLogs(transactionLabel + markIfailedTxnTag + "_perflog");
-			}
+			transactionLog(transactionLabel + markIfailedTxnTag + "_ends", bufferScreenshotsAtEndOfTransactions,
+					writeScreenshotsAtEndOfTransactions, failedTxn, this::bufferScreenshot, this::writeScreenshot);
+			transactionLog(transactionLabel + markIfailedTxnTag + "_source_at_end", bufferPageSourceAtEndOfTransactions,
+					writePageSourceAtEndOfTransactions, failedTxn, this::bufferPageSource, this::writePageSource);
+			transactionLog(transactionLabel + markIfailedTxnTag + "_perflog", bufferPerformanceLogAtEndOfTransactions,
+					writePerformanceLogAtEndOfTransactions, failedTxn, this::bufferDriverPerfLogs, this::writeDriverPerfLogs);
 		}
 		return sampleResult;
 	}
@@ -489,26 +495,94 @@ public abstract class AbstractJmeterFunctionsUiCommon extends JmeterFunctionsImp
 		SampleResult sampleResult = super.setTransaction(transactionLabel, jMeterFileDatatypes, transactionTime, success, responseCode);
 
 		if (includeInEndOfTransactionLogs) {
-			if (bufferScreenshotsAtEndOfTransactions) {
-				bufferScreenshot(transactionLabel + "_set");
-			}
-			if (writeScreenshotsAtEndOfTransactions) {
-				writeScreenshot(transactionLabel + "_set");
-			}
-			if (bufferPageSourceAtEndOfTransactions) {
-				bufferPageSource(transactionLabel + "_set");
-			}
-			if (writePageSourceAtEndOfTransactions) {
-				writePageSource(transactionLabel + "_set");
-			}
-			if (bufferPerformanceLogAtEndOfTransactions) {
-				bufferDriverPerfLogs(transactionLabel + "_perflog");
+			transactionLog(transactionLabel + "_set", bufferScreenshotsAtEndOfTransactions,
+					writeScreenshotsAtEndOfTransactions, !success, this::bufferScreenshot, this::writeScreenshot);
+			transactionLog(transactionLabel + "_set", bufferPageSourceAtEndOfTransactions,
+					writePageSourceAtEndOfTransactions, !success, this::bufferPageSource, this::writePageSource);
+			transactionLog(transactionLabel + "_perflog", bufferPerformanceLogAtEndOfTransactions,
+					writePerformanceLogAtEndOfTransactions, !success, this::bufferDriverPerfLogs, this::writeDriverPerfLogs);
+		}
+		return sampleResult;
+	}
+
+
+	/**
+	 * Buffers and/or writes a transaction-level log.  A log to be written is subject to the {@link UiCapturePolicy}
+	 * for the script: when the policy does not allow the write, the log is buffered instead if the policy keeps
+	 * the last N logs, otherwise it is not captured at all.
+	 */
+	private void transactionLog(String logName, boolean buffer, boolean write, boolean failedTxn,
+			Consumer<String> bufferer, Consumer<String> writer) {
+		if (buffer) {
+			bufferer.accept(logName);
+		}
+		if (write) {
+			if (capturePolicy.isWriteAllowed(failedTxn)) {
+				writingTransactionLog = true;
+				try {
+					writer.accept(logName);
+				} finally {
+					writingTransactionLog = false;
+				}
+			} else if (capturePolicy.getBufferLastN() > 0) {
+				bufferer.accept(logName);
 			}
-			if (writePerformanceLogAtEndOfTransactions) {
-				writeDriverPerfLogs(transactionLabel + "_perflog");
+		}
+	}
+
+
+	/**
+	 * As per {@link JmeterFunctionsImpl#writeLog(String, String, byte[])}.  The size of transaction-level logs is
+	 * recorded against the byte budget of the script's {@link UiCapturePolicy}.
+	 */
+	@Override
+	public void writeLog(String mark59LogName, String mark59LogNameSuffix, byte[] mark59LogBytes) {
+		super.writeLog(mark59LogName, mark59LogNameSuffix, mark59LogBytes);
+		if (writingTransactionLog && mark59LogBytes != null) {
+			capturePolicy.recordBytesWritten(mark59LogBytes.length);
+		}
+	}
+
+
+	/**
+	 * As per {@link JmeterFunctionsImpl#bufferLog(String, String, byte[])}.  When the script's {@link UiCapturePolicy}
+	 * keeps the last N buffered logs, the oldest buffered log is discarded once there are more than N.
+	 */
+	@Override
+	public void bufferLog(String mark59LogName, String mark59LogNameSuffix, byte[] mark59LogBytes) {
+		super.bufferLog(mark59LogName, mark59LogNameSuffix, mark59LogBytes);
+		int bufferLastN = capturePolicy.getBufferLastN();
+		Iterator<String> oldestFirst = bufferedArtifacts.keySet().iterator();
+		while (bufferLastN > 0 && bufferedArtifacts.size() > bufferLastN && oldestFirst.hasNext()) {
+			oldestFirst.next();
+			oldestFirst.remove();
+		}
+	}
+
+
+	/**
+	 * As per {@link JmeterFunctionsImpl#tearDown()}, except when the script's {@link UiCapturePolicy} keeps the last N
+	 * buffered logs: then any buffered logs are written first if the script has failed (a transaction failed or
+	 * was not ended, or the test was failed).
+	 */
+	@Override
+	public void tearDown() {
+		if (capturePolicy.getBufferLastN() > 0 && !bufferedArtifacts.isEmpty()) {
+			boolean scriptFailed = isForcedFail || !returnInFlightTransactionNames().isEmpty()
+					|| !Arrays.stream(getMainResult().getSubResults()).allMatch(SampleResult::isSuccessful);
+			if (scriptFailed) {
+				writeBufferedArtifacts();
 			}
 		}
-		return sampleResult;
+		super.tearDown();
+	}
+
+
+	/**
+	 * @return the policy limiting the transaction-level logs written by this script
+	 */
+	public UiCapturePolicy getCapturePolicy() {
+		return capturePolicy;
 	}
 
 
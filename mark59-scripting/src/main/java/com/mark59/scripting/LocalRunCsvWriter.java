@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jmeter.samplers.SampleResult;
+
+import com.mark59.core.NanoTimedSampleResult;
+import com.mark59.core.Outcome;
+import com.mark59.core.utils.Mark59Utils;
+
+import jodd.util.CsvUtil;
+
+/**
+ * Writes the transaction results of script threads run locally to a JMeter format CSV results file (see
+ * {@link UiAbstractJavaSamplerClient#runMultiThreadedUiTest(int, int, java.util.Map, KeepBrowserOpen, int, int, boolean, File)}).
+ *
+ * <p>The file has the standard columns of a JMeter CSV results file.  As in a file written by JMeter, the nanosecond
+ * time of a passed nano-timed transaction is appended to its response message (see {@link NanoTimedSampleResult}).
+ *
+ * <p>Script threads only format their results and queue them.  A single writer thread does the file output, so script
+ * threads are not held up by each other or by the disk.  Queued results are all written when the writer is closed.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class LocalRunCsvWriter implements Closeable {
+
+	private static final int QUEUE_SIZE = 10000;
+	private static final List<String> END_OF_RESULTS = new ArrayList<>();
+
+	private final File jmeterResultsFile;
+	private final BufferedWriter writer;
+	private final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Thread writerThread;
+	private volatile IOException writeFailure;
+
+
+	/**
+	 * Opens (creates or overwrites) the results file, writes the CSV header and starts the writer thread
+	 * @param jmeterResultsFile the JMeter format CSV file to be written
+	 * @throws IOException if the file cannot be opened
+	 */
+	public LocalRunCsvWriter(File jmeterResultsFile) throws IOException {
+		this.jmeterResultsFile = jmeterResultsFile;
+		this.writer = new BufferedWriter(new OutputStreamWriter(FileUtils.openOutputStream(jmeterResultsFile), StandardCharsets.UTF_8));
+		writer.write(CsvUtil.toCsvString("timeStamp","elapsed","label","responseCode","responseMessage","threadName","dataType","success",
+				"failureMessage","bytes","sentBytes", "grpThreads","allThreads","URL","Latency","Hostname","IdleTime","Connect"));
+		writer.newLine();
+
+		writerThread = new Thread(this::writeQueuedResults, "mark59-local-csv-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+
+	/**
+	 * Queue the transactions (sub-results) of a script execution to be written.  Waits if the queue is full.
+	 * @param testInstanceSampleResult the main result of a script execution
+	 * @param originatingThread name of the script thread
+	 */
+	public void write(SampleResult testInstanceSampleResult, String originatingThread) {
+		if (writeFailure != null) {
+			return;
+		}
+		List<String> csvLines = new ArrayList<>();
+		for (SampleResult subResult : testInstanceSampleResult.getSubResults()) {
+
+			boolean success = Outcome.PASS.getOutcomeText().equalsIgnoreCase(
+					Mark59Utils.responseMessageWithoutElapsedNanos(subResult.getResponseMessage()));
+
+			csvLines.add(CsvUtil.toCsvString(String.valueOf(subResult.getTimeStamp()) , String.valueOf(subResult.getTime()),
+					subResult.getSampleLabel(),	subResult.getResponseCode(),subResult.getResponseMessage(), "localthread_" + originatingThread,
+					subResult.getDataType(), String.valueOf(success), "", "0", "0", String.valueOf(subResult.getGroupThreads()),
+					String.valueOf(subResult.getAllThreads()), "null", "0", "local", "0", "0" ));
+		}
+		if (csvLines.isEmpty()) {
+			return;
+		}
+		try {
+			queue.put(csvLines);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("Interrupted queuing results for csv file " + jmeterResultsFile.getName());
+		}
+	}
+
+
+	private void writeQueuedResults() {
+		try {
+			List<String> csvLines = queue.take();
+			while (csvLines != END_OF_RESULTS) {
+				for (String csvLine : csvLines) {
+					writer.write(csvLine);
+					writer.newLine();
+				}
+				csvLines = queue.take();
+			}
+		} catch (IOException e) {
+			writeFailure = e;
+			queue.clear();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Waits for all queued results to be written, then closes the file
+	 * @throws IOException if writing to the file failed
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (writeFailure == null) {
+				queue.put(END_OF_RESULTS);
+			}
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			writer.close();
+		}
+		if (writeFailure != null) {
+			throw new IOException("Failed writing to csv file " + jmeterResultsFile.getName() + " : " + writeFailure.getMessage(), writeFailure);
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.mark59.core.Outcome;
+import com.mark59.core.utils.Mark59Utils;
+
+/**
+ * Transaction results recorded by a script thread run locally (see
+ * {@link UiAbstractJavaSamplerClient#runMultiThreadedUiTest(int, int, Map, KeepBrowserOpen, int, int, boolean, java.io.File)}).
+ *
+ * <p>Each thread records into its own instance, so no locking is needed while the test runs.  Once the threads have
+ * completed, the instances are merged using {@link #merge(Collection)} to produce the results summary table.
+ *
+ * <p>All response times are kept, so the percentiles are exact.  They are calculated the same way as the percentiles
+ * in the JMeter Aggregate Report (the value at position round(count * percentile) of the sorted response times).
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class LocalRunResults {
+
+	private static final Logger LOG = LogManager.getLogger(LocalRunResults.class);
+
+	private final Map<String, TransactionTimes> transactions;
+
+
+	/**
+	 * Create an empty set of results, for a single script thread to record into
+	 */
+	public LocalRunResults() {
+		this.transactions = new HashMap<>();
+	}
+
+	private LocalRunResults(Map<String, TransactionTimes> transactions) {
+		this.transactions = transactions;
+	}
+
+
+	/**
+	 * Record the transactions (sub-results) of a script execution
+	 * @param testInstanceSampleResult the main result of a script execution
+	 */
+	public void record(SampleResult testInstanceSampleResult) {
+		for (SampleResult subResult : testInstanceSampleResult.getSubResults()) {
+
+			String summaryTableTxn = subResult.getSampleLabel();
+			if (StringUtils.isNotBlank(subResult.getDataType())){
+				summaryTableTxn = summaryTableTxn + " (" + subResult.getDataType() + ")";
+			}
+
+			TransactionTimes transactionTimes = transactions.computeIfAbsent(summaryTableTxn, k -> new TransactionTimes());
+			if (Outcome.PASS.getOutcomeText().equalsIgnoreCase(Mark59Utils.responseMessageWithoutElapsedNanos(subResult.getResponseMessage()))){
+				transactionTimes.addPass(subResult.getTime());
+			} else {
+				transactionTimes.addFail();
+			}
+		}
+	}
+
+
+	/**
+	 * Merge the results recorded by each thread.  Only to be called once the threads have completed.
+	 * @param threadResults results of each thread
+	 * @return the combined results, ordered by transaction name
+	 */
+	public static LocalRunResults merge(Collection<LocalRunResults> threadResults) {
+		Map<String, TransactionTimes> merged = new TreeMap<>();
+		for (LocalRunResults threadResult : threadResults) {
+			threadResult.transactions.forEach((txn, times) -> merged.computeIfAbsent(txn, k -> new TransactionTimes()).addAll(times));
+		}
+		return new LocalRunResults(merged);
+	}
+
+
+	/**
+	 * @return the transaction names and their recorded times
+	 */
+	public Map<String, TransactionTimes> getTransactions() {
+		return transactions;
+	}
+
+
+	/**
+	 * Print the summary table of the results (to the log4j logger and the console)
+	 */
+	public void printResultsSummary() {
+		String format = "%-80s%-12s%-10s%-12s%-12s%-12s%-12s%-12s%-12s";
+
+		LOG.info("\n\n\n");
+		LOG.info(StringUtils.repeat(" ", 74) + "Results Summary Table");
+		LOG.info(StringUtils.repeat(" ", 74) + "---------------------");
+		LOG.info("");
+		LOG.info(String.format(format, "Transaction", "#Samples", "FAIL", "Average", "Min", "Max", "90th", "95th", "99th"));
+		LOG.info(String.format(format, "-----------", "--------", "----", "-------", "---", "---", "----", "----", "----"));
+		transactions.forEach((k, v) -> LOG.info(summaryLine(format, k, v)));
+		LOG.info(StringUtils.repeat("-", 168));
+
+		System.out.println("\n\n\n");
+		System.out.println(StringUtils.repeat(" ", 74) + "Results Summary Table");
+		System.out.println(StringUtils.repeat(" ", 74) + "---------------------");
+		System.out.println();
+		System.out.println(String.format(format, "Transaction", "#Samples", "FAIL", "Average", "Min", "Max", "90th", "95th", "99th"));
+		System.out.println(String.format(format, "-----------", "--------", "----", "-------", "---", "---", "----", "----", "----"));
+		transactions.forEach((k, v) -> System.out.println(summaryLine(format, k, v)));
+		System.out.println(StringUtils.repeat("-", 168));
+	}
+
+
+	private static String summaryLine(String format, String txn, TransactionTimes times) {
+		if (txn.length() < 76) {
+			txn = (txn.length() % 2 == 0) ? txn + "  " + StringUtils.repeat(" .", 38 - txn.length()/2) : txn + "  " + StringUtils.repeat(". ", 39 - (txn.length()+1)/2 );
+		}
+		return String.format(format, txn, times.getPassCount(), times.getFailCount(), times.getAverage(), times.getMin(), times.getMax(),
+				times.getPercentile(0.90), times.getPercentile(0.95), times.getPercentile(0.99));
+	}
+
+
+	/**
+	 * Response times of the passed samples of a transaction, and the count of failed samples
+	 */
+	public static class TransactionTimes {
+		private long[] times = new long[16];
+		private int passCount = 0;
+		private long failCount = 0;
+		private long sum = 0;
+		private boolean sorted = true;
+
+		void addPass(long time) {
+			if (passCount == times.length) {
+				times = Arrays.copyOf(times, passCount * 2);
+			}
+			times[passCount++] = time;
+			sum += time;
+			sorted = false;
+		}
+
+		void addFail() {
+			failCount++;
+		}
+
+		void addAll(TransactionTimes other) {
+			if (passCount + other.passCount > times.length) {
+				times = Arrays.copyOf(times, Math.max(times.length * 2, passCount + other.passCount));
+			}
+			System.arraycopy(other.times, 0, times, passCount, other.passCount);
+			passCount += other.passCount;
+			failCount += other.failCount;
+			sum += other.sum;
+			sorted = false;
+		}
+
+		/** @return number of passed samples */
+		public int getPassCount() {
+			return passCount;
+		}
+
+		/** @return number of failed samples */
+		public long getFailCount() {
+			return failCount;
+		}
+
+		/** @return average response time of the passed samples (0 if none) */
+		public long getAverage() {
+			return passCount > 0 ? sum / passCount : 0L;
+		}
+
+		/** @return minimum response time of the passed samples (0 if none) */
+		public long getMin() {
+			return passCount > 0 ? sortedTimes()[0] : 0L;
+		}
+
+		/** @return maximum response time of the passed samples (0 if none) */
+		public long getMax() {
+			return passCount > 0 ? sortedTimes()[passCount - 1] : 0L;
+		}
+
+		/**
+		 * @param percentile the percentile as a fraction (eg 0.9 for the 90th percentile)
+		 * @return the percentile response time of the passed samples, as per the JMeter Aggregate Report (0 if none)
+		 */
+		public long getPercentile(double percentile) {
+			if (passCount == 0) {
+				return 0L;
+			}
+			if (percentile >= 1.0) {
+				return getMax();
+			}
+			long position = Math.max(Math.round(passCount * percentile), 1L);
+			return sortedTimes()[(int)position - 1];
+		}
+
+		private long[] sortedTimes() {
+			if (!sorted) {
+				Arrays.sort(times, 0, passCount);
+				sorted = true;
+			}
+			return times;
+		}
+	}
+
+}
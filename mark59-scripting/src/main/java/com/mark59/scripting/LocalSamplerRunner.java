@@ -0,0 +1,206 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.protocol.java.sampler.AbstractJavaSamplerClient;
+import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.mark59.core.utils.SafeSleep;
+
+/**
+ * Runs many users of a JMeter Java Sampler script locally (eg from the IDE), outside of JMeter.  Intended for scripts
+ * which spend most of their time waiting on the network, such as REST API scripts, where a large number of users can be
+ * run from one JVM.
+ *
+ * <p>Each user is an instance of the script class, which runs its setupTest, a number of runTest iterations, and
+ * teardownTest on its own thread.  Users can run on platform threads, or on virtual threads when the JVM supports them
+ * (Java 21 or later).  Virtual threads are not held while a user is blocked on I/O, so thousands of users do not need
+ * thousands of platform threads.  When virtual threads are requested but not available, platform threads are used.
+ *
+ * <p>Each user thread is named with its user number (so Mark59 log names and scripts using the thread name work as they
+ * do with {@link UiAbstractJavaSamplerClient#runMultiThreadedUiTest(int, int)}).
+ *
+ * <p><b>Sample usage</b>
+ * <pre><code>
+ * LocalRunResults results = new LocalSamplerRunner(DataHunterLifecycleUsingRestApi.class, ThreadMode.VIRTUAL)
+ *		.run(1000, 10, 5, 1000, new File("C:/Mark59_Runs/restApiRun.csv"));
+ * results.printResultsSummary();
+ * </code></pre>
+ *
+ * <p>Note UI (browser) scripts gain little from virtual threads, as the browser rather than the script thread is the
+ * limiting resource.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class LocalSamplerRunner {
+
+	private static final Logger LOG = LogManager.getLogger(LocalSamplerRunner.class);
+
+	/**
+	 * The kind of thread each user runs on
+	 */
+	public enum ThreadMode {
+		/** a platform (operating system) thread per user */
+		PLATFORM,
+		/** a virtual thread per user (Java 21 or later, otherwise platform threads are used) */
+		VIRTUAL
+	}
+
+	private final Class<? extends AbstractJavaSamplerClient> samplerClass;
+	private final ThreadMode threadMode;
+
+
+	/**
+	 * @param samplerClass the script class (a JMeter Java Sampler client with a no-argument constructor)
+	 * @param threadMode the kind of thread each user runs on
+	 */
+	public LocalSamplerRunner(Class<? extends AbstractJavaSamplerClient> samplerClass, ThreadMode threadMode) {
+		this.samplerClass = samplerClass;
+		this.threadMode = threadMode;
+	}
+
+
+	/**
+	 * Run the users, waiting for them all to complete
+	 *
+	 * @param numberOfUsers number of users (instances of the script)
+	 * @param userStartGapMs time between the start of each user in milliseconds
+	 * @param iterateEachUserCount number of times each user runs the script
+	 * @param iteratePacingGapMs gap between the script iterations of a user in milliseconds
+	 * @param jmeterResultsFile JMeter format CSV results file to be written.  Set to <code>null</code> if a file is not required.
+	 * @return the merged results of all users
+	 */
+	public LocalRunResults run(int numberOfUsers, int userStartGapMs, int iterateEachUserCount, int iteratePacingGapMs, File jmeterResultsFile) {
+
+		LocalRunCsvWriter csvWriter = null;
+		if (jmeterResultsFile != null) {
+			try {
+				csvWriter = new LocalRunCsvWriter(jmeterResultsFile);
+			} catch (IOException e) {
+				LOG.error("Unable to open/create csv file " + jmeterResultsFile.getName() + " : " + e.getMessage(), e);
+			}
+		}
+
+		List<LocalRunResults> userResults = new ArrayList<>();
+		ExecutorService executor = createExecutor();
+		try {
+			for (int i = 1; i <= numberOfUsers; i++) {
+				LocalRunResults thisUserResults = new LocalRunResults();
+				userResults.add(thisUserResults);
+				String userThreadName = String.format("%05d", i);
+				LocalRunCsvWriter userCsvWriter = csvWriter;
+				executor.execute(() -> runUser(userThreadName, iterateEachUserCount, iteratePacingGapMs, thisUserResults, userCsvWriter));
+
+				if (i < numberOfUsers) {
+					SafeSleep.sleep(userStartGapMs);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				LOG.info("Waiting for local run users of " + samplerClass.getSimpleName() + " to complete");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted waiting for local run users to complete");
+		}
+
+		if (csvWriter != null) {
+			try {
+				csvWriter.close();
+			} catch (IOException e) {
+				LOG.error("Error writing csv file " + jmeterResultsFile.getName() + " : " + e.getMessage(), e);
+			}
+		}
+		return LocalRunResults.merge(userResults);
+	}
+
+
+	private void runUser(String userThreadName, int iterateEachUserCount, int iteratePacingGapMs, LocalRunResults userResults,
+			LocalRunCsvWriter csvWriter) {
+		Thread.currentThread().setName(userThreadName);
+
+		AbstractJavaSamplerClient sampler;
+		try {
+			sampler = samplerClass.getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			LOG.error("Error instantiating " + samplerClass.getName() + " : " + e.getMessage(), e);
+			return;
+		}
+		JavaSamplerContext context = new JavaSamplerContext(sampler.getDefaultParameters());
+
+		sampler.setupTest(context);
+		try {
+			for (int i = 1; i <= iterateEachUserCount; i++) {
+				SampleResult sampleResult = sampler.runTest(context);
+				userResults.record(sampleResult);
+				if (csvWriter != null) {
+					csvWriter.write(sampleResult, userThreadName);
+				}
+				if (i < iterateEachUserCount) {
+					SafeSleep.sleep(iteratePacingGapMs);
+				}
+			}
+		} catch (Exception e) {
+			LOG.error("User " + userThreadName + " of " + samplerClass.getSimpleName() + " failed : " + e.getMessage(), e);
+		} finally {
+			sampler.teardownTest(context);
+		}
+	}
+
+
+	private ExecutorService createExecutor() {
+		if (threadMode == ThreadMode.VIRTUAL) {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException e) {
+				LOG.warn("Virtual threads are not available in Java " + System.getProperty("java.version")
+						+ " (Java 21 or later is required). Platform threads will be used.");
+			}
+		}
+		return Executors.newCachedThreadPool();
+	}
+
+
+	/**
+	 * @return true if this JVM supports virtual threads
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+}
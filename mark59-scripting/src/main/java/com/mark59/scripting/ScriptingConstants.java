@@ -207,6 +207,42 @@ public class ScriptingConstants {
 	public static final String PLAYWRIGHT_TIMEOUT_BROWSER_INIT = "PLAYWRIGHT_TIMEOUT_BROWSER_INIT";
 
 
+	/**
+	 * "PLAYWRIGHT_BROWSER_POOL_SIZE" - When set to a number greater than zero, browsers are shared between the script threads
+	 * of the JMeter (injector) JVM, rather than a browser being launched (and closed) for every script execution.
+	 * <p>Up to this number of browser processes are kept open, and each script execution leases a browser from the pool,
+	 * creating its own new (isolated) browser context and page on it.  When all the browsers are in use a script waits for
+	 * one to be released (see {@link #PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT}). The time waited is recorded as a datapoint
+	 * (<code>Browser_Pool_Wait_ms</code>).
+	 * <p>Scripts share a pool when their browser launch settings (headless mode, launch args, executable, proxy and so on)
+	 * are the same.  Default is 0 (no pool).
+	 * <p>Note a pooled browser is leased by one script execution at a time, as the Playwright for Java objects (a
+	 * Playwright instance and the browser launched by it) are not thread-safe and cannot be used by more than one script
+	 * thread at once.  So the pool saves the cost of launching a browser for every script execution, but does not reduce
+	 * the number of browser processes needed: each concurrently running script still needs its own browser, so setting
+	 * the pool size below the number of script threads makes scripts wait for a browser.
+	 * @see #PLAYWRIGHT_BROWSER_POOL_MAX_USES
+	 * @see #PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT
+	 */
+	public static final String PLAYWRIGHT_BROWSER_POOL_SIZE = "PLAYWRIGHT_BROWSER_POOL_SIZE";
+
+
+	/**
+	 * "PLAYWRIGHT_BROWSER_POOL_MAX_USES" - A pooled browser is closed and replaced after it has been leased this number of
+	 * times (to limit any growth in browser memory). Zero for no limit. Default is 100.
+	 * @see #PLAYWRIGHT_BROWSER_POOL_SIZE
+	 */
+	public static final String PLAYWRIGHT_BROWSER_POOL_MAX_USES = "PLAYWRIGHT_BROWSER_POOL_MAX_USES";
+
+
+	/**
+	 * "PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT" - Maximum time in milliseconds a script waits for a browser from the browser
+	 * pool before failing. Default is 120000.
+	 * @see #PLAYWRIGHT_BROWSER_POOL_SIZE
+	 */
+	public static final String PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT = "PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT";
+
+
 	/**
 	 * "PLAYWRIGHT_HAR_FILE_CREATION" - If 'true', a .har file will be created during script execution.
 	 * Meant for debugging purposes, obviously use with caution within a performance test.
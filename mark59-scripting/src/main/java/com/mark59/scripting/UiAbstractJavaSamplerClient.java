@@ -17,10 +17,7 @@
 package com.mark59.scripting;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -29,10 +26,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.protocol.java.sampler.AbstractJavaSamplerClient;
 import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
@@ -43,7 +37,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.mark59.core.JmeterFunctionsImpl;
-import com.mark59.core.Outcome;
 import com.mark59.core.utils.IpUtilities;
 import com.mark59.core.utils.Log4jConfigurationHelper;
 import com.mark59.core.utils.Mark59Constants;
@@ -58,8 +51,6 @@ import com.mark59.scripting.selenium.JmeterFunctionsForSeleniumScripts;
 import com.mark59.scripting.selenium.SeleniumAbstractJavaSamplerClient;
 //import com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory;
 
-import jodd.util.CsvUtil;
-
 
 /**
  * A Mark59 extension of the JMeter Java Sampler class {@link org.apache.jmeter.protocol.java.sampler.AbstractJavaSamplerClient}.
@@ -139,17 +130,10 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 	protected KeepBrowserOpen keepBrowserOpen = KeepBrowserOpen.NEVER;
 
 	/**
-	 * TreeMap that maintains natural ordering of transaction names.
-	 * Intended for use to output results table when running from a script Main()
+	 * Merged results of the last {@link #runMultiThreadedUiTest(int, int, Map, KeepBrowserOpen, int, int, boolean, File)}
+	 * run with the summary report requested.  Intended for use to output results table when running from a script Main()
 	 */
-	protected static Map<String, List<Long>> resultsSummaryTable = new TreeMap<>();
-
-	// Array position constants for results summary table data structure
-	private static final int POS_0_NUM_SAMPLES  		= 0;
-	private static final int POS_1_NUM_FAIL     		= 1;
-	private static final int POS_2_SUM_RESPONSE_TIME 	= 2;
-	private static final int POS_3_RESPONSE_TIME_MIN 	= 3;
-	private static final int POS_4_RESPONSE_TIME_MAX	= 4;
+	protected LocalRunResults localRunResults;
 
 
 	/**
@@ -440,6 +424,9 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 	 * of the run.
 	 * <p>As the CSV file is in JMeter format, you can use it to generate a JMeter report or load into Trend Analysis. Note the intention here is not
 	 * to try to replace a proper JMeter test, but you may find a low-volume use case where this is a useful trick.
+	 * <p>Each thread records its own results, which are merged once all threads complete, and the CSV file is written by a dedicated
+	 * writer thread, so the run can be used with a larger number of threads (for example when sizing an injector).  The summary
+	 * report percentiles are calculated the same way as the JMeter Aggregate Report.
 	 * <p><b>Sample usage</b>
 	 * <p> For example,
 	 * if you want to user a user-defined parameter called "<code>USER</code>", and switch off headless mode for one of four threads running, you need
@@ -475,20 +462,12 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 
 		mockJmeterProperties();
 		Thread[] threadAry = new Thread[numberOfThreads];
-		PrintWriter csvPrintWriter = null;
-
-		// Each instance maintains its own results - no aggregation needed
+		UiTestThread[] uiTestThreadAry = new UiTestThread[numberOfThreads];
+		LocalRunCsvWriter csvWriter = null;
 
 		if (jmeterResultsFile != null ) {
-			try (FileOutputStream jmeterResultsFOS = FileUtils.openOutputStream(jmeterResultsFile);
-			     OutputStreamWriter outputStreamWriter = new OutputStreamWriter(jmeterResultsFOS)) {
-
-				csvPrintWriter = new PrintWriter(outputStreamWriter);
-
-				String csvLine = CsvUtil.toCsvString("timeStamp","elapsed","label","responseCode","responseMessage","threadName","dataType","success",
-						"failureMessage","bytes","sentBytes", "grpThreads","allThreads","URL","Latency","Hostname","IdleTime","Connect");
-				csvPrintWriter.println(csvLine);
-
+			try {
+				csvWriter = new LocalRunCsvWriter(jmeterResultsFile);
 			} catch (IOException e) {
 				System.err.println(" Unable to open/create csv file " + jmeterResultsFile.getName() + " : " + e.getMessage() );
 				e.printStackTrace();
@@ -511,11 +490,13 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 				LOG.info(" Thread Override Parameters for thread " + String.format("%03d", i) +" : "+ Arrays.toString(thisThreadParameters.entrySet().toArray()));
 			}
 
-			Thread thread = new Thread(new UiTestThread(this.getClass(), thisThreadParameters, keepBrowserOpen, iterateEachThreadCount, iteratePacingGapMs,
-					printResultsSummary, csvPrintWriter), String.format("%03d", i));
+			UiTestThread uiTestThread = new UiTestThread(this.getClass(), thisThreadParameters, keepBrowserOpen, iterateEachThreadCount,
+					iteratePacingGapMs, printResultsSummary, csvWriter);
+			Thread thread = new Thread(uiTestThread, String.format("%03d", i));
 
 			thread.start();
 			threadAry[i-1] = thread;
+			uiTestThreadAry[i-1] = uiTestThread;
 
 			if (i<numberOfThreads) {
 				SafeSleep.sleep(threadStartGapMs);
@@ -530,12 +511,21 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 			}
 		} // all threads have completed when loop ends
 
-		if (csvPrintWriter != null ) {
-			csvPrintWriter.flush();
-			csvPrintWriter.close();
+		if (csvWriter != null ) {
+			try {
+				csvWriter.close();
+			} catch (IOException e) {
+				System.err.println(" Error writing csv file " + jmeterResultsFile.getName() + " : " + e.getMessage() );
+				e.printStackTrace();
+			}
 		}
 		if (printResultsSummary) {
-			printResultsSummary(resultsSummaryTable);
+			List<LocalRunResults> threadResults = new ArrayList<>();
+			for (UiTestThread uiTestThread : uiTestThreadAry) {
+				threadResults.add(uiTestThread.getThreadResults());
+			}
+			localRunResults = LocalRunResults.merge(threadResults);
+			localRunResults.printResultsSummary();
 		}
 	}
 
@@ -566,7 +556,8 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 		private final int iterateEachThreadCount;
 		private final int iteratePacingGapMs;
 		private final boolean printResultsSummary;
-		private final PrintWriter csvPrintWriter;
+		private final LocalRunCsvWriter csvWriter;
+		private final LocalRunResults threadResults = new LocalRunResults();
 
 		/**
 		 * constructor
@@ -577,17 +568,17 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 		 * @param iterateEachThreadCount count of thread iterations
 		 * @param iteratePacingGapMs gap between iterations
 		 * @param printResultsSummary choose to print summary
-		 * @param csvPrintWriter print results to csv format file
+		 * @param csvWriter writer of results to csv format file (null for no file)
 		 */
 		public UiTestThread(Class<? extends UiAbstractJavaSamplerClient> testClass,	Map<String, String> thisThreadParametersOverride,
-				KeepBrowserOpen keepBrowserOpen, int iterateEachThreadCount, int iteratePacingGapMs, boolean printResultsSummary, PrintWriter csvPrintWriter) {
+				KeepBrowserOpen keepBrowserOpen, int iterateEachThreadCount, int iteratePacingGapMs, boolean printResultsSummary, LocalRunCsvWriter csvWriter) {
 			this.testClass = testClass;
 			this.thisThreadParametersOverride = thisThreadParametersOverride;
 			this.keepBrowserOpen = keepBrowserOpen;
 			this.iterateEachThreadCount = iterateEachThreadCount;
 			this.iteratePacingGapMs = iteratePacingGapMs;
 			this.printResultsSummary = printResultsSummary;
-			this.csvPrintWriter = csvPrintWriter;
+			this.csvWriter = csvWriter;
 		}
 
 
@@ -618,11 +609,11 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 
 			for (int i = 1; i <= iterateEachThreadCount; i++) {
 				SampleResult testInstanceSampleResult = testInstance.runTest(context);
-				if (csvPrintWriter != null){
-					writeTestInstanceSampleResult(testInstanceSampleResult, csvPrintWriter, Thread.currentThread().getName());
+				if (csvWriter != null){
+					csvWriter.write(testInstanceSampleResult, Thread.currentThread().getName());
 				}
 				if (printResultsSummary){
-					addResultsToSummaryTable(testInstanceSampleResult);
+					threadResults.record(testInstanceSampleResult);
 				}
 				if (i<iterateEachThreadCount) {
 					SafeSleep.sleep(iteratePacingGapMs);
@@ -630,109 +621,14 @@ public abstract class UiAbstractJavaSamplerClient extends AbstractJavaSamplerCli
 			}
 		}
 
-	}
-
-
-	private static void writeTestInstanceSampleResult(SampleResult testInstanceSampleResult, PrintWriter csvPrintWriter, String originatingThread) {
-
-		// Synchronize CSV writing to ensure thread-safe file operations
-		synchronized (csvPrintWriter) {
-			for (SampleResult subResult : testInstanceSampleResult.getSubResults()) {
-
-				boolean success = false;
-				if (Outcome.PASS.getOutcomeText().equalsIgnoreCase(subResult.getResponseMessage())){
-					success = true;
-				}
-
-				String csvLine = CsvUtil.toCsvString(String.valueOf(subResult.getTimeStamp()) , String.valueOf(subResult.getTime()),
-						subResult.getSampleLabel(),	subResult.getResponseCode(),subResult.getResponseMessage(), "localthread_" + originatingThread,
-						subResult.getDataType(), String.valueOf(success), "", "0", "0", String.valueOf(subResult.getGroupThreads()),
-						String.valueOf(subResult.getAllThreads()), "null", "0", "local", "0", "0" );
-
-				csvPrintWriter.println(csvLine);
-			}
-			csvPrintWriter.flush();
-		}
-	}
-
-
-	/**
-	 * Add test results to this instance's summary table.
-	 */
-	private synchronized static void addResultsToSummaryTable(SampleResult testInstanceSampleResult) {
-		List<Long> summaryTableTxnData;
-
-		for (SampleResult subResult : testInstanceSampleResult.getSubResults()) {
-
-			String summaryTableTxn = subResult.getSampleLabel();
-
-			if (StringUtils.isNotBlank(subResult.getDataType())){
-				summaryTableTxn = summaryTableTxn + " (" + subResult.getDataType() + ")";
-			}
-
-			summaryTableTxnData = resultsSummaryTable.get(summaryTableTxn);
-			if (summaryTableTxnData == null) {
-				summaryTableTxnData = new ArrayList<>(Arrays.asList(0L, 0L, 0L, Long.MAX_VALUE, 0L));
-			}
 
-			if (Outcome.PASS.getOutcomeText().equalsIgnoreCase(subResult.getResponseMessage())){
-				summaryTableTxnData.set(POS_0_NUM_SAMPLES,       summaryTableTxnData.get(POS_0_NUM_SAMPLES)+1 );
-				summaryTableTxnData.set(POS_2_SUM_RESPONSE_TIME, summaryTableTxnData.get(POS_2_SUM_RESPONSE_TIME) + subResult.getTime());
-
-				if (subResult.getTime() < summaryTableTxnData.get(POS_3_RESPONSE_TIME_MIN)){
-					summaryTableTxnData.set(POS_3_RESPONSE_TIME_MIN, subResult.getTime());
-				}
-				if  (subResult.getTime() > summaryTableTxnData.get(POS_4_RESPONSE_TIME_MAX)){
-					summaryTableTxnData.set(POS_4_RESPONSE_TIME_MAX, subResult.getTime());
-				}
-			} else {
-				summaryTableTxnData.set(POS_1_NUM_FAIL, summaryTableTxnData.get(POS_1_NUM_FAIL)+1);
-			}
-
-			resultsSummaryTable.put(summaryTableTxn, summaryTableTxnData);
+		/**
+		 * @return results recorded by this thread (only complete once the thread has ended)
+		 */
+		public LocalRunResults getThreadResults() {
+			return threadResults;
 		}
-	}
-
-
-	private void printResultsSummary(Map<String, List<Long>> resultsSummaryTable) {
-
-		LOG.info("\n\n\n");
-		LOG.info(StringUtils.repeat(" ", 56) + "Results Summary Table");
-		LOG.info(StringUtils.repeat(" ", 56) + "---------------------");
-		LOG.info("");
-		LOG.info(String.format("%-80s%-12s%-10s%-12s%-12s%-12s", "Transaction", "#Samples", "FAIL", "Average", "Min", "Max" ));
-		LOG.info(String.format("%-80s%-12s%-10s%-12s%-12s%-12s", "-----------", "--------", "----", "-------", "---", "---" ));
-
-		resultsSummaryTable.forEach((k, v) -> {
-			if (k.length() < 76) {
-				k = (k.length() % 2 == 0) ? k + "  " + StringUtils.repeat(" .", 38 - k.length()/2) : k + "  " + StringUtils.repeat(". ", 39 - (k.length()+1)/2 );
-			}
-			long average = (v.get(POS_0_NUM_SAMPLES) > 0) ? v.get(POS_2_SUM_RESPONSE_TIME) / v.get(POS_0_NUM_SAMPLES) : 0L;
 
-			LOG.info(String.format("%-80s%-12s%-10s%-12s%-12s%-12s", k,
-					v.get(POS_0_NUM_SAMPLES),v.get(POS_1_NUM_FAIL),average,v.get(POS_3_RESPONSE_TIME_MIN),v.get(POS_4_RESPONSE_TIME_MAX)));
-		});
-		LOG.info(StringUtils.repeat("-", 132));
-
-
-		System.out.println("\n\n\n");
-		System.out.println(StringUtils.repeat(" ", 56) + "Results Summary Table");
-		System.out.println(StringUtils.repeat(" ", 56) + "---------------------");
-		System.out.println();
-		System.out.printf("%-80s%-12s%-10s%-12s%-12s%-12s%n", "Transaction", "#Samples", "FAIL", "Average", "Min", "Max" );
-		System.out.printf("%-80s%-12s%-10s%-12s%-12s%-12s%n", "-----------", "--------", "----", "-------", "---", "---" );
-
-		resultsSummaryTable.forEach((k, v) -> {
-			if (k.length() < 76) {
-				k = (k.length() % 2 == 0) ? k + "  " + StringUtils.repeat(" .", 38 - k.length()/2) : k + "  " + StringUtils.repeat(". ", 39 - (k.length()+1)/2 );
-			}
-			long average = (v.get(POS_0_NUM_SAMPLES) > 0) ? v.get(POS_2_SUM_RESPONSE_TIME) / v.get(POS_0_NUM_SAMPLES) : 0L;
-
-			System.out.printf("%-80s%-12s%-10s%-12s%-12s%-12s%n", k,
-					v.get(POS_0_NUM_SAMPLES),v.get(POS_1_NUM_FAIL),average,v.get(POS_3_RESPONSE_TIME_MIN),v.get(POS_4_RESPONSE_TIME_MAX));
-		});
-		System.out.println(StringUtils.repeat("-", 132));
 	}
 
-
 }
@@ -0,0 +1,203 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Limits the transaction-level logs (screenshots, page sources and performance logs written at the start and end of
+ * transactions) of a UI script, so the cost of capturing and writing them stays predictable under load.
+ *
+ * <p>The policy is set using JMeter arguments (see the parameter names in {@link AbstractJmeterFunctionsUiCommon}):
+ * <ul>
+ * <li><b>Log_Capture_Sample_One_In_N_Iterations</b> - transaction-level logs are only written for one in every N script
+ * executions in the JVM (default 1 - every execution)</li>
+ * <li><b>Log_Capture_Budget_KB_Per_Minute</b> - once this many KB of transaction-level logs have been written in the
+ * current minute, no more are written until the next minute (default 0 - no budget)</li>
+ * <li><b>Log_Capture_Budget_Per_Thread</b> - 'true' for the budget to apply to each thread, rather than being shared by
+ * all scripts in the JVM using the same budget (default false)</li>
+ * <li><b>Log_Capture_Always_On_Failed_Transaction</b> - end of transaction logs for a failed transaction are written
+ * regardless of sampling and the budget (default true)</li>
+ * <li><b>Log_Capture_Buffer_Last_N</b> - when greater than zero, logs which are not written because of sampling or the
+ * budget are buffered instead, keeping only the last N buffered logs in memory.  They are written if the script
+ * fails (default 0 - not buffered)</li>
+ * </ul>
+ *
+ * <p>Logs written when a script fails (see scriptExceptionHandling in the UI sampler clients), or written directly by a
+ * script, are not limited by the policy.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class UiCapturePolicy {
+
+	private static final Logger LOG = LogManager.getLogger(UiCapturePolicy.class);
+
+	private static final String GLOBAL_BUDGET = "<global>";
+
+	private static final AtomicLong scriptExecutions = new AtomicLong();
+	private static final AtomicLong capturesSuppressed = new AtomicLong();
+	private static final Map<String, ByteBudget> budgets = new ConcurrentHashMap<>();
+
+	private final int sampleOneInN;
+	private final long budgetBytesPerMinute;
+	private final boolean budgetPerThread;
+	private final boolean alwaysOnFailedTransaction;
+	private final int bufferLastN;
+	private final boolean sampledExecution;
+
+
+	/**
+	 * @param sampleOneInN transaction-level logs are written for one in N script executions (1 or less for every execution)
+	 * @param budgetKbPerMinute KB of transaction-level logs that can be written per minute (0 or less for no budget)
+	 * @param budgetPerThread true if the budget applies to each thread (otherwise it is shared across the JVM)
+	 * @param alwaysOnFailedTransaction write logs for a failed transaction regardless of sampling and the budget
+	 * @param bufferLastN buffer logs which are not written, keeping the last N (0 or less to not buffer)
+	 */
+	public UiCapturePolicy(int sampleOneInN, long budgetKbPerMinute, boolean budgetPerThread, boolean alwaysOnFailedTransaction,
+			int bufferLastN) {
+		this.sampleOneInN = Math.max(sampleOneInN, 1);
+		this.budgetBytesPerMinute = Math.max(budgetKbPerMinute, 0L) * 1024L;
+		this.budgetPerThread = budgetPerThread;
+		this.alwaysOnFailedTransaction = alwaysOnFailedTransaction;
+		this.bufferLastN = Math.max(bufferLastN, 0);
+		this.sampledExecution = this.sampleOneInN == 1 || (scriptExecutions.incrementAndGet() - 1) % this.sampleOneInN == 0;
+	}
+
+
+	/**
+	 * Create the policy for a script execution from its JMeter arguments
+	 * @param jmeterRuntimeArgumentsMap JMeter arguments
+	 * @return the capture policy
+	 */
+	public static UiCapturePolicy fromArguments(Map<String, String> jmeterRuntimeArgumentsMap) {
+		return new UiCapturePolicy(
+				argumentAsInt(jmeterRuntimeArgumentsMap, AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, 1),
+				argumentAsInt(jmeterRuntimeArgumentsMap, AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUDGET_KB_PER_MINUTE, 0),
+				Boolean.parseBoolean(StringUtils.trim(jmeterRuntimeArgumentsMap.get(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUDGET_PER_THREAD))),
+				!String.valueOf(false).equalsIgnoreCase(
+						StringUtils.trim(jmeterRuntimeArgumentsMap.get(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_ALWAYS_ON_FAILED_TRANSACTION))),
+				argumentAsInt(jmeterRuntimeArgumentsMap, AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUFFER_LAST_N, 0));
+	}
+
+
+	/**
+	 * @param failedTransaction true if the log is for the end of a failed transaction
+	 * @return true if a transaction-level log can be captured and written now
+	 */
+	public boolean isWriteAllowed(boolean failedTransaction) {
+		if (failedTransaction && alwaysOnFailedTransaction) {
+			return true;
+		}
+		boolean allowed = sampledExecution && (budgetBytesPerMinute == 0 || budget().hasRemaining());
+		if (!allowed) {
+			capturesSuppressed.incrementAndGet();
+		}
+		return allowed;
+	}
+
+
+	/**
+	 * Record the bytes written for a transaction-level log against the budget
+	 * @param bytes number of bytes written
+	 */
+	public void recordBytesWritten(long bytes) {
+		if (budgetBytesPerMinute > 0) {
+			budget().use(bytes);
+		}
+	}
+
+
+	/**
+	 * @return true if the execution has been selected to write transaction-level logs
+	 */
+	public boolean isSampledExecution() {
+		return sampledExecution;
+	}
+
+	/**
+	 * @return maximum number of logs to keep buffered (0 for no limit, and logs that are not written are not buffered)
+	 */
+	public int getBufferLastN() {
+		return bufferLastN;
+	}
+
+	/**
+	 * @return number of transaction-level logs not written (in the JVM) because of sampling or the budget
+	 */
+	public static long getCapturesSuppressed() {
+		return capturesSuppressed.get();
+	}
+
+
+	private ByteBudget budget() {
+		String budgetKey = (budgetPerThread ? Thread.currentThread().getName() : GLOBAL_BUDGET) + ":" + budgetBytesPerMinute;
+		return budgets.computeIfAbsent(budgetKey, k -> new ByteBudget(budgetBytesPerMinute));
+	}
+
+
+	private static int argumentAsInt(Map<String, String> arguments, String argumentName, int defaultValue) {
+		String value = StringUtils.trim(arguments.get(argumentName));
+		if (StringUtils.isBlank(value)) {
+			return defaultValue;
+		}
+		if (!StringUtils.isNumeric(value)) {
+			LOG.warn("Invalid " + argumentName + " value '" + value + "' (must be a whole number). The default of " + defaultValue + " will be used.");
+			return defaultValue;
+		}
+		return Integer.parseInt(value);
+	}
+
+
+	/**
+	 * Bytes written in the current minute, against a limit
+	 */
+	private static class ByteBudget {
+		private final long bytesPerMinute;
+		private long minute = -1;
+		private long bytesUsed = 0;
+
+		ByteBudget(long bytesPerMinute) {
+			this.bytesPerMinute = bytesPerMinute;
+		}
+
+		synchronized boolean hasRemaining() {
+			rollMinute();
+			return bytesUsed < bytesPerMinute;
+		}
+
+		synchronized void use(long bytes) {
+			rollMinute();
+			bytesUsed += bytes;
+		}
+
+		private void rollMinute() {
+			long currentMinute = System.currentTimeMillis() / 60000L;
+			if (currentMinute != minute) {
+				minute = currentMinute;
+				bytesUsed = 0;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,405 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A bounded pool of long-lived UI sessions (for example a Playwright browser process, or a Selenium WebDriver session),
+ * shared by the script threads of a JMeter (injector) JVM.
+ *
+ * <p>A session is leased by one thread at a time, so objects which are not thread safe can be pooled, as long as they
+ * can be used by different threads one after the other.  When no session is free the leasing thread waits (up to a
+ * given time) for one to be released.  Sessions are created as they are needed, up to the size of the pool.
+ *
+ * <p>Sessions are health checked as they are leased (an unhealthy session is disposed of and replaced), and are
+ * recycled (disposed of and replaced) once they have been used a given number of times.  Sessions idle in the pool are
+ * disposed of at JVM shutdown.
+ *
+ * <p>Wait times and counts of sessions created, recycled and found to be unhealthy are kept for the pool, and logged
+ * at JVM shutdown.  The wait for each lease is also available from the lease, so scripts can report it.
+ *
+ * <p>Leak detection can be switched on (see {@link #enableLeakDetection(long)}).  Leases held for longer than a given
+ * time are then logged as possible leaks, and a lease held by a thread that has ended without returning it is
+ * reclaimed (its session is disposed of, so the pool can create a replacement).
+ *
+ * @param <T> the type of session held in the pool
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class UiSessionPool<T> {
+
+	/** log4J class logger */
+	public static final Logger LOG = LogManager.getLogger(UiSessionPool.class);
+
+	private final String poolName;
+	private final int maxSize;
+	private final int maxUsesPerSession;
+	private final Supplier<T> sessionCreator;
+	private final Predicate<T> sessionHealthCheck;
+	private final Consumer<T> sessionDisposer;
+
+	private final Semaphore leasesAvailable;
+	private final LinkedBlockingDeque<PooledSession<T>> idleSessions = new LinkedBlockingDeque<>();
+	private final Set<Lease<T>> outstandingLeases = ConcurrentHashMap.newKeySet();
+
+	private volatile long leakWarningMs = 0L;
+	private ScheduledExecutorService leakDetector;
+
+	private final AtomicLong leaseCount 	 	= new AtomicLong();
+	private final AtomicLong totalWaitMs 	 	= new AtomicLong();
+	private final AtomicLong maxWaitMs 		 	= new AtomicLong();
+	private final AtomicLong leaseTimeouts 	 	= new AtomicLong();
+	private final AtomicLong sessionsCreated 	= new AtomicLong();
+	private final AtomicLong sessionsRecycled 	= new AtomicLong();
+	private final AtomicLong sessionsUnhealthy 	= new AtomicLong();
+	private final AtomicLong sessionsAbandoned 	= new AtomicLong();
+	private final AtomicLong leaseLeakWarnings	= new AtomicLong();
+	private final AtomicLong sessionsReclaimed 	= new AtomicLong();
+
+
+	/**
+	 * @param poolName name used in logging
+	 * @param maxSize maximum number of sessions (so the maximum number of concurrent leases)
+	 * @param maxUsesPerSession the number of leases after which a session is recycled. Zero or less for no limit.
+	 * @param sessionCreator creates a new session
+	 * @param sessionHealthCheck returns false if a session is no longer usable
+	 * @param sessionDisposer closes a session (and anything it holds open)
+	 */
+	public UiSessionPool(String poolName, int maxSize, int maxUsesPerSession, Supplier<T> sessionCreator,
+			Predicate<T> sessionHealthCheck, Consumer<T> sessionDisposer) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The size of a UI session pool must be at least 1 (pool " + poolName + ")");
+		}
+		this.poolName = poolName;
+		this.maxSize = maxSize;
+		this.maxUsesPerSession = maxUsesPerSession;
+		this.sessionCreator = sessionCreator;
+		this.sessionHealthCheck = sessionHealthCheck;
+		this.sessionDisposer = sessionDisposer;
+		this.leasesAvailable = new Semaphore(maxSize, true);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "UiSessionPool-shutdown"));
+		LOG.info("UI session pool " + poolName + " created (size " + maxSize + ", max uses per session "
+				+ (maxUsesPerSession > 0 ? maxUsesPerSession : "unlimited") + ")");
+	}
+
+
+	/**
+	 * Lease a session from the pool, waiting for one to become free if need be.  The session must be returned
+	 * to the pool (see {@link #release(Lease, boolean)}) once the thread has finished with it.
+	 *
+	 * @param leaseTimeoutMs the maximum time to wait for a free session
+	 * @return the lease
+	 * @throws IllegalStateException if no session became free within the wait time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Lease<T> lease(long leaseTimeoutMs) throws InterruptedException {
+		long waitStartMs = System.currentTimeMillis();
+		if (!leasesAvailable.tryAcquire(leaseTimeoutMs, TimeUnit.MILLISECONDS)) {
+			leaseTimeouts.incrementAndGet();
+			throw new IllegalStateException("No session became free in UI session pool " + poolName + " within " + leaseTimeoutMs
+					+ " ms (pool size " + maxSize + ")");
+		}
+		long waitMs = System.currentTimeMillis() - waitStartMs;
+
+		PooledSession<T> pooledSession;
+		try {
+			pooledSession = idleSessions.pollFirst();
+			if (pooledSession != null && !isHealthy(pooledSession)) {
+				sessionsUnhealthy.incrementAndGet();
+				LOG.warn("A session in UI session pool " + poolName + " failed its health check (after " + pooledSession.uses
+						+ " uses) and will be replaced");
+				dispose(pooledSession);
+				pooledSession = null;
+			}
+			if (pooledSession == null) {
+				pooledSession = new PooledSession<>(sessionCreator.get());
+				sessionsCreated.incrementAndGet();
+			}
+		} catch (RuntimeException e) {
+			leasesAvailable.release();
+			throw e;
+		}
+
+		leaseCount.incrementAndGet();
+		totalWaitMs.addAndGet(waitMs);
+		maxWaitMs.accumulateAndGet(waitMs, Math::max);
+		Lease<T> lease = new Lease<>(pooledSession, waitMs);
+		outstandingLeases.add(lease);
+		return lease;
+	}
+
+
+	/**
+	 * Return a leased session to the pool.
+	 *
+	 * @param lease the lease being returned
+	 * @param reusable false if the session should not be used again (eg it may have been left in an unknown state),
+	 *  in which case it is disposed of.  A session is also disposed of once it reaches the maximum number of uses.
+	 */
+	public void release(Lease<T> lease, boolean reusable) {
+		if (!lease.markReturned()) {
+			return;
+		}
+		outstandingLeases.remove(lease);
+		PooledSession<T> pooledSession = lease.pooledSession;
+		pooledSession.uses++;
+		try {
+			if (!reusable) {
+				dispose(pooledSession);
+			} else if (maxUsesPerSession > 0 && pooledSession.uses >= maxUsesPerSession) {
+				sessionsRecycled.incrementAndGet();
+				dispose(pooledSession);
+			} else {
+				idleSessions.offerFirst(pooledSession);  // most recently used first, so less used sessions can age out
+			}
+		} finally {
+			leasesAvailable.release();
+		}
+	}
+
+
+	/**
+	 * Give up a leased session without returning it to the pool or disposing of it, so it is left open (eg to keep a
+	 * browser open for investigation after a script failure).  The pool can then create a replacement.
+	 *
+	 * @param lease the lease being abandoned
+	 */
+	public void abandon(Lease<T> lease) {
+		if (lease.markReturned()) {
+			outstandingLeases.remove(lease);
+			sessionsAbandoned.incrementAndGet();
+			leasesAvailable.release();
+		}
+	}
+
+
+	/**
+	 * Start checking the outstanding leases of the pool (on a daemon thread).  A lease held for longer than
+	 * <code>leakWarningMs</code> is logged as a possible leak (once per lease), and a lease held by a thread which
+	 * has ended is reclaimed: the session is disposed of and a replacement can be created.
+	 *
+	 * @param leakWarningMs the time a lease can be held before it is logged as a possible leak. Zero or less to
+	 *  stop the check.
+	 */
+	public synchronized void enableLeakDetection(long leakWarningMs) {
+		this.leakWarningMs = leakWarningMs;
+		if (leakWarningMs <= 0 || leakDetector != null) {
+			return;
+		}
+		leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "UiSessionPool-leakDetector-" + poolName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		long checkIntervalMs = Math.max(1000L, Math.min(leakWarningMs / 2, 60000L));
+		leakDetector.scheduleWithFixedDelay(this::detectLeaks, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Log leases held for longer than the leak warning time, and reclaim leases held by threads that have ended
+	 * (package visible so it can be run on demand in tests)
+	 */
+	void detectLeaks() {
+		long nowMs = System.currentTimeMillis();
+		for (Lease<T> lease : outstandingLeases) {
+			if (!lease.leaseThread.isAlive()) {
+				if (lease.markReturned()) {
+					outstandingLeases.remove(lease);
+					sessionsReclaimed.incrementAndGet();
+					LOG.warn("Thread " + lease.leaseThreadName + " ended without returning its session to UI session pool " + poolName
+							+ " (leased " + (nowMs - lease.leasedAtMs) + " ms ago).  The session has been reclaimed and will be replaced.");
+					dispose(lease.pooledSession);
+					leasesAvailable.release();
+				}
+			} else if (leakWarningMs > 0 && nowMs - lease.leasedAtMs > leakWarningMs && lease.markLeakWarned()) {
+				leaseLeakWarnings.incrementAndGet();
+				LOG.warn("Possible session leak in UI session pool " + poolName + " : thread " + lease.leaseThreadName
+						+ " has held its lease for " + (nowMs - lease.leasedAtMs) + " ms");
+			}
+		}
+	}
+
+
+	/**
+	 * @return summary of the pool statistics
+	 */
+	public String getStatistics() {
+		long leases = leaseCount.get();
+		return "UI session pool " + poolName + " : " + leases + " leases, average wait " + (leases == 0 ? 0 : totalWaitMs.get() / leases)
+				+ " ms, max wait " + maxWaitMs.get() + " ms, lease timeouts " + leaseTimeouts.get()
+				+ ", sessions created " + sessionsCreated.get() + ", recycled " + sessionsRecycled.get()
+				+ ", unhealthy " + sessionsUnhealthy.get() + ", abandoned " + sessionsAbandoned.get()
+				+ ", possible leaks " + leaseLeakWarnings.get() + ", reclaimed " + sessionsReclaimed.get()
+				+ ", idle " + idleSessions.size() + ", in use " + (maxSize - leasesAvailable.availablePermits());
+	}
+
+	public String getPoolName() {
+		return poolName;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getLeaseCount() {
+		return leaseCount.get();
+	}
+
+	public long getTotalWaitMs() {
+		return totalWaitMs.get();
+	}
+
+	public long getMaxWaitMs() {
+		return maxWaitMs.get();
+	}
+
+	public long getSessionsCreated() {
+		return sessionsCreated.get();
+	}
+
+	public long getLeaseLeakWarnings() {
+		return leaseLeakWarnings.get();
+	}
+
+	public long getSessionsReclaimed() {
+		return sessionsReclaimed.get();
+	}
+
+
+	/**
+	 * Dispose of the idle sessions (leased sessions are left with their threads)
+	 */
+	public void shutdown() {
+		synchronized (this) {
+			if (leakDetector != null) {
+				leakDetector.shutdownNow();
+			}
+		}
+		List<PooledSession<T>> sessionsToDispose = new ArrayList<>();
+		idleSessions.drainTo(sessionsToDispose);
+		for (PooledSession<T> pooledSession : sessionsToDispose) {
+			dispose(pooledSession);
+		}
+		LOG.info(getStatistics());
+	}
+
+
+	private boolean isHealthy(PooledSession<T> pooledSession) {
+		try {
+			return sessionHealthCheck.test(pooledSession.session);
+		} catch (RuntimeException e) {
+			LOG.debug("UI session pool " + poolName + " health check failed : " + e.getMessage());
+			return false;
+		}
+	}
+
+
+	private void dispose(PooledSession<T> pooledSession) {
+		try {
+			sessionDisposer.accept(pooledSession.session);
+		} catch (RuntimeException e) {
+			LOG.warn("Failure disposing of a session in UI session pool " + poolName + " : " + e.getClass() + " : " + e.getMessage());
+		}
+	}
+
+
+	private static class PooledSession<T> {
+		private final T session;
+		private int uses = 0;
+
+		PooledSession(T session) {
+			this.session = session;
+		}
+	}
+
+
+	/**
+	 * A session leased from a {@link UiSessionPool}
+	 * @param <T> the type of session
+	 */
+	public static class Lease<T> {
+		private final PooledSession<T> pooledSession;
+		private final long waitMs;
+		private final long leasedAtMs = System.currentTimeMillis();
+		private final Thread leaseThread = Thread.currentThread();
+		private final String leaseThreadName = leaseThread.getName();
+		private boolean returned = false;
+		private boolean leakWarned = false;
+
+		Lease(PooledSession<T> pooledSession, long waitMs) {
+			this.pooledSession = pooledSession;
+			this.waitMs = waitMs;
+		}
+
+		/**
+		 * @return the leased session
+		 */
+		public T getSession() {
+			return pooledSession.session;
+		}
+
+		/**
+		 * @return time waited for a free session (ms)
+		 */
+		public long getWaitMs() {
+			return waitMs;
+		}
+
+		/**
+		 * @return number of earlier leases of this session
+		 */
+		public int getPreviousUses() {
+			return pooledSession.uses;
+		}
+
+		private synchronized boolean markReturned() {
+			if (returned) {
+				return false;
+			}
+			returned = true;
+			return true;
+		}
+
+		private synchronized boolean markLeakWarned() {
+			if (returned || leakWarned) {
+				return false;
+			}
+			leakWarned = true;
+			return true;
+		}
+	}
+
+}
@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jmeter.config.Arguments;
@@ -46,6 +47,7 @@ import com.mark59.scripting.KeepBrowserOpen;
 import com.mark59.scripting.ScriptingConstants;
 import com.mark59.scripting.ScriptingUtils;
 import com.mark59.scripting.UiAbstractJavaSamplerClient;
+import com.mark59.scripting.UiSessionPool;
 import com.mark59.scripting.interfaces.JmeterFunctionsUi;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
@@ -95,6 +97,9 @@ import com.microsoft.playwright.options.Proxy;
  * @see ScriptingConstants#PLAYWRIGHT_PROXY_BYPASS
  * @see ScriptingConstants#PLAYWRIGHT_PROXY_USERNAME
  * @see ScriptingConstants#PLAYWRIGHT_PROXY_PASSWORD
+ * @see ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_SIZE
+ * @see ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_MAX_USES
+ * @see ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT
  * @see ScriptingConstants#EMULATE_NETWORK_CONDITIONS
  * @see IpUtilities#localIPisNotOnListOfIPaddresses(String)
  * @see IpUtilities#RESTRICT_TO_ONLY_RUN_ON_IPS_LIST
@@ -126,6 +131,29 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 	/** The Playwright Page object used within Mark59 */
 	protected Page playwrightPage;
 
+	/** Name of the datapoint recording the time (ms) a script waited for a browser from the browser pool */
+	public static final String BROWSER_POOL_WAIT_DATAPOINT = "Browser_Pool_Wait_ms";
+
+	private static final int DEFAULT_BROWSER_POOL_MAX_USES = 100;
+	private static final long DEFAULT_BROWSER_POOL_LEASE_TIMEOUT_MS = 120000L;
+
+	/** Launch (browser process level) arguments.  Scripts with the same values for these share a browser pool */
+	private static final List<String> BROWSER_POOL_KEY_ARGUMENTS = List.of(
+			ScriptingConstants.OVERRIDE_PROPERTY_MARK59_BROWSER_EXECUTABLE, ScriptingConstants.HEADLESS_MODE,
+			ScriptingConstants.BROWSER_LAUNCH_ARGS, ScriptingConstants.PLAYWRIGHT_OPEN_DEVTOOLS,
+			ScriptingConstants.PLAYWRIGHT_DOWNLOADS_PATH, ScriptingConstants.PLAYWRIGHT_PROXY_SERVER,
+			ScriptingConstants.PLAYWRIGHT_PROXY_BYPASS, ScriptingConstants.PLAYWRIGHT_PROXY_USERNAME,
+			ScriptingConstants.PLAYWRIGHT_PROXY_PASSWORD, ScriptingConstants.PLAYWRIGHT_SLOW_MO,
+			ScriptingConstants.PLAYWRIGHT_TIMEOUT_BROWSER_INIT, ScriptingConstants.PLAYWRIGHT_TRACES_DIR,
+			ScriptingConstants.PLAYWRIGHT_ENV_VAR_PWDEBUG, ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_SIZE,
+			ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_MAX_USES);
+
+	/** Browser pools for this JVM, keyed by the launch arguments */
+	private static final Map<String, UiSessionPool<PooledBrowser>> browserPools = new ConcurrentHashMap<>();
+
+	private UiSessionPool<PooledBrowser> browserPool;
+	private UiSessionPool.Lease<PooledBrowser> browserLease;
+
 
 	/** Hold default arguments for implementations of this class */
 	private static final Map<String, String> playwrightDefaultArgumentsMap;
@@ -180,11 +208,20 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 		staticMap.put(ScriptingConstants.PLAYWRIGHT_PROXY_USERNAME, "");
 		staticMap.put(ScriptingConstants.PLAYWRIGHT_PROXY_PASSWORD, "");
 
+		staticMap.put(ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_SIZE, "0");
+		staticMap.put(ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_MAX_USES, String.valueOf(DEFAULT_BROWSER_POOL_MAX_USES));
+		staticMap.put(ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT, String.valueOf(DEFAULT_BROWSER_POOL_LEASE_TIMEOUT_MS));
+
 		staticMap.put("______________________ logging settings: _______________________", "Expected values: 'default', 'buffer', 'write' or 'off' ");
 		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_SCREENSHOTS_AT_START_OF_TRANSACTIONS,	Mark59LogLevels.DEFAULT.getName());
 		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_SCREENSHOTS_AT_END_OF_TRANSACTIONS, 	Mark59LogLevels.DEFAULT.getName());
 		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_PAGE_SOURCE_AT_START_OF_TRANSACTIONS,	Mark59LogLevels.DEFAULT.getName());
 		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_PAGE_SOURCE_AT_END_OF_TRANSACTIONS, 	Mark59LogLevels.DEFAULT.getName());
+		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, 	"1");
+		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_CAPTURE_BUDGET_KB_PER_MINUTE, 		"0");
+		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_CAPTURE_BUDGET_PER_THREAD, 		String.valueOf(false));
+		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_CAPTURE_ALWAYS_ON_FAILED_TRANSACTION, String.valueOf(true));
+		staticMap.put(JmeterFunctionsForPlaywrightScripts.LOG_CAPTURE_BUFFER_LAST_N, 			"0");
 
 		staticMap.put(ON_EXCEPTION_WRITE_BUFFERED_LOGS, 				String.valueOf(true));
 		staticMap.put(ON_EXCEPTION_WRITE_SCREENSHOT, 					String.valueOf(true));
@@ -252,6 +289,9 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 	 * @see ScriptingConstants#PLAYWRIGHT_PROXY_BYPASS
 	 * @see ScriptingConstants#PLAYWRIGHT_PROXY_USERNAME
 	 * @see ScriptingConstants#PLAYWRIGHT_PROXY_PASSWORD
+	 * @see ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_SIZE
+	 * @see ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_MAX_USES
+	 * @see ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT
 	 * @see ScriptingConstants#EMULATE_NETWORK_CONDITIONS
 	 * @see IpUtilities#localIPisNotOnListOfIPaddresses(String)
 	 * @see IpUtilities#RESTRICT_TO_ONLY_RUN_ON_IPS_LIST
@@ -310,6 +350,8 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 			jm.tearDown();
 			if (! keepBrowserOpen.equals(KeepBrowserOpen.ALWAYS)){
 				driverDispose();
+			} else {
+				driverKeptOpen();
 			}
 		}
 		return jm;
@@ -318,12 +360,39 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 
 	/**
 	 * Creates the playwright objects, based on the JMeter arguments (and defaults for arguments not present)
+	 *
+	 * <p>When a browser pool is in use (see {@link ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_SIZE}) the Playwright and
+	 * Browser objects are leased from the pool, and only a new BrowserContext and Page are created.
+	 *
 	 * @param arguments JMeter arguments
 	 * @return page - playwright page used by the framework when invoked by this class during script initiation
 	 */
-	@SuppressWarnings("deprecation")
 	protected Page makePlaywrightPage(Map<String, String> arguments) {
 
+		int browserPoolSize = argumentAsInt(arguments, ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_SIZE, 0);
+		if (browserPoolSize > 0) {
+			leaseBrowserFromPool(arguments, browserPoolSize);
+			try {
+				return makeBrowserContextAndPage(arguments);
+			} catch (RuntimeException e) {
+				browserPool.release(browserLease, false);
+				browserLease = null;
+				throw e;
+			}
+		}
+		PooledBrowser launchedBrowser = launchBrowser(arguments);
+		playwright = launchedBrowser.playwright;
+		browser = launchedBrowser.browser;
+		return makeBrowserContextAndPage(arguments);
+	}
+
+
+	/**
+	 * Creates a Playwright object and launches a browser, based on the JMeter arguments
+	 * @param arguments JMeter arguments
+	 * @return the Playwright and Browser objects
+	 */
+	private PooledBrowser launchBrowser(Map<String, String> arguments) {
 		Map<String,String> playwrightEnv = new HashMap<>();
 		playwrightEnv.put("PLAYWRIGHT_SKIP_BROWSER_DOWNLOAD","1");
 
@@ -331,7 +400,63 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 			playwrightEnv.put("PWDEBUG","1");
 		}
 
-		playwright = Playwright.create(new Playwright.CreateOptions().setEnv(playwrightEnv));
+		Playwright launchedPlaywright = Playwright.create(new Playwright.CreateOptions().setEnv(playwrightEnv));
+		try {
+			return new PooledBrowser(launchedPlaywright, launchedPlaywright.chromium().launch(makeBrowserLaunchOptions(arguments)));
+		} catch (RuntimeException e) {
+			launchedPlaywright.close();
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Lease a browser from the pool for the launch arguments of this script, creating the pool if need be.
+	 * The time waited for the browser is recorded as datapoint {@link #BROWSER_POOL_WAIT_DATAPOINT}.
+	 * <p>The Playwright instance and its browser are leased exclusively (not shared by concurrently running scripts), as
+	 * Playwright for Java objects are not thread-safe.  See {@link ScriptingConstants#PLAYWRIGHT_BROWSER_POOL_SIZE}.
+	 */
+	private void leaseBrowserFromPool(Map<String, String> arguments, int browserPoolSize) {
+		StringBuilder poolKey = new StringBuilder();
+		for (String poolKeyArgument : BROWSER_POOL_KEY_ARGUMENTS) {
+			poolKey.append(poolKeyArgument).append('=').append(StringUtils.defaultString(arguments.get(poolKeyArgument))).append('\n');
+		}
+		Map<String, String> launchArguments = new HashMap<>(arguments);
+		int maxUses = argumentAsInt(arguments, ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_MAX_USES, DEFAULT_BROWSER_POOL_MAX_USES);
+
+		browserPool = browserPools.computeIfAbsent(poolKey.toString(), k -> new UiSessionPool<>(
+				"playwright-" + (browserPools.size() + 1), browserPoolSize, maxUses,
+				() -> launchBrowser(launchArguments),
+				pooledBrowser -> pooledBrowser.browser.isConnected(),
+				PooledBrowser::close));
+
+		long leaseTimeoutMs = argumentAsInt(arguments, ScriptingConstants.PLAYWRIGHT_BROWSER_POOL_LEASE_TIMEOUT,
+				(int)DEFAULT_BROWSER_POOL_LEASE_TIMEOUT_MS);
+		try {
+			browserLease = browserPool.lease(leaseTimeoutMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted waiting for a browser from the browser pool");
+		}
+		playwright = browserLease.getSession().playwright;
+		browser = browserLease.getSession().browser;
+
+		if (jm != null) {
+			jm.userDataPoint(BROWSER_POOL_WAIT_DATAPOINT, browserLease.getWaitMs());
+		}
+		if (LOG.isDebugEnabled())
+			LOG.debug("browser leased from pool after a wait of " + browserLease.getWaitMs() + " ms (previous uses "
+					+ browserLease.getPreviousUses() + ")");
+	}
+
+
+	/**
+	 * Builds the browser launch options from the JMeter arguments
+	 * @param arguments JMeter arguments
+	 * @return browser launch options
+	 */
+	@SuppressWarnings("deprecation")
+	protected LaunchOptions makeBrowserLaunchOptions(Map<String, String> arguments) {
 
 		PropertiesReader pr = null;
 		try {
@@ -446,7 +571,16 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 			browserLaunchOptions.setTracesDir(new File(arguments.get(ScriptingConstants.PLAYWRIGHT_TRACES_DIR)).toPath());
 		}
 
-		browser = playwright.chromium().launch(browserLaunchOptions);
+		return browserLaunchOptions;
+	}
+
+
+	/**
+	 * Creates a new (isolated) BrowserContext and Page on the current browser, based on the JMeter arguments
+	 * @param arguments JMeter arguments
+	 * @return page - playwright page used by the framework
+	 */
+	private Page makeBrowserContextAndPage(Map<String, String> arguments) {
 
 		Browser.NewContextOptions browserContextOptions = new Browser.NewContextOptions();
 
@@ -683,9 +817,24 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 
 
 	/**
-	 * Close playwright objects
+	 * Close playwright objects.  When the browser has been leased from a browser pool, only the page and browser
+	 * context are closed, and the browser is returned to the pool.
 	 */
 	public void driverDispose() {
+		if (browserLease != null) {
+			boolean reusable = true;
+			try {
+				if (playwrightPage != null) playwrightPage.close();
+				if (browserContext != null) browserContext.close();
+			} catch (Exception e) {
+				reusable = false;
+				LOG.warn("Failure on attempt to close playwright page/context (the pooled browser will be replaced) : "
+						+ e.getClass() + " : " + e.getMessage());
+			}
+			browserPool.release(browserLease, reusable);
+			browserLease = null;
+			return;
+		}
 		try {
 			playwrightPage.close();
 			browserContext.close();
@@ -700,6 +849,18 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 	}
 
 
+	/**
+	 * Called instead of {@link #driverDispose()} when the browser is to be kept open at the end of the script.
+	 * A browser leased from a browser pool is given up by the pool (left open), so the pool can launch a replacement.
+	 */
+	protected void driverKeptOpen() {
+		if (browserLease != null) {
+			browserPool.abandon(browserLease);
+			browserLease = null;
+		}
+	}
+
+
 	/**
 	 * Intended to be an override in scripts where some user interactions is required when a script fails
 	 * (via the browser if still available, or other application interface such as an API call).
@@ -757,4 +918,39 @@ public abstract class PlaywrightAbstractJavaSamplerClient extends UiAbstractJava
 		}
 	}
 
+
+	private int argumentAsInt(Map<String, String> arguments, String argumentName, int defaultValue) {
+		String value = StringUtils.trim(arguments.get(argumentName));
+		if (StringUtils.isBlank(value)) {
+			return defaultValue;
+		}
+		if (!StringUtils.isNumeric(value)) {
+			LOG.warn("Invalid " + argumentName + " value '" + value + "' (must be a whole number). The default of " + defaultValue + " will be used.");
+			return defaultValue;
+		}
+		return Integer.parseInt(value);
+	}
+
+
+	/**
+	 * A Playwright object and the browser launched by it (a browser process), as held in a browser pool
+	 */
+	private static class PooledBrowser {
+		private final Playwright playwright;
+		private final Browser browser;
+
+		PooledBrowser(Playwright playwright, Browser browser) {
+			this.playwright = playwright;
+			this.browser = browser;
+		}
+
+		void close() {
+			try {
+				browser.close();
+			} finally {
+				playwright.close();
+			}
+		}
+	}
+
 }
@@ -276,6 +276,8 @@ public abstract class PlaywrightIteratorAbstractJavaSamplerClient extends Playwr
 			jm.tearDown();
 			if (! this.getKeepBrowserOpen().equals(KeepBrowserOpen.ALWAYS)){
 				driverDispose();
+			} else {
+				driverKeptOpen();
 			}
 			if (forceStop) {
 				jm.stopThreadGroup(context);
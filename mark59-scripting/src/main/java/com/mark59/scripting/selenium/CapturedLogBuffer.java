@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting.selenium;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Bounded store of the log messages captured by {@link ChromiumDriverLogCapture} and {@link CdpVersionFinderLogCapture}.
+ *
+ * <p>Two views are kept, both of fixed maximum size:
+ * <ul>
+ * <li>the distinct messages seen in the JVM, with a count of each (used to only output a message the first time it is
+ * seen).  Once {@link #MAX_DISTINCT_MESSAGES} are held, the least recently seen message is forgotten to make room for a
+ * new one, so a long running test keeps deduplicating the messages it is currently logging.</li>
+ * <li>for each thread, the most recent {@link #THREAD_BUFFER_SIZE} distinct messages published on that thread, with
+ * counts, so a script can drain just the lines logged while it was running (see {@link #drainThreadLogs()}).</li>
+ * </ul>
+ *
+ * <p>Publishing a message is a constant time operation, and threads only contend on the (locked) JVM-wide map of
+ * messages.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class CapturedLogBuffer {
+
+	static final int MAX_DISTINCT_MESSAGES = 1000;
+	static final int THREAD_BUFFER_SIZE = 100;
+
+	private final ReentrantLock distinctMessagesLock = new ReentrantLock();
+	private final Map<String, long[]> distinctMessages = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+			return size() > MAX_DISTINCT_MESSAGES;
+		}
+	};
+	private final ThreadLocal<ThreadLogBuffer> threadLogs = ThreadLocal.withInitial(ThreadLogBuffer::new);
+
+
+	/**
+	 * Store a captured message
+	 * @param message the log message
+	 * @return true if this is the first time the message has been seen (or it had since been forgotten)
+	 */
+	boolean publish(String message) {
+		if (message == null) {
+			message = "null";
+		}
+		threadLogs.get().add(message);
+
+		distinctMessagesLock.lock();
+		try {
+			long[] count = distinctMessages.get(message);   // a get moves the message to most recently seen
+			if (count == null) {
+				distinctMessages.put(message, new long[] {1});
+				return true;
+			}
+			count[0]++;
+			return false;
+		} finally {
+			distinctMessagesLock.unlock();
+		}
+	}
+
+
+	Set<String> getCapturedLogs() {
+		distinctMessagesLock.lock();
+		try {
+			return new HashSet<>(distinctMessages.keySet());
+		} finally {
+			distinctMessagesLock.unlock();
+		}
+	}
+
+	int getLogCount() {
+		distinctMessagesLock.lock();
+		try {
+			return distinctMessages.size();
+		} finally {
+			distinctMessagesLock.unlock();
+		}
+	}
+
+	void clearLogs() {
+		distinctMessagesLock.lock();
+		try {
+			distinctMessages.clear();
+		} finally {
+			distinctMessagesLock.unlock();
+		}
+	}
+
+	List<String> drainThreadLogs() {
+		return threadLogs.get().drain();
+	}
+
+
+	/**
+	 * Ring buffer of the most recent distinct messages of one thread, with a repeat count for each message
+	 */
+	private static class ThreadLogBuffer {
+
+		private final String[] messages = new String[THREAD_BUFFER_SIZE];
+		private final int[] counts = new int[THREAD_BUFFER_SIZE];
+		private final Map<String, Integer> slotOfMessage = new HashMap<>();
+		private int next = 0;
+		private int size = 0;
+		private int dropped = 0;
+
+		void add(String message) {
+			Integer slot = slotOfMessage.get(message);
+			if (slot != null) {
+				counts[slot]++;
+				return;
+			}
+			if (size == THREAD_BUFFER_SIZE) {
+				slotOfMessage.remove(messages[next]);
+				dropped++;
+			} else {
+				size++;
+			}
+			messages[next] = message;
+			counts[next] = 1;
+			slotOfMessage.put(message, next);
+			next = (next + 1) % THREAD_BUFFER_SIZE;
+		}
+
+		List<String> drain() {
+			List<String> lines = new ArrayList<>(size + 1);
+			if (dropped > 0) {
+				lines.add("(" + dropped + " earlier distinct log messages not kept)");
+			}
+			int slot = (next - size + THREAD_BUFFER_SIZE) % THREAD_BUFFER_SIZE;
+			for (int i = 0; i < size; i++) {
+				lines.add(counts[slot] > 1 ? messages[slot] + " [x" + counts[slot] + "]" : messages[slot]);
+				messages[slot] = null;
+				slot = (slot + 1) % THREAD_BUFFER_SIZE;
+			}
+			slotOfMessage.clear();
+			next = 0;
+			size = 0;
+			dropped = 0;
+			return lines;
+		}
+	}
+
+}
@@ -1,6 +1,6 @@
 package com.mark59.scripting.selenium;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -14,6 +14,9 @@ import java.util.logging.Logger;
  * <p>Messages are interrogated to prevent the same message being written multiple times 
  * during a test.
  * 
+ * <p>The captured messages are held in bounded buffers (see {@link CapturedLogBuffer}), including the messages
+ * published on each thread, which a script can drain at the end of an iteration ({@link #drainThreadLogs()}).
+ * 
  * <p>Note the LOG objects here are from the java.util.logging api (not log4j)  
  * 
  * @author Philip Webb
@@ -24,7 +27,7 @@ public class CdpVersionFinderLogCapture {
 	private static final Logger LOG = Logger.getLogger(CdpVersionFinderLogCapture.class.getName());
 	
     private static final String CDPVERSIONFINDER_LOGGER_NAME = "org.openqa.selenium.devtools.CdpVersionFinder";
-    private final Set<String> capturedLogs = new HashSet<>();
+    private final CapturedLogBuffer capturedLogs = new CapturedLogBuffer();
     private final Logger cdpVersionFinderLogger;
     private final ImmediateOutputHandler handler;
 
@@ -62,17 +65,13 @@ public class CdpVersionFinderLogCapture {
 		public void publish(LogRecord record) {
 			if (isLoggable(record)) {
 
-				if (!capturedLogs.contains(record.getMessage())) {
+				if (capturedLogs.publish(record.getMessage())) {
 
 					String logMessage = String.format("[dups ignored] %s: %s",
 							record.getSourceClassName(), record.getMessage());
 					// System.out.println("**sysout capture** Cdp..LogCapture: " + logMessage);
 
 					LOG.log(record.getLevel(), logMessage, record.getParameters());
-					
-					synchronized (capturedLogs) {
-						capturedLogs.add(record.getMessage());
-					}
 
 					// If there's an exception, output it too
 					if (record.getThrown() != null) {
@@ -101,9 +100,7 @@ public class CdpVersionFinderLogCapture {
      * @return Set of all captured log messages
      */
     public Set<String> getCapturedLogs() {
-        synchronized (capturedLogs) {
-            return new HashSet<>(capturedLogs);
-        }
+        return capturedLogs.getCapturedLogs();
     }
 
     /**
@@ -111,9 +108,17 @@ public class CdpVersionFinderLogCapture {
      * Thread-safe.
      */
     public void clearLogs() {
-        synchronized (capturedLogs) {
-            capturedLogs.clear();
-        }
+        capturedLogs.clearLogs();
+    }
+
+    /**
+     * Returns the messages published on the current thread since its last drain (oldest first, with a repeat count 
+     * appended to repeated messages), and clears them.  Only the most recent distinct messages are kept.
+     *
+     * @return captured log messages of the current thread
+     */
+    public List<String> drainThreadLogs() {
+        return capturedLogs.drainThreadLogs();
     }
 
     /**
@@ -123,9 +128,7 @@ public class CdpVersionFinderLogCapture {
      * @return Number of captured log messages
      */
     public int getLogCount() {
-        synchronized (capturedLogs) {
-            return capturedLogs.size();
-        }
+        return capturedLogs.getLogCount();
     }
 
     /**
@@ -22,9 +22,11 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -34,9 +36,13 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
 import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.UnexpectedAlertBehaviour;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.chromium.ChromiumDriver;
 
 import com.mark59.core.JmeterFunctionsImpl;
 import com.mark59.core.utils.IpUtilities;
@@ -46,6 +52,7 @@ import com.mark59.core.utils.Mark59Utils;
 import com.mark59.scripting.KeepBrowserOpen;
 import com.mark59.scripting.ScriptingConstants;
 import com.mark59.scripting.UiAbstractJavaSamplerClient;
+import com.mark59.scripting.UiSessionPool;
 import com.mark59.scripting.interfaces.JmeterFunctionsUi;
 import com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory;
 import com.mark59.scripting.selenium.interfaces.DriverFunctionsSelenium;
@@ -82,6 +89,7 @@ import com.mark59.scripting.selenium.interfaces.DriverFunctionsSelenium;
  * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#BROWSER_EXECUTABLE
  * @see com.mark59.scripting.selenium.interfaces.DriverFunctionsSeleniumBuilder#setAlternateBrowser(java.nio.file.Path)
  * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#EMULATE_NETWORK_CONDITIONS
+ * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#DRIVER_POOL_SIZE
  * @see IpUtilities#localIPisNotOnListOfIPaddresses(String)
  * @see IpUtilities#RESTRICT_TO_ONLY_RUN_ON_IPS_LIST
  * @see JmeterFunctionsImpl#LOG_RESULTS_SUMMARY
@@ -125,6 +133,27 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 	/**  the Selenium Web Driver for the test  */
 	protected WebDriver driver;
 
+	/** Name of the datapoint recording the time (ms) a script waited for a driver from the driver pool */
+	public static final String DRIVER_POOL_WAIT_DATAPOINT = "Browser_Pool_Wait_ms";
+
+	private static final int DEFAULT_DRIVER_POOL_MAX_USES = 50;
+	private static final long DEFAULT_DRIVER_POOL_LEASE_TIMEOUT_MS = 120000L;
+	private static final int DEFAULT_DRIVER_POOL_LEAK_WARNING_SECS = 600;
+
+	/** Driver settings.  Scripts with the same values for these share a driver pool */
+	private static final List<String> DRIVER_POOL_KEY_ARGUMENTS = List.of(
+			SeleniumDriverFactory.DRIVER, SeleniumDriverFactory.HEADLESS_MODE, SeleniumDriverFactory.PAGE_LOAD_STRATEGY,
+			SeleniumDriverFactory.BROWSER_DIMENSIONS, SeleniumDriverFactory.PROXY, SeleniumDriverFactory.BROWSER_LAUNCH_ARGS,
+			SeleniumDriverFactory.WRITE_FFOX_BROWSER_LOGFILE, SeleniumDriverFactory.UNHANDLED_PROMPT_BEHAVIOUR,
+			ScriptingConstants.OVERRIDE_PROPERTY_MARK59_BROWSER_EXECUTABLE, SeleniumDriverFactory.EMULATE_NETWORK_CONDITIONS,
+			SeleniumDriverFactory.DRIVER_POOL_SIZE, SeleniumDriverFactory.DRIVER_POOL_MAX_USES);
+
+	/** Driver pools for this JVM, keyed by the driver settings */
+	private static final Map<String, UiSessionPool<DriverFunctionsSelenium<WebDriver>>> driverPools = new ConcurrentHashMap<>();
+
+	private UiSessionPool<DriverFunctionsSelenium<WebDriver>> driverPool;
+	private UiSessionPool.Lease<DriverFunctionsSelenium<WebDriver>> driverLease;
+
 
 	/** Hold default arguments for implementations of this class */
 	private static final Map<String, String> seleniumDefaultArgumentsMap;
@@ -158,6 +187,10 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 		staticMap.put(SeleniumDriverFactory.WRITE_FFOX_BROWSER_LOGFILE, String.valueOf(false));
 		staticMap.put(SeleniumDriverFactory.UNHANDLED_PROMPT_BEHAVIOUR, UnexpectedAlertBehaviour.IGNORE.toString());
 		staticMap.put(ScriptingConstants.OVERRIDE_PROPERTY_MARK59_BROWSER_EXECUTABLE, "");
+		staticMap.put(SeleniumDriverFactory.DRIVER_POOL_SIZE, 			"0");
+		staticMap.put(SeleniumDriverFactory.DRIVER_POOL_MAX_USES, 		String.valueOf(DEFAULT_DRIVER_POOL_MAX_USES));
+		staticMap.put(SeleniumDriverFactory.DRIVER_POOL_LEASE_TIMEOUT, 	String.valueOf(DEFAULT_DRIVER_POOL_LEASE_TIMEOUT_MS));
+		staticMap.put(SeleniumDriverFactory.DRIVER_POOL_LEAK_WARNING_SECS, String.valueOf(DEFAULT_DRIVER_POOL_LEAK_WARNING_SECS));
 
 		staticMap.put("______________________ logging settings: _______________________", "Expected values: 'default', 'buffer', 'write' or 'off' ");
 		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_SCREENSHOTS_AT_START_OF_TRANSACTIONS,	Mark59LogLevels.DEFAULT.getName() );
@@ -165,6 +198,11 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_PAGE_SOURCE_AT_START_OF_TRANSACTIONS,	Mark59LogLevels.DEFAULT.getName());
 		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_PAGE_SOURCE_AT_END_OF_TRANSACTIONS, 	Mark59LogLevels.DEFAULT.getName());
 		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_PERF_LOG_AT_END_OF_TRANSACTIONS, 		Mark59LogLevels.DEFAULT.getName());
+		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, 	"1");
+		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_CAPTURE_BUDGET_KB_PER_MINUTE, 		"0");
+		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_CAPTURE_BUDGET_PER_THREAD, 		String.valueOf(false));
+		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_CAPTURE_ALWAYS_ON_FAILED_TRANSACTION, String.valueOf(true));
+		staticMap.put(JmeterFunctionsForSeleniumScripts.LOG_CAPTURE_BUFFER_LAST_N, 			"0");
 
 		staticMap.put(ON_EXCEPTION_WRITE_BUFFERED_LOGS, 				String.valueOf(true));
 		staticMap.put(ON_EXCEPTION_WRITE_SCREENSHOT, 					String.valueOf(true));
@@ -225,6 +263,10 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 	 * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#BROWSER_EXECUTABLE
 	 * @see com.mark59.scripting.selenium.interfaces.DriverFunctionsSeleniumBuilder#setAlternateBrowser(java.nio.file.Path)
 	 * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#EMULATE_NETWORK_CONDITIONS
+	 * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#DRIVER_POOL_SIZE
+	 * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#DRIVER_POOL_MAX_USES
+	 * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#DRIVER_POOL_LEASE_TIMEOUT
+	 * @see com.mark59.scripting.selenium.driversimpl.SeleniumDriverFactory#DRIVER_POOL_LEAK_WARNING_SECS
 	 * @see IpUtilities#localIPisNotOnListOfIPaddresses(String)
 	 * @see IpUtilities#RESTRICT_TO_ONLY_RUN_ON_IPS_LIST
 	 * @see JmeterFunctionsImpl#LOG_RESULTS_SUMMARY
@@ -245,13 +287,21 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 	 *
 	 *  <p>Refer to the scriptExceptionHandling JavaDoc (the 'see' link below) for more information
 	 *
+	 *  <p>When a driver pool is in use (see {@link SeleniumDriverFactory#DRIVER_POOL_SIZE}) the driver is leased from
+	 *  the pool, and at the end of the script it is reset and returned to the pool rather than quit.
+	 *
 	 * @see #scriptExceptionHandling(JavaSamplerContext, Map, Throwable)
 	 */
 	@Override
 	public JmeterFunctionsUi UiScriptExecutionAndExceptionsHandling(JavaSamplerContext context, Map<String,String> jmeterRuntimeArgumentsMap, String tgName ) {
 
 		try {
-			mark59SeleniumDriver = new SeleniumDriverFactory().makeMark59SeleniumDriver(jmeterRuntimeArgumentsMap) ;
+			int driverPoolSize = argumentAsInt(jmeterRuntimeArgumentsMap, SeleniumDriverFactory.DRIVER_POOL_SIZE, 0);
+			if (driverPoolSize > 0) {
+				leaseDriverFromPool(jmeterRuntimeArgumentsMap, driverPoolSize);
+			} else {
+				mark59SeleniumDriver = new SeleniumDriverFactory().makeMark59SeleniumDriver(jmeterRuntimeArgumentsMap) ;
+			}
 		} catch (Exception e) {
 			LOG.error("ERROR : " + this.getClass() + ". Fatal error has occurred for Thread Group " + tgName
 					+ " while attempting to initiate the selenium Driver!" );
@@ -262,6 +312,9 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 
 		driver = mark59SeleniumDriver.getDriver();
 		jm = new JmeterFunctionsForSeleniumScripts(context, mark59SeleniumDriver, jmeterRuntimeArgumentsMap);
+		if (driverLease != null) {
+			jm.userDataPoint(DRIVER_POOL_WAIT_DATAPOINT, driverLease.getWaitMs());
+		}
 
 		try {
 
@@ -278,14 +331,153 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 		} finally {
 
 			jm.tearDown();
+			logCapturedSeleniumLogs();
 			if (! keepBrowserOpen.equals(KeepBrowserOpen.ALWAYS) ){
-				mark59SeleniumDriver.driverDispose();
+				driverDispose();
+			} else {
+				driverKeptOpen();
 			}
 		}
 		return jm;
 	}
 
 
+	/**
+	 * Lease a driver from the pool for the driver settings of this script, creating the pool if need be.
+	 */
+	private void leaseDriverFromPool(Map<String, String> arguments, int driverPoolSize) {
+		StringBuilder poolKey = new StringBuilder();
+		for (String poolKeyArgument : DRIVER_POOL_KEY_ARGUMENTS) {
+			poolKey.append(poolKeyArgument).append('=').append(StringUtils.defaultString(arguments.get(poolKeyArgument))).append('\n');
+		}
+		Map<String, String> driverArguments = new HashMap<>(arguments);
+		int maxUses = argumentAsInt(arguments, SeleniumDriverFactory.DRIVER_POOL_MAX_USES, DEFAULT_DRIVER_POOL_MAX_USES);
+		int leakWarningSecs = argumentAsInt(arguments, SeleniumDriverFactory.DRIVER_POOL_LEAK_WARNING_SECS, DEFAULT_DRIVER_POOL_LEAK_WARNING_SECS);
+
+		driverPool = driverPools.computeIfAbsent(poolKey.toString(), k -> {
+			UiSessionPool<DriverFunctionsSelenium<WebDriver>> pool = new UiSessionPool<>(
+					"selenium-" + (driverPools.size() + 1), driverPoolSize, maxUses,
+					() -> new SeleniumDriverFactory().makeMark59SeleniumDriver(driverArguments),
+					SeleniumAbstractJavaSamplerClient::isPooledDriverHealthy,
+					DriverFunctionsSelenium::driverDispose);
+			pool.enableLeakDetection(leakWarningSecs * 1000L);
+			return pool;
+		});
+
+		long leaseTimeoutMs = argumentAsInt(arguments, SeleniumDriverFactory.DRIVER_POOL_LEASE_TIMEOUT,
+				(int)DEFAULT_DRIVER_POOL_LEASE_TIMEOUT_MS);
+		try {
+			driverLease = driverPool.lease(leaseTimeoutMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted waiting for a driver from the driver pool");
+		}
+		mark59SeleniumDriver = driverLease.getSession();
+
+		if (LOG.isDebugEnabled())
+			LOG.debug("driver leased from pool after a wait of " + driverLease.getWaitMs() + " ms (previous uses "
+					+ driverLease.getPreviousUses() + ")");
+	}
+
+
+	/**
+	 * Health check of a driver leased from the driver pool : the browser still has a window open
+	 * (a driver whose browser or driver service has died throws an exception here)
+	 */
+	static boolean isPooledDriverHealthy(DriverFunctionsSelenium<WebDriver> pooledDriver) {
+		return !pooledDriver.getDriver().getWindowHandles().isEmpty();
+	}
+
+
+	/**
+	 * Quit the driver.  When the driver has been leased from a driver pool, the driver session is reset
+	 * (see {@link #resetPooledDriver(WebDriver)}) and the driver returned to the pool.  A driver which fails to reset is
+	 * quit (and will be replaced by the pool).
+	 */
+	protected void driverDispose() {
+		if (driverLease != null) {
+			boolean reusable = true;
+			try {
+				resetPooledDriver(driver);
+				mark59SeleniumDriver.clearDriverPerfLogs();
+			} catch (Exception e) {
+				reusable = false;
+				LOG.warn("Failure on attempt to reset a pooled driver (the driver will be replaced) : " + e.getClass() + " : " + e.getMessage());
+			}
+			driverPool.release(driverLease, reusable);
+			driverLease = null;
+			return;
+		}
+		mark59SeleniumDriver.driverDispose();
+	}
+
+
+	/**
+	 * Called instead of {@link #driverDispose()} when the browser is to be kept open at the end of the script.
+	 * A driver leased from a driver pool is given up by the pool (left open), so the pool can create a replacement.
+	 */
+	protected void driverKeptOpen() {
+		if (driverLease != null) {
+			driverPool.abandon(driverLease);
+			driverLease = null;
+		}
+	}
+
+
+	/**
+	 * Resets the session of a pooled driver so it can be used by the next script execution as if it was a new browser:
+	 * any open alert is dismissed, cookies and web storage are cleared, and the browser is left with a single new (blank) tab.
+	 * <p>Cookies and storage can only be cleared for the site of the current page using the WebDriver API, so for
+	 * Chromium all cookies are also cleared via the Chrome DevTools Protocol.
+	 * <p>Can be overridden in a script which needs to leave the application in a known state (eg log out) before the driver
+	 * is reused.  Throw an exception if the driver should not be reused.
+	 *
+	 * @param driver the pooled WebDriver
+	 */
+	protected void resetPooledDriver(WebDriver driver) {
+		try {
+			driver.switchTo().alert().dismiss();
+		} catch (NoAlertPresentException e) {
+			// the usual case
+		}
+
+		driver.manage().deleteAllCookies();
+		try {
+			((JavascriptExecutor)driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+		} catch (Exception e) {
+			LOG.debug("web storage not cleared (not available for the current page) : " + e.getMessage());
+		}
+		if (driver instanceof ChromiumDriver) {
+			((ChromiumDriver)driver).executeCdpCommand("Network.clearBrowserCookies", new HashMap<String, Object>());
+		}
+
+		String previousWindowHandle = driver.getWindowHandle();
+		String newWindowHandle = driver.switchTo().newWindow(WindowType.TAB).getWindowHandle();
+		for (String windowHandle : driver.getWindowHandles()) {
+			if (!windowHandle.equals(newWindowHandle)) {
+				driver.switchTo().window(windowHandle).close();
+			}
+		}
+		driver.switchTo().window(newWindowHandle);
+		if (LOG.isDebugEnabled())
+			LOG.debug("pooled driver reset (window " + previousWindowHandle + " replaced by " + newWindowHandle + ")");
+	}
+
+
+	/**
+	 * Drains the Selenium ChromiumDriver and CdpVersionFinder log messages captured on this thread during the script
+	 * (see {@link ChromiumDriverLogCapture#drainThreadLogs()}), and logs them at debug level.
+	 */
+	protected void logCapturedSeleniumLogs() {
+		for (String logLine : chromiumDriverlogCapture.drainThreadLogs()) {
+			LOG.debug("ChromiumDriver log (" + Thread.currentThread().getName() + ") : " + logLine);
+		}
+		for (String logLine : cdpVersionFinderLogCapture.drainThreadLogs()) {
+			LOG.debug("CdpVersionFinder log (" + Thread.currentThread().getName() + ") : " + logLine);
+		}
+	}
+
+
 	/**
 	 * Invoked when a script Exception | AssertionError is caught.
 	 *
@@ -384,6 +576,19 @@ public abstract class SeleniumAbstractJavaSamplerClient extends UiAbstractJavaSa
 	}
 
 
+	private int argumentAsInt(Map<String, String> arguments, String argumentName, int defaultValue) {
+		String value = StringUtils.trim(arguments.get(argumentName));
+		if (StringUtils.isBlank(value)) {
+			return defaultValue;
+		}
+		if (!StringUtils.isNumeric(value)) {
+			LOG.warn("Invalid " + argumentName + " value '" + value + "' (must be a whole number). The default of " + defaultValue + " will be used.");
+			return defaultValue;
+		}
+		return Integer.parseInt(value);
+	}
+
+
 	/**
 	 * Intended to be an override in scripts where some user interactions is required when a script fails
 	 * (via the browser if still available, or other application interface such as an API call).
@@ -124,6 +124,11 @@ public abstract class SeleniumIteratorAbstractJavaSamplerClient extends Selenium
 		staticMap.put(STOP_THREAD_ON_FAILURE,		  String.valueOf(false));
 
 		staticMap.putAll(buildBaseSeleniumStaticArgsMap());
+		// an iterator keeps its driver for all its iterations, so the driver pool does not apply
+		staticMap.remove(SeleniumDriverFactory.DRIVER_POOL_SIZE);
+		staticMap.remove(SeleniumDriverFactory.DRIVER_POOL_MAX_USES);
+		staticMap.remove(SeleniumDriverFactory.DRIVER_POOL_LEASE_TIMEOUT);
+		staticMap.remove(SeleniumDriverFactory.DRIVER_POOL_LEAK_WARNING_SECS);
 
 		seleniumDefaultIteratorArgumentsMap = Collections.unmodifiableMap(staticMap);
 	}
@@ -277,6 +282,7 @@ public abstract class SeleniumIteratorAbstractJavaSamplerClient extends Selenium
 		} finally {
 
 			jm.tearDown();
+			logCapturedSeleniumLogs();
 			if (! this.getKeepBrowserOpen().equals(KeepBrowserOpen.ALWAYS)){
 				mark59SeleniumDriver.driverDispose();
 			}
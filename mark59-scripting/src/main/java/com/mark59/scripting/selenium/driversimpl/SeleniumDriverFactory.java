@@ -153,6 +153,45 @@ public class SeleniumDriverFactory {
 	 */
 	public static final String EMULATE_NETWORK_CONDITIONS = ScriptingConstants.EMULATE_NETWORK_CONDITIONS;
 
+	/**
+	 * "DRIVER_POOL_SIZE" - When set to a number greater than zero, Selenium drivers (a driver service and its browser) are
+	 * shared between the script threads of the JMeter (injector) JVM, rather than a driver being created (and quit) for
+	 * every script execution.
+	 * <p>Up to this number of drivers are kept open.  Each script execution leases a driver from the pool, and at the end
+	 * of the script the driver session is reset (a new tab is opened and the others closed, cookies and web storage
+	 * cleared) and returned to the pool.  When all the drivers are in use a script waits for one to be released
+	 * (see {@link #DRIVER_POOL_LEASE_TIMEOUT}).  The time waited is recorded as a datapoint (<code>Browser_Pool_Wait_ms</code>).
+	 * <p>Scripts share a pool when their driver settings (driver type, headless mode, launch args, proxy, dimensions and
+	 * so on) are the same.  Only applies to scripts extending SeleniumAbstractJavaSamplerClient (an iterator script already
+	 * keeps its driver for all its iterations).  Default is 0 (no pool).
+	 * @see #DRIVER_POOL_MAX_USES
+	 * @see #DRIVER_POOL_LEASE_TIMEOUT
+	 * @see #DRIVER_POOL_LEAK_WARNING_SECS
+	 */
+	public static final String DRIVER_POOL_SIZE = "DRIVER_POOL_SIZE";
+
+	/**
+	 * "DRIVER_POOL_MAX_USES" - A pooled driver is quit and replaced after it has been leased this number of times
+	 * (to limit any growth in browser memory). Zero for no limit. Default is 50.
+	 * @see #DRIVER_POOL_SIZE
+	 */
+	public static final String DRIVER_POOL_MAX_USES = "DRIVER_POOL_MAX_USES";
+
+	/**
+	 * "DRIVER_POOL_LEASE_TIMEOUT" - Maximum time in milliseconds a script waits for a driver from the driver pool before
+	 * failing. Default is 120000.
+	 * @see #DRIVER_POOL_SIZE
+	 */
+	public static final String DRIVER_POOL_LEASE_TIMEOUT = "DRIVER_POOL_LEASE_TIMEOUT";
+
+	/**
+	 * "DRIVER_POOL_LEAK_WARNING_SECS" - A driver held by a script for longer than this number of seconds is logged as
+	 * a possible leak.  A driver held by a JMeter thread which has ended is always reclaimed by the pool.
+	 * Zero to switch off the warning.  Default is 600.
+	 * @see #DRIVER_POOL_SIZE
+	 */
+	public static final String DRIVER_POOL_LEAK_WARNING_SECS = "DRIVER_POOL_LEAK_WARNING_SECS";
+
 	private static final String CHROME = "CHROME";
 	private static final String FIREFOX = "FIREFOX";
 
@@ -0,0 +1,177 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for the policy limiting the transaction-level logs of a UI script : its arguments, sampling of script executions,
+ * the per minute byte budget (per thread or shared), and always allowing logs for failed transactions.
+ *
+ * <p>Executions are counted and budgets are held across the JVM, so each budget test uses a budget size (or thread)
+ * no other test uses.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class UiCapturePolicyTest {
+
+    @Test
+    public void theDefaultPolicyAllowsEveryWrite() {
+        UiCapturePolicy policy = UiCapturePolicy.fromArguments(new HashMap<>());
+
+        assertTrue(policy.isSampledExecution());
+        assertEquals(0, policy.getBufferLastN());
+        assertTrue(policy.isWriteAllowed(false));
+        assertTrue(policy.isWriteAllowed(true));
+    }
+
+    @Test
+    public void invalidArgumentsFallBackToTheirDefaults() {
+        Map<String, String> arguments = new HashMap<>();
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, "every other");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUDGET_KB_PER_MINUTE, "-5");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUFFER_LAST_N, "1.5");
+
+        UiCapturePolicy policy = UiCapturePolicy.fromArguments(arguments);
+
+        assertTrue(policy.isSampledExecution());
+        assertEquals(0, policy.getBufferLastN());
+        policy.recordBytesWritten(Long.MAX_VALUE);
+        assertTrue("no budget applies", policy.isWriteAllowed(false));
+    }
+
+    @Test
+    public void argumentsAreTrimmed() {
+        Map<String, String> arguments = new HashMap<>();
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUFFER_LAST_N, " 7 ");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_ALWAYS_ON_FAILED_TRANSACTION, " FALSE ");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, " 1000000 ");
+
+        UiCapturePolicy policy = UiCapturePolicy.fromArguments(arguments);
+        if (policy.isSampledExecution()) {
+            policy = UiCapturePolicy.fromArguments(arguments);   // the very next execution cannot also be sampled
+        }
+
+        assertEquals(7, policy.getBufferLastN());
+        assertFalse(policy.isSampledExecution());
+        assertFalse("a failed transaction is not always captured", policy.isWriteAllowed(true));
+    }
+
+    @Test
+    public void oneInEveryNExecutionsIsSampled() {
+        int sampled = 0;
+        for (int i = 0; i < 30; i++) {
+            if (new UiCapturePolicy(3, 0, false, true, 0).isSampledExecution()) {
+                sampled++;
+            }
+        }
+        assertEquals(10, sampled);
+    }
+
+    @Test
+    public void anExecutionNotSampledOnlyWritesForFailedTransactions() {
+        UiCapturePolicy notSampled = notSampledPolicy(true);
+        long suppressedBefore = UiCapturePolicy.getCapturesSuppressed();
+
+        assertFalse(notSampled.isWriteAllowed(false));
+        assertTrue(notSampled.isWriteAllowed(true));
+        assertEquals(1, UiCapturePolicy.getCapturesSuppressed() - suppressedBefore);
+
+        assertFalse(notSampledPolicy(false).isWriteAllowed(true));
+    }
+
+    @Test
+    public void writesStopOnceTheBudgetIsUsedUntilTheNextMinute() throws InterruptedException {
+        awaitNextMinuteIfNearTheEndOfThisOne();
+        runOnNewThread("budgetThread", () -> {
+            UiCapturePolicy policy = new UiCapturePolicy(1, 3, true, true, 0);
+            assertTrue(policy.isWriteAllowed(false));
+            policy.recordBytesWritten(2048);
+            assertTrue("some of the budget remains", policy.isWriteAllowed(false));
+            policy.recordBytesWritten(1024);
+
+            assertFalse(policy.isWriteAllowed(false));
+            assertTrue("a failed transaction is always captured", policy.isWriteAllowed(true));
+        });
+    }
+
+    @Test
+    public void aThreadBudgetIsOnlyUsedByItsOwnThread() throws InterruptedException {
+        awaitNextMinuteIfNearTheEndOfThisOne();
+        runOnNewThread("firstBudgetThread", () -> {
+            UiCapturePolicy policy = new UiCapturePolicy(1, 4, true, true, 0);
+            policy.recordBytesWritten(4096);
+            assertFalse(policy.isWriteAllowed(false));
+        });
+        runOnNewThread("secondBudgetThread", () -> {
+            assertTrue(new UiCapturePolicy(1, 4, true, true, 0).isWriteAllowed(false));
+        });
+    }
+
+    @Test
+    public void aSharedBudgetIsUsedByAllScriptsWithTheSameBudget() throws InterruptedException {
+        awaitNextMinuteIfNearTheEndOfThisOne();
+        runOnNewThread("firstSharedBudgetThread", () -> {
+            new UiCapturePolicy(1, 5, false, true, 0).recordBytesWritten(5120);
+        });
+        runOnNewThread("secondSharedBudgetThread", () -> {
+            assertFalse(new UiCapturePolicy(1, 5, false, true, 0).isWriteAllowed(false));
+            assertTrue("a different budget is not shared", new UiCapturePolicy(1, 6, false, true, 0).isWriteAllowed(false));
+        });
+    }
+
+
+    /** the policy of a script execution which has not been sampled (1 in a million, skipping a sampled execution) */
+    private UiCapturePolicy notSampledPolicy(boolean alwaysOnFailedTransaction) {
+        UiCapturePolicy policy = new UiCapturePolicy(1000000, 0, false, alwaysOnFailedTransaction, 0);
+        return policy.isSampledExecution() ? new UiCapturePolicy(1000000, 0, false, alwaysOnFailedTransaction, 0) : policy;
+    }
+
+    /** runs the test steps on a new thread with the given name (so a per thread budget is only used by this test) */
+    private void runOnNewThread(String threadName, Runnable steps) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                steps.run();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, threadName);
+        thread.start();
+        thread.join(5000);
+        if (failure.get() instanceof AssertionError) {
+            throw (AssertionError) failure.get();
+        }
+        assertNull(failure.get());
+    }
+
+    /** budgets are reset each minute, so avoid starting a budget test just before that happens (tests take well under 2s) */
+    private void awaitNextMinuteIfNearTheEndOfThisOne() throws InterruptedException {
+        long msIntoMinute = System.currentTimeMillis() % 60000L;
+        if (msIntoMinute > 58000L) {
+            Thread.sleep(60000L - msIntoMinute + 10);
+        }
+    }
+
+}
@@ -0,0 +1,337 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+/**
+ * Tests for the UI session pool : leasing and returning sessions from many threads, the replacement of sessions
+ * which are dead (fail their health check), not reusable or have reached their maximum number of uses, and the
+ * detection of leases which are never returned.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class UiSessionPoolTest {
+
+    /** stands in for a browser : it can be disconnected, and knows if it is in use or has been disposed of */
+    static class FakeSession {
+        final int id;
+        final AtomicBoolean inUse = new AtomicBoolean();
+        volatile boolean connected = true;
+        volatile boolean disposed = false;
+
+        FakeSession(int id) {
+            this.id = id;
+        }
+    }
+
+    private final List<FakeSession> sessionsCreated = new CopyOnWriteArrayList<>();
+
+    private UiSessionPool<FakeSession> pool(int maxSize, int maxUsesPerSession) {
+        return new UiSessionPool<>("test", maxSize, maxUsesPerSession,
+                () -> {
+                    FakeSession session = new FakeSession(sessionsCreated.size() + 1);
+                    sessionsCreated.add(session);
+                    return session;
+                },
+                session -> session.connected,
+                session -> session.disposed = true);
+    }
+
+    /** leases a session on a new thread, which then ends without returning it */
+    private UiSessionPool.Lease<FakeSession> leaseOnAThreadThatEnds(UiSessionPool<FakeSession> pool) throws InterruptedException {
+        AtomicReference<UiSessionPool.Lease<FakeSession>> leakedLease = new AtomicReference<>();
+        Thread scriptThread = new Thread(() -> {
+            try {
+                leakedLease.set(pool.lease(1000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "leakingScriptThread");
+        scriptThread.start();
+        scriptThread.join(5000);
+        assertNotNull(leakedLease.get());
+        return leakedLease.get();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long giveUpAtMs = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < giveUpAtMs) {
+            Thread.sleep(10);
+        }
+        assertTrue("condition not met within 5 secs", condition.getAsBoolean());
+    }
+
+
+    @Test
+    public void testLeaseAndReturnUnderContention() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(3, 0);
+        int threads = 12;
+        int leasesPerThread = 200;
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        List<String> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        List<Thread> scriptThreads = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread scriptThread = new Thread(() -> {
+                try {
+                    startGate.await();
+                    for (int i = 0; i < leasesPerThread; i++) {
+                        UiSessionPool.Lease<FakeSession> lease = pool.lease(10000);
+                        FakeSession session = lease.getSession();
+                        if (!session.inUse.compareAndSet(false, true)) {
+                            failures.add("session " + session.id + " leased to two threads at once");
+                        }
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        Thread.yield();
+                        inUse.decrementAndGet();
+                        session.inUse.set(false);
+                        pool.release(lease, true);
+                    }
+                } catch (Exception e) {
+                    failures.add(e.toString());
+                }
+            });
+            scriptThreads.add(scriptThread);
+            scriptThread.start();
+        }
+        startGate.countDown();
+        for (Thread scriptThread : scriptThreads) {
+            scriptThread.join(30000);
+        }
+
+        assertEquals("[]", failures.toString());
+        assertTrue("more sessions in use than the pool size : " + maxInUse.get(), maxInUse.get() <= 3);
+        assertEquals(threads * leasesPerThread, pool.getLeaseCount());
+        assertTrue("sessions created : " + pool.getSessionsCreated(), pool.getSessionsCreated() <= 3);
+        assertEquals(pool.getSessionsCreated(), sessionsCreated.size());
+        for (FakeSession session : sessionsCreated) {
+            assertFalse(session.disposed);
+        }
+        pool.shutdown();
+        for (FakeSession session : sessionsCreated) {
+            assertTrue(session.disposed);
+        }
+    }
+
+
+    @Test
+    public void testLeaseTimesOutWhenEverySessionIsLeased() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+        try {
+            pool.lease(50);
+            fail("lease from an exhausted pool should time out");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("No session became free"));
+        }
+        pool.release(lease, true);
+        assertSame(lease.getSession(), pool.lease(50).getSession());
+        assertTrue(pool.getStatistics(), pool.getStatistics().contains("lease timeouts 1,"));
+    }
+
+
+    @Test
+    public void testReleaseTwiceDoesNotFreeASecondLease() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+        pool.release(lease, true);
+        pool.release(lease, true);
+
+        pool.lease(1000);
+        try {
+            pool.lease(50);
+            fail("a lease released twice should only return its session to the pool once");
+        } catch (IllegalStateException e) {
+            assertEquals(1, pool.getSessionsCreated());
+        }
+    }
+
+
+    @Test
+    public void testDeadSessionIsDisposedOfAndReplacedOnTheNextLease() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(2, 0);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+        FakeSession deadSession = lease.getSession();
+        pool.release(lease, true);
+
+        deadSession.connected = false;    // eg the browser process has crashed while idle in the pool
+
+        UiSessionPool.Lease<FakeSession> nextLease = pool.lease(1000);
+        assertNotSame(deadSession, nextLease.getSession());
+        assertTrue(deadSession.disposed);
+        assertFalse(nextLease.getSession().disposed);
+        assertEquals(0, nextLease.getPreviousUses());
+        assertEquals(2, pool.getSessionsCreated());
+        assertTrue(pool.getStatistics(), pool.getStatistics().contains("unhealthy 1,"));
+    }
+
+
+    @Test
+    public void testHealthCheckFailingWithAnExceptionIsTreatedAsADeadSession() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = new UiSessionPool<>("test", 1, 0,
+                () -> new FakeSession(sessionsCreated.size() + 1),
+                session -> { throw new IllegalStateException("Browser has been closed"); },
+                session -> session.disposed = true);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+        FakeSession deadSession = lease.getSession();
+        pool.release(lease, true);
+
+        assertNotSame(deadSession, pool.lease(1000).getSession());
+        assertTrue(deadSession.disposed);
+    }
+
+
+    @Test
+    public void testSessionReleasedAsNotReusableIsDisposedOfAndItsPlaceFreed() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+        FakeSession session = lease.getSession();
+        pool.release(lease, false);
+
+        assertTrue(session.disposed);
+        assertNotSame(session, pool.lease(50).getSession());
+        assertEquals(2, pool.getSessionsCreated());
+    }
+
+
+    @Test
+    public void testSessionIsRecycledAfterItsMaximumUses() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 3);
+        FakeSession firstSession = null;
+        for (int i = 0; i < 3; i++) {
+            UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+            assertEquals(i, lease.getPreviousUses());
+            firstSession = lease.getSession();
+            pool.release(lease, true);
+        }
+        assertTrue(firstSession.disposed);
+        assertNotSame(firstSession, pool.lease(1000).getSession());
+        assertTrue(pool.getStatistics(), pool.getStatistics().contains("recycled 1,"));
+    }
+
+
+    @Test
+    public void testAbandonedSessionIsLeftOpenAndReplaced() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+        pool.abandon(lease);
+
+        assertFalse(lease.getSession().disposed);
+        assertNotSame(lease.getSession(), pool.lease(50).getSession());
+        pool.shutdown();
+        assertFalse(lease.getSession().disposed);
+    }
+
+
+    @Test
+    public void testLeaseNeverReturnedByAThreadThatHasEndedIsReclaimed() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        UiSessionPool.Lease<FakeSession> leakedLease = leaseOnAThreadThatEnds(pool);
+        try {
+            pool.lease(50);
+            fail("the leaked lease should still hold the only session in the pool");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        pool.detectLeaks();
+
+        assertEquals(1, pool.getSessionsReclaimed());
+        assertTrue(leakedLease.getSession().disposed);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(50);
+        assertNotSame(leakedLease.getSession(), lease.getSession());
+
+        // a late return of the reclaimed lease does not put its (disposed) session back, or free a second lease
+        pool.release(leakedLease, true);
+        pool.release(lease, true);
+        assertSame(lease.getSession(), pool.lease(50).getSession());
+        try {
+            pool.lease(50);
+            fail("the reclaimed lease should not have freed a second lease");
+        } catch (IllegalStateException e) {
+            assertEquals(2, pool.getSessionsCreated());
+        }
+    }
+
+
+    @Test
+    public void testLeaseHeldTooLongByALiveThreadIsWarnedOfOnceButNotReclaimed() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        pool.enableLeakDetection(20);
+        UiSessionPool.Lease<FakeSession> lease = pool.lease(1000);
+
+        pool.detectLeaks();
+        assertEquals(0, pool.getLeaseLeakWarnings());
+
+        Thread.sleep(50);
+        pool.detectLeaks();
+        pool.detectLeaks();
+        assertEquals(1, pool.getLeaseLeakWarnings());
+        assertEquals(0, pool.getSessionsReclaimed());
+        assertFalse(lease.getSession().disposed);
+
+        pool.release(lease, true);
+        assertSame(lease.getSession(), pool.lease(50).getSession());
+        pool.shutdown();
+    }
+
+
+    @Test
+    public void testLeakDetectionReclaimsALeakedLeaseWithoutBeingAsked() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(1, 0);
+        pool.enableLeakDetection(2000);
+        UiSessionPool.Lease<FakeSession> leakedLease = leaseOnAThreadThatEnds(pool);
+
+        // the detector runs every second (half the leak warning time)
+        awaitCondition(() -> pool.getSessionsReclaimed() == 1);
+        assertTrue(leakedLease.getSession().disposed);
+        assertNotSame(leakedLease.getSession(), pool.lease(50).getSession());
+        assertEquals(0, pool.getLeaseLeakWarnings());
+        pool.shutdown();
+    }
+
+
+    @Test
+    public void testReturnedLeasesAreNotReportedAsLeaks() throws InterruptedException {
+        UiSessionPool<FakeSession> pool = pool(2, 0);
+        pool.enableLeakDetection(1);
+        pool.release(pool.lease(1000), true);
+        pool.abandon(pool.lease(1000));
+        Thread.sleep(20);
+
+        pool.detectLeaks();
+        assertEquals(0, pool.getLeaseLeakWarnings());
+        assertEquals(0, pool.getSessionsReclaimed());
+        pool.shutdown();
+    }
+
+}
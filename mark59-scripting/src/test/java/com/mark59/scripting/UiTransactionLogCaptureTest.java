@@ -0,0 +1,229 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mark59.core.Outcome;
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.core.utils.Mark59LogLevels;
+import com.mark59.core.utils.Mark59LoggingConfig;
+
+/**
+ * Tests for the transaction-level logs of a UI script written (via bufferLog/writeLog) under its {@link UiCapturePolicy} :
+ * only sampled executions write logs, writes stop once the byte budget is used, the logs of failed transactions are
+ * always written, and logs not written are buffered and written when the script fails.
+ *
+ * <p>Screenshots at the end of transactions are the only transaction-level log used, and are written to a temporary
+ * log directory.  Budgets are held across the JVM, so each budget test uses a budget size no other test uses.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class UiTransactionLogCaptureTest {
+
+    private static final byte[] SCREENSHOT = new byte[600];
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /** a UI script's functions whose 'screenshots' are fixed size logs written to the temporary log directory */
+    static class ScreenshotOnlyFunctions extends AbstractJmeterFunctionsUiCommon {
+
+        ScreenshotOnlyFunctions(Map<String, String> jmeterRuntimeArgumentsMap, File logDirectory) {
+            super(mock(JavaSamplerContext.class), jmeterRuntimeArgumentsMap);
+            loggingConfig = mock(Mark59LoggingConfig.class);
+            when(loggingConfig.getLogDirectory()).thenReturn(logDirectory);
+            when(loggingConfig.getLogDirectoryPathName()).thenReturn(logDirectory.getPath());
+            when(loggingConfig.getLogNamesFormat()).thenReturn(Mark59Constants.THREAD_NAME);
+            leadingPartOfLogNames = logDirectory.getPath() + File.separator + "script";
+        }
+
+        @Override
+        public void writeScreenshot(String imageName) {
+            writeLog(imageName, "jpg", SCREENSHOT);
+        }
+
+        @Override
+        public void bufferScreenshot(String imageName) {
+            bufferLog(imageName, "jpg", SCREENSHOT);
+        }
+
+        @Override
+        public void writePageSource(String imageName) {
+        }
+
+        @Override
+        public void bufferPageSource(String imageName) {
+        }
+
+        @Override
+        public void writeDriverPerfLogs(String textFileName) {
+        }
+
+        @Override
+        public void bufferDriverPerfLogs(String textFileName) {
+        }
+    }
+
+
+    @Test
+    public void onlySampledExecutionsWriteTransactionLogs() {
+        Map<String, String> arguments = screenshotsAtEndOfTransactions(Mark59LogLevels.WRITE);
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, "3");
+
+        for (int execution = 0; execution < 6; execution++) {
+            ScreenshotOnlyFunctions jm = new ScreenshotOnlyFunctions(arguments, tempFolder.getRoot());
+            jm.startTransaction("txn");
+            jm.endTransaction("txn");
+            jm.tearDown();
+        }
+
+        assertEquals(2, screenshotsWritten().size());
+    }
+
+    @Test
+    public void writesStopOnceTheByteBudgetIsUsed() throws InterruptedException {
+        awaitNextMinuteIfNearTheEndOfThisOne();
+        Map<String, String> arguments = screenshotsAtEndOfTransactions(Mark59LogLevels.WRITE);
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUDGET_KB_PER_MINUTE, "1");
+        ScreenshotOnlyFunctions jm = new ScreenshotOnlyFunctions(arguments, tempFolder.getRoot());
+
+        for (int i = 1; i <= 4; i++) {
+            jm.startTransaction("txn" + i);
+            jm.endTransaction("txn" + i);
+        }
+        jm.tearDown();
+
+        assertEquals("600 then 1200 bytes are written : the 1024 byte budget is used", 2, screenshotsWritten().size());
+        assertTrue(screenshotsWritten().get(1).endsWith("_txn2_ends.jpg"));
+        assertEquals(0, jm.bufferedArtifacts.size());
+    }
+
+    @Test
+    public void theLogsOfAFailedTransactionAreAlwaysWritten() throws InterruptedException {
+        awaitNextMinuteIfNearTheEndOfThisOne();
+        Map<String, String> arguments = screenshotsAtEndOfTransactions(Mark59LogLevels.WRITE);
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUDGET_KB_PER_MINUTE, "2");
+        ScreenshotOnlyFunctions jm = new ScreenshotOnlyFunctions(arguments, tempFolder.getRoot());
+
+        for (int i = 1; i <= 5; i++) {
+            jm.startTransaction("txn" + i);
+            jm.endTransaction("txn" + i);
+        }
+        assertEquals("the 2048 byte budget is used after 4 writes", 4, screenshotsWritten().size());
+
+        jm.startTransaction("failingTxn");
+        jm.endTransaction("failingTxn", Outcome.FAIL);
+        jm.tearDown();
+
+        List<String> written = screenshotsWritten();
+        assertEquals(5, written.size());
+        assertTrue(written.get(4).endsWith("_failingTxn_FAILED_ends.jpg"));
+    }
+
+    @Test
+    public void logsNotWrittenAreBufferedAndTheLastNWrittenWhenTheScriptFails() {
+        Map<String, String> arguments = screenshotsAtEndOfTransactions(Mark59LogLevels.WRITE);
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, "1000000");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_ALWAYS_ON_FAILED_TRANSACTION, "false");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUFFER_LAST_N, "2");
+
+        ScreenshotOnlyFunctions jm = notSampledExecution(arguments);
+        for (int i = 1; i <= 3; i++) {
+            jm.startTransaction("txn" + i);
+            jm.endTransaction("txn" + i);
+        }
+        jm.startTransaction("failingTxn");
+        jm.endTransaction("failingTxn", Outcome.FAIL);
+
+        assertEquals(0, screenshotsWritten().size());
+        assertEquals(2, jm.bufferedArtifacts.size());
+
+        jm.tearDown();
+
+        List<String> written = screenshotsWritten();
+        assertEquals(2, written.size());
+        assertTrue(written.get(0).endsWith("_txn3_ends.jpg"));
+        assertTrue(written.get(1).endsWith("_failingTxn_FAILED_ends.jpg"));
+    }
+
+    @Test
+    public void bufferedLogsAreNotWrittenWhenTheScriptPasses() {
+        Map<String, String> arguments = screenshotsAtEndOfTransactions(Mark59LogLevels.WRITE);
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_SAMPLE_ONE_IN_N_ITERATIONS, "1000000");
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_CAPTURE_BUFFER_LAST_N, "2");
+
+        ScreenshotOnlyFunctions jm = notSampledExecution(arguments);
+        jm.startTransaction("txn");
+        jm.endTransaction("txn");
+        jm.tearDown();
+
+        assertEquals(0, screenshotsWritten().size());
+    }
+
+
+    /** arguments switching off all transaction-level logs except screenshots at the end of transactions */
+    private Map<String, String> screenshotsAtEndOfTransactions(Mark59LogLevels logLevel) {
+        Map<String, String> arguments = new HashMap<>();
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_SCREENSHOTS_AT_START_OF_TRANSACTIONS, Mark59LogLevels.OFF.getName());
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_SCREENSHOTS_AT_END_OF_TRANSACTIONS, logLevel.getName());
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_PAGE_SOURCE_AT_START_OF_TRANSACTIONS, Mark59LogLevels.OFF.getName());
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_PAGE_SOURCE_AT_END_OF_TRANSACTIONS, Mark59LogLevels.OFF.getName());
+        arguments.put(AbstractJmeterFunctionsUiCommon.LOG_PERF_LOG_AT_END_OF_TRANSACTIONS, Mark59LogLevels.OFF.getName());
+        return arguments;
+    }
+
+    /** the functions of a script execution not sampled for writing logs (skipping an execution which is sampled) */
+    private ScreenshotOnlyFunctions notSampledExecution(Map<String, String> arguments) {
+        ScreenshotOnlyFunctions jm = new ScreenshotOnlyFunctions(arguments, tempFolder.getRoot());
+        if (jm.getCapturePolicy().isSampledExecution()) {
+            jm.tearDown();
+            jm = new ScreenshotOnlyFunctions(arguments, tempFolder.getRoot());
+        }
+        assertFalse(jm.getCapturePolicy().isSampledExecution());
+        return jm;
+    }
+
+    /** names of the screenshots written, in the order they were written (log names include an increasing counter) */
+    private List<String> screenshotsWritten() {
+        String[] names = tempFolder.getRoot().list((dir, name) -> name.endsWith(".jpg"));
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+
+    /** budgets are reset each minute, so avoid starting a budget test just before that happens */
+    private void awaitNextMinuteIfNearTheEndOfThisOne() throws InterruptedException {
+        long msIntoMinute = System.currentTimeMillis() % 60000L;
+        if (msIntoMinute > 58000L) {
+            Thread.sleep(60000L - msIntoMinute + 10);
+        }
+    }
+
+}
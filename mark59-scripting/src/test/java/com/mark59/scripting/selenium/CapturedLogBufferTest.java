@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting.selenium;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for the bounded store of captured driver log messages : a message is only reported as new the first time it is
+ * seen, the least recently seen message is forgotten once the distinct message cap is reached, and the messages
+ * drained by a thread are only those published on that thread.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class CapturedLogBufferTest {
+
+    @Test
+    public void aRepeatedMessageIsOnlyNewTheFirstTimeItIsSeen() {
+        CapturedLogBuffer buffer = new CapturedLogBuffer();
+
+        assertTrue(buffer.publish("message one"));
+        assertFalse(buffer.publish("message one"));
+        assertTrue(buffer.publish("message two"));
+        assertFalse(buffer.publish("message one"));
+
+        assertEquals(2, buffer.getLogCount());
+        assertTrue(buffer.getCapturedLogs().containsAll(Arrays.asList("message one", "message two")));
+    }
+
+    @Test
+    public void aNullMessageIsStoredAsNull() {
+        CapturedLogBuffer buffer = new CapturedLogBuffer();
+
+        assertTrue(buffer.publish(null));
+        assertFalse(buffer.publish(null));
+        assertTrue(buffer.getCapturedLogs().contains("null"));
+    }
+
+    @Test
+    public void theLeastRecentlySeenMessageIsForgottenOnceTheCapIsReached() {
+        CapturedLogBuffer buffer = new CapturedLogBuffer();
+        for (int i = 0; i < CapturedLogBuffer.MAX_DISTINCT_MESSAGES; i++) {
+            assertTrue(buffer.publish("message " + i));
+        }
+        assertFalse("seeing message 0 again makes message 1 the least recently seen", buffer.publish("message 0"));
+
+        assertTrue(buffer.publish("one message too many"));
+
+        assertEquals(CapturedLogBuffer.MAX_DISTINCT_MESSAGES, buffer.getLogCount());
+        assertTrue(buffer.getCapturedLogs().contains("message 0"));
+        assertFalse(buffer.getCapturedLogs().contains("message 1"));
+        assertTrue(buffer.getCapturedLogs().contains("one message too many"));
+
+        assertFalse("messages still held continue to be deduplicated", buffer.publish("message 2"));
+        assertTrue("a forgotten message is new again", buffer.publish("message 1"));
+        assertEquals(CapturedLogBuffer.MAX_DISTINCT_MESSAGES, buffer.getLogCount());
+    }
+
+    @Test
+    public void clearLogsForgetsAllMessages() {
+        CapturedLogBuffer buffer = new CapturedLogBuffer();
+        buffer.publish("message one");
+
+        buffer.clearLogs();
+
+        assertEquals(0, buffer.getLogCount());
+        assertTrue(buffer.publish("message one"));
+    }
+
+    @Test
+    public void aThreadOnlyDrainsTheMessagesPublishedOnThatThread() throws InterruptedException {
+        CapturedLogBuffer buffer = new CapturedLogBuffer();
+        AtomicReference<List<String>> otherThreadLines = new AtomicReference<>();
+
+        buffer.publish("main thread message");
+        buffer.publish("shared message");
+        buffer.publish("shared message");
+
+        Thread otherThread = new Thread(() -> {
+            buffer.publish("other thread message");
+            buffer.publish("shared message");
+            otherThreadLines.set(buffer.drainThreadLogs());
+        });
+        otherThread.start();
+        otherThread.join();
+
+        assertEquals(Arrays.asList("other thread message", "shared message"), otherThreadLines.get());
+        assertEquals(Arrays.asList("main thread message", "shared message [x2]"), buffer.drainThreadLogs());
+        assertTrue("a drain empties the thread's buffer", buffer.drainThreadLogs().isEmpty());
+        assertEquals("draining does not affect the JVM-wide messages", 3, buffer.getLogCount());
+    }
+
+    @Test
+    public void aThreadKeepsOnlyItsMostRecentDistinctMessages() {
+        CapturedLogBuffer buffer = new CapturedLogBuffer();
+        int published = CapturedLogBuffer.THREAD_BUFFER_SIZE + 5;
+        for (int i = 0; i < published; i++) {
+            buffer.publish("message " + i);
+        }
+
+        List<String> lines = buffer.drainThreadLogs();
+
+        assertEquals(CapturedLogBuffer.THREAD_BUFFER_SIZE + 1, lines.size());
+        assertEquals("(5 earlier distinct log messages not kept)", lines.get(0));
+        assertEquals("message 5", lines.get(1));
+        assertEquals("message " + (published - 1), lines.get(lines.size() - 1));
+    }
+
+}
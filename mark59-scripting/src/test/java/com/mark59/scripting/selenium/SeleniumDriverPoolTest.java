@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.scripting.selenium;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.jmeter.protocol.java.sampler.JavaSamplerContext;
+import org.junit.Test;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+
+import com.mark59.scripting.UiSessionPool;
+import com.mark59.scripting.selenium.interfaces.DriverFunctionsSelenium;
+
+/**
+ * Tests for the Selenium driver pool : a driver whose browser has died is quit and replaced, and a pooled driver
+ * session is reset (alert dismissed, cookies and storage cleared, left with a single new tab) before it is reused.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class SeleniumDriverPoolTest {
+
+    /** a minimal script, so the driver pool methods of the sampler can be called */
+    static class PooledDriverScript extends SeleniumAbstractJavaSamplerClient {
+        @Override
+        protected Map<String, String> additionalTestParameters() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        protected void runSeleniumTest(JavaSamplerContext context, JmeterFunctionsForSeleniumScripts jm, WebDriver driver) {
+        }
+    }
+
+    private final List<DriverFunctionsSelenium<WebDriver>> driversCreated = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private DriverFunctionsSelenium<WebDriver> mockMark59Driver() {
+        DriverFunctionsSelenium<WebDriver> mark59Driver = mock(DriverFunctionsSelenium.class);
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getWindowHandles()).thenReturn(new LinkedHashSet<>(List.of("tab1")));
+        when(mark59Driver.getDriver()).thenReturn(driver);
+        driversCreated.add(mark59Driver);
+        return mark59Driver;
+    }
+
+    /** a pool set up with the health check and disposal used for the script driver pools */
+    private UiSessionPool<DriverFunctionsSelenium<WebDriver>> driverPool(int maxSize) {
+        return new UiSessionPool<>("selenium-test", maxSize, 0, this::mockMark59Driver,
+                SeleniumAbstractJavaSamplerClient::isPooledDriverHealthy, DriverFunctionsSelenium::driverDispose);
+    }
+
+
+    @Test
+    public void testHealthyDriverIsReused() throws InterruptedException {
+        UiSessionPool<DriverFunctionsSelenium<WebDriver>> pool = driverPool(1);
+        UiSessionPool.Lease<DriverFunctionsSelenium<WebDriver>> lease = pool.lease(1000);
+        pool.release(lease, true);
+
+        assertSame(lease.getSession(), pool.lease(1000).getSession());
+        assertEquals(1, driversCreated.size());
+        verify(lease.getSession(), never()).driverDispose();
+    }
+
+
+    @Test
+    public void testDriverWhoseBrowserHasDiedIsQuitAndReplaced() throws InterruptedException {
+        UiSessionPool<DriverFunctionsSelenium<WebDriver>> pool = driverPool(1);
+        UiSessionPool.Lease<DriverFunctionsSelenium<WebDriver>> lease = pool.lease(1000);
+        DriverFunctionsSelenium<WebDriver> deadDriver = lease.getSession();
+        pool.release(lease, true);
+
+        when(deadDriver.getDriver().getWindowHandles()).thenThrow(new NoSuchSessionException("Session ID is null"));
+
+        UiSessionPool.Lease<DriverFunctionsSelenium<WebDriver>> nextLease = pool.lease(1000);
+        assertNotSame(deadDriver, nextLease.getSession());
+        verify(deadDriver).driverDispose();
+        verify(nextLease.getSession(), never()).driverDispose();
+        assertEquals(2, driversCreated.size());
+    }
+
+
+    @Test
+    public void testDriverWithNoWindowsLeftIsQuitAndReplaced() throws InterruptedException {
+        UiSessionPool<DriverFunctionsSelenium<WebDriver>> pool = driverPool(1);
+        UiSessionPool.Lease<DriverFunctionsSelenium<WebDriver>> lease = pool.lease(1000);
+        DriverFunctionsSelenium<WebDriver> driverWithNoWindows = lease.getSession();
+        when(driverWithNoWindows.getDriver().getWindowHandles()).thenReturn(Collections.emptySet());
+        pool.release(lease, true);
+
+        assertNotSame(driverWithNoWindows, pool.lease(1000).getSession());
+        verify(driverWithNoWindows).driverDispose();
+    }
+
+
+    @Test
+    public void testResetOfAPooledDriverLeavesASingleNewTabWithCookiesAndStorageCleared() {
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        WebDriver.TargetLocator targetLocator = mock(WebDriver.TargetLocator.class);
+        WebDriver.Options options = mock(WebDriver.Options.class);
+        WebDriver newTabDriver = mock(WebDriver.class);
+        WebDriver oldTabDriver = mock(WebDriver.class);
+        Alert alert = mock(Alert.class);
+
+        when(driver.switchTo()).thenReturn(targetLocator);
+        when(driver.manage()).thenReturn(options);
+        when(driver.getWindowHandle()).thenReturn("tab1");
+        when(driver.getWindowHandles()).thenReturn(new LinkedHashSet<>(List.of("tab1", "tab2", "newTab")));
+        when(targetLocator.alert()).thenReturn(alert);
+        when(targetLocator.newWindow(WindowType.TAB)).thenReturn(newTabDriver);
+        when(newTabDriver.getWindowHandle()).thenReturn("newTab");
+        when(targetLocator.window(anyString())).thenReturn(oldTabDriver);
+
+        new PooledDriverScript().resetPooledDriver(driver);
+
+        verify(alert).dismiss();
+        verify(options).deleteAllCookies();
+        verify((JavascriptExecutor)driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+        verify(targetLocator).window("tab1");
+        verify(targetLocator).window("tab2");
+        verify(oldTabDriver, times(2)).close();
+        verify(targetLocator).window("newTab");
+        verify(newTabDriver, never()).close();
+    }
+
+
+    @Test
+    public void testResetOfAPooledDriverWithNoAlertOpen() {
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        WebDriver.TargetLocator targetLocator = mock(WebDriver.TargetLocator.class);
+        WebDriver newTabDriver = mock(WebDriver.class);
+
+        when(driver.switchTo()).thenReturn(targetLocator);
+        when(driver.manage()).thenReturn(mock(WebDriver.Options.class));
+        when(driver.getWindowHandle()).thenReturn("tab1");
+        when(driver.getWindowHandles()).thenReturn(new LinkedHashSet<>(List.of("tab1", "newTab")));
+        when(targetLocator.alert()).thenThrow(new NoAlertPresentException());
+        when(targetLocator.newWindow(WindowType.TAB)).thenReturn(newTabDriver);
+        when(newTabDriver.getWindowHandle()).thenReturn("newTab");
+        when(targetLocator.window(anyString())).thenReturn(driver);
+
+        new PooledDriverScript().resetPooledDriver(driver);
+
+        verify(driver).close();
+        verify(targetLocator).window("newTab");
+    }
+
+}
@@ -24,10 +24,14 @@ import com.mark59.trends.data.application.dao.ApplicationDAO;
 import com.mark59.trends.data.application.dao.ApplicationDAOjdbcTemplateImpl;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAO;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAOjdbcTemplateImpl;
+import com.mark59.trends.data.export.dao.TrendsExportDAO;
+import com.mark59.trends.data.export.dao.TrendsExportDAOjdbcTemplateImpl;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAOjdbcTemplateImpl;
 import com.mark59.trends.data.metricSla.dao.MetricSlaDAO;
 import com.mark59.trends.data.metricSla.dao.MetricSlaDAOjdbcImpl;
+import com.mark59.trends.data.purge.dao.PurgeDAO;
+import com.mark59.trends.data.purge.dao.PurgeDAOjdbcTemplateImpl;
 import com.mark59.trends.data.run.dao.RunDAO;
 import com.mark59.trends.data.run.dao.RunDAOjdbcTemplateImpl;
 import com.mark59.trends.data.sla.dao.SlaDAO;
@@ -36,6 +40,8 @@ import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAO;
 import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAOjdbcTemplateImpl;
 import com.mark59.trends.data.transaction.dao.TransactionDAO;
 import com.mark59.trends.data.transaction.dao.TransactionDAOjdbcTemplateImpl;
+import com.mark59.trends.purge.RunPurge;
+import com.mark59.trends.purge.RunPurgeInterface;
 
 /**
  * Create  Spring bean(s) via program rather than XML configuration<br>
@@ -97,4 +103,19 @@ public class ApplicationConfig {
         return new TestTransactionsDAOjdbcTemplateImpl();
     }
     
-}
\ No newline at end of file
+    @Bean
+    TrendsExportDAO trendsExportDAO() {
+        return new TrendsExportDAOjdbcTemplateImpl();
+    }
+    
+    @Bean
+    PurgeDAO purgeDAO() {
+        return new PurgeDAOjdbcTemplateImpl();
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    RunPurgeInterface runPurge() {
+        return new RunPurge();
+    }
+    
+}
@@ -47,6 +47,8 @@ import com.mark59.trends.data.run.dao.RunDAO.BaselineOption;
 import com.mark59.trends.data.sla.dao.SlaDAO;
 import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAO;
 import com.mark59.trends.data.transaction.dao.TransactionDAO;
+import com.mark59.trends.purge.RunPurgeInterface;
+import com.mark59.trends.purge.RunPurgeProgress;
 import com.mark59.trends.load.run.GatlingRun;
 import com.mark59.trends.load.run.JmeterRun;
 import com.mark59.trends.load.run.LrRun;
@@ -89,10 +91,14 @@ public class TrendsLoad  implements CommandLineRunner
 	@Autowired
 	EventMappingDAO eventMappingDAO;
 
+	@Autowired
+	RunPurgeInterface runPurge;
+
 	@Autowired
 	ApplicationContext context;
 
 	private static final String DEFAULT_500_MAX_NUMBER_OF_RUNS = "500";
+	private static final long MAX_WAIT_FOR_RUN_PURGE_MS = 30 * 60 * 1000L;
 	private static final int MAX_APPLICATION_NAME_LENGTH = 32;
 
 	// Note: Variable naming convention for command-line arguments intentionally capitalizes the letter
@@ -111,6 +117,8 @@ public class TrendsLoad  implements CommandLineRunner
 	private static String argKeeprawresults;
 	private static String argsimlogcustoM;        // -m simlogcustoM
 	private static String argtimeZone;            // -z timeZone
+	private static String argFollow;
+	private static String argJmeterloadthreads;   // -j jmeterloadthreads
 
 	private PerformanceTest performanceTest;
 	private List<MetricSlaResult> metricSlaResults = new ArrayList<>();
@@ -149,6 +157,11 @@ public class TrendsLoad  implements CommandLineRunner
 		options.addOption("l", "simulationLog",			true, "Gatling only. Simulation log file name - must be in the Input directory (defaults to simulation.log)" );
 		options.addOption("m", "simlogcustoM",			true, "Gatling only. Simulation log comma-separated customized 'REQUEST' field column positions in order : txn name, epoch start, epoch end, tnx OK, error msg. "
 																+ "The text 'REQUEST' is assumed in position 1. EG: for a 3.6.1 layout: '2,3,4,5,6,' (This parameter may assist with un-catered for Gatling versions)" );
+		options.addOption("f", "follow",    			true, "JMeter (csv format) and Gatling only. Follow the results file(s) while the test is running, loading results as they are written. "
+																+ "A provisional run (comment '" + AppConstantsTrends.RUN_IN_PROGRESS + "') is updated every minute, and the run is finalised once no "
+																+ "results file has grown for the given number of minutes. (defaults to off: completed results files are loaded)" );
+		options.addOption("j", "jmeterloadthreads",		true, "JMeter only. Number of results files in the input directory loaded in parallel (the same number of database "
+																+ "connections are used to insert the results). The load time is printed at the end of the load (defaults to 1)" );
 		options.addOption("z", "timeZone",    			true, "Loadrunner only. Required when running an extract from a zone other than where the Analysis Report was generated. Also, internal raw stored time"
 																+ " may not take daylight savings into account.  Two format options 1) offset against GMT. Eg 'GMT+02:00' or 2) IANA Time Zone Database (TZDB) codes."
 																+ " Refer to https://en.wikipedia.org/wiki/List_of_tz_database_time_zones. Eg 'Australia/Sydney' ");
@@ -177,6 +190,8 @@ public class TrendsLoad  implements CommandLineRunner
 		argsimlogcustoM		= commandLine.getOptionValue("m", "");
 		argKeeprawresults	= commandLine.getOptionValue("k", String.valueOf(false));
 		argtimeZone  		= commandLine.getOptionValue("z", new GregorianCalendar().getTimeZone().getID() );
+		argFollow			= commandLine.getOptionValue("f", "");
+		argJmeterloadthreads = commandLine.getOptionValue("j", "1");
 
 		if (argApplication.length() > MAX_APPLICATION_NAME_LENGTH ) {
 			argApplication = argApplication.substring(0, MAX_APPLICATION_NAME_LENGTH);
@@ -238,6 +253,23 @@ public class TrendsLoad  implements CommandLineRunner
 				throw new RuntimeException("The simlogcustoM (m) argument must blank or 5 comma-delimited integers") ;
 			}
 		}
+		if (StringUtils.isNotBlank(argFollow)){
+			if (!StringUtils.isNumeric(argFollow) || Integer.parseInt(argFollow) < 1 ) {
+				formatter.printHelp( "TrendsLoad", options );
+				printSampleUsage();
+				throw new RuntimeException("The follow (f) argument must be a number of minutes greater than zero");
+			}
+			if (AppConstantsTrends.LOADRUNNER.equalsIgnoreCase(argTool)) {
+				formatter.printHelp( "TrendsLoad", options );
+				printSampleUsage();
+				throw new RuntimeException("The follow (f) argument cannot be used for LOADRUNNER results");
+			}
+		}
+		if (!StringUtils.isNumeric(argJmeterloadthreads) || Integer.parseInt(argJmeterloadthreads) < 1 ) {
+			formatter.printHelp( "TrendsLoad", options );
+			printSampleUsage();
+			throw new RuntimeException("The jmeterloadthreads (j) argument must be a number greater than zero");
+		}
 		if (! ( argtimeZone.equals("GMT") || !TimeZone.getTimeZone(argtimeZone).getID().equals("GMT"))){
 			// https://stackoverflow.com/questions/13092865/timezone-validation-in-java
 			formatter.printHelp( "TrendsLoad", options );
@@ -324,6 +356,12 @@ public class TrendsLoad  implements CommandLineRunner
 		System.out.println(" simulationLog   (l): " + argsimulationLog );
 		System.out.println(" simlogcustoM    (m): " + argsimlogcustoM );
 		System.out.println(" timeZone        (z): " + argtimeZone );
+		if (AppConstantsTrends.JMETER.equalsIgnoreCase(argTool)){
+			System.out.println(" jmeterloadthreads (j): " + argJmeterloadthreads );
+		}
+		if (StringUtils.isNotBlank(argFollow)){
+			System.out.println(" follow          (f): " + argFollow + " (mins)" );
+		}
 		System.out.println("------------------------------------------------   " );
 		System.out.println();
 	}
@@ -339,6 +377,8 @@ public class TrendsLoad  implements CommandLineRunner
 		System.out.println( "   java -jar mark59-trends-load.jar -a MY_COMPANY_BIG_APP -i C:/jmeter-results/BIGAPP -r \"run ref 645\" -p 3309  ");
 		System.out.println( "   Explicly enter the default MySql db authentication and port (3306) to upload a DataHunter run : ");
 		System.out.println( "   java -jar mark59-trends-load.jar -a DataHunter -i C:/Mark59_Runs/Jmeter_Results/DataHunter -r \"run ref 99\" -p 3306 -u admin -w admin");
+		System.out.println( "   Follow the JMeter csv results in C:/jmeter-results/BIGAPP while the test is running, finalising the run 5 minutes after results stop being written : ");
+		System.out.println( "   java -jar mark59-trends-load.jar -a MY_COMPANY_BIG_APP -i C:/jmeter-results/BIGAPP -r \"run ref 646\" -p 3309 -f 5 ");
 		System.out.println( "   2. Gatling example ");
 		System.out.println( "   Process Gatling simulation.log in directory C:/GatlingProjects/myBigApp");
 		System.out.println( "   The graph application name will be MY_COMPANY_BIG_APP, with a reference for this run of 'GatlingIsCool'.");
@@ -389,17 +429,35 @@ public class TrendsLoad  implements CommandLineRunner
 		}
 
 		loadTestRun(argTool, argApplication, argInput, argReference, argeXcludestart, argCaptureperiod, argmaxNumberofruns,
-				argKeeprawresults, argtimeZone, argignoredErrors, argsimulationLog, argsimlogcustoM);
+				argKeeprawresults, argtimeZone, argignoredErrors, argsimulationLog, argsimlogcustoM, argFollow, argJmeterloadthreads);
 	}
 
 
     public void loadTestRun(String tool, String application, String input, String runReference, String excludestart, String captureperiod, String maxNumberofruns,
     		String keeprawresults, String timeZone, String ignoredErrors, String simulationLog, String simlogcustoM) {
+    	loadTestRun(tool, application, input, runReference, excludestart, captureperiod, maxNumberofruns,
+    			keeprawresults, timeZone, ignoredErrors, simulationLog, simlogcustoM, "");
+    }
+
+
+    public void loadTestRun(String tool, String application, String input, String runReference, String excludestart, String captureperiod, String maxNumberofruns,
+    		String keeprawresults, String timeZone, String ignoredErrors, String simulationLog, String simlogcustoM, String follow) {
+    	loadTestRun(tool, application, input, runReference, excludestart, captureperiod, maxNumberofruns,
+    			keeprawresults, timeZone, ignoredErrors, simulationLog, simlogcustoM, follow, "1");
+    }
+
+
+    /**
+     * @param jmeterLoadThreads JMeter only: the number of results files loaded in parallel
+     */
+    public void loadTestRun(String tool, String application, String input, String runReference, String excludestart, String captureperiod, String maxNumberofruns,
+    		String keeprawresults, String timeZone, String ignoredErrors, String simulationLog, String simlogcustoM, String follow, String jmeterLoadThreads) {
 
 		if (AppConstantsTrends.JMETER.equalsIgnoreCase(tool)){
-			performanceTest = new JmeterRun(context, application, input, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors );
+			performanceTest = new JmeterRun(context, application, input, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors, follow,
+					jmeterLoadThreads);
 		} else if (AppConstantsTrends.GATLING.equalsIgnoreCase(tool)){
-			performanceTest = new GatlingRun(context, application, input, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors, simulationLog, simlogcustoM);
+			performanceTest = new GatlingRun(context, application, input, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors, simulationLog, simlogcustoM, follow);
 		} else {
 			performanceTest = new LrRun(context, application, input, runReference, excludestart, captureperiod, keeprawresults, timeZone );
 		}
@@ -428,6 +486,11 @@ public class TrendsLoad  implements CommandLineRunner
 	}
 
 
+	/**
+	 * Aged runs are removed from the RUNS table immediately, then their TESTTRANSACTIONS and TRANSACTION rows are purged
+	 * in throttled chunks on a background thread (so large deletes do not lock tables in use by the Trends web application).
+	 * If TrendsLoad ends before the purge completes, the purge is resumed by the Trends web application.
+	 */
 	private void removeAgedRuns(String application, int maxNumberofruns, List<String> runDatesExBaselines){
 		System.out.println( "TrendsLoad:  " + (runDatesExBaselines.size()-maxNumberofruns) + " run(s) will be removed from the "
 			+ application + " application due to the maxNumberofruns policy.  List of run date/times removed : " );
@@ -436,9 +499,17 @@ public class TrendsLoad  implements CommandLineRunner
 			 // delete from the (maxNumberofruns+1)th to the last element of the runs list
 			if ((i-maxNumberofruns)%6 == 0){System.out.print("\n    ");};
 			System.out.print(runDatesExBaselines.get(i) + "  ");
-			runDAO.deleteRun(application, runDatesExBaselines.get(i));
+			runPurge.submitRunPurge(application, runDatesExBaselines.get(i));
 		}
 		System.out.println();
+
+		boolean purgeCompleted = runPurge.awaitCompletion(MAX_WAIT_FOR_RUN_PURGE_MS);
+		for (RunPurgeProgress runPurgeProgress : runPurge.getPurgeProgress()) {
+			System.out.println( "TrendsLoad:  run purge " + runPurgeProgress);
+		}
+		if (!purgeCompleted){
+			System.out.println( "TrendsLoad:  run purge has not completed, it will be resumed by the Trends web application");
+		}
 	}
 
 
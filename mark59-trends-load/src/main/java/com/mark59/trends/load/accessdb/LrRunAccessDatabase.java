@@ -26,8 +26,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.TimeZone;
 
 import org.apache.commons.lang3.StringUtils;
@@ -49,6 +51,7 @@ import com.mark59.trends.data.beans.Transaction;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAO;
 import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAO;
 import com.mark59.trends.load.run.EventAttributes;
+import com.mark59.trends.load.run.TestTransactionBatchWriter;
 
 /**
  * @author Philip Webb
@@ -160,6 +163,7 @@ public class LrRunAccessDatabase {
 	/**
 	 * Loads all 'Transaction' events on the LR Event_meter table into the mark59 TestTransactions table, in a similar process to how Transaction events are
 	 * handled with the other Tools).   System Metrics and DataPoints are handled separately.
+	 * <p>The Event_meter table is read in a single pass, with the inserts done on a separate writer thread (see {@link TestTransactionBatchWriter}).
 	 *
 	 * @param application  applicationID
 	 * @param testTransactionsDAO  testTransactionsDAO instance
@@ -169,68 +173,55 @@ public class LrRunAccessDatabase {
 
 		System.out.println("Loading transactional data from loadrunner mdb Event_meter table..");
 
-		List<TestTransaction> testTransactionList = new ArrayList<>();
 		int lineCount = 0;
 
 		long startLoadms = System.currentTimeMillis();
 		System.out.println("load Transactional data From LoadrunnerAccessDB: starts at " + new Date(startLoadms));
 
 
-		try {
+		try (TestTransactionBatchWriter testTransactionWriter = new TestTransactionBatchWriter(testTransactionsDAO)) {
 			Table table = db.getTable("Event_meter");
 
 			for (Row row : table) {
 
-				Integer currentEventMeterEventId =  (Integer)row.get("Event ID");
-				// System.out.println("storeTransactionalData: currentEventMeterEventId = " + currentEventMeterEventId  );
+				LrEventMapBean lrEventMapBean = lrEventMapTable.get((Integer)row.get("Event ID"));
 
-				if (lrEventMapTable.containsKey(currentEventMeterEventId) &&
-					EVENT_TYPE_TRANSACTION.equals( lrEventMapTable.get(currentEventMeterEventId).eventType )){
+				if (lrEventMapBean != null && EVENT_TYPE_TRANSACTION.equals(lrEventMapBean.eventType)){
 
-			    	if ( (lineCount % 100 )   == 0 ){
-			    		testTransactionsDAO.insertMultiple(testTransactionList);
-			    		testTransactionList.clear();
-			    	}
 					if ( (lineCount % 10000 ) == 0 ){	System.out.print(" (" + lineCount + ").."); }
 					lineCount++;
 
-					LrEventMeterBean lrEventMeterBean = new LrEventMeterBean();
-					lrEventMeterBean.setEventId(currentEventMeterEventId);
-
 					//  The txn recored time "End Time" is the relative end time in seconds to 3 decimals of the txn.  Storing as epoch time in msecs
 					Double txnSecsFromStart =  (Double)row.get("End Time");
 					long txnEpochTimeMsecs = Double.valueOf(runStartTimeEpochMsecs + txnSecsFromStart * 1000 ).longValue();
-					lrEventMeterBean.setEndTime(Long.toString(txnEpochTimeMsecs));
 
 					BigDecimal rawValue  = BigDecimal.valueOf((Double) row.get("Value")).setScale(6, RoundingMode.HALF_UP);
 					BigDecimal thinkTime = BigDecimal.valueOf((Double) row.get("Think Time")).setScale(6, RoundingMode.HALF_UP);
-					lrEventMeterBean.setValue( rawValue.subtract(thinkTime));
-
-					lrEventMeterBean.setStatus1(String.valueOf(row.get("Status1")));
 
+					String status1 = String.valueOf(row.get("Status1"));
 
 					TestTransaction testTransaction = new TestTransaction();
-					testTransaction.setTxnId(lrEventMapTable.get(currentEventMeterEventId).eventName);
+					testTransaction.setTxnId(lrEventMapBean.eventName);
 					testTransaction.setTxnType(Mark59Constants.DatabaseTxnTypes.TRANSACTION.name() );
-					testTransaction.setTxnResult(lrEventMeterBean.getValue());
+					testTransaction.setTxnResult(rawValue.subtract(thinkTime));
 
-					if (STATUS1_FAIL.equals(lrEventMeterBean.getStatus1())){
+					if (STATUS1_FAIL.equals(status1)){
 						testTransaction.setTxnPassed("N");
-					} else if (STATUS1_PASS.equals(lrEventMeterBean.getStatus1())){
+					} else if (STATUS1_PASS.equals(status1)){
 						testTransaction.setTxnPassed("Y");
-					} else if (STATUS1_STOP.equals(lrEventMeterBean.getStatus1())){
+					} else if (STATUS1_STOP.equals(status1)){
 						testTransaction.setTxnPassed(AppConstantsTrends.TXN_STOPPPED_STATUS);
 					} else {
 						testTransaction.setTxnPassed("N");
-						testTransaction.setTxnId(lrEventMapTable.get(currentEventMeterEventId).eventName + "_UNKNOWN_STATUS" );
+						testTransaction.setTxnId(lrEventMapBean.eventName + "_UNKNOWN_STATUS" );
 					}
 
-					testTransaction.setTxnEpochTime(lrEventMeterBean.getEndTime());
+					testTransaction.setTxnEpochTime(Long.toString(txnEpochTimeMsecs));
 
 		    		testTransaction.setApplication(application);
 		    		testTransaction.setRunTime(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
 		    		testTransaction.setIsCdpTxn("N");
-		    		testTransactionList.add(testTransaction);
+		    		testTransactionWriter.add(testTransaction);
 				}
 
 			} // end of event_meter table
@@ -240,8 +231,6 @@ public class LrRunAccessDatabase {
 			e.printStackTrace();
 			throw new RuntimeException();
 		}
-		testTransactionsDAO.insertMultiple(testTransactionList);
-		testTransactionList.clear();
 
 		long endLoadms = System.currentTimeMillis();
 		System.out.println(" ..(" + lineCount + ")");
@@ -263,8 +252,8 @@ public class LrRunAccessDatabase {
 	 * <li>When a match is found, other entries from the mark59 EventMapping table are used to determine the txnId in mark59 (using left/right boundaries against LR Event Name,
 	 * and the mark59 transaction type (using the TXN_TYPE column).
 	 * </ul>
-	 * <p><p>Then in the second part of the process, for each identified event, it goes to the LR table (Monitor_meter or DataPoint_meter) holding that Event Id,
-	 *  and extract the LR data to create the mark59 transaction for that event.
+	 * <p><p>Then in the second part of the process, each LR table (Monitor_meter or DataPoint_meter) holding an identified event is read once,
+	 *  with each row for an identified event added to the summary for that event, to create the mark59 transaction for each event.
 	 *
 	 * @param run  Run
 	 * @param eventMappingDAO eventMappingDAO instance
@@ -276,6 +265,7 @@ public class LrRunAccessDatabase {
 
 		List<Transaction> eventTransactions = new ArrayList<>();
 		List<EventAttributes> metricEventsToBeExtracted = new ArrayList<>();
+		List<EventMapping> mark59MetricsEventMappings = eventMappingDAO.findEventMappingsForPerformanceTool(AppConstantsTrends.LOADRUNNER);
 
 		System.out.println("---------------------------------------------------------------------------------------- " );
 		System.out.println("Print out for table Event_map  ( Event ID :  Event Type :  Event Name ) " );
@@ -287,22 +277,45 @@ public class LrRunAccessDatabase {
 								+ " : " + lrEventMapBean.getEventName().replaceAll("Error", "Err"));
 
 				if ( ! EVENT_TYPE_TRANSACTION.equals(lrEventMapBean.getEventType())){   //Transactions handled separately
-					metricEventsToBeExtracted.addAll(findMetricsToBeReportedForThisMdbEventId(lrEventMapBean, eventMappingDAO) );
+					metricEventsToBeExtracted.addAll(findMetricsToBeReportedForThisMdbEventId(lrEventMapBean, mark59MetricsEventMappings, eventMappingDAO) );
 				}
 
 		}
 		System.out.println("-------------------  " + metricEventsToBeExtracted.size());
 
-		// now go thru each required system metric event id (eg an CPU or Memory metric) to get the actual metric values from the  appropriate "xxx_meter" tables in the LR mdb file
+		// now get the actual metric values for each required system metric event id (eg an CPU or Memory metric) from the appropriate "xxx_meter"
+		// tables in the LR mdb file.  Each table is read once, with its rows passed to the accumulator for the row's event id.
+
+		Map<String, Map<Integer, LrMetricAccumulator>> metricAccumulatorsForLrTable = new LinkedHashMap<>();
+		List<LrMetricAccumulator> metricAccumulators = new ArrayList<>();
 
 		for (EventAttributes eventAttributes : metricEventsToBeExtracted) {
-			try {
-				eventTransactions.add(extractMetricsFromLoadrunnerMdbMeterTables(run, eventAttributes, dateRangeBean, filteredDateRangeBean));
-			} catch (IOException e) {
-				System.out.println( " TrendsLoad: extractSystemMetricEventsFromMDB Error - IO on reading access db  :"   );
-				e.printStackTrace();
-				throw new RuntimeException();
+			String metricSource = eventAttributes.getEventMapping().getMetricSource();
+			if  ( !AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_MONITOR_METER.equals(metricSource)  &&
+				  !AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_DATAPOINT_METER.equals(metricSource) ) {
+				throw new RuntimeException("Unexpected source for a Loadrunner metric event. "
+						+ "Expected " + AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_MONITOR_METER + " or " +  AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_DATAPOINT_METER
+						+ " but got " + metricSource);
 			}
+			String lrTableForThisEvent = AppConstantsTrends.getToolDataTypeToSourceValueMap().get(metricSource);   //  Monitor_meter or DataPoint_meter
+
+			LrMetricAccumulator metricAccumulator = new LrMetricAccumulator(eventAttributes);
+			metricAccumulators.add(metricAccumulator);
+			metricAccumulatorsForLrTable.computeIfAbsent(lrTableForThisEvent, k -> new HashMap<>()).put(eventAttributes.getEventId(), metricAccumulator);
+		}
+
+		try {
+			for (Entry<String, Map<Integer, LrMetricAccumulator>> lrTableAccumulators : metricAccumulatorsForLrTable.entrySet()) {
+				accumulateMetricsFromLoadrunnerMdbMeterTable(lrTableAccumulators.getKey(), lrTableAccumulators.getValue(), dateRangeBean, filteredDateRangeBean);
+			}
+		} catch (IOException e) {
+			System.out.println( " TrendsLoad: extractSystemMetricEventsFromMDB Error - IO on reading access db  :"   );
+			e.printStackTrace();
+			throw new RuntimeException();
+		}
+
+		for (LrMetricAccumulator metricAccumulator : metricAccumulators) {
+			eventTransactions.add(metricAccumulator.toTransaction(run));
 		}
 
 		return eventTransactions;
@@ -313,7 +326,8 @@ public class LrRunAccessDatabase {
 	 * See if a LR event (Id and Type) matches an entry on mark59 EventMapping table.
 	 * The mark59 txnId is also determined using the left/right boundary rules on the eventMapping entry.
 	 */
-	private List<EventAttributes> findMetricsToBeReportedForThisMdbEventId(LrEventMapBean lrEventMapBean, EventMappingDAO eventMappingDAO ){
+	private List<EventAttributes> findMetricsToBeReportedForThisMdbEventId(LrEventMapBean lrEventMapBean, List<EventMapping> mark59MetricsEventMappings,
+			EventMappingDAO eventMappingDAO ){
 
 		Integer mdbEventId = lrEventMapBean.getEventId();
 		String mdbEventType = lrEventMapBean.getEventType();
@@ -321,7 +335,6 @@ public class LrRunAccessDatabase {
 //		System.out.println("            findMetricsToBeReportedForThisMdbEventId : " + lrEventMapBean.getEventId() +":"+lrEventMapBean.getEventType()+":"+lrEventMapBean.getEventName() );
 
 		List<EventAttributes> reportedEventAttributes = new ArrayList<>();
-		List<EventMapping> mark59MetricsEventMappings = eventMappingDAO.findEventMappingsForPerformanceTool(AppConstantsTrends.LOADRUNNER);
 
 		boolean lrEventNameMatched = false;
 		int i = 0;
@@ -350,140 +363,148 @@ public class LrRunAccessDatabase {
 	}
 
 
-	private Transaction extractMetricsFromLoadrunnerMdbMeterTables(Run run, EventAttributes eventAttributes, DateRangeBean dateRangeBean, DateRangeBean filteredDateRangeBean ) throws IOException {
+	private void accumulateMetricsFromLoadrunnerMdbMeterTable(String lrTable, Map<Integer, LrMetricAccumulator> metricAccumulatorForEventId,
+			DateRangeBean dateRangeBean, DateRangeBean filteredDateRangeBean) throws IOException {
 
-		Integer eventId =  eventAttributes.getEventId();
-		BigDecimal value = new BigDecimal("0.000000").setScale(6, RoundingMode.HALF_UP)   ;
-		Integer eventInstanceID;
-		Double eventSecsFromStart;
-		boolean filterOutThisEvent;
+		Table table = db.getTable(lrTable);
 
-		BigDecimal totalOfValues = new BigDecimal("0.0").setScale(6, RoundingMode.HALF_UP);
+		for (Row row : table) {
 
-		long countPointsAtBottleneckThreshold = 0L;
-		long count = 0L;
+			LrMetricAccumulator metricAccumulator = metricAccumulatorForEventId.get((Integer)row.get("Event ID"));
 
-		BigDecimal txnMinimum = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-		BigDecimal txnMaximum = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
+			if (metricAccumulator != null) {
+				Double eventSecsFromStart = (Double)row.get("End Time");
+
+				boolean filterOutThisEvent = false;
+				if  (filteredDateRangeBean.isFilterApplied() ) {
+					long eventEpochTimeMsecs = Double.valueOf( dateRangeBean.getRunStartTime() +  eventSecsFromStart * 1000 ).longValue();
+					if ( eventEpochTimeMsecs < filteredDateRangeBean.getRunStartTime() || eventEpochTimeMsecs > filteredDateRangeBean.getRunEndTime() ) {
+						filterOutThisEvent = true;
+					}
+				}
 
-		Integer minEventInstanceId =  null;
-		Integer maxEventInstanceId =  null;
-		BigDecimal txnFirst = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-		BigDecimal txnLast  = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-		boolean firstTimeThru = true;
+				if (!filterOutThisEvent) {
+					metricAccumulator.add(BigDecimal.valueOf((Double)row.get("Value")).setScale(6, RoundingMode.HALF_UP), (Integer)row.get("Event Instance ID"));
+				}
+			}
+		}
+	}
 
-		BigDecimal ninetyPercent = new BigDecimal("90.0");
 
-		if  ( !AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_MONITOR_METER.equals(eventAttributes.getEventMapping().getMetricSource())  &&
-			  !AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_DATAPOINT_METER.equals(eventAttributes.getEventMapping().getMetricSource()) ) {
-			throw new RuntimeException("Unexpected source for a Loadrunner metric event. "
-					+ "Expected " + AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_MONITOR_METER + " or " +  AppConstantsTrends.METRIC_SOURCE_LOADRUNNER_DATAPOINT_METER
-					+ " but got " + eventAttributes.getEventMapping().getMetricSource());
+	/**
+	 * Summary of the values of one LR metric event, built up as the rows of its meter table are read
+	 */
+	private static class LrMetricAccumulator {
+
+		private static final BigDecimal NINETY_PERCENT = new BigDecimal("90.0");
+		private static final BigDecimal HUNDRED_PERCENT = new BigDecimal("100.0");
+
+		private final EventAttributes eventAttributes;
+		private final boolean isPercentage;
+		private final boolean isInvertedPercentage;
+
+		private BigDecimal totalOfValues = new BigDecimal("0.0").setScale(6, RoundingMode.HALF_UP);
+		private long countPointsAtBottleneckThreshold = 0L;
+		private long count = 0L;
+
+		private BigDecimal txnMinimum = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
+		private BigDecimal txnMaximum = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
+
+		private Integer minEventInstanceId =  null;
+		private Integer maxEventInstanceId =  null;
+		private BigDecimal txnFirst = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
+		private BigDecimal txnLast  = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
+
+		LrMetricAccumulator(EventAttributes eventAttributes) {
+			this.eventAttributes = eventAttributes;
+			this.isPercentage = "Y".equals(eventAttributes.getEventMapping().getIsPercentage());
+			this.isInvertedPercentage = "Y".equals(eventAttributes.getEventMapping().getIsInvertedPercentage());
 		}
 
-		String lrTableForThisEvent = AppConstantsTrends.getToolDataTypeToSourceValueMap().get( eventAttributes.getEventMapping().getMetricSource());
-		Table table = db.getTable(lrTableForThisEvent);               //  Monitor_meter or DataPoint_meter for a Loadrunner run
-		Cursor cursor = CursorBuilder.createCursor(table);
+		void add(BigDecimal value, Integer eventInstanceID) {
 
-		while (cursor.findNextRow(Collections.singletonMap("Event ID", eventId ))){
+			if (count == 0) {
+				txnMinimum = value;
+				txnMaximum = value;
+				minEventInstanceId = eventInstanceID;
+				maxEventInstanceId = eventInstanceID;
+				txnFirst = value;
+				txnLast = value;
+			}
 
-			value = BigDecimal.valueOf((Double) cursor.getCurrentRowValue(table.getColumn("Value"))).setScale(6, RoundingMode.HALF_UP);
-			eventInstanceID    =  (Integer)cursor.getCurrentRowValue(table.getColumn("Event Instance ID"));
-			eventSecsFromStart =  (Double)cursor.getCurrentRowValue(table.getColumn("End Time"));
+			if ( eventInstanceID <  minEventInstanceId  ){
+				txnFirst = value;
+			}
+			if ( eventInstanceID >  maxEventInstanceId  ){
+				txnLast = value;
+			}
 
-			filterOutThisEvent = false;
-			if  (filteredDateRangeBean.isFilterApplied() ) {
-				long eventEpochTimeMsecs = Double.valueOf( dateRangeBean.getRunStartTime() +  eventSecsFromStart * 1000 ).longValue();
-				if ( eventEpochTimeMsecs < filteredDateRangeBean.getRunStartTime() || eventEpochTimeMsecs > filteredDateRangeBean.getRunEndTime() ) {
-					filterOutThisEvent = true;
-				}
+			if ( value.compareTo(txnMinimum) < 0  ){
+				txnMinimum = value;
+			}
+			if ( value.compareTo(txnMaximum) > 0  ){
+				txnMaximum = value;
+			}
+
+			// if the metric value is a %idle, we need to invert it to turn it into a %utilisation ..
+			if (isInvertedPercentage){
+				value = value.subtract(HUNDRED_PERCENT).negate();
 			}
 
-			if (!filterOutThisEvent) {
+			//calculation of server utilisation average takes the total of all points captured, then divides that by number of points (also may be useful for certain Datapoints)
+			totalOfValues =  totalOfValues.add(value);
 
-				if (firstTimeThru) {
-					txnMinimum = value;
-					txnMaximum = value;
-					minEventInstanceId = eventInstanceID;
-					maxEventInstanceId = eventInstanceID;
-					txnFirst = value;
-					txnLast = value;
-					firstTimeThru = false;
-				}
+			//calculation of time spent over 90% of metric (or <10% inverted percentage like idle).  Takes the number of points at >90%  and uses total number of point to get % 'bottlenecked'
+			if (isPercentage && value.compareTo(NINETY_PERCENT) > 0 ){
+				countPointsAtBottleneckThreshold = countPointsAtBottleneckThreshold + 1;
+			}
 
-				if ( eventInstanceID <  minEventInstanceId  ){
-					txnFirst = value;
-				}
-				if ( eventInstanceID >  maxEventInstanceId  ){
-					txnLast = value;
-				}
+			count = count +1;
+		}
 
-				if ( value.compareTo(txnMinimum) < 0  ){
-					txnMinimum = value;
-				}
-				if ( value.compareTo(txnMaximum) > 0  ){
-					txnMaximum = value;
-				}
+		Transaction toTransaction(Run run) {
 
-				// if the metric value is a %idle, we need to invert it to turn it into a %utilisation ..
-				if (eventAttributes.getEventMapping().getIsInvertedPercentage().equals("Y") ){
-					value = value.subtract( new BigDecimal("100.0")).negate();
-				}
+			//average
+			BigDecimal tnxAverage =   totalOfValues.divide(new BigDecimal(count), 3, RoundingMode.HALF_UP  );
 
-				//calculation of server utilisation average takes the total of all points captured, then divides that by number of points (also may be useful for certain Datapoints)
-				totalOfValues =  totalOfValues.add(value);
+			DecimalFormat df = new DecimalFormat("#.00");
 
-				//calculation of time spent over 90% of metric (or <10% inverted percentage like idle).  Takes the number of points at >90%  and uses total number of point to get % 'bottlenecked'
-				if (eventAttributes.getEventMapping().getIsPercentage().equals("Y") &&  value.compareTo(ninetyPercent) > 0 ){
-					countPointsAtBottleneckThreshold = countPointsAtBottleneckThreshold + 1;
-				}
+			//time above 90% threshold
+			Double percentSpendAtBottleneckThreshold = ( countPointsAtBottleneckThreshold / (double) count) * 100.0;
+			String percentSpendAtBottleneckThresholdStr =   df.format(percentSpendAtBottleneckThreshold);
 
-				count = count +1;
+			System.out.println("extracted Metric: " + eventAttributes.getTxnId() + " " + eventAttributes.getEventMapping().getTxnType()
+					+ "  eventAve = " + tnxAverage + " util% = " + tnxAverage +	", 90th% threshold = " + percentSpendAtBottleneckThresholdStr + ", count was " + count );
 
-//				System.out.println("value = " + value + ",  count = " + count  );
-			}  //filter
-		}
+			Transaction serverTransaction = new Transaction();
+			serverTransaction.setApplication(run.getApplication());
+			serverTransaction.setRunTime(run.getRunTime());
+			serverTransaction.setTxnId(eventAttributes.getTxnId());
+			serverTransaction.setTxnType(eventAttributes.getEventMapping().getTxnType());
+			serverTransaction.setIsCdpTxn("N");
+			serverTransaction.setTxnMinimum(txnMinimum);
+			serverTransaction.setTxnAverage(tnxAverage);
+			serverTransaction.setTxnMedian(BigDecimal.valueOf(-1.0));
+			serverTransaction.setTxnMaximum(txnMaximum);
+			serverTransaction.setTxnStdDeviation(BigDecimal.valueOf(-1.0));
 
-		//average
-		BigDecimal tnxAverage =   totalOfValues.divide(new BigDecimal(count), 3, RoundingMode.HALF_UP  );
-
-		DecimalFormat df = new DecimalFormat("#.00");
-
-		//time above 90% threshold
-		Double percentSpendAtBottleneckThreshold = ( countPointsAtBottleneckThreshold / (double) count) * 100.0;
-		String percentSpendAtBottleneckThresholdStr =   df.format(percentSpendAtBottleneckThreshold);
-
-		System.out.println("extracted Metric: " + eventAttributes.getTxnId() + " " + eventAttributes.getEventMapping().getTxnType()
-				+ "  eventAve = " + tnxAverage + " util% = " + tnxAverage +	", 90th% threshold = " + percentSpendAtBottleneckThresholdStr + ", count was " + count );
-
-		Transaction serverTransaction = new Transaction();
-		serverTransaction.setApplication(run.getApplication());
-		serverTransaction.setRunTime(run.getRunTime());
-		serverTransaction.setTxnId(eventAttributes.getTxnId());
-		serverTransaction.setTxnType(eventAttributes.getEventMapping().getTxnType());
-		serverTransaction.setIsCdpTxn("N");
-		serverTransaction.setTxnMinimum(txnMinimum);
-		serverTransaction.setTxnAverage(tnxAverage);
-		serverTransaction.setTxnMedian(BigDecimal.valueOf(-1.0));
-		serverTransaction.setTxnMaximum(txnMaximum);
-		serverTransaction.setTxnStdDeviation(BigDecimal.valueOf(-1.0));
-
-		serverTransaction.setTxn90th(BigDecimal.valueOf(-1.0));
-		if (eventAttributes.getEventMapping().getIsPercentage().equals("Y")){
-			serverTransaction.setTxn90th(new BigDecimal(percentSpendAtBottleneckThresholdStr));
+			serverTransaction.setTxn90th(BigDecimal.valueOf(-1.0));
+			if (isPercentage){
+				serverTransaction.setTxn90th(new BigDecimal(percentSpendAtBottleneckThresholdStr));
+			}
+			serverTransaction.setTxn95th(BigDecimal.valueOf(-1.0));
+			serverTransaction.setTxn99th(BigDecimal.valueOf(-1.0));
+			serverTransaction.setTxnPass(count);
+			serverTransaction.setTxnFail((long) -1);
+			serverTransaction.setTxnStop((long) -1);
+
+			serverTransaction.setTxnFirst(txnFirst);
+			serverTransaction.setTxnLast(txnLast);
+			serverTransaction.setTxnSum(totalOfValues);
+			serverTransaction.setTxnDelay(BigDecimal.valueOf(-1.0));
+
+			return serverTransaction;
 		}
-		serverTransaction.setTxn95th(BigDecimal.valueOf(-1.0));
-		serverTransaction.setTxn99th(BigDecimal.valueOf(-1.0));
-		serverTransaction.setTxnPass(count);
-		serverTransaction.setTxnFail((long) -1);
-		serverTransaction.setTxnStop((long) -1);
-
-		serverTransaction.setTxnFirst(txnFirst);
-		serverTransaction.setTxnLast(txnLast);
-		serverTransaction.setTxnSum(totalOfValues);
-		serverTransaction.setTxnDelay(BigDecimal.valueOf(-1.0));
-
-		return serverTransaction;
 	}
 
 }
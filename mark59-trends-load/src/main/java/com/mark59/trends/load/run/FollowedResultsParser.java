@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.trends.load.run;
+
+import java.io.File;
+import java.util.List;
+
+import com.mark59.trends.data.beans.TestTransaction;
+
+/**
+ * Implemented by the tools whose results can be followed while a test is running (see
+ * {@link PerformanceTest#followResultsFiles(String, String, FollowedResultsParser)}).
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public interface FollowedResultsParser {
+
+	/**
+	 * @param file a file in the input directory
+	 * @return true if the file is to be followed
+	 */
+	boolean isFollowedResultsFile(File file);
+
+	/**
+	 * Convert a line read from a followed results file to the samples to be loaded for it
+	 * @param resultsFile the file the line was read from
+	 * @param line a complete line of the file
+	 * @return list of samples (empty if the line holds no sample to be loaded)
+	 */
+	List<TestTransaction> followedLineToTestTransactions(File resultsFile, String line);
+
+}
@@ -17,15 +17,15 @@
 package com.mark59.trends.load.run;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationContext;
@@ -38,15 +38,12 @@ import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.TestTransaction;
 import com.opencsv.CSVParser;
 import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.exceptions.CsvValidationException;
 
 /**
  * @author Philip Webb
  * Written: Australian Winter 2019
  */
-public class GatlingRun extends PerformanceTest  {
+public class GatlingRun extends PerformanceTest implements FollowedResultsParser {
 
 	private static final String GATLING_FORMAT_UNKNOWN ="UNKNOWN";
 	private static final String GATLING_VER_LATEST_FORMAT ="3.4-3.6";
@@ -62,20 +59,57 @@ public class GatlingRun extends PerformanceTest  {
 	private int fieldPosSuccess;
 	private int fieldPosRequestErrorMsg;
 
+	private LoadTimeWindow loadTimeWindow;
+
+	private String followedSimulationLog;
+	private String followedSimlogcustoM;
+	private List<String> followedIgnoredErrorsList;
+	private CSVParser followedLogParser;
+	private boolean followedLogFieldPositionsSet = false;
+
+	private final Map<String, String> txnTypeForTxnId = new HashMap<>();
+
+
 	public GatlingRun(ApplicationContext context, String application, String inputdirectory, String runReference, String excludestart, String captureperiod,
 			String keeprawresults, String ignoredErrors, String simulationLog, String simlogcustoM) {
+		this(context, application, inputdirectory, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors, simulationLog, simlogcustoM, "");
+	}
+
+
+	/**
+	 * @param follow when set, the simulation log is followed while the test is running, and the run is finalised once
+	 * it has not grown for this number of minutes.
+	 */
+	public GatlingRun(ApplicationContext context, String application, String inputdirectory, String runReference, String excludestart, String captureperiod,
+			String keeprawresults, String ignoredErrors, String simulationLog, String simlogcustoM, String follow) {
 
 		super(context,application, runReference);
 		testTransactionsDAO.deleteAllForRun(run.getApplication(), AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		testTransactionsDAO.prepareForBulkLoad(run.getApplication());
 
-		loadTestTransactionDataFromGatlingSimulationLog(run.getApplication(), inputdirectory, ignoredErrors, simulationLog, simlogcustoM);
+		if (StringUtils.isNotBlank(follow)){
+			followedSimulationLog = simulationLog;
+			followedSimlogcustoM = simlogcustoM;
+			followedIgnoredErrorsList = Mark59Utils.pipeDelimStringToStringList(ignoredErrors);
+			followResultsFiles(inputdirectory, follow, this);
 
-		DateRangeBean dateRangeBean = getRunDateRangeUsingTestTransactionalData(run.getApplication());
+		} else {
+			if (isTimeRangeFilterRequested(excludestart, captureperiod)){
+				// two pass load: pre-scan the log for the run date range, then only load samples within the time filter
+				loadTimeWindow = new LoadTimeWindow();
+				loadTestTransactionDataFromGatlingSimulationLog(run.getApplication(), inputdirectory, ignoredErrors, simulationLog, simlogcustoM);
+				loadTimeWindow = startWindowedLoad(loadTimeWindow, excludestart, captureperiod);
+			}
+			loadTestTransactionDataFromGatlingSimulationLog(run.getApplication(), inputdirectory, ignoredErrors, simulationLog, simlogcustoM);
+		}
+		testTransactionsDAO.completeBulkLoad(run.getApplication());
+
+		DateRangeBean dateRangeBean = getRunDateRangeUsingTestTransactionalData(run.getApplication(), loadTimeWindow);
 		run = new Run( calculateAndSetRunTimesUsingEpochStartAndEnd(run, dateRangeBean));
 		runDAO.deleteRun(run.getApplication(), run.getRunTime());
 		runDAO.insertRun(run);
 
-		applyTimeRangeFiltersToTestTransactions(excludestart, captureperiod, dateRangeBean);
+		applyTimeRangeFiltersToTestTransactions(excludestart, captureperiod, dateRangeBean, loadTimeWindow);
 		transactionDAO.deleteAllForRun(run.getApplication(), run.getRunTime());
 
 		storeTransactionSummaries(run);
@@ -99,67 +133,120 @@ public class GatlingRun extends PerformanceTest  {
 			throw new RuntimeException(e.getMessage());
 		}
 	    System.out.println("____________________________________" );
-	    System.out.println(sampleCount + " Total samples written" );
+	    if (isPreScan()) {
+	    	System.out.println(sampleCount + " Total samples found by pre-scan" );
+	    } else {
+	    	System.out.println(sampleCount + " Total samples written" );
+	    }
 	    System.out.println(" " );
 	}
 
 
+	private boolean isPreScan() {
+		return loadTimeWindow != null && loadTimeWindow.isPreScan();
+	}
+
+
 	/**
-	 * A validly named Gatling simulation log file is expected to be passed, now need determine its version and extract results
+	 * A validly named Gatling simulation log file is expected to be passed, now need determine its version and extract results.
+	 * <p>The log is read using {@link GatlingSimulationLogReader}, so only the fields of REQUEST lines are materialised, and the
+	 * samples are inserted from a separate writer thread (see {@link TestTransactionBatchWriter}).
 	 */
 	private int loadTestTransactionDataFromGatlingSimulationLogFile(File simulationLogFile, String application, String ignoredErrors, String simlogcustoM) throws IOException {
 
-		List<TestTransaction> testTransactionList = new ArrayList<>();
 		long startLoadms = System.currentTimeMillis();
-		System.out.println("\n\nProcessing Gatling Simulation Log File " + simulationLogFile.getName() + " at " + new Date(startLoadms));
+		System.out.println("\n\n" + (isPreScan() ? "Pre-scanning" : "Processing") + " Gatling Simulation Log File " + simulationLogFile.getName() + " at " + new Date(startLoadms));
 		int lineCount = 0;
 		int samplesCreated=0;
 
-		CSVParser csvParser = new CSVParserBuilder().withIgnoreLeadingWhiteSpace(true).withIgnoreQuotations(true).withSeparator('\t').build();
-		CSVReader csvReader = new CSVReaderBuilder(new FileReader(simulationLogFile)).withCSVParser(csvParser).build();
+		try (GatlingSimulationLogReader logReader = new GatlingSimulationLogReader(simulationLogFile);
+			 TestTransactionBatchWriter testTransactionWriter = new TestTransactionBatchWriter(testTransactionsDAO)) {
 
-		String[] csvDataLineFields = csvReadNextLine(csvReader, simulationLogFile);
+			boolean lineRead = logReader.nextLine();
 
-		if (csvDataLineFields == null) {
-			System.out.println("   Warning : " + simulationLogFile.getName() + " is empty!" );
-			return 0;
-		}
+			if (!lineRead) {
+				System.out.println("   Warning : " + simulationLogFile.getName() + " is empty!" );
+				return 0;
+			}
 
-		String gatlingFormat = GATLING_FORMAT_UNKNOWN;
+			String gatlingFormat = GATLING_FORMAT_UNKNOWN;
 
-		if (StringUtils.isNotBlank(simlogcustoM)) {
-			System.out.println("\n  A custom 'REQUEST' field layout has been requested for this Gatling file load !" );
-			System.out.println("\n  The 'RUN' (version info) line will be bypassed, and the first REQUEST start time in the simulation log will be used as the test start time.\n" );
+			if (StringUtils.isNotBlank(simlogcustoM)) {
+				System.out.println("\n  A custom 'REQUEST' field layout has been requested for this Gatling file load !" );
+				System.out.println("\n  The 'RUN' (version info) line will be bypassed, and the first REQUEST start time in the simulation log will be used as the test start time.\n" );
 
-		} else {
+			} else {
 
-			boolean stillLookingForRUN = true;
-			while ( csvDataLineFields != null && stillLookingForRUN ){
-				if (RUN.equals(csvDataLineFields[0].trim())){
-					String gatlingVersion = csvDataLineFields[5].trim();
-					System.out.println("Gatling version: " + gatlingVersion);
-					if (StringUtils.isBlank(gatlingVersion)) {
-						System.out.println("\n  Info :  The version of Gatling being used could not be determined ! ");
-						System.out.println("\n  Proceeding on assumption the format is compatible with Gatling version " + GATLING_VER_LATEST_FORMAT);
-						System.out.println("\n  If the field positions for 'REQUEST' are incompatible the 'simlogcustoM' (m) parameter may be of assistance.\n" );
-						gatlingFormat = GATLING_VER_LATEST_FORMAT;
-					} else if ( gatlingVersion.startsWith("3.3")) {
-						gatlingFormat = GATLING_VER_3_3_FORMAT;
-					} else if ( gatlingVersion.startsWith("3.4") || gatlingVersion.startsWith("3.5")  || gatlingVersion.startsWith("3.6") ){
-						gatlingFormat = GATLING_VER_LATEST_FORMAT;
-					} else {
-						System.out.println("\n  Info :  The version of Gatling being used (" + gatlingFormat + ") has not been catered for ! ");
-						System.out.println("\n  Proceeding on assumption the format is compatible with Gatling version " + GATLING_VER_LATEST_FORMAT);
-						System.out.println("\n  If the field positions for 'REQUEST' are incompatible the 'simlogcustoM' (m) parameter may be of assistance.\n" );
-						gatlingFormat = GATLING_VER_LATEST_FORMAT;
+				boolean stillLookingForRUN = true;
+				while ( lineRead && stillLookingForRUN ){
+					if (logReader.isRecordType(RUN)){
+						gatlingFormat = gatlingFormatFromRunLine(logReader.fields());
+						stillLookingForRUN = false;
 					}
-					stillLookingForRUN = false;
+					lineCount++;
+					lineRead = logReader.nextLine();
 				}
-				lineCount++;
-				csvDataLineFields = csvReadNextLine(csvReader, simulationLogFile);
 			}
+
+			setFieldPositions(gatlingFormat, simlogcustoM);
+
+			List<String> ignoredErrorsList = Mark59Utils.pipeDelimStringToStringList(ignoredErrors);
+
+			while ( lineRead ) {
+
+				if (logReader.isRecordType(REQUEST)) {
+					if (loadTimeWindow == null) {
+						testTransactionWriter.add(requestToTestTransaction(logReader, application, ignoredErrorsList));
+						samplesCreated++;
+					} else if (loadTimeWindow.isPreScan()) {
+						loadTimeWindow.preScanSample(logReader.field(fieldPosTimeStampStart));
+						samplesCreated++;
+					} else if (loadTimeWindow.isWithinWindow(logReader.field(fieldPosTimeStampStart))) {
+						testTransactionWriter.add(requestToTestTransaction(logReader, application, ignoredErrorsList));
+						samplesCreated++;
+					}
+				}
+
+				lineCountProgressDisplay(lineCount);
+				lineCount++;
+				lineRead = logReader.nextLine();
+
+			} // end for loop
+		}
+
+		long endLoadms = System.currentTimeMillis();
+		System.out.println("\n   " + simulationLogFile.getName() + (isPreScan() ? "  file pre-scanned at " : "  file uploaded at ") +  new Date(endLoadms) + " :" );
+		System.out.println("        " + lineCount + " file lines processed" );
+		System.out.println("        " + samplesCreated + (isPreScan() ? " transaction samples found" : " transaction samples created"));
+		System.out.println("        took " +  (endLoadms - startLoadms)/1000 + " secs" );
+		System.out.println();
+
+		return samplesCreated;
+	}
+
+
+	private String gatlingFormatFromRunLine(String[] runLineFields) {
+		String gatlingVersion = runLineFields[5].trim();
+		System.out.println("Gatling version: " + gatlingVersion);
+		if (StringUtils.isBlank(gatlingVersion)) {
+			System.out.println("\n  Info :  The version of Gatling being used could not be determined ! ");
+			System.out.println("\n  Proceeding on assumption the format is compatible with Gatling version " + GATLING_VER_LATEST_FORMAT);
+			System.out.println("\n  If the field positions for 'REQUEST' are incompatible the 'simlogcustoM' (m) parameter may be of assistance.\n" );
+			return GATLING_VER_LATEST_FORMAT;
+		} else if ( gatlingVersion.startsWith("3.3")) {
+			return GATLING_VER_3_3_FORMAT;
+		} else if ( gatlingVersion.startsWith("3.4") || gatlingVersion.startsWith("3.5")  || gatlingVersion.startsWith("3.6") ){
+			return GATLING_VER_LATEST_FORMAT;
+		} else {
+			System.out.println("\n  Info :  The version of Gatling being used (" + gatlingVersion + ") has not been catered for ! ");
+			System.out.println("\n  Proceeding on assumption the format is compatible with Gatling version " + GATLING_VER_LATEST_FORMAT);
+			System.out.println("\n  If the field positions for 'REQUEST' are incompatible the 'simlogcustoM' (m) parameter may be of assistance.\n" );
+			return GATLING_VER_LATEST_FORMAT;
 		}
+	}
+
 
+	private void setFieldPositions(String gatlingFormat, String simlogcustoM) {
 		if (GATLING_VER_LATEST_FORMAT.equals(gatlingFormat)){
 			fieldPosTxnId = 2;
 			fieldPosTimeStampStart = 3;
@@ -182,54 +269,51 @@ public class GatlingRun extends PerformanceTest  {
 		} else {
 			throw new RuntimeException("Logic Error finding Gatling format " + gatlingFormat);
 		}
+	}
 
-		List<String> ignoredErrorsList = Mark59Utils.pipeDelimStringToStringList(ignoredErrors);
-
-		while ( csvDataLineFields != null ) {
 
-			if (REQUEST.equals(csvDataLineFields[0].trim())) {
-    			addSampleToTestTransactionList(testTransactionList, csvDataLineFields, application, ignoredErrorsList);
-				samplesCreated++;
-			}
+	@Override
+	public boolean isFollowedResultsFile(File file) {
+		return file.getName().equals(followedSimulationLog);
+	}
 
-			lineCountProgressDisplay(lineCount);
-			lineCount++;
-			csvDataLineFields = csvReadNextLine(csvReader, simulationLogFile);
 
-			if ( (samplesCreated % 100 ) == 0 ){
-				testTransactionsDAO.insertMultiple(testTransactionList);
-				testTransactionList.clear();
+	/**
+	 * Follow mode.  REQUEST lines are loaded once the field positions are known: from the RUN (version info) line,
+	 * or straight away when a custom 'REQUEST' field layout has been requested.
+	 */
+	@Override
+	public List<TestTransaction> followedLineToTestTransactions(File resultsFile, String line) {
+		List<TestTransaction> testTransactionList = new ArrayList<>();
+		if (followedLogParser == null){
+			followedLogParser = new CSVParserBuilder().withIgnoreLeadingWhiteSpace(true).withIgnoreQuotations(true).withSeparator('\t').build();
+			if (StringUtils.isNotBlank(followedSimlogcustoM)) {
+				System.out.println("\n  A custom 'REQUEST' field layout has been requested for this Gatling file load !" );
+				setFieldPositions(GATLING_FORMAT_UNKNOWN, followedSimlogcustoM);
+				followedLogFieldPositionsSet = true;
 			}
+		}
 
-		} // end for loop
-
-		testTransactionsDAO.insertMultiple(testTransactionList);
-		testTransactionList.clear();
-
-		long endLoadms = System.currentTimeMillis();
-		System.out.println("\n   " + simulationLogFile.getName() + "  file uploaded at " +  new Date(endLoadms) + " :" );
-		System.out.println("        " + lineCount + " file lines processed" );
-		System.out.println("        " + samplesCreated + " transaction samples created" );
-		System.out.println("        took " +  (endLoadms - startLoadms)/1000 + " secs" );
-		System.out.println();
-
-		csvReader.close();
-		return samplesCreated;
-	}
-
-
-	private String[] csvReadNextLine( CSVReader csvReader, File inputCsvFileName) throws IOException {
 		String[] csvDataLineFields;
 		try {
-			csvDataLineFields = csvReader.readNext();
-		} catch (CsvValidationException e) {
-			csvReader.close();
-			System.out.println("Error :  Unexpected csv line format for file " + inputCsvFileName.getName() +
-					" Records count at time of failure : "  +  csvReader.getRecordsRead() + e.getMessage());
-			e.printStackTrace();
+			csvDataLineFields = followedLogParser.parseLine(line);
+		} catch (IOException e) {
+			System.out.println("Error :  Unexpected line format for file " + resultsFile.getName() + " : " + line);
 			throw new RuntimeException(e.getMessage());
 		}
-		return csvDataLineFields;
+		if (csvDataLineFields == null || csvDataLineFields.length == 0){
+			return testTransactionList;
+		}
+
+		if (!followedLogFieldPositionsSet){
+			if (RUN.equals(csvDataLineFields[0].trim())){
+				setFieldPositions(gatlingFormatFromRunLine(csvDataLineFields), followedSimlogcustoM);
+				followedLogFieldPositionsSet = true;
+			}
+		} else if (REQUEST.equals(csvDataLineFields[0].trim())) {
+			addSampleToTestTransactionList(testTransactionList, csvDataLineFields, run.getApplication(), followedIgnoredErrorsList);
+		}
+		return testTransactionList;
 	}
 
 
@@ -251,14 +335,11 @@ public class GatlingRun extends PerformanceTest  {
 
 		TestTransaction testTransaction = new TestTransaction();
 		testTransaction.setTxnId(csvDataLineFields[fieldPosTxnId]);
-
-		// not sure if there is much point doing this transform for Gatling as most tests just capture http response times and are always TRANSACTIONS, but just for completeness..
-		testTransaction.setTxnType(eventMappingTxnTypeTransform(testTransaction.getTxnId(), AppConstantsTrends.GATLING, Mark59Constants.DatabaseTxnTypes.TRANSACTION.name()));
-
+		testTransaction.setTxnType(gatlingTxnType(testTransaction.getTxnId()));
 		testTransaction.setIsCdpTxn("N");
 
-		BigDecimal elapsedTime = new BigDecimal(Long.parseLong(csvDataLineFields[fieldPosTimeStampEnd]) - Long.parseLong(csvDataLineFields[fieldPosTimeStampStart]));
-		testTransaction.setTxnResult(elapsedTime.divide(AppConstantsTrends.THOUSAND, 3, RoundingMode.HALF_UP));
+		long elapsedTimeMs = Long.parseLong(csvDataLineFields[fieldPosTimeStampEnd]) - Long.parseLong(csvDataLineFields[fieldPosTimeStampStart]);
+		testTransaction.setTxnResult(BigDecimal.valueOf(elapsedTimeMs, 3));
 
 		testTransaction.setTxnPassed("Y");
 		if (KO.equalsIgnoreCase(csvDataLineFields[fieldPosSuccess]) && !errorToBeIgnored(csvDataLineFields[fieldPosRequestErrorMsg], ignoredErrorsList)){
@@ -269,4 +350,38 @@ public class GatlingRun extends PerformanceTest  {
 	}
 
 
-}
\ No newline at end of file
+	/*
+	 * As extractTransactionFromGatlingLine, for the current REQUEST line of the log reader.  The error message is only
+	 * read for a KO request.
+	 */
+	private TestTransaction requestToTestTransaction(GatlingSimulationLogReader logReader, String application, List<String> ignoredErrorsList) {
+
+		TestTransaction testTransaction = new TestTransaction();
+		testTransaction.setTxnId(logReader.pooledField(fieldPosTxnId));
+		testTransaction.setTxnType(gatlingTxnType(testTransaction.getTxnId()));
+		testTransaction.setIsCdpTxn("N");
+
+		long elapsedTimeMs = logReader.longField(fieldPosTimeStampEnd) - logReader.longField(fieldPosTimeStampStart);
+		testTransaction.setTxnResult(BigDecimal.valueOf(elapsedTimeMs, 3));
+
+		testTransaction.setTxnPassed("Y");
+		if (logReader.fieldEqualsIgnoreCase(fieldPosSuccess, KO) && !errorToBeIgnored(logReader.field(fieldPosRequestErrorMsg), ignoredErrorsList)){
+			testTransaction.setTxnPassed("N");
+		}
+		testTransaction.setTxnEpochTime(logReader.field(fieldPosTimeStampStart));
+		testTransaction.setApplication(application);
+		testTransaction.setRunTime(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		return testTransaction;
+	}
+
+
+	/*
+	 * not sure if there is much point doing this transform for Gatling as most tests just capture http response times and are always TRANSACTIONS, but just for completeness..
+	 * (the type is held for each txnId, so the transform is only called once per distinct txnId)
+	 */
+	private String gatlingTxnType(String txnId) {
+		return txnTypeForTxnId.computeIfAbsent(txnId,
+				k -> eventMappingTxnTypeTransform(txnId, AppConstantsTrends.GATLING, Mark59Constants.DatabaseTxnTypes.TRANSACTION.name()));
+	}
+
+}
@@ -0,0 +1,370 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a Gatling simulation log a line at a time, splitting each line on tabs without creating any objects.  Only the
+ * fields actually requested (typically of REQUEST lines) are turned into Strings or numbers.
+ *
+ * <p>The file is memory-mapped in windows of up to {@link #DEFAULT_WINDOW_SIZE} bytes, so logs of many GB can be read.
+ * A line which runs past the end of a window is re-read from the start of the next window.
+ *
+ * <p>Fields are as they would be for a tab separated CSV parse with quotes ignored: lines end with a newline (an
+ * immediately preceding carriage return is dropped), and an empty line is one empty field.
+ *
+ * <p>Labels can be read with {@link #pooledField(int)}, which returns the same String for the same label each time it
+ * is seen, without decoding the label again.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class GatlingSimulationLogReader implements Closeable {
+
+	public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+	private static final int LABEL_POOL_MAX_SIZE = 100000;
+	private static final int INITIAL_FIELDS = 16;
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private final int windowSize;
+
+	private MappedByteBuffer window;
+	private long windowStart;
+	private int nextLineStart;
+	private long lineNumber = 0;
+
+	private int[] fieldStarts = new int[INITIAL_FIELDS];
+	private int[] fieldEnds = new int[INITIAL_FIELDS];
+	private int fieldCount = 0;
+	private byte[] fieldBytes = new byte[256];
+
+	private byte[][] poolKeys = new byte[1024][];
+	private int[] poolHashes = new int[1024];
+	private String[] poolLabels = new String[1024];
+	private int poolSize = 0;
+
+
+	public GatlingSimulationLogReader(File simulationLog) throws IOException {
+		this(simulationLog, DEFAULT_WINDOW_SIZE);
+	}
+
+
+	GatlingSimulationLogReader(File simulationLog, int windowSize) throws IOException {
+		this.channel = FileChannel.open(simulationLog.toPath(), StandardOpenOption.READ);
+		this.fileSize = channel.size();
+		this.windowSize = windowSize;
+		mapWindow(0);
+	}
+
+
+	/**
+	 * Move to the next line of the log
+	 * @return false at the end of the log
+	 * @throws IOException file read error, or a line longer than the mapped window
+	 */
+	public boolean nextLine() throws IOException {
+		if (nextLineStart >= window.limit()) {
+			if (isLastWindow()) {
+				return false;
+			}
+			mapWindow(windowStart + nextLineStart);
+		}
+
+		int lineEnd = indexOfNewline(nextLineStart);
+		if (lineEnd < 0 && !isLastWindow()) {
+			if (nextLineStart == 0) {
+				throw new IOException("Line " + (lineNumber + 1) + " of the simulation log is longer than " + windowSize + " bytes");
+			}
+			mapWindow(windowStart + nextLineStart);
+			lineEnd = indexOfNewline(0);
+			if (lineEnd < 0 && !isLastWindow()) {
+				throw new IOException("Line " + (lineNumber + 1) + " of the simulation log is longer than " + windowSize + " bytes");
+			}
+		}
+		if (lineEnd < 0) {
+			lineEnd = window.limit();    // last line, without a newline
+		}
+
+		splitFields(nextLineStart, lineEnd);
+		nextLineStart = lineEnd + 1;
+		lineNumber++;
+		return true;
+	}
+
+
+	/**
+	 * @return the line number of the current line (the first line is 1)
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+
+	/**
+	 * @param recordType an (ASCII) record type, such as REQUEST
+	 * @return true if the first field of the current line, ignoring surrounding whitespace, is the record type
+	 */
+	public boolean isRecordType(String recordType) {
+		int start = fieldStarts[0];
+		int end = fieldEnds[0];
+		while (start < end && window.get(start) <= ' ') {
+			start++;
+		}
+		while (end > start && window.get(end - 1) <= ' ') {
+			end--;
+		}
+		return matches(start, end, recordType, false);
+	}
+
+
+	/**
+	 * @param pos field position
+	 * @param text (ASCII) text
+	 * @return true if the field is the text, ignoring case
+	 */
+	public boolean fieldEqualsIgnoreCase(int pos, String text) {
+		checkFieldPosition(pos);
+		return matches(fieldStarts[pos], fieldEnds[pos], text, true);
+	}
+
+
+	/**
+	 * @param pos field position
+	 * @param prefix (ASCII) prefix
+	 * @return true if the field starts with the prefix
+	 */
+	public boolean fieldStartsWith(int pos, String prefix) {
+		checkFieldPosition(pos);
+		int start = fieldStarts[pos];
+		return fieldEnds[pos] - start >= prefix.length() && matches(start, start + prefix.length(), prefix, false);
+	}
+
+
+	/**
+	 * @param pos field position
+	 * @return the field, as a new String
+	 */
+	public String field(int pos) {
+		checkFieldPosition(pos);
+		int length = copyFieldBytes(pos);
+		return new String(fieldBytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * @return all the fields of the current line (as for a CSV line parse)
+	 */
+	public String[] fields() {
+		String[] fields = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[i] = field(i);
+		}
+		return fields;
+	}
+
+
+	/**
+	 * @param pos field position
+	 * @return the field, as the same String instance for each line the same value is found on
+	 */
+	public String pooledField(int pos) {
+		checkFieldPosition(pos);
+		int length = copyFieldBytes(pos);
+		int hash = 1;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + fieldBytes[i];
+		}
+
+		int mask = poolKeys.length - 1;
+		int slot = hash & mask;
+		while (poolKeys[slot] != null) {
+			if (poolHashes[slot] == hash && Arrays.equals(poolKeys[slot], 0, poolKeys[slot].length, fieldBytes, 0, length)) {
+				return poolLabels[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		String label = new String(fieldBytes, 0, length, StandardCharsets.UTF_8);
+		if (poolSize < LABEL_POOL_MAX_SIZE) {
+			poolKeys[slot] = Arrays.copyOf(fieldBytes, length);
+			poolHashes[slot] = hash;
+			poolLabels[slot] = label;
+			poolSize++;
+			if (poolSize * 2 > poolKeys.length) {
+				growPool();
+			}
+		}
+		return label;
+	}
+
+
+	/**
+	 * @param pos field position
+	 * @return the field as a long (parsed as per Long.parseLong, without creating a String)
+	 * @throws NumberFormatException if the field is not a valid long
+	 */
+	public long longField(int pos) {
+		checkFieldPosition(pos);
+		int start = fieldStarts[pos];
+		int end = fieldEnds[pos];
+		boolean negative = false;
+		if (start < end && (window.get(start) == '-' || window.get(start) == '+')) {
+			negative = window.get(start) == '-';
+			start++;
+		}
+		if (start == end || end - start > 18) {
+			return Long.parseLong(field(pos));    // empty, or possibly outside the range of a long
+		}
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = window.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("For input string: \"" + field(pos) + "\" (line " + lineNumber + ")");
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+
+
+	private void mapWindow(long position) throws IOException {
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, fileSize - position));
+		windowStart = position;
+		nextLineStart = 0;
+	}
+
+
+	private boolean isLastWindow() {
+		return windowStart + window.limit() >= fileSize;
+	}
+
+
+	private int indexOfNewline(int from) {
+		int limit = window.limit();
+		for (int i = from; i < limit; i++) {
+			if (window.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	private void splitFields(int lineStart, int lineEnd) {
+		if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+			lineEnd--;
+		}
+		fieldCount = 0;
+		int fieldStart = lineStart;
+		for (int i = lineStart; i < lineEnd; i++) {
+			if (window.get(i) == '\t') {
+				addField(fieldStart, i);
+				fieldStart = i + 1;
+			}
+		}
+		addField(fieldStart, lineEnd);
+	}
+
+
+	private void addField(int start, int end) {
+		if (fieldCount == fieldStarts.length) {
+			fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+			fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+		}
+		fieldStarts[fieldCount] = start;
+		fieldEnds[fieldCount] = end;
+		fieldCount++;
+	}
+
+
+	private void checkFieldPosition(int pos) {
+		if (pos >= fieldCount) {
+			throw new RuntimeException("Error : field position " + pos + " not found on line " + lineNumber
+					+ " of the simulation log (the line has " + fieldCount + " fields)");
+		}
+	}
+
+
+	private boolean matches(int start, int end, String text, boolean ignoreCase) {
+		if (end - start != text.length()) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			char c = (char)window.get(start + i);
+			char t = text.charAt(i);
+			if (c != t && !(ignoreCase && Character.toUpperCase(c) == Character.toUpperCase(t))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private int copyFieldBytes(int pos) {
+		int length = fieldEnds[pos] - fieldStarts[pos];
+		if (length > fieldBytes.length) {
+			fieldBytes = new byte[Math.max(length, fieldBytes.length * 2)];
+		}
+		window.get(fieldStarts[pos], fieldBytes, 0, length);
+		return length;
+	}
+
+
+	private void growPool() {
+		byte[][] oldKeys = poolKeys;
+		int[] oldHashes = poolHashes;
+		String[] oldLabels = poolLabels;
+		poolKeys = new byte[oldKeys.length * 2][];
+		poolHashes = new int[oldKeys.length * 2];
+		poolLabels = new String[oldKeys.length * 2];
+		int mask = poolKeys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int slot = oldHashes[i] & mask;
+				while (poolKeys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				poolKeys[slot] = oldKeys[i];
+				poolHashes[slot] = oldHashes[i];
+				poolLabels[slot] = oldLabels[i];
+			}
+		}
+	}
+
+}
@@ -27,7 +27,16 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationContext;
@@ -39,6 +48,8 @@ import com.mark59.trends.data.beans.DateRangeBean;
 import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.TestTransaction;
 import com.mark59.core.utils.Mark59Utils;
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 
@@ -46,33 +57,71 @@ import com.opencsv.exceptions.CsvValidationException;
  * @author Philip Webb
  * Written: Australian Winter 2019
  */
-public class JmeterRun extends PerformanceTest  {
+public class JmeterRun extends PerformanceTest implements FollowedResultsParser {
 
 	private static final String IGNORE ="IGNORE";
 	private static final int MAX_ALLOWED_TXN_ID_CHARS = 128;
 
-	private int fieldPostimeStamp;
-	private int fieldPoselapsed;
-	private int fieldPoslabel;
-	private int fieldPosdataType;
-	private int fieldPossuccess;
-	private int fieldPosfailureMessage;
+	private LoadTimeWindow loadTimeWindow;
+	private int loadThreads = 1;
+
+	private final Map<File, CSVParser> followedFileParsers = new HashMap<>();
+	private final Map<File, CsvFieldPositions> followedFileFieldPositions = new HashMap<>();
+	private final Set<File> followedFilesBypassed = new HashSet<>();
+	private List<String> followedIgnoredErrorsList;
 
 
 	public JmeterRun(ApplicationContext context, String application, String inputdirectory, String runReference, String excludestart, String captureperiod,
 			String keeprawresults, String ignoredErrors) {
+		this(context, application, inputdirectory, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors, "");
+	}
+
+
+	/**
+	 * @param follow when set, the (csv format) results files in the input directory are followed while the test is running,
+	 * and the run is finalised once they have not grown for this number of minutes.
+	 */
+	public JmeterRun(ApplicationContext context, String application, String inputdirectory, String runReference, String excludestart, String captureperiod,
+			String keeprawresults, String ignoredErrors, String follow) {
+		this(context, application, inputdirectory, runReference, excludestart, captureperiod, keeprawresults, ignoredErrors, follow, "");
+	}
+
+
+	/**
+	 * @param loadThreads the number of results files loaded in parallel (blank for one file at a time).  The same number
+	 * of threads insert the samples into the database.
+	 */
+	public JmeterRun(ApplicationContext context, String application, String inputdirectory, String runReference, String excludestart, String captureperiod,
+			String keeprawresults, String ignoredErrors, String follow, String loadThreads) {
 
 		super(context,application, runReference);
+		if (StringUtils.isNumeric(loadThreads) && Integer.parseInt(loadThreads) > 1){
+			this.loadThreads = Integer.parseInt(loadThreads);
+		}
 		testTransactionsDAO.deleteAllForRun(run.getApplication(), AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		testTransactionsDAO.prepareForBulkLoad(run.getApplication());
 
-		loadTestTransactionAllDataFromJmeterFiles(run.getApplication(), inputdirectory, ignoredErrors );
+		if (StringUtils.isNotBlank(follow)){
+			followedIgnoredErrorsList = Mark59Utils.pipeDelimStringToStringList(ignoredErrors);
+			followResultsFiles(inputdirectory, follow, this);
 
-		DateRangeBean dateRangeBean = getRunDateRangeUsingTestTransactionalData(run.getApplication());
+		} else {
+			if (isTimeRangeFilterRequested(excludestart, captureperiod)){
+				// two pass load: pre-scan the files for the run date range, then only load samples within the time filter
+				loadTimeWindow = new LoadTimeWindow();
+				loadTestTransactionAllDataFromJmeterFiles(run.getApplication(), inputdirectory, ignoredErrors );
+				loadTimeWindow = startWindowedLoad(loadTimeWindow, excludestart, captureperiod);
+			}
+			loadTestTransactionAllDataFromJmeterFiles(run.getApplication(), inputdirectory, ignoredErrors );
+		}
+		testTransactionsDAO.completeBulkLoad(run.getApplication());
+
+		DateRangeBean dateRangeBean = getRunDateRangeUsingTestTransactionalData(run.getApplication(), loadTimeWindow);
 		run = new Run( calculateAndSetRunTimesUsingEpochStartAndEnd(run, dateRangeBean));
 		runDAO.deleteRun(run.getApplication(), run.getRunTime());
 		runDAO.insertRun(run);
 
-		applyTimeRangeFiltersToTestTransactions(excludestart, captureperiod, dateRangeBean);
+		applyTimeRangeFiltersToTestTransactions(excludestart, captureperiod, dateRangeBean, loadTimeWindow);
 
 		transactionDAO.deleteAllForRun(run.getApplication(), run.getRunTime());
 
@@ -84,6 +133,10 @@ public class JmeterRun extends PerformanceTest  {
 	}
 
 
+	/**
+	 * Loads the results files in the input directory.  When more than one load thread has been requested, the files are
+	 * loaded in parallel (one file per thread).  The TESTTRANSACTIONS content is the same however the files are loaded.
+	 */
 	private void loadTestTransactionAllDataFromJmeterFiles(String application, String inputdirectory, String ignoredErrors) {
 		int sampleCount = 0;
 		File[] jmeterResultsDirFiles = new File(inputdirectory).listFiles();
@@ -93,36 +146,99 @@ public class JmeterRun extends PerformanceTest  {
 			throw new RuntimeException("missing or inaccessible directory");
 		}
 
+		List<File> jmeterResultsFiles = new ArrayList<>();
 		for (File jmeterResultsFile : jmeterResultsDirFiles){
 
 			if ( jmeterResultsFile.isFile() && (
 					jmeterResultsFile.getName().toUpperCase().endsWith(".JTL") ||
 					jmeterResultsFile.getName().toUpperCase().endsWith(".XML") ||
 					jmeterResultsFile.getName().toUpperCase().endsWith(".CSV"))){
-				try {
-					sampleCount = sampleCount + loadTestTransactionDataForaJmeterFile(jmeterResultsFile, application, ignoredErrors);
-				} catch (IOException e) {
-					System.out.println( "Error : problem with processing Jmeter results file transactions " + jmeterResultsFile.getName() );
-					StringWriter sw = new StringWriter();
-					e.printStackTrace(new PrintWriter(sw));
-					throw new RuntimeException(e.getMessage());
-				}
+				jmeterResultsFiles.add(jmeterResultsFile);
 			} else {
 				System.out.println("   " + jmeterResultsFile.getName() + " bypassed (only files in the input folder with a suffix of .xml, .csv or .jtl are processed)"  );
 			}
 		}
 
+		int fileLoadThreads = Math.min(loadThreads, jmeterResultsFiles.size());
+		long startLoadms = System.currentTimeMillis();
+
+		try (TestTransactionBatchWriter testTransactionWriter = new TestTransactionBatchWriter(testTransactionsDAO, Math.max(1, fileLoadThreads))) {
+			if (fileLoadThreads > 1) {
+				sampleCount = loadJmeterFilesInParallel(jmeterResultsFiles, fileLoadThreads, application, ignoredErrors, testTransactionWriter);
+			} else {
+				for (File jmeterResultsFile : jmeterResultsFiles){
+					sampleCount = sampleCount + loadJmeterFile(jmeterResultsFile, application, ignoredErrors, testTransactionWriter);
+				}
+			}
+		}
+		long endLoadms = System.currentTimeMillis();
+
 	    System.out.println("____________________________________" );
-	    System.out.println(sampleCount + " Total samples written" );
+	    if (isPreScan()) {
+	    	System.out.println(sampleCount + " Total samples found by pre-scan" );
+	    } else {
+	    	System.out.println(sampleCount + " Total samples written" );
+	    }
+	    System.out.println(jmeterResultsFiles.size() + " files " + (isPreScan() ? "pre-scanned" : "loaded") + " in " + (endLoadms - startLoadms) + " ms"
+	    		+ (fileLoadThreads > 1 ? " (" + fileLoadThreads + " files loaded in parallel)" : ""));
 	    System.out.println(" " );
 	}
 
 
+	private int loadJmeterFilesInParallel(List<File> jmeterResultsFiles, int fileLoadThreads, String application, String ignoredErrors,
+			TestTransactionBatchWriter testTransactionWriter) {
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService fileLoadExecutor = Executors.newFixedThreadPool(fileLoadThreads,
+				r -> new Thread(r, "mark59-jmeter-file-load-" + threadNumber.incrementAndGet()));
+		try {
+			List<Future<Integer>> fileLoads = new ArrayList<>();
+			for (File jmeterResultsFile : jmeterResultsFiles){
+				fileLoads.add(fileLoadExecutor.submit(() -> loadJmeterFile(jmeterResultsFile, application, ignoredErrors, testTransactionWriter)));
+			}
+			int sampleCount = 0;
+			for (Future<Integer> fileLoad : fileLoads) {
+				sampleCount = sampleCount + fileLoad.get();
+			}
+			return sampleCount;
+
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted loading Jmeter results files", e);
+		} finally {
+			fileLoadExecutor.shutdownNow();
+		}
+	}
+
+
+	private int loadJmeterFile(File jmeterResultsFile, String application, String ignoredErrors, TestTransactionBatchWriter testTransactionWriter) {
+		try {
+			return loadTestTransactionDataForaJmeterFile(jmeterResultsFile, application, ignoredErrors, testTransactionWriter);
+		} catch (IOException e) {
+			System.out.println( "Error : problem with processing Jmeter results file transactions " + jmeterResultsFile.getName() );
+			StringWriter sw = new StringWriter();
+			e.printStackTrace(new PrintWriter(sw));
+			throw new RuntimeException(e.getMessage());
+		}
+	}
+
+
+	private boolean isPreScan() {
+		return loadTimeWindow != null && loadTimeWindow.isPreScan();
+	}
+
+
 
 	/**
 	 * A validly named jmeter results file is expected to be passed for conversion, now need determine the data format
 	 */
-	private int loadTestTransactionDataForaJmeterFile(File jmeterResultsFile, String application, String ignoredErrors) throws IOException {
+	private int loadTestTransactionDataForaJmeterFile(File jmeterResultsFile, String application, String ignoredErrors,
+			TestTransactionBatchWriter testTransactionWriter) throws IOException {
 
 		BufferedReader brOneLine = new BufferedReader(new FileReader(jmeterResultsFile));
 		String firstLineOfFile = brOneLine.readLine();
@@ -136,14 +252,14 @@ public class JmeterRun extends PerformanceTest  {
 			if (StringUtils.isNotBlank(ignoredErrors)){
 				System.out.println("   Warning : " + " the -e ('ignoredErrors') runtime option is not implemented for XML files");
 			}
-			return loadXMLFile(jmeterResultsFile, application);
+			return loadXMLFile(jmeterResultsFile, application, testTransactionWriter);
 
 		} else if (firstLineOfFile.trim().startsWith("timeStamp") &&  firstLineOfFile.matches("timeStamp.elapsed.*")){
-			return loadCSVFile(jmeterResultsFile, true, application, ignoredErrors);
+			return loadCSVFile(jmeterResultsFile, true, application, ignoredErrors, testTransactionWriter);
 
 		} else if ( firstLineOfFile.length() > 28 && StringUtils.countMatches(firstLineOfFile, ",") > 14  && firstLineOfFile.indexOf(",") == 13   ){
 			System.out.println("   Info : " + " the file " + jmeterResultsFile.getName() + " appears to be headerless (default field positions assumed)");
-			return loadCSVFile(jmeterResultsFile, false, application, ignoredErrors);
+			return loadCSVFile(jmeterResultsFile, false, application, ignoredErrors, testTransactionWriter);
 
 		} else {
 			System.out.println("   Warning : " + jmeterResultsFile.getName()
@@ -153,10 +269,10 @@ public class JmeterRun extends PerformanceTest  {
 	}
 
 
-	private int loadXMLFile(File inputXmlFileName, String application) throws IOException {
+	private int loadXMLFile(File inputXmlFileName, String application, TestTransactionBatchWriter testTransactionWriter) throws IOException {
 
 		long startLoadms = System.currentTimeMillis();
-		System.out.println("\n\nProcessing Xml formatted Jmeter Results File " + inputXmlFileName.getName() + " at " + new Date(startLoadms));
+		System.out.println("\n\n" + (isPreScan() ? "Pre-scanning" : "Processing") + " Xml formatted Jmeter Results File " + inputXmlFileName.getName() + " at " + new Date(startLoadms));
 
 		int samplesCreated=0;
 		BufferedReader xmlReader = new BufferedReader(new FileReader(inputXmlFileName));
@@ -164,18 +280,19 @@ public class JmeterRun extends PerformanceTest  {
 		boolean isWithinASampleResult = false;
 		String potentialSampleResultWithNoSubResults = null;
 		List<TestTransaction> testTransactionList = new ArrayList<>();
+		JmeterXmlSample xmlSample = new JmeterXmlSample();
 
 	    for (String jmeterFileLine; (jmeterFileLine = xmlReader.readLine()) != null; ){
 	    	jmeterFileLine = jmeterFileLine.trim();
 
 	    	if ( jmeterXmlLineIsAClosedSample(jmeterFileLine) ) {
-	    		samplesCreated = samplesCreated + addSampleToTestTransactionList(testTransactionList, jmeterFileLine, application);
+	    		samplesCreated = samplesCreated + addSampleToTestTransactionList(testTransactionList, xmlSample, jmeterFileLine, application);
     			potentialSampleResultWithNoSubResults = null;
 
 	    	} else if ( jmeterXmlLineIsAnUnclosedSample(jmeterFileLine) ){
 
 	    		if (isWithinASampleResult) {
-		    		samplesCreated = samplesCreated + addSampleToTestTransactionList(testTransactionList, jmeterFileLine, application);
+		    		samplesCreated = samplesCreated + addSampleToTestTransactionList(testTransactionList, xmlSample, jmeterFileLine, application);
 	    			potentialSampleResultWithNoSubResults = null;
 	    			lineCount = readLinesToSubResultEndTag(xmlReader, lineCount);
 
@@ -187,7 +304,7 @@ public class JmeterRun extends PerformanceTest  {
 	    	} else if ( jmeterXmlLineIsAnEndSampleTag(jmeterFileLine) ){
 
 	    		if (potentialSampleResultWithNoSubResults != null ){
-		    		samplesCreated = samplesCreated + addSampleToTestTransactionList(testTransactionList, jmeterFileLine, application);
+		    		samplesCreated = samplesCreated + addSampleToTestTransactionList(testTransactionList, xmlSample, potentialSampleResultWithNoSubResults, application);
 	    		}
 	    		isWithinASampleResult = false;
 	    		potentialSampleResultWithNoSubResults = null;
@@ -196,20 +313,19 @@ public class JmeterRun extends PerformanceTest  {
 	    	lineCountProgressDisplay(lineCount);
 	    	lineCount++;
 
-	    	if ( (samplesCreated % 100 ) == 0 ){
-	    		testTransactionsDAO.insertMultiple(testTransactionList);
-	    		testTransactionList.clear();
+	    	if (testTransactionList.size() >= TestTransactionBatchWriter.BATCH_SIZE){
+	    		testTransactionWriter.addBatch(testTransactionList);
+	    		testTransactionList = new ArrayList<>();
 	    	}
 
 	    }
 
-		testTransactionsDAO.insertMultiple(testTransactionList);
-		testTransactionList.clear();
+		testTransactionWriter.addBatch(testTransactionList);
 
 		long endLoadms = System.currentTimeMillis();
-		System.out.println("\n   " + inputXmlFileName.getName() + " file uploaded at " +  new Date(endLoadms) + " :" );
+		System.out.println("\n   " + inputXmlFileName.getName() + (isPreScan() ? " file pre-scanned at " : " file uploaded at ") +  new Date(endLoadms) + " :" );
 	    System.out.println("        " + lineCount + " file lines processed" );
-	    System.out.println("        " + samplesCreated + " transaction samples created" );
+	    System.out.println("        " + samplesCreated + (isPreScan() ? " transaction samples found" : " transaction samples created"));
 		System.out.println("        took " +  (endLoadms -startLoadms)/1000 + " secs" );
 		System.out.println();
 
@@ -252,10 +368,29 @@ public class JmeterRun extends PerformanceTest  {
     }
 
 
-	private int addSampleToTestTransactionList(List<TestTransaction> testTransactionList, String jmeterFileLine, String application) {
+	private int addSampleToTestTransactionList(List<TestTransaction> testTransactionList, JmeterXmlSample xmlSample,
+			String jmeterFileLine, String application) {
 		int samplesCreatedForLine = 0;
 
-		TestTransaction testTransaction = extractTransactionFromJmeterXMLfile(jmeterFileLine);
+		xmlSample.scan(jmeterFileLine);
+		if (xmlSample.getLabel() == null) {
+			System.out.println("!! Error : no label (lb) found for the sample on line : " + jmeterFileLine);
+			throw new RuntimeException("Error : sample without a label (lb) in Jmeter results file");
+		}
+
+		if (loadTimeWindow != null) {
+			if (truncateOverlyLongIds(xmlSample.getLabel()).startsWith(IGNORE)){
+				return samplesCreatedForLine;
+			}
+			if (loadTimeWindow.isPreScan()){
+				loadTimeWindow.preScanSample(xmlSample.getTimeStamp());
+				return 1;
+			} else if (!loadTimeWindow.isWithinWindow(xmlSample.getTimeStamp())){
+				return samplesCreatedForLine;
+			}
+		}
+
+		TestTransaction testTransaction = extractTransactionFromJmeterXMLsample(xmlSample, jmeterFileLine);
 
 		if (!testTransaction.getTxnId().startsWith(IGNORE)){
 			testTransaction.setApplication(application);
@@ -267,11 +402,11 @@ public class JmeterRun extends PerformanceTest  {
 	}
 
 
-	private TestTransaction extractTransactionFromJmeterXMLfile(String jmeterFileLine) {
+	private TestTransaction extractTransactionFromJmeterXMLsample(JmeterXmlSample xmlSample, String jmeterFileLine) {
 		TestTransaction testTransaction = new TestTransaction();
-		testTransaction.setTxnId(truncateOverlyLongIds(StringUtils.substringBetween(jmeterFileLine, " lb=\"", "\"")));
+		testTransaction.setTxnId(truncateOverlyLongIds(xmlSample.getLabel()));
 
-		String jmeterFileDatatype = StringUtils.substringBetween(jmeterFileLine, " dt=\"", "\"");
+		String jmeterFileDatatype = xmlSample.getDataType();
 		String sampleLineRawDbTxnType = Mark59Utils.convertJMeterFileDatatypeToDbTxntype(jmeterFileDatatype);
 		testTransaction.setTxnType( eventMappingTxnTypeTransform(testTransaction.getTxnId(), AppConstantsTrends.JMETER, sampleLineRawDbTxnType));
 
@@ -285,25 +420,30 @@ public class JmeterRun extends PerformanceTest  {
 		//      database holds transaction values in seconds, so we divide by 1000 (response times back to seconds)
 		//	- (Win) PERFMON metrics have not been catered for (values to be multiplied by 1000?), and will not be marked by
 		// 	   the DATAPOINTindicator in the return code (potentially could be handled by Event Mapping lookup)
+		//  - for a passed nano-timed transaction, the nanosecond time carried in its response message is used in
+		//    preference to the millisecond time. The database holds values to 6 decimal places (microseconds).
 
-		String txnResultMsStr = StringUtils.substringBetween(jmeterFileLine, " t=\"", "\"");
-		BigDecimal txnResultMsBigD = new BigDecimal(txnResultMsStr);
-		if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType())) {
-			testTransaction.setTxnResult( txnResultMsBigD.divide(AppConstantsTrends.THOUSAND, 3, RoundingMode.HALF_UP)  );
-		} else {
-			try {
-				testTransaction.setTxnResult( validateAndDetermineMetricValue(txnResultMsBigD, testTransaction.getTxnType()));
-			} catch (Exception e) {
-				invalidDatapointMessageAndFail(jmeterFileLine, e);
+		BigDecimal elapsedNanosSecs = elapsedNanosSecsInResponseMessage(xmlSample.getResponseMessage());
+		try {
+			if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType()) && elapsedNanosSecs != null) {
+				testTransaction.setTxnResult( elapsedNanosSecs );
+			} else if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType()) && xmlSample.isTimeWholeMs()) {
+				testTransaction.setTxnResult( BigDecimal.valueOf(xmlSample.getTimeMs(), 3) );   // whole ms as seconds, no division needed
+			} else if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType())) {
+				testTransaction.setTxnResult( xmlSample.getTime().divide(AppConstantsTrends.THOUSAND, 3, RoundingMode.HALF_UP)  );
+			} else {
+				testTransaction.setTxnResult( validateAndDetermineMetricValue(xmlSample.getTime(), testTransaction.getTxnType()));
 			}
+		} catch (Exception e) {
+			invalidDatapointMessageAndFail(jmeterFileLine, e);
 		}
 
 		testTransaction.setTxnPassed("N");
-		if ( "true".equalsIgnoreCase(StringUtils.substringBetween(jmeterFileLine, " s=\"", "\""))){
+		if ( "true".equalsIgnoreCase(xmlSample.getSuccess())){
 			testTransaction.setTxnPassed("Y");
 		}
 
-		testTransaction.setTxnEpochTime( StringUtils.substringBetween(jmeterFileLine, " ts=\"", "\"") );
+		testTransaction.setTxnEpochTime( xmlSample.getTimeStamp() );
 		return testTransaction;
 	}
 
@@ -320,15 +460,17 @@ public class JmeterRun extends PerformanceTest  {
 	 * @return line count
 	 * @throws IOException IOException
 	 */
-	private int loadCSVFile(File inputCsvFileName, boolean hasHeader, String application, String ignoredErrors) throws IOException {
+	private int loadCSVFile(File inputCsvFileName, boolean hasHeader, String application, String ignoredErrors,
+			TestTransactionBatchWriter testTransactionWriter) throws IOException {
 
 		int samplesCreated=0;
 		CSVReader csvReader = new CSVReader(new BufferedReader(new FileReader(inputCsvFileName)));
 		int lineCount = 0;
 
 		long startLoadms = System.currentTimeMillis();
-		System.out.println("\n\nProcessing CSV formatted Jmeter Results File " + inputCsvFileName.getName() + " at " + new Date(startLoadms));
+		System.out.println("\n\n" + (isPreScan() ? "Pre-scanning" : "Processing") + " CSV formatted Jmeter Results File " + inputCsvFileName.getName() + " at " + new Date(startLoadms));
 
+		CsvFieldPositions fieldPositions;
 		if (hasHeader) {
 			List<String> csvHeaderFieldsList;
 			try {
@@ -339,31 +481,23 @@ public class JmeterRun extends PerformanceTest  {
 				throw new RuntimeException("failed to process expected CVS header fields (line 1 of file) " + e.getMessage());
 			}
 
-			fieldPostimeStamp      = csvHeaderFieldsList.indexOf("timeStamp");
-			fieldPoselapsed        = csvHeaderFieldsList.indexOf("elapsed");
-			fieldPoslabel          = csvHeaderFieldsList.indexOf("label");
-			fieldPosdataType       = csvHeaderFieldsList.indexOf("dataType");
-			fieldPossuccess        = csvHeaderFieldsList.indexOf("success");
-			fieldPosfailureMessage = csvHeaderFieldsList.indexOf("failureMessage");
-
-			if (fieldPostimeStamp==-1 || fieldPoselapsed==-1 || fieldPoslabel==-1 || fieldPosdataType==-1 || fieldPossuccess==-1 ){
-				System.out.println("\n   Severe Error.  Unexpected csv file header format, terminating run");
-				System.out.println("   - the header is expected to contain at least these field names:  timeStamp, elapsed, label, dataType, success\n");
+			fieldPositions = fieldPositionsUsingCsvHeader(csvHeaderFieldsList);
+			if (fieldPositions == null){
 				csvReader.close();
 				throw new RuntimeException("Error : Unexpected csv file header format for file " + inputCsvFileName.getName());
 			}
 
 		} else {
-			setFieldPositionsAssumingTheDefaultCsvLayout();
+			fieldPositions = fieldPositionsAssumingTheDefaultCsvLayout();
 		}
 
 		List<TestTransaction> testTransactionList = new ArrayList<>();
 		String[] csvDataLineFields = csvReadNextLine(csvReader, inputCsvFileName);
 
 		// at this point, should be at the first line of data in the file
-		if  ( csvDataLineFields != null  && !StringUtils.isNumeric(csvDataLineFields[fieldPostimeStamp]) ) {
+		if  ( csvDataLineFields != null  && !StringUtils.isNumeric(csvDataLineFields[fieldPositions.timeStamp]) ) {
 			throw new RuntimeException("Error :  Only elapsed times in epoch (millisecond) format can be processed ! "
-				+ "\nFirst data line of file " + inputCsvFileName + " contains elapsed value of " + csvDataLineFields[fieldPostimeStamp]);
+				+ "\nFirst data line of file " + inputCsvFileName + " contains elapsed value of " + csvDataLineFields[fieldPositions.timeStamp]);
 		}
 
 		List<String> ignoredErrorsList = Mark59Utils.pipeDelimStringToStringList(ignoredErrors);
@@ -373,12 +507,17 @@ public class JmeterRun extends PerformanceTest  {
 	   		// if not enough fields or first field cannot be a time stamp, bypass
 			if  ( ! (   csvDataLineFields.length < 5 || csvDataLineFields[0].length() == 12 )){
 
-	    		String transactionNameLabel = csvDataLineFields[fieldPoslabel];
-	    		String inputDatatype 		= csvDataLineFields[fieldPosdataType];
+	    		String transactionNameLabel = csvDataLineFields[fieldPositions.label];
+	    		String inputDatatype 		= csvDataLineFields[fieldPositions.dataType];
 
 	    		if (!transactionNameLabel.startsWith(IGNORE) &&  !inputDatatype.equals(JMeterFileDatatypes.PARENT.getDatatypeText() )){
-	    			addCsvSampleToTestTransactionList(testTransactionList, csvDataLineFields, application, ignoredErrorsList);
-					samplesCreated++;
+	    			if (isPreScan()) {
+	    				loadTimeWindow.preScanSample(csvDataLineFields[fieldPositions.timeStamp]);
+	    				samplesCreated++;
+	    			} else if (loadTimeWindow == null || loadTimeWindow.isWithinWindow(csvDataLineFields[fieldPositions.timeStamp])) {
+	    				addCsvSampleToTestTransactionList(testTransactionList, csvDataLineFields, fieldPositions, application, ignoredErrorsList);
+	    				samplesCreated++;
+	    			}
 		    	}
 	    	}
 
@@ -386,20 +525,19 @@ public class JmeterRun extends PerformanceTest  {
 	    	lineCount++;
 	    	csvDataLineFields = csvReadNextLine(csvReader, inputCsvFileName);
 
-	    	if ( (samplesCreated % 100 ) == 0 ){
-	    		testTransactionsDAO.insertMultiple(testTransactionList);
-	    		testTransactionList.clear();
+	    	if (testTransactionList.size() >= TestTransactionBatchWriter.BATCH_SIZE){
+	    		testTransactionWriter.addBatch(testTransactionList);
+	    		testTransactionList = new ArrayList<>();
 	    	}
 
 	    } // end for loop
 
-		testTransactionsDAO.insertMultiple(testTransactionList);
-		testTransactionList.clear();
+		testTransactionWriter.addBatch(testTransactionList);
 
 		long endLoadms = System.currentTimeMillis();
-		System.out.println("\n   " + inputCsvFileName.getName() + "  file uploaded at " +  new Date(endLoadms) + " :" );
+		System.out.println("\n   " + inputCsvFileName.getName() + (isPreScan() ? "  file pre-scanned at " : "  file uploaded at ") +  new Date(endLoadms) + " :" );
 	    System.out.println("        " + lineCount + " file lines processed" );
-	    System.out.println("        " + samplesCreated + " transaction samples created" );
+	    System.out.println("        " + samplesCreated + (isPreScan() ? " transaction samples found" : " transaction samples created"));
 		System.out.println("        took " +  (endLoadms - startLoadms)/1000 + " secs" );
 		System.out.println();
 
@@ -423,30 +561,126 @@ public class JmeterRun extends PerformanceTest  {
 	}
 
 
-	private void setFieldPositionsAssumingTheDefaultCsvLayout() {
+	/**
+	 * @return the field positions, or null if the header does not contain the expected fields
+	 */
+	private CsvFieldPositions fieldPositionsUsingCsvHeader(List<String> csvHeaderFieldsList) {
+		CsvFieldPositions fieldPositions = new CsvFieldPositions();
+		fieldPositions.timeStamp      = csvHeaderFieldsList.indexOf("timeStamp");
+		fieldPositions.elapsed        = csvHeaderFieldsList.indexOf("elapsed");
+		fieldPositions.label          = csvHeaderFieldsList.indexOf("label");
+		fieldPositions.dataType       = csvHeaderFieldsList.indexOf("dataType");
+		fieldPositions.success        = csvHeaderFieldsList.indexOf("success");
+		fieldPositions.failureMessage = csvHeaderFieldsList.indexOf("failureMessage");
+		fieldPositions.responseMessage = csvHeaderFieldsList.indexOf("responseMessage");
+
+		if (fieldPositions.timeStamp==-1 || fieldPositions.elapsed==-1 || fieldPositions.label==-1 || fieldPositions.dataType==-1 || fieldPositions.success==-1 ){
+			System.out.println("\n   Severe Error.  Unexpected csv file header format, terminating run");
+			System.out.println("   - the header is expected to contain at least these field names:  timeStamp, elapsed, label, dataType, success\n");
+			return null;
+		}
+		return fieldPositions;
+	}
+
+
+	private CsvFieldPositions fieldPositionsAssumingTheDefaultCsvLayout() {
 		//timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,Latency,IdleTime,Connect
 		System.out.println("\n   This file is assumed to be a CSV file WITHOUT A HEADER.  Therefore the default Jmeter CSV field layout is assumed." );
-		fieldPostimeStamp 		= 0;
-		fieldPoselapsed   		= 1;
-		fieldPoslabel     		= 2;
-		fieldPosdataType  		= 6;
-		fieldPossuccess   		= 7;
-		fieldPosfailureMessage	= 8;
+		CsvFieldPositions fieldPositions = new CsvFieldPositions();
+		fieldPositions.timeStamp 		= 0;
+		fieldPositions.elapsed   		= 1;
+		fieldPositions.label     		= 2;
+		fieldPositions.responseMessage	= 4;
+		fieldPositions.dataType  		= 6;
+		fieldPositions.success   		= 7;
+		fieldPositions.failureMessage	= 8;
+		return fieldPositions;
+	}
+
+	@Override
+	public boolean isFollowedResultsFile(File file) {
+		String fileName = file.getName().toUpperCase();
+		return fileName.endsWith(".JTL") || fileName.endsWith(".XML") || fileName.endsWith(".CSV");
+	}
+
+
+	/**
+	 * Follow mode.  Only csv formatted results can be followed.  As for a file load, the first line of each file is
+	 * either a header or (for a headerless file) the default JMeter csv layout is assumed.
+	 */
+	@Override
+	public List<TestTransaction> followedLineToTestTransactions(File resultsFile, String line) {
+		List<TestTransaction> testTransactionList = new ArrayList<>();
+		if (followedFilesBypassed.contains(resultsFile)){
+			return testTransactionList;
+		}
+
+		CSVParser csvParser = followedFileParsers.get(resultsFile);
+		if (csvParser == null) {  // at the first line of the file
+			csvParser = new CSVParserBuilder().build();
+			followedFileParsers.put(resultsFile, csvParser);
+			System.out.println("\n   Following " + resultsFile.getName());
+
+			if (line.trim().startsWith("timeStamp") &&  line.matches("timeStamp.elapsed.*")){
+				CsvFieldPositions fieldPositions = fieldPositionsUsingCsvHeader(Arrays.asList(followedLineFields(csvParser, resultsFile, line)));
+				if (fieldPositions == null){
+					throw new RuntimeException("Error : Unexpected csv file header format for file " + resultsFile.getName());
+				}
+				followedFileFieldPositions.put(resultsFile, fieldPositions);
+				return testTransactionList;
+			} else if ( line.length() > 28 && StringUtils.countMatches(line, ",") > 14  && line.indexOf(",") == 13   ){
+				followedFileFieldPositions.put(resultsFile, fieldPositionsAssumingTheDefaultCsvLayout());
+			} else {
+				System.out.println("   Warning : " + resultsFile.getName()
+						+ " bypassed - only csv formatted JMeter results can be followed (does not start with regex 'timeStamp.elapsed')");
+				followedFilesBypassed.add(resultsFile);
+				return testTransactionList;
+			}
+		}
+
+		String[] csvDataLineFields = followedLineFields(csvParser, resultsFile, line);
+		if (csvParser.isPending() || csvDataLineFields == null) {
+			return testTransactionList;   // a quoted field continues on the next line
+		}
+
+		CsvFieldPositions fieldPositions = followedFileFieldPositions.get(resultsFile);
+		if  ( ! (   csvDataLineFields.length < 5 || csvDataLineFields[0].length() == 12 )){
+			String transactionNameLabel = csvDataLineFields[fieldPositions.label];
+			String inputDatatype 		= csvDataLineFields[fieldPositions.dataType];
+
+			if (!transactionNameLabel.startsWith(IGNORE) &&  !inputDatatype.equals(JMeterFileDatatypes.PARENT.getDatatypeText() )){
+				addCsvSampleToTestTransactionList(testTransactionList, csvDataLineFields, fieldPositions, run.getApplication(), followedIgnoredErrorsList);
+			}
+		}
+		return testTransactionList;
+	}
+
+
+	private String[] followedLineFields(CSVParser csvParser, File resultsFile, String line) {
+		try {
+			return csvParser.parseLineMulti(line);
+		} catch (IOException e) {
+			System.out.println("Error :  Unexpected csv line format for file " + resultsFile.getName() + " : " + line);
+			throw new RuntimeException(e.getMessage());
+		}
 	}
 
-	private void addCsvSampleToTestTransactionList(List<TestTransaction> testTransactionList, String[] csvDataLineFields, String application, List<String> ignoredErrorsList) {
-		TestTransaction testTransaction = extractTransactionFromJmeterCSVsample(csvDataLineFields, ignoredErrorsList);
+
+	private void addCsvSampleToTestTransactionList(List<TestTransaction> testTransactionList, String[] csvDataLineFields, CsvFieldPositions fieldPositions,
+			String application, List<String> ignoredErrorsList) {
+		TestTransaction testTransaction = extractTransactionFromJmeterCSVsample(csvDataLineFields, fieldPositions, ignoredErrorsList);
 		testTransaction.setApplication(application);
 		testTransaction.setRunTime(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
 		testTransactionList.add(testTransaction);
 	}
 
-	private TestTransaction extractTransactionFromJmeterCSVsample(String[] csvDataLineFields, List<String> ignoredErrorsList) {
+	private TestTransaction extractTransactionFromJmeterCSVsample(String[] csvDataLineFields, CsvFieldPositions fieldPositions,
+			List<String> ignoredErrorsList) {
 		TestTransaction testTransaction = new TestTransaction();
 
-		testTransaction.setTxnId(truncateOverlyLongIds(csvDataLineFields[fieldPoslabel]));
+		testTransaction.setTxnId(truncateOverlyLongIds(csvDataLineFields[fieldPositions.label]));
 
-		String jmeterFileDatatype = csvDataLineFields[fieldPosdataType];
+		String jmeterFileDatatype = csvDataLineFields[fieldPositions.dataType];
 		String sampleLineRawDbTxnType = Mark59Utils.convertJMeterFileDatatypeToDbTxntype(jmeterFileDatatype);
 		testTransaction.setTxnType( eventMappingTxnTypeTransform(testTransaction.getTxnId(), AppConstantsTrends.JMETER, sampleLineRawDbTxnType));
 
@@ -461,9 +695,15 @@ public class JmeterRun extends PerformanceTest  {
 		//	- (Win) PERFMON metrics have not been catered for (values to be multiplied by 1000?), and will not be marked by
 		// 	   the DATAPOINTindicator in the return code (potentially could be handled by Event Mapping lookup)
 
-		BigDecimal txnResultMsBigD = new BigDecimal(csvDataLineFields[fieldPoselapsed]);
+		//  - for a passed nano-timed transaction, the nanosecond time carried in its response message is used in
+		//    preference to the millisecond time. The database holds values to 6 decimal places (microseconds).
+
+		BigDecimal elapsedNanosSecs = elapsedNanosSecsInResponseMessage(csvField(csvDataLineFields, fieldPositions.responseMessage));
+		BigDecimal txnResultMsBigD = new BigDecimal(csvDataLineFields[fieldPositions.elapsed]);
 
-		if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType())) {
+		if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType()) && elapsedNanosSecs != null) {
+			testTransaction.setTxnResult( elapsedNanosSecs );
+		} else if ( Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType())) {
 			testTransaction.setTxnResult( txnResultMsBigD.divide(AppConstantsTrends.THOUSAND, 3, RoundingMode.HALF_UP)  );
 		} else {
 			try {
@@ -474,15 +714,34 @@ public class JmeterRun extends PerformanceTest  {
 		}
 
 		testTransaction.setTxnPassed("Y");
-		if ("false".equalsIgnoreCase(csvDataLineFields[fieldPossuccess]) && !errorToBeIgnored(csvDataLineFields[fieldPosfailureMessage], ignoredErrorsList)){
+		if ("false".equalsIgnoreCase(csvDataLineFields[fieldPositions.success]) && !errorToBeIgnored(csvDataLineFields[fieldPositions.failureMessage], ignoredErrorsList)){
 			testTransaction.setTxnPassed("N");
 		}
 
-		testTransaction.setTxnEpochTime(csvDataLineFields[fieldPostimeStamp]);
+		testTransaction.setTxnEpochTime(csvDataLineFields[fieldPositions.timeStamp]);
 		return testTransaction;
 	}
 
 
+	private String csvField(String[] csvDataLineFields, int fieldPosition) {
+		return fieldPosition >= 0 && fieldPosition < csvDataLineFields.length ? csvDataLineFields[fieldPosition] : null;
+	}
+
+
+	/**
+	 * @param responseMessage response message of a sample
+	 * @return the nanosecond time carried in the response message of a passed nano-timed transaction as seconds to 6
+	 * decimal places (microseconds), or null if the response message carries no nanosecond time
+	 */
+	private BigDecimal elapsedNanosSecsInResponseMessage(String responseMessage) {
+		long elapsedNanos = Mark59Utils.elapsedNanosInResponseMessage(responseMessage);
+		if (elapsedNanos < 0) {
+			return null;
+		}
+		return new BigDecimal(elapsedNanos).divide(AppConstantsTrends.BILLION, 6, RoundingMode.HALF_UP);
+	}
+
+
 	private String truncateOverlyLongIds(String txnId) {
 		if (txnId.length() > MAX_ALLOWED_TXN_ID_CHARS ) {
 			txnId = txnId.substring(0, MAX_ALLOWED_TXN_ID_CHARS - 3) + "...";
@@ -524,4 +783,20 @@ public class JmeterRun extends PerformanceTest  {
 		throw new RuntimeException("ERROR : unexpected datatype present :  " + sampleLineDataType);
 	}
 
-}
\ No newline at end of file
+
+
+	/**
+	 * Positions of the fields used in a csv results file (-1 when not present).  Held per file, as the files in the
+	 * input directory may have different layouts.
+	 */
+	private static class CsvFieldPositions {
+		int timeStamp;
+		int elapsed;
+		int label;
+		int dataType;
+		int success;
+		int failureMessage;
+		int responseMessage;
+	}
+
+}
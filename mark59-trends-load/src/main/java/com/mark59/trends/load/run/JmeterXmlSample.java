@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.math.BigDecimal;
+
+/**
+ * The attributes of a JMeter XML results file <code>&lt;sample .../&gt;</code> or <code>&lt;httpSample ...&gt;</code>
+ * line used by Trend Analysis: label (lb), data type (dt), time (t), success (s), time stamp (ts) and response
+ * message (rm).  The response message is only of interest for a passed nano-timed transaction, which carries its
+ * nanosecond time (see com.mark59.core.utils.Mark59Utils#elapsedNanosInResponseMessage).
+ *
+ * <p>{@link #scan(String)} reads the attributes of the line in a single left-to-right pass, stopping at the end of the
+ * start tag (or once all the attributes needed have been found).  Only those attributes are turned into Strings, and
+ * an integer time is parsed without creating a String.  An instance is intended to be re-used for each line of a file
+ * (by one thread).
+ *
+ * <p>As for the previous extraction of the attributes, values are taken as written (XML entities are not decoded),
+ * and an attribute which is not on the line is returned as null.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class JmeterXmlSample {
+
+	private static final int ALL_ATTRIBUTES_FOUND = 6;
+
+	private String label;
+	private String dataType;
+	private String success;
+	private String timeStamp;
+	private String responseMessage;
+	private long timeMs;
+	private String timeText;
+	private boolean timeIsWholeMs;
+	private int attributesFound;
+
+
+	/**
+	 * @param sampleLine a (trimmed) sample line from a JMeter XML results file
+	 * @return this, holding the attributes of the line
+	 */
+	public JmeterXmlSample scan(String sampleLine) {
+		label = null;
+		dataType = null;
+		success = null;
+		timeStamp = null;
+		responseMessage = null;
+		timeText = null;
+		timeIsWholeMs = false;
+		attributesFound = 0;
+
+		int length = sampleLine.length();
+		int pos = sampleLine.indexOf('<') + 1;
+		while (pos < length && !isWhitespace(sampleLine.charAt(pos)) && sampleLine.charAt(pos) != '>') {
+			pos++;		// the tag name
+		}
+
+		while (pos < length && attributesFound < ALL_ATTRIBUTES_FOUND) {
+			char c = sampleLine.charAt(pos);
+			if (isWhitespace(c)) {
+				pos++;
+				continue;
+			}
+			if (c == '>' || c == '/') {
+				break;
+			}
+			int nameStart = pos;
+			while (pos < length && sampleLine.charAt(pos) != '=' && !isWhitespace(sampleLine.charAt(pos))) {
+				pos++;
+			}
+			int nameEnd = pos;
+			if (pos + 1 >= length || sampleLine.charAt(pos) != '=' || sampleLine.charAt(pos + 1) != '"') {
+				break;		// not a well formed attribute, the remainder of the line is ignored
+			}
+			int valueStart = pos + 2;
+			int valueEnd = sampleLine.indexOf('"', valueStart);
+			if (valueEnd < 0) {
+				break;
+			}
+			setAttribute(sampleLine, nameStart, nameEnd, valueStart, valueEnd);
+			pos = valueEnd + 1;
+		}
+		return this;
+	}
+
+
+	private void setAttribute(String sampleLine, int nameStart, int nameEnd, int valueStart, int valueEnd) {
+		int nameLength = nameEnd - nameStart;
+		char first = sampleLine.charAt(nameStart);
+
+		if (nameLength == 1 && first == 't' && timeText == null && !timeIsWholeMs) {
+			setTime(sampleLine, valueStart, valueEnd);
+		} else if (nameLength == 1 && first == 's' && success == null) {
+			success = sampleLine.substring(valueStart, valueEnd);
+		} else if (nameLength == 2) {
+			char second = sampleLine.charAt(nameStart + 1);
+			if (first == 'l' && second == 'b' && label == null) {
+				label = sampleLine.substring(valueStart, valueEnd);
+			} else if (first == 'd' && second == 't' && dataType == null) {
+				dataType = sampleLine.substring(valueStart, valueEnd);
+			} else if (first == 't' && second == 's' && timeStamp == null) {
+				timeStamp = sampleLine.substring(valueStart, valueEnd);
+			} else if (first == 'r' && second == 'm' && responseMessage == null) {
+				responseMessage = sampleLine.substring(valueStart, valueEnd);
+			} else {
+				return;
+			}
+		} else {
+			return;
+		}
+		attributesFound++;
+	}
+
+
+	private void setTime(String sampleLine, int valueStart, int valueEnd) {
+		int pos = valueStart;
+		boolean negative = pos < valueEnd && sampleLine.charAt(pos) == '-';
+		if (negative) {
+			pos++;
+		}
+		long value = 0;
+		boolean wholeMs = pos < valueEnd && valueEnd - pos <= 18;
+		for (; wholeMs && pos < valueEnd; pos++) {
+			int digit = sampleLine.charAt(pos) - '0';
+			if (digit < 0 || digit > 9) {
+				wholeMs = false;
+			} else {
+				value = value * 10 + digit;
+			}
+		}
+		if (wholeMs) {
+			timeMs = negative ? -value : value;
+			timeIsWholeMs = true;
+		} else {
+			timeText = sampleLine.substring(valueStart, valueEnd);
+		}
+	}
+
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+
+	/**
+	 * @return the label (lb) attribute
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return the data type (dt) attribute
+	 */
+	public String getDataType() {
+		return dataType;
+	}
+
+	/**
+	 * @return the success (s) attribute
+	 */
+	public String getSuccess() {
+		return success;
+	}
+
+	/**
+	 * @return the time stamp (ts) attribute, an epoch time in milliseconds
+	 */
+	public String getTimeStamp() {
+		return timeStamp;
+	}
+
+	/**
+	 * @return the response message (rm) attribute
+	 */
+	public String getResponseMessage() {
+		return responseMessage;
+	}
+
+	/**
+	 * @return true if the time (t) attribute is a whole number (as it always is for a sample written by JMeter)
+	 */
+	public boolean isTimeWholeMs() {
+		return timeIsWholeMs;
+	}
+
+	/**
+	 * @return the time (t) attribute, when {@link #isTimeWholeMs()}
+	 */
+	public long getTimeMs() {
+		return timeMs;
+	}
+
+	/**
+	 * @return the time (t) attribute as a BigDecimal, or null if there is no time on the line
+	 * @throws NumberFormatException if the time is not a number
+	 */
+	public BigDecimal getTime() {
+		if (timeIsWholeMs) {
+			return BigDecimal.valueOf(timeMs);
+		}
+		return timeText == null ? null : new BigDecimal(timeText);
+	}
+
+	@Override
+	public String toString() {
+		return "[lb=" + label + ", dt=" + dataType + ", t=" + (timeIsWholeMs ? String.valueOf(timeMs) : timeText)
+				+ ", s=" + success + ", ts=" + timeStamp + ", rm=" + responseMessage + "]";
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.mark59.trends.data.beans.DateRangeBean;
+
+/**
+ * Supports applying the time range filter (excludestart / captureperiod) as the results files are read, rather than
+ * loading every sample and then deleting those outside the filter range.
+ *
+ * <p>The files are read twice.  On the first pass (the pre-scan) only the timestamps of the samples that would be
+ * loaded are looked at, to find the run start and end.  These are compared as strings, the same way the
+ * <code>min</code> and <code>max</code> of TXN_EPOCH_TIME on TESTTRANSACTIONS are, so the run start and end are
+ * the same as they would be for a full load.  On the second pass only samples within the filter range are loaded.
+ *
+ * <p>Samples may be checked from several threads (when files are loaded in parallel).
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class LoadTimeWindow {
+
+	private volatile boolean preScan = true;
+
+	private String earliestEpochTime;
+	private String latestEpochTime;
+	private long preScanSamples = 0L;
+
+	private long windowFromEpochTime;
+	private long windowToEpochTime;
+	private final LongAdder samplesOutsideWindow = new LongAdder();
+
+
+	public boolean isPreScan() {
+		return preScan;
+	}
+
+
+	public synchronized void preScanSample(String epochTime) {
+		if (epochTime == null){
+			return;
+		}
+		if (earliestEpochTime == null || epochTime.compareTo(earliestEpochTime) < 0){
+			earliestEpochTime = epochTime;
+		}
+		if (latestEpochTime == null || epochTime.compareTo(latestEpochTime) > 0){
+			latestEpochTime = epochTime;
+		}
+		preScanSamples++;
+	}
+
+
+	/**
+	 * @return false if the pre-scan did not find a valid run start and end.  In that case the files should be loaded
+	 * in full (and the run date range taken from the database), so the run fails or is processed exactly as before.
+	 */
+	public synchronized boolean isPreScanDateRangeValid() {
+		return StringUtils.isNumeric(earliestEpochTime) && StringUtils.isNumeric(latestEpochTime);
+	}
+
+
+	public synchronized DateRangeBean getPreScanDateRange() {
+		return new DateRangeBean(Long.valueOf(earliestEpochTime), Long.valueOf(latestEpochTime));
+	}
+
+
+	public synchronized long getPreScanSamples() {
+		return preScanSamples;
+	}
+
+
+	/**
+	 * Ends the pre-scan.  Following samples are checked against the (inclusive) range of the filter.
+	 * @param filteredDateRangeBean the filter range
+	 */
+	public void startWindowedLoad(DateRangeBean filteredDateRangeBean) {
+		windowFromEpochTime = filteredDateRangeBean.getRunStartTime();
+		windowToEpochTime   = filteredDateRangeBean.getRunEndTime();
+		preScan = false;
+	}
+
+
+	/**
+	 * Matches the delete previously used to filter by time (<code>TXN_EPOCH_TIME not between from and to</code>),
+	 * so a sample without a timestamp is kept.
+	 * @param epochTime sample timestamp
+	 * @return true if the sample is to be loaded
+	 */
+	public boolean isWithinWindow(String epochTime) {
+		if (epochTime == null){
+			return true;
+		}
+		boolean withinWindow;
+		try {
+			long epochTimeMs = Long.parseLong(epochTime.trim());
+			withinWindow = epochTimeMs >= windowFromEpochTime && epochTimeMs <= windowToEpochTime;
+		} catch (NumberFormatException e) {
+			withinWindow = false;
+		}
+		if (!withinWindow){
+			samplesOutsideWindow.increment();
+		}
+		return withinWindow;
+	}
+
+
+	public long getSamplesOutsideWindow() {
+		return samplesOutsideWindow.sum();
+	}
+
+}
@@ -40,9 +40,11 @@ public class LrRun extends PerformanceTest  {
 		System.out.println("Processing Loadrunner access DB file " + inputAccessDbFileName);
 
 		testTransactionsDAO.deleteAllForRun(run.getApplication(), AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		testTransactionsDAO.prepareForBulkLoad(run.getApplication());
 
 		DateRangeBean dateRangeBean = lrRundb.getRunDateRangeUsingLoadrunnerAccessDB(timeZone);
 		lrRundb.loadTestTransactionForTransactionsOnlyFromLoadrunnAccessDB(run.getApplication(), testTransactionsDAO, dateRangeBean.getRunStartTime());
+		testTransactionsDAO.completeBulkLoad(run.getApplication());
 		run = new Run( calculateAndSetRunTimesUsingEpochStartAndEnd(run, dateRangeBean));
 		runDAO.deleteRun(run.getApplication(), run.getRunTime());
 		runDAO.insertRun(run);
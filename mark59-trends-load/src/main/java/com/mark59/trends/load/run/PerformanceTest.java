@@ -16,13 +16,18 @@
 
 package com.mark59.trends.load.run;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
@@ -36,6 +41,7 @@ import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.Sla;
 import com.mark59.trends.data.beans.TestTransaction;
 import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAO;
 import com.mark59.trends.data.run.dao.RunDAO;
 import com.mark59.trends.data.sla.dao.SlaDAO;
@@ -48,6 +54,9 @@ import com.mark59.trends.data.transaction.dao.TransactionDAO;
  */
 public class PerformanceTest {
 
+	private static final long FOLLOW_POLL_MS = 5000L;
+	private static final long PROVISIONAL_RUN_PUBLISH_INTERVAL_MS = 60000L;
+
 	protected RunDAO runDAO;
 	protected TransactionDAO transactionDAO;
 	protected TestTransactionsDAO testTransactionsDAO;
@@ -59,8 +68,9 @@ public class PerformanceTest {
 	private List<Transaction> transactionSummariesThisRun;
 	private final List<Transaction> metricTransactionSummariesThisRun = new ArrayList<>();  // currently only used for testing
 
-	private final Map<String,String> optimizedTxnTypeLookup = new HashMap<>();
-	private final Map<String,EventMapping> txnIdToEventMappingLookup = new HashMap<>();
+	// concurrent, as JMeter results files may be loaded in parallel
+	private final Map<String,String> optimizedTxnTypeLookup = new ConcurrentHashMap<>();
+	private final Map<String,EventMapping> txnIdToEventMappingLookup = new ConcurrentHashMap<>();
 
 
 	public PerformanceTest(ApplicationContext context, String application, String runReferenceArg) {
@@ -81,6 +91,11 @@ public class PerformanceTest {
 
 
 	protected Run calculateAndSetRunTimesUsingEpochStartAndEnd(Run run, DateRangeBean dateRangeBean) {
+		return calculateAndSetRunTimesUsingEpochStartAndEnd(run, dateRangeBean, true);
+	}
+
+
+	private Run calculateAndSetRunTimesUsingEpochStartAndEnd(Run run, DateRangeBean dateRangeBean, boolean printRunTimes) {
 
 		Long runStartTime = dateRangeBean.getRunStartTime();
 		Long runEndTime   = dateRangeBean.getRunEndTime();
@@ -105,10 +120,12 @@ public class PerformanceTest {
 				 		  + formatterSecPrecision.format(runEndDate).substring(0,8) + "_"
 						  + formatterSecPrecision.format(runEndDate).substring(8,14);
 
-			System.out.println("\nRun start time set as " + run.getRunTime() + "  [ " + runStartDate
-				+ ", Timestamp " + runStartTime + " ] with a duration of " + run.getDuration() + " minutes.");
-			System.out.println("Run period of " + period );
-			System.out.println("Epoch Range (msec)  " + dateRangeBean.prettyPrint() + "\n"  );
+			if (printRunTimes) {
+				System.out.println("\nRun start time set as " + run.getRunTime() + "  [ " + runStartDate
+					+ ", Timestamp " + runStartTime + " ] with a duration of " + run.getDuration() + " minutes.");
+				System.out.println("Run period of " + period );
+				System.out.println("Epoch Range (msec)  " + dateRangeBean.prettyPrint() + "\n"  );
+			}
 
 			run.setPeriod(period + "<br>" + dateRangeBean.prettyPrint());
 
@@ -116,15 +133,26 @@ public class PerformanceTest {
 
 			if (run.getRunReference().startsWith(AppConstantsTrends.NO_ARGUMENT_PASSED)) {
 				run.setRunReference(formatterSecPrecision.format(runStartDate).substring(0,8) + "_" + formatterSecPrecision.format(runStartDate).substring(8,14));
-				System.out.println("Run reference has been set as  " + run.getRunReference());
+				if (printRunTimes) {
+					System.out.println("Run reference has been set as  " + run.getRunReference());
+				}
 			}
 		}
 		return run;
 	}
 
 
+	/**
+	 * Inserts the TRANSACTION summary of each transaction captured, along with a histogram of its response times
+	 * (TXNHISTOGRAM), so any percentile of the run can be graphed after the raw TESTTRANSACTIONS rows are removed.
+	 */
 	protected List<Transaction> storeTransactionSummaries(Run run) {
-		transactionSummariesThisRun = testTransactionsDAO.extractTransactionResponsesSummary(run.getApplication(), Mark59Constants.DatabaseTxnTypes.TRANSACTION.name() );
+		String txnType = Mark59Constants.DatabaseTxnTypes.TRANSACTION.name();
+		Map<String, TxnHistogram> txnHistograms = new HashMap<>();
+		transactionSummariesThisRun = testTransactionsDAO.extractTransactionResponsesSummary(run.getApplication(), txnType, txnHistograms);
+
+		Map<Transaction, TxnHistogram> histogramOfTransaction = new LinkedHashMap<>();
+
       	for (Transaction transaction : transactionSummariesThisRun) {  // insert a row for each transaction captured
       		transaction.setRunTime(run.getRunTime());
 
@@ -132,23 +160,22 @@ public class PerformanceTest {
       		if (sla != null && sla.getTxnDelay() != null ){
       			transaction.setTxnDelay(sla.getTxnDelay());
       		}
+      		TxnHistogram txnHistogram = txnHistograms.get(TxnHistogram.transactionKey(transaction.getTxnId(), transaction.getIsCdpTxn()));
       		transactionDAO.insert(transaction);
+
+      		if (txnHistogram != null){   // no histogram when a transaction has no passed results
+      			histogramOfTransaction.put(transaction, txnHistogram);
+      		}
       	}
+      	transactionDAO.insertHistograms(histogramOfTransaction);
 		return transactionSummariesThisRun;
 	}
 
 
 	protected List<Transaction> storeMetricTransactionSummaries(Run run) {
-		// Creates a list of the names of metric transactions for the run, with their types (bit of an abuse of the 'TestTransaction' bean)
-		List<TestTransaction> metricTypeAndTxnIds = testTransactionsDAO.getUniqueListOfSystemMetricTxnIdsByType(run.getApplication());
+		List<Transaction> eventTransactions = testTransactionsDAO.extractEventSummaryStats(run.getApplication(), txnIdToEventMappingLookup);
 
-		for (TestTransaction metricTypeAndTxnId : metricTypeAndTxnIds) {
-
-			EventMapping eventMapping = txnIdToEventMappingLookup.get(metricTypeAndTxnId.getTxnId());
-			if (eventMapping == null) {
-				throw new RuntimeException("ERROR : No event mapping found for " + metricTypeAndTxnId.getTxnId());
-			}
-			Transaction eventTransaction = testTransactionsDAO.extractEventSummaryStats(run.getApplication(), metricTypeAndTxnId.getTxnType(), metricTypeAndTxnId.getTxnId(), eventMapping);
+		for (Transaction eventTransaction : eventTransactions) {
 			eventTransaction.setRunTime(run.getRunTime());
 			transactionDAO.insert(eventTransaction);
 			metricTransactionSummariesThisRun.add(eventTransaction);
@@ -158,42 +185,193 @@ public class PerformanceTest {
 
 
 	protected DateRangeBean applyTimeRangeFiltersToTestTransactions(String excludestart, String captureperiod, DateRangeBean dateRangeBean) {
+		return applyTimeRangeFiltersToTestTransactions(excludestart, captureperiod, dateRangeBean, null);
+	}
 
-		DateRangeBean filteredDateRangeBean = new DateRangeBean(dateRangeBean.getRunStartTime(), dateRangeBean.getRunEndTime(), false );
 
-		Long excludestartMsecs = 0L;
-		if (StringUtils.isNumeric(excludestart)) {
-			excludestartMsecs = TimeUnit.MINUTES.toMillis(Long.parseLong(excludestart));
-		}
+	/**
+	 * @param loadTimeWindow when not null, the filter has already been applied as the results were read (samples outside
+	 * the filter range were never inserted), so there are no TESTTRANSACTIONS rows to remove.
+	 */
+	protected DateRangeBean applyTimeRangeFiltersToTestTransactions(String excludestart, String captureperiod, DateRangeBean dateRangeBean,
+			LoadTimeWindow loadTimeWindow) {
+
+		DateRangeBean filteredDateRangeBean = calculateTimeRangeFilter(excludestart, captureperiod, dateRangeBean);
 
-		if ( excludestartMsecs != 0  || !captureperiod.equalsIgnoreCase(AppConstantsTrends.ALL) ){
+		if (filteredDateRangeBean.isFilterApplied()){
 			System.out.println();
 			System.out.println( " Transaction results will be filtered by time for this run"  );
 			System.out.print( " - only transactions " + excludestart + " mins from the start of the test ");
+			if (StringUtils.isNumeric(captureperiod)){
+				System.out.print( ", for the following " + captureperiod	+ " mins ");
+			}
+			System.out.println("will be included in the captured results");
+			System.out.println();
+
+			if (loadTimeWindow != null){
+				System.out.println("   " + loadTimeWindow.getSamplesOutsideWindow() + " transactions excluded by filter as results were read. "
+						+ filteredDateRangeBean.prettyPrint());
+			} else {
+				int rowsAffected = testTransactionsDAO.filterByTime(run, filteredDateRangeBean);
+				System.out.println("   " + rowsAffected + " transactions removed by filter. " + filteredDateRangeBean.prettyPrint());
+			}
+
+			run.setPeriod(run.getPeriod() + " filter x:c ["  + excludestart + ":" + captureperiod + "]" );
+			runDAO.updateRun(run);
+		}
+		return filteredDateRangeBean;
+	}
+
+
+	protected boolean isTimeRangeFilterRequested(String excludestart, String captureperiod) {
+		return (StringUtils.isNumeric(excludestart) && Long.parseLong(excludestart) != 0)
+				|| !captureperiod.equalsIgnoreCase(AppConstantsTrends.ALL);
+	}
+
+
+	/**
+	 * The range of samples to be kept for the run, given the run date range and the excludestart / captureperiod
+	 * arguments.  If no filtering has been requested, the returned range is the run date range and it is not marked
+	 * as having a filter applied.
+	 */
+	protected DateRangeBean calculateTimeRangeFilter(String excludestart, String captureperiod, DateRangeBean dateRangeBean) {
+
+		DateRangeBean filteredDateRangeBean = new DateRangeBean(dateRangeBean.getRunStartTime(), dateRangeBean.getRunEndTime(), false );
+
+		if (isTimeRangeFilterRequested(excludestart, captureperiod)){
+			long excludestartMsecs = 0L;
+			if (StringUtils.isNumeric(excludestart)) {
+				excludestartMsecs = TimeUnit.MINUTES.toMillis(Long.parseLong(excludestart));
+			}
 
 			long filterEpochTimeFromMsecs = dateRangeBean.getRunStartTime() + excludestartMsecs;
 			Long filterEpochTimeToMsecs   = dateRangeBean.getRunEndTime();
 
 			if (StringUtils.isNumeric(captureperiod)){
 				filterEpochTimeToMsecs = filterEpochTimeFromMsecs + TimeUnit.MINUTES.toMillis(Long.parseLong(captureperiod));
-				System.out.print( ", for the following " + captureperiod	+ " mins ");
 			}
 
-			System.out.println("will be included in the captured results");
-			System.out.println();
-
 			filteredDateRangeBean.setRunStartTime(filterEpochTimeFromMsecs );
 			filteredDateRangeBean.setRunEndTime(filterEpochTimeToMsecs);
 			filteredDateRangeBean.setFilterApplied(true);
+		}
+		return filteredDateRangeBean;
+	}
 
-			int rowsAffected = testTransactionsDAO.filterByTime(run, filteredDateRangeBean);
 
-			System.out.println("   " + rowsAffected + " transactions removed by filter. " + filteredDateRangeBean.prettyPrint());
+	/**
+	 * To be called once the pre-scan pass over the results files has completed.  Sets the filter range for the second
+	 * (loading) pass.
+	 *
+	 * @return the window to use for the loading pass, or null if the pre-scan did not find a valid run date range, in
+	 * which case all samples are to be loaded, and the filter applied afterwards in the usual way.
+	 */
+	protected LoadTimeWindow startWindowedLoad(LoadTimeWindow loadTimeWindow, String excludestart, String captureperiod) {
+		if (!loadTimeWindow.isPreScanDateRangeValid()){
+			System.out.println("   Info : a valid run date range was not found by the pre-scan of the results, all samples will be loaded");
+			return null;
+		}
+		loadTimeWindow.startWindowedLoad(calculateTimeRangeFilter(excludestart, captureperiod, loadTimeWindow.getPreScanDateRange()));
+		System.out.println("   Pre-scan of results found " + loadTimeWindow.getPreScanSamples() + " samples, run date range "
+				+ loadTimeWindow.getPreScanDateRange().prettyPrint() + ". Only samples within the time filter will be loaded.");
+		return loadTimeWindow;
+	}
 
-			run.setPeriod(run.getPeriod() + " filter x:c ["  + excludestart + ":" + captureperiod + "]" );
-			runDAO.updateRun(run);
+
+	/**
+	 * Follow mode: rather than loading completed results files, follow (tail) the results files in the input directory
+	 * while the test is running, inserting samples onto TESTTRANSACTIONS as they are written.
+	 *
+	 * <p>Every minute a provisional run, with transaction summaries of the
+	 * samples read so far, is written to RUNS and TRANSACTION, so the run can be graphed while the test is in
+	 * progress.  The provisional run is flagged by a comment starting with {@link AppConstantsTrends#RUN_IN_PROGRESS}.
+	 *
+	 * <p>Following stops once no results file has grown for the given number of minutes (timed from the start of
+	 * following if no results have been written).  The provisional run is then removed: the run is finalised by
+	 * the normal end of load processing, from the rows on TESTTRANSACTIONS.
+	 *
+	 * @param inputdirectory directory holding the results file(s)
+	 * @param follow minutes without any file growth after which the run is taken to have completed
+	 * @param followedResultsParser selects the files to follow and converts their lines to samples
+	 * @return number of samples loaded
+	 */
+	protected long followResultsFiles(String inputdirectory, String follow, FollowedResultsParser followedResultsParser) {
+
+		long finaliseAfterIdleMs = TimeUnit.MINUTES.toMillis(Long.parseLong(follow));
+		RollingTransactionSummaries rollingSummaries = new RollingTransactionSummaries();
+		String provisionalRunTime = null;
+		long nextPublishMs = System.currentTimeMillis() + PROVISIONAL_RUN_PUBLISH_INTERVAL_MS;
+		long samplesLoaded = 0L;
+
+		System.out.println("\nFollowing results in " + inputdirectory + " (the run will be finalised once no results file has grown for "
+				+ follow + " minutes)" );
+
+		try (ResultsFileFollower follower = new ResultsFileFollower(new File(inputdirectory), followedResultsParser::isFollowedResultsFile)) {
+
+			while (follower.getMsSinceLastGrowth() < finaliseAfterIdleMs) {
+
+				List<TestTransaction> testTransactionList = new ArrayList<>();
+				for (Entry<File, List<String>> newLinesForFile : follower.readNewLines(FOLLOW_POLL_MS).entrySet()) {
+					for (String line : newLinesForFile.getValue()) {
+						for (TestTransaction testTransaction : followedResultsParser.followedLineToTestTransactions(newLinesForFile.getKey(), line)) {
+							testTransactionList.add(testTransaction);
+							rollingSummaries.add(testTransaction);
+							samplesLoaded++;
+							if (testTransactionList.size() >= 100){
+								testTransactionsDAO.insertMultiple(testTransactionList);
+								testTransactionList.clear();
+							}
+						}
+					}
+				}
+				testTransactionsDAO.insertMultiple(testTransactionList);
+
+				if (System.currentTimeMillis() >= nextPublishMs && rollingSummaries.hasDateRange()){
+					provisionalRunTime = publishProvisionalRun(rollingSummaries, provisionalRunTime, samplesLoaded);
+					nextPublishMs = System.currentTimeMillis() + PROVISIONAL_RUN_PUBLISH_INTERVAL_MS;
+				}
+			}
+
+		} catch (IOException e) {
+			System.out.println( "Error : problem following results in " + inputdirectory );
+			e.printStackTrace();
+			throw new RuntimeException(e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("following of results was interrupted");
 		}
-		return filteredDateRangeBean;
+
+		if (provisionalRunTime != null){
+			runDAO.deleteRun(run.getApplication(), provisionalRunTime);
+		}
+		System.out.println("\nResults files have stopped growing, run will now be finalised. " + samplesLoaded + " samples loaded.");
+		return samplesLoaded;
+	}
+
+
+	private String publishProvisionalRun(RollingTransactionSummaries rollingSummaries, String previousProvisionalRunTime, long samplesLoaded) {
+
+		Run provisionalRun = calculateAndSetRunTimesUsingEpochStartAndEnd(new Run(run), rollingSummaries.getDateRange(), false);
+		provisionalRun.setComment(AppConstantsTrends.RUN_IN_PROGRESS + " - provisional results at "
+				+ new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+
+		if (provisionalRun.getRunTime().equals(previousProvisionalRunTime)){
+			runDAO.updateRun(provisionalRun);
+			transactionDAO.deleteAllForRun(provisionalRun.getApplication(), provisionalRun.getRunTime());
+		} else {
+			if (previousProvisionalRunTime != null){
+				runDAO.deleteRun(provisionalRun.getApplication(), previousProvisionalRunTime);
+			}
+			runDAO.deleteRun(provisionalRun.getApplication(), provisionalRun.getRunTime());
+			runDAO.insertRun(provisionalRun);
+		}
+
+		for (Transaction transaction : rollingSummaries.toTransactions(provisionalRun.getApplication(), provisionalRun.getRunTime())) {
+			transactionDAO.insert(transaction);
+		}
+		System.out.println("   provisional run " + provisionalRun.getRunTime() + " published at " + new Date() + " (" + samplesLoaded
+				+ " samples loaded, duration " + provisionalRun.getDuration() + " mins)");
+		return provisionalRun.getRunTime();
 	}
 
 
@@ -275,6 +453,19 @@ public class PerformanceTest {
 	}
 
 
+	/**
+	 * As for {@link #getRunDateRangeUsingTestTransactionalData(String)}, except when the time filter was applied as the
+	 * results were read, when the run date range found by the pre-scan is used (rows outside the filter are not on
+	 * TESTTRANSACTIONS).
+	 */
+	protected DateRangeBean getRunDateRangeUsingTestTransactionalData(String application, LoadTimeWindow loadTimeWindow){
+		if (loadTimeWindow != null){
+			return loadTimeWindow.getPreScanDateRange();
+		}
+		return getRunDateRangeUsingTestTransactionalData(application);
+	}
+
+
 	/**
 	 * Save off testTransaction data if request, otherwise clean it up at the end of the run.
 	 * @param keeprawresults keeprawresults
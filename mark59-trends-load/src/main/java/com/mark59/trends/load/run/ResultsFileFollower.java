@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Follows (tails) the results files in a directory while they are being written.  Each call to
+ * {@link #readNewLines(long)} returns the complete lines appended to each file since the last call.  A line which has
+ * only been partially written is left to be read on a later call.
+ *
+ * <p>A <code>WatchService</code> on the directory is used so new data is picked up as soon as it is written, but
+ * file sizes are also checked on every call, as file change events are not raised on all file systems (eg network
+ * shares).
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class ResultsFileFollower implements Closeable {
+
+	private static final int MAX_READ_BYTES_PER_FILE = 8 * 1024 * 1024;
+
+	private final File directory;
+	private final Predicate<File> isResultsFile;
+	private final WatchService watchService;
+	private final Map<File, Long> fileOffsets = new HashMap<>();
+
+	private long lastGrowthMs = System.currentTimeMillis();
+
+
+	public ResultsFileFollower(File directory, Predicate<File> isResultsFile) throws IOException {
+		if (!directory.isDirectory()){
+			throw new IOException("unable to follow results : '" + directory + "' is not a directory");
+		}
+		this.directory = directory;
+		this.isResultsFile = isResultsFile;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+	}
+
+
+	/**
+	 * Waits up to <code>maxWaitMs</code> for a change in the directory, then reads whatever has been appended to the
+	 * results files.
+	 *
+	 * @param maxWaitMs maximum time to wait for a file change event
+	 * @return the complete new lines for each results file that has grown (in the order the files are listed)
+	 */
+	public Map<File, List<String>> readNewLines(long maxWaitMs) throws IOException, InterruptedException {
+		WatchKey watchKey = watchService.poll(maxWaitMs, TimeUnit.MILLISECONDS);
+		if (watchKey != null){
+			watchKey.pollEvents();   // the events just tell us to look, all files are checked below
+			watchKey.reset();
+		}
+
+		Map<File, List<String>> newLinesByFile = new LinkedHashMap<>();
+		File[] files = directory.listFiles();
+		if (files == null){
+			return newLinesByFile;
+		}
+		Arrays.sort(files);
+
+		for (File file : files) {
+			if (file.isFile() && isResultsFile.test(file)){
+				List<String> newLines = readNewLines(file);
+				if (!newLines.isEmpty()){
+					newLinesByFile.put(file, newLines);
+				}
+			}
+		}
+		return newLinesByFile;
+	}
+
+
+	public long getMsSinceLastGrowth() {
+		return System.currentTimeMillis() - lastGrowthMs;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+
+	private List<String> readNewLines(File file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		long offset = fileOffsets.getOrDefault(file, 0L);
+		long fileSize = file.length();
+
+		if (fileSize < offset){
+			System.out.println("   Warning : " + file.getName() + " has been truncated or replaced while being followed. Following from its current end.");
+			fileOffsets.put(file, fileSize);
+			return lines;
+		}
+		if (fileSize == offset){
+			return lines;
+		}
+
+		Path filePath = file.toPath();
+		try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(fileSize - offset, MAX_READ_BYTES_PER_FILE));
+			while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+				// keep reading until the buffer is full or no more data
+			}
+			byte[] bytes = buffer.array();
+			int bytesRead = buffer.position();
+
+			int lastNewline = -1;
+			for (int i = bytesRead - 1; i >= 0; i--) {
+				if (bytes[i] == '\n'){
+					lastNewline = i;
+					break;
+				}
+			}
+			if (lastNewline < 0){
+				if (bytesRead == MAX_READ_BYTES_PER_FILE){
+					throw new IOException("a line longer than " + MAX_READ_BYTES_PER_FILE + " bytes found in " + file.getName());
+				}
+				return lines;   // only a partial line so far
+			}
+
+			int lineStart = 0;
+			for (int i = 0; i <= lastNewline; i++) {
+				if (bytes[i] == '\n'){
+					int lineEnd = (i > lineStart && bytes[i - 1] == '\r') ? i - 1 : i;
+					lines.add(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+					lineStart = i + 1;
+				}
+			}
+			fileOffsets.put(file, offset + lastNewline + 1);
+			lastGrowthMs = System.currentTimeMillis();
+		}
+		return lines;
+	}
+
+}
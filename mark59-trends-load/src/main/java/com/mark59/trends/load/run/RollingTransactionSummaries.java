@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.trends.application.AppConstantsTrends;
+import com.mark59.trends.data.beans.DateRangeBean;
+import com.mark59.trends.data.beans.TestTransaction;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
+
+/**
+ * Running per-transaction summaries of the samples loaded so far, used to publish provisional results while a test is
+ * still running (follow mode).  As for the summary of TESTTRANSACTIONS used for a completed run, response time
+ * statistics are for passed samples only, and percentiles are 'discrete' (nearest-rank).  The passed response times
+ * of each transaction are counted in a {@link TxnHistogram}, so memory use does not grow with the length of the test,
+ * and the provisional percentiles are within {@link TxnHistogram#RELATIVE_ACCURACY} of the exact values (the minimum
+ * and maximum are exact).
+ *
+ * <p>Only TRANSACTION samples are summarized.  Metric (CPU, memory, datapoint) samples are summarized when the run is
+ * finalised.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class RollingTransactionSummaries {
+
+	private final Map<String, RollingSummary> summaries = new LinkedHashMap<>();
+
+	private String earliestEpochTime;
+	private String latestEpochTime;
+
+
+	public void add(TestTransaction testTransaction) {
+		String epochTime = testTransaction.getTxnEpochTime();
+		if (epochTime != null){
+			if (earliestEpochTime == null || epochTime.compareTo(earliestEpochTime) < 0){
+				earliestEpochTime = epochTime;
+			}
+			if (latestEpochTime == null || epochTime.compareTo(latestEpochTime) > 0){
+				latestEpochTime = epochTime;
+			}
+		}
+
+		if (!Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(testTransaction.getTxnType())){
+			return;
+		}
+		String key = testTransaction.getTxnId() + "\t" + testTransaction.getIsCdpTxn();
+		summaries.computeIfAbsent(key, k -> new RollingSummary(testTransaction.getTxnId(), testTransaction.getIsCdpTxn()))
+				.add(testTransaction);
+	}
+
+
+	/**
+	 * @return false until a sample with a numeric timestamp has been added
+	 */
+	public boolean hasDateRange() {
+		return earliestEpochTime != null && earliestEpochTime.matches("\\d+") && latestEpochTime.matches("\\d+");
+	}
+
+
+	public DateRangeBean getDateRange() {
+		return new DateRangeBean(Long.valueOf(earliestEpochTime), Long.valueOf(latestEpochTime));
+	}
+
+
+	public List<Transaction> toTransactions(String application, String runTime) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (RollingSummary summary : summaries.values()) {
+			transactions.add(summary.toTransaction(application, runTime));
+		}
+		return transactions;
+	}
+
+
+	private static class RollingSummary {
+
+		private final String txnId;
+		private final String isCdpTxn;
+
+		private final TxnHistogram passedResults = new TxnHistogram();
+		private long passCount = 0;
+		private long failCount = 0;
+		private long stopCount = 0;
+		private double sum = 0.0;
+		private double sumOfSquares = 0.0;
+
+		RollingSummary(String txnId, String isCdpTxn) {
+			this.txnId = txnId;
+			this.isCdpTxn = isCdpTxn;
+		}
+
+		void add(TestTransaction testTransaction) {
+			if ("Y".equals(testTransaction.getTxnPassed())){
+				double result = testTransaction.getTxnResult().doubleValue();
+				passedResults.add(result);
+				passCount++;
+				sum += result;
+				sumOfSquares += result * result;
+			} else if ("N".equals(testTransaction.getTxnPassed())){
+				failCount++;
+			} else if (AppConstantsTrends.TXN_STOPPPED_STATUS.equals(testTransaction.getTxnPassed())){
+				stopCount++;
+			}
+		}
+
+		Transaction toTransaction(String application, String runTime) {
+			Transaction transaction = new Transaction();
+			transaction.setApplication(application);
+			transaction.setRunTime(runTime);
+			transaction.setTxnId(txnId);
+			transaction.setTxnType(Mark59Constants.DatabaseTxnTypes.TRANSACTION.name());
+			transaction.setIsCdpTxn(isCdpTxn);
+
+			double average = passCount == 0 ? 0.0 : sum / passCount;
+			double variance = passCount == 0 ? 0.0 : Math.max(0.0, sumOfSquares / passCount - average * average);
+
+			transaction.setTxnMinimum(percentile(0));
+			transaction.setTxnAverage(toBigDecimal(average));
+			transaction.setTxnMedian(percentile(50));
+			transaction.setTxnMaximum(percentile(100));
+			transaction.setTxnStdDeviation(toBigDecimal(Math.sqrt(variance)));
+			transaction.setTxn90th(percentile(90));
+			transaction.setTxn95th(percentile(95));
+			transaction.setTxn99th(percentile(99));
+			transaction.setTxnPass(passCount);
+			transaction.setTxnFail(failCount);
+			transaction.setTxnStop(stopCount);
+			transaction.setTxnFirst(BigDecimal.valueOf(-1.0));
+			transaction.setTxnLast(BigDecimal.valueOf(-1.0));
+			transaction.setTxnSum(BigDecimal.valueOf(-1.0));
+			transaction.setTxnDelay(new BigDecimal("0.0"));
+			return transaction;
+		}
+
+		private BigDecimal percentile(double percentile) {
+			return passCount == 0 ? toBigDecimal(0.0) : passedResults.getPercentile(percentile);
+		}
+
+		private BigDecimal toBigDecimal(double value) {
+			return BigDecimal.valueOf(value).setScale(6, RoundingMode.HALF_UP);
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.mark59.trends.data.beans.TestTransaction;
+import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAO;
+
+/**
+ * Inserts TestTransactions onto the TESTTRANSACTIONS table from separate writer thread(s), so a results file (or
+ * Loadrunner database) can be read while the previous batches are being inserted.
+ *
+ * <p>TestTransactions are collected into batches of {@link #BATCH_SIZE} (each batch is one multi-row insert, see
+ * {@link TestTransactionsDAO#insertMultiple(List)}), and full batches are handed to the writer threads through a bounded
+ * queue, so readers are held up if they get more than {@link #QUEUED_BATCHES} batches (per writer thread) ahead of the
+ * database.
+ *
+ * <p>The {@link #add(TestTransaction)} method is intended to be called from a single (reader) thread.  When several
+ * threads are reading (eg JMeter files loaded in parallel), each reader builds its own batches and passes them using
+ * {@link #addBatch(List)}, which is thread safe.  With a single writer thread batches are inserted in the order they
+ * are added.  Each writer thread uses its own database connection.
+ *
+ * <p>{@link #close()} must be called to insert the last partial batch and wait for all the inserts to complete.  A
+ * failed insert is re-thrown to the readers on their next add, or on close.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TestTransactionBatchWriter implements AutoCloseable {
+
+	public static final int BATCH_SIZE = 100;
+	public static final int QUEUED_BATCHES = 16;
+
+	private static final List<TestTransaction> END_OF_BATCHES = new ArrayList<>();
+
+	private final TestTransactionsDAO testTransactionsDAO;
+	private final BlockingQueue<List<TestTransaction>> batchQueue;
+	private final Thread[] writerThreads;
+
+	private volatile RuntimeException writeFailure;
+	private List<TestTransaction> batch = new ArrayList<>(BATCH_SIZE);
+	private boolean closed = false;
+
+
+	public TestTransactionBatchWriter(TestTransactionsDAO testTransactionsDAO) {
+		this(testTransactionsDAO, 1);
+	}
+
+
+	/**
+	 * @param testTransactionsDAO testTransactionsDAO
+	 * @param numberOfWriterThreads the number of threads inserting batches (at least one)
+	 */
+	public TestTransactionBatchWriter(TestTransactionsDAO testTransactionsDAO, int numberOfWriterThreads) {
+		this.testTransactionsDAO = testTransactionsDAO;
+		this.batchQueue = new ArrayBlockingQueue<>(QUEUED_BATCHES * Math.max(1, numberOfWriterThreads));
+		this.writerThreads = new Thread[Math.max(1, numberOfWriterThreads)];
+		for (int i = 0; i < writerThreads.length; i++) {
+			writerThreads[i] = new Thread(this::writeBatches, "mark59-testtransactions-writer-" + (i + 1));
+			writerThreads[i].setDaemon(true);
+			writerThreads[i].start();
+		}
+	}
+
+
+	/**
+	 * @param testTransaction a TestTransaction to be inserted (as part of a batch)
+	 */
+	public void add(TestTransaction testTransaction) {
+		if (writeFailure != null) {
+			throw writeFailure;
+		}
+		batch.add(testTransaction);
+		if (batch.size() >= BATCH_SIZE) {
+			queue(batch);
+			batch = new ArrayList<>(BATCH_SIZE);
+		}
+	}
+
+
+	/**
+	 * Thread safe.  The batch must not be changed by the caller once added.
+	 * @param testTransactions a batch of TestTransactions to be inserted together (an empty batch is ignored)
+	 */
+	public void addBatch(List<TestTransaction> testTransactions) {
+		if (writeFailure != null) {
+			throw writeFailure;
+		}
+		if (!testTransactions.isEmpty()) {
+			queue(testTransactions);
+		}
+	}
+
+
+	/**
+	 * Inserts the last partial batch, and waits for the writer threads to complete all the inserts
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (!batch.isEmpty()) {
+			queue(batch);
+			batch = new ArrayList<>();
+		}
+		try {
+			for (int i = 0; i < writerThreads.length; i++) {
+				batchQueue.put(END_OF_BATCHES);
+			}
+			for (Thread writerThread : writerThreads) {
+				writerThread.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted waiting for TestTransaction inserts to complete", e);
+		}
+		if (writeFailure != null) {
+			throw writeFailure;
+		}
+	}
+
+
+	private void queue(List<TestTransaction> testTransactions) {
+		try {
+			batchQueue.put(testTransactions);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted queuing TestTransactions for insert", e);
+		}
+	}
+
+
+	/*
+	 * After a failure the remaining batches are just drained, so the reader is never blocked on a full queue.
+	 */
+	private void writeBatches() {
+		try {
+			List<TestTransaction> testTransactions;
+			while ((testTransactions = batchQueue.take()) != END_OF_BATCHES) {
+				if (writeFailure == null) {
+					try {
+						testTransactionsDAO.insertMultiple(testTransactions);
+					} catch (RuntimeException e) {
+						writeFailure = e;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			writeFailure = new RuntimeException("TestTransaction writer thread interrupted", e);
+		}
+	}
+
+}
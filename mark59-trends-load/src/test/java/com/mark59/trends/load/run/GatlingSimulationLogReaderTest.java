@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class GatlingSimulationLogReaderTest extends TestCase {
+
+	@Test
+	public void testRequestFieldsAcrossWindowBoundaries() throws IOException {
+		StringBuilder log = new StringBuilder("RUN\tsimulations.Sim\tsim\t1622677317818\t \t3.6.1\r\n");
+		for (int i = 0; i < 50; i++) {
+			log.append("REQUEST\t\t\tGet Info ").append(i % 3).append("\t1622677319").append(100 + i).append("\t1622677319").append(300 + i)
+				.append(i % 2 == 0 ? "\tOK\t \r\n" : "\tko\tconnection timed out\n");
+		}
+		log.append("USER\tscenario\tEND\t1622677339411");
+		File simulationLog = writeLog(log.toString());
+
+		try (GatlingSimulationLogReader logReader = new GatlingSimulationLogReader(simulationLog, 100)) {
+			assertTrue(logReader.nextLine());
+			assertTrue(logReader.isRecordType("RUN"));
+			assertEquals("3.6.1", logReader.fields()[5]);
+
+			String firstLabel = null;
+			for (int i = 0; i < 50; i++) {
+				assertTrue(logReader.nextLine());
+				assertTrue(logReader.isRecordType("REQUEST"));
+				assertEquals(8, logReader.getFieldCount());
+				assertEquals("Get Info " + (i % 3), logReader.pooledField(3));
+				assertEquals(200, logReader.longField(5) - logReader.longField(4));
+				assertEquals(i % 2 == 1, logReader.fieldEqualsIgnoreCase(6, "KO"));
+				assertEquals(i % 2 == 0 ? " " : "connection timed out", logReader.field(7));
+				if (i == 0) {
+					firstLabel = logReader.pooledField(3);
+				} else if (i % 3 == 0) {
+					assertSame(firstLabel, logReader.pooledField(3));
+				}
+			}
+			assertTrue(logReader.nextLine());
+			assertTrue(logReader.isRecordType("USER"));
+			assertEquals("1622677339411", logReader.field(3));
+			assertEquals(52, logReader.getLineNumber());
+			assertFalse(logReader.nextLine());
+		}
+	}
+
+
+	@Test
+	public void testEmptyLinesAndFile() throws IOException {
+		try (GatlingSimulationLogReader logReader = new GatlingSimulationLogReader(writeLog(""))) {
+			assertFalse(logReader.nextLine());
+		}
+		try (GatlingSimulationLogReader logReader = new GatlingSimulationLogReader(writeLog("\n IGNORE_ME\t-5\n"))) {
+			assertTrue(logReader.nextLine());
+			assertEquals(1, logReader.getFieldCount());
+			assertEquals("", logReader.field(0));
+			assertTrue(logReader.nextLine());
+			assertTrue(logReader.isRecordType("IGNORE_ME"));
+			assertFalse(logReader.fieldStartsWith(0, "IGNORE"));
+			assertEquals(-5, logReader.longField(1));
+			assertFalse(logReader.nextLine());
+		}
+	}
+
+
+	@Test
+	public void testInvalidNumberAndMissingField() throws IOException {
+		try (GatlingSimulationLogReader logReader = new GatlingSimulationLogReader(writeLog("REQUEST\t12x4\n"))) {
+			assertTrue(logReader.nextLine());
+			try {
+				logReader.longField(1);
+				fail("expected NumberFormatException");
+			} catch (NumberFormatException e) {
+				// expected
+			}
+			try {
+				logReader.field(2);
+				fail("expected RuntimeException");
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage().contains("field position 2"));
+			}
+		}
+	}
+
+
+	private File writeLog(String content) throws IOException {
+		File simulationLog = File.createTempFile("simulation", ".log");
+		simulationLog.deleteOnExit();
+		Files.write(simulationLog.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return simulationLog;
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.trends.load.run;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.mark59.trends.application.AppConstantsTrends;
+
+
+/**
+ * Compares the cost of extracting the attributes Trend Analysis uses from JMeter XML results file sample lines, using
+ * the single pass {@link JmeterXmlSample#scan(String)} and using the previous extraction (a
+ * <code>StringUtils.substringBetween</code> search of the line for each attribute, with the time always parsed and
+ * divided as a BigDecimal).
+ *
+ * <p>Both approaches extract the label, data type, time, success and time stamp of each line, and convert the time of
+ * a transaction to seconds.  For each approach the benchmark prints the average time and (where the JVM supports it)
+ * the bytes allocated per line.  A plain main rather than a unit test, as the timings vary by machine.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class JmeterXmlSampleBenchmark {
+
+	private static final int WARMUP_PASSES = 200000;
+	private static final int MEASURED_PASSES = 1000000;
+
+	/* sample lines as written by JMeter : Mark59 transaction, metric and http sampler results */
+	private static final String[] SAMPLE_LINES = {
+		"<sample t=\"194\" it=\"0\" lt=\"0\" ct=\"0\" ts=\"1589526041321\" s=\"true\" lb=\"DH_lifecycle_0200_addPolicy\" rc=\"200\" "
+				+ "rm=\"PASS\" tn=\"DataHunter 1-1\" dt=\"\" by=\"0\" sby=\"0\" ng=\"1\" na=\"1\"/>",
+		"<sample t=\"2115\" it=\"0\" lt=\"0\" ct=\"0\" ts=\"1589526043417\" s=\"false\" lb=\"DH_lifecycle_0001_gotoDeleteMultiplePoliciesUrl\" "
+				+ "rc=\"-1\" rm=\"FAIL\" tn=\"DataHunterLifecycle 1-1\" dt=\"\" by=\"0\" sby=\"0\" ng=\"2\" na=\"5\"/>",
+		"<sample t=\"81\" it=\"0\" lt=\"0\" ct=\"0\" ts=\"1513135423296\" s=\"true\" lb=\"IDLE_CPU_SERVER01\" rc=\"200\" rm=\"PASS\" "
+				+ "tn=\"tgServer1 2-1\" dt=\"CPU_UTIL\" by=\"0\" sby=\"0\" ng=\"1\" na=\"2\"/>",
+		"<httpSample t=\"36\" it=\"0\" lt=\"36\" ct=\"0\" ts=\"1552881646177\" s=\"true\" lb=\"https://someDomain/WebQuoteAndBuy/\" "
+				+ "rc=\"200\" rm=\"OK\" tn=\"PROXY-webmarshal 1-1\" dt=\"text\" by=\"1718\" sby=\"187\" ng=\"1\" na=\"1\"/>"
+	};
+
+	private static long blackhole = 0;
+
+	private enum Approach {SUBSTRING_BETWEEN, SINGLE_PASS_SCAN}
+
+
+	private static void extractUsingSubstringBetween(String sampleLine) {
+		String label = StringUtils.substringBetween(sampleLine, " lb=\"", "\"");
+		String dataType = StringUtils.substringBetween(sampleLine, " dt=\"", "\"");
+		BigDecimal time = new BigDecimal(StringUtils.substringBetween(sampleLine, " t=\"", "\""));
+		String success = StringUtils.substringBetween(sampleLine, " s=\"", "\"");
+		String timeStamp = StringUtils.substringBetween(sampleLine, " ts=\"", "\"");
+		BigDecimal txnResult = time.divide(AppConstantsTrends.THOUSAND, 3, RoundingMode.HALF_UP);
+		consume(label, dataType, success, timeStamp, txnResult);
+	}
+
+
+	private static void extractUsingScan(JmeterXmlSample xmlSample, String sampleLine) {
+		xmlSample.scan(sampleLine);
+		BigDecimal txnResult = xmlSample.isTimeWholeMs() ? BigDecimal.valueOf(xmlSample.getTimeMs(), 3)
+				: xmlSample.getTime().divide(AppConstantsTrends.THOUSAND, 3, RoundingMode.HALF_UP);
+		consume(xmlSample.getLabel(), xmlSample.getDataType(), xmlSample.getSuccess(), xmlSample.getTimeStamp(), txnResult);
+	}
+
+
+	private static void consume(String label, String dataType, String success, String timeStamp, BigDecimal txnResult) {
+		blackhole += label.length() + dataType.length() + success.length() + timeStamp.length() + txnResult.scale();
+	}
+
+
+	private static void runPasses(Approach approach, JmeterXmlSample xmlSample, int passes) {
+		for (int pass = 0; pass < passes; pass++) {
+			for (String sampleLine : SAMPLE_LINES) {
+				if (approach == Approach.SUBSTRING_BETWEEN) {
+					extractUsingSubstringBetween(sampleLine);
+				} else {
+					extractUsingScan(xmlSample, sampleLine);
+				}
+			}
+		}
+	}
+
+
+	private static void runBenchmark(Approach approach) {
+		JmeterXmlSample xmlSample = new JmeterXmlSample();
+		runPasses(approach, xmlSample, WARMUP_PASSES);
+
+		long allocatedBytesAtStart = allocatedBytes();
+		long startNanos = System.nanoTime();
+		runPasses(approach, xmlSample, MEASURED_PASSES);
+		long elapsedNanos = System.nanoTime() - startNanos;
+		long allocatedBytes = allocatedBytes() - allocatedBytesAtStart;
+
+		long lines = (long)MEASURED_PASSES * SAMPLE_LINES.length;
+		System.out.println();
+		System.out.println(approach + " (" + lines + " sample lines)");
+		System.out.println("    ns / line               : " + String.format("%.1f", (double)elapsedNanos / lines));
+		if (allocatedBytesAtStart >= 0) {
+			System.out.println("    bytes allocated / line  : " + allocatedBytes / lines);
+		}
+	}
+
+
+	/**
+	 * @return bytes allocated by this thread so far, or -1 if the JVM does not report it
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Run the benchmark for the previous substringBetween extraction (before), then the single pass scan (after)
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		System.out.println("Java " + System.getProperty("java.version"));
+		runBenchmark(Approach.SUBSTRING_BETWEEN);
+		runBenchmark(Approach.SINGLE_PASS_SCAN);
+		System.out.println("\n(" + blackhole + ")");
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.load.run;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class JmeterXmlSampleTest extends TestCase {
+
+	@Test
+	public void testSampleLines() {
+		JmeterXmlSample xmlSample = new JmeterXmlSample();
+
+		xmlSample.scan("<sample t=\"194\" it=\"0\" lt=\"0\" ct=\"0\" ts=\"1589526041321\" s=\"true\" lb=\"DH_lifecycle_0200_addPolicy\" "
+				+ "rc=\"200\" rm=\"OK\" tn=\"DataHunter 1-1\" dt=\"\" de=\"\" by=\"0\" sby=\"0\" ng=\"1\" na=\"1\"/>");
+		assertEquals("DH_lifecycle_0200_addPolicy", xmlSample.getLabel());
+		assertEquals("", xmlSample.getDataType());
+		assertEquals("true", xmlSample.getSuccess());
+		assertEquals("1589526041321", xmlSample.getTimeStamp());
+		assertTrue(xmlSample.isTimeWholeMs());
+		assertEquals(194, xmlSample.getTimeMs());
+		assertEquals("OK", xmlSample.getResponseMessage());
+		assertEquals(new BigDecimal("0.194"), BigDecimal.valueOf(xmlSample.getTimeMs(), 3));
+
+		xmlSample.scan("<httpSample t=\"65\" lt=\"0\" ts=\"1589526041999\" s=\"false\" lb=\"CPU_localhost &amp; more\" rc=\"500\" tn=\"t 1-2\" "
+				+ "dt=\"CPU_UTIL\" by=\"0\">");
+		assertEquals("CPU_localhost &amp; more", xmlSample.getLabel());
+		assertEquals("CPU_UTIL", xmlSample.getDataType());
+		assertEquals("false", xmlSample.getSuccess());
+		assertEquals(new BigDecimal("65"), xmlSample.getTime());
+	}
+
+
+	@Test
+	public void testAttributesInValuesAndMissingAttributes() {
+		JmeterXmlSample xmlSample = new JmeterXmlSample().scan(
+				"<sample rm=\"message with t=12 and lb=x\" lb=\"label\" t=\"12.5\" s=\"true\"/>");
+		assertEquals("label", xmlSample.getLabel());
+		assertFalse(xmlSample.isTimeWholeMs());
+		assertEquals(new BigDecimal("12.5"), xmlSample.getTime());
+		assertEquals("message with t=12 and lb=x", xmlSample.getResponseMessage());
+		assertNull(xmlSample.getDataType());
+		assertNull(xmlSample.getTimeStamp());
+
+		xmlSample.scan("<sample/>");
+		assertNull(xmlSample.getLabel());
+		assertNull(xmlSample.getTime());
+		assertNull(xmlSample.getSuccess());
+		assertNull(xmlSample.getResponseMessage());
+
+		xmlSample.scan("<sample t=\"-5\" lb=\"\" ts=\"1\">");
+		assertEquals("", xmlSample.getLabel());
+		assertEquals(-5, xmlSample.getTimeMs());
+	}
+
+}
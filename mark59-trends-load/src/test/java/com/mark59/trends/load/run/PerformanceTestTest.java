@@ -1,5 +1,8 @@
 package com.mark59.trends.load.run;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import javax.sql.DataSource;
 
 import org.junit.Test;
@@ -19,6 +22,8 @@ import com.mark59.trends.data.application.dao.ApplicationDAO;
 import com.mark59.trends.data.application.dao.ApplicationDAOjdbcTemplateImpl;
 import com.mark59.trends.data.beans.DateRangeBean;
 import com.mark59.trends.data.beans.Run;
+import com.mark59.trends.data.beans.TestTransaction;
+import com.mark59.trends.data.beans.Transaction;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAO;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAOjdbcTemplateImpl;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
@@ -101,5 +106,75 @@ import junit.framework.TestCase;
 		assertTrue("N".equals(run.getBaselineRun()));
 		assertTrue("166666".equals(run.getDuration()));
 	}
+
+	@Test
+	public void testPerformanceTestLoadTimeWindowMatchesPostLoadFilterTest() {
+		LoadTimeWindow loadTimeWindow = new LoadTimeWindow();
+		loadTimeWindow.preScanSample("1600000300000");
+		loadTimeWindow.preScanSample("1600000000000");
+		loadTimeWindow.preScanSample(null);
+		loadTimeWindow.preScanSample("1600007200000");
+		assertTrue(loadTimeWindow.isPreScanDateRangeValid());
+		assertEquals(3L, loadTimeWindow.getPreScanSamples());
+
+		DateRangeBean runDateRange = loadTimeWindow.getPreScanDateRange();
+		assertEquals(Long.valueOf(1600000000000L), runDateRange.getRunStartTime());
+		assertEquals(Long.valueOf(1600007200000L), runDateRange.getRunEndTime());
+
+		// exclude the first 10 mins, then capture 60 mins
+		DateRangeBean filter = performanceTest.calculateTimeRangeFilter("10", "60", runDateRange);
+		assertTrue(filter.isFilterApplied());
+		assertEquals(Long.valueOf(1600000600000L), filter.getRunStartTime());
+		assertEquals(Long.valueOf(1600004200000L), filter.getRunEndTime());
+
+		loadTimeWindow.startWindowedLoad(filter);
+		assertFalse(loadTimeWindow.isPreScan());
+		assertFalse(loadTimeWindow.isWithinWindow("1600000599999"));
+		assertTrue(loadTimeWindow.isWithinWindow("1600000600000"));
+		assertTrue(loadTimeWindow.isWithinWindow("1600004200000"));
+		assertFalse(loadTimeWindow.isWithinWindow("1600004200001"));
+		assertTrue(loadTimeWindow.isWithinWindow(null));
+		assertEquals(2L, loadTimeWindow.getSamplesOutsideWindow());
+
+		assertFalse(performanceTest.isTimeRangeFilterRequested("0", "ALL"));
+		assertFalse(performanceTest.calculateTimeRangeFilter("0", "ALL", runDateRange).isFilterApplied());
+	}
+
+	@Test
+	public void testPerformanceTestRollingTransactionSummariesTest() {
+		RollingTransactionSummaries rollingSummaries = new RollingTransactionSummaries();
+		assertFalse(rollingSummaries.hasDateRange());
+		for (int i = 1; i <= 10; i++) {
+			rollingSummaries.add(sample("txn01", "TRANSACTION", "Y", String.valueOf(i), String.valueOf(1600000000000L + i)));
+		}
+		rollingSummaries.add(sample("txn01", "TRANSACTION", "N", "99", "1600000000020"));
+		rollingSummaries.add(sample("cpu_util", "CPU_UTIL", "Y", "50", "1600000000030"));
+		assertTrue(rollingSummaries.hasDateRange());
+		assertEquals(Long.valueOf(1600000000001L), rollingSummaries.getDateRange().getRunStartTime());
+		assertEquals(Long.valueOf(1600000000030L), rollingSummaries.getDateRange().getRunEndTime());
+
+		List<Transaction> transactions = rollingSummaries.toTransactions("testApplicationId", "202001010000");
+		assertEquals(1, transactions.size());
+		Transaction txn01 = transactions.get(0);
+		assertEquals(Long.valueOf(10L), txn01.getTxnPass());
+		assertEquals(Long.valueOf(1L), txn01.getTxnFail());
+		assertEquals(new BigDecimal("1.000000"), txn01.getTxnMinimum());
+		assertEquals(new BigDecimal("5.500000"), txn01.getTxnAverage());
+		assertEquals(new BigDecimal("5.000000"), txn01.getTxnMedian());
+		assertEquals(new BigDecimal("9.000000"), txn01.getTxn90th());
+		assertEquals(new BigDecimal("10.000000"), txn01.getTxn95th());
+		assertEquals(new BigDecimal("10.000000"), txn01.getTxnMaximum());
+	}
+
+	private TestTransaction sample(String txnId, String txnType, String txnPassed, String txnResult, String txnEpochTime) {
+		TestTransaction testTransaction = new TestTransaction();
+		testTransaction.setTxnId(txnId);
+		testTransaction.setTxnType(txnType);
+		testTransaction.setIsCdpTxn("N");
+		testTransaction.setTxnPassed(txnPassed);
+		testTransaction.setTxnResult(new BigDecimal(txnResult));
+		testTransaction.setTxnEpochTime(txnEpochTime);
+		return testTransaction;
+	}
 	
 }
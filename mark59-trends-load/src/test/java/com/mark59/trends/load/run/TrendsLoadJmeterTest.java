@@ -1,6 +1,12 @@
 package com.mark59.trends.load.run;
 
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -147,4 +153,86 @@ public class TrendsLoadJmeterTest extends TestCase {
 		}
 	}
 	
+
+
+	/**
+	 * The DataHunter results split over three files, loaded in parallel, should give the same run as the single file
+	 */
+	@Test
+	public void testTrendsLoadJMeterFilesLoadedInParallel() throws IOException {
+		List<String> lines = Files.readAllLines(new File("./src/test/resources/JmeterResultsDataHunterGeneral/DataHunterTestResults.csv").toPath(),
+				StandardCharsets.UTF_8);
+		Path splitResultsDir = Files.createTempDirectory("JmeterResultsDataHunterSplit");
+		int linesPerFile = (lines.size() - 1) / 3 + 1;
+		for (int fileNumber = 0; fileNumber < 3; fileNumber++) {
+			List<String> fileLines = new ArrayList<>();
+			fileLines.add(lines.get(0));
+			fileLines.addAll(lines.subList(1 + fileNumber * linesPerFile, Math.min(lines.size(), 1 + (fileNumber + 1) * linesPerFile)));
+			Path splitFile = splitResultsDir.resolve("DataHunterTestResults" + fileNumber + ".csv");
+			Files.write(splitFile, fileLines, StandardCharsets.UTF_8);
+			splitFile.toFile().deleteOnExit();
+		}
+		splitResultsDir.toFile().deleteOnExit();
+
+		TrendsLoad.parseArguments(new String[] { "-a", "DataHunter", "-i", splitResultsDir.toString(), "-d", Mark59Constants.H2MEM, "-s","trendsmem",
+				"-e","The operation lasted too long:|Test failed: text expected to contain|The result was the wrong size", "-j", "3" });
+		SpringApplication springApplication = new SpringApplication(TrendsLoad.class);
+		springApplication.setWebApplicationType(WebApplicationType.NONE);
+		springApplication.setBannerMode(Banner.Mode.OFF);
+		context = springApplication.run();
+
+		TrendsLoad trendsLoad = (TrendsLoad) context.getBean("trendsLoad");
+		PerformanceTest performanceTest = trendsLoad.getPerformanceTest();
+
+		Run run = performanceTest.getRunSummary();
+		assertEquals("1589526041321", StringUtils.substringBetween(run.getPeriod(), "[", ":" ).trim());
+		assertEquals("1589526121968", StringUtils.substringBetween(run.getPeriod(), ":", "]" ).trim());
+
+		String apprun = StringUtils.substringBefore(run.toString(), "isRunIgnored");
+
+		List<Transaction> transactions = performanceTest.getTransactionSummariesThisRun();
+		assertEquals(10, transactions.size() );
+		for (Transaction transaction : transactions) {
+			if ("DH_lifecycle_0200_addPolicy".equals(transaction.getTxnId())){
+				assertEquals (apprun +"txnId=DH_lifecycle_0200_addPolicy, txnType=TRANSACTION, isCdpTxn=N, txnMinimum=0.111, txnAverage=0.156, txnMedian=0.147,"
+						+ " txnMaximum=0.377, txn90th=0.194, txn95th=0.217, txn99th=0.350, txnPass=90, txnFail=1, txnStop=0, txnFirst=-1.000, txnLast=-1.000, txnSum=-1.000, txnDelay=0.200", transaction.toString());
+			}
+		}
+		assertEquals(7, performanceTest.getMetricTransactionSummariesThisRun().size() );
+	}
+
+
+	/**
+	 * JMeter format csv and xml files with passed nano-timed transactions, their nanosecond times carried in their response
+	 * messages.  The millisecond elapsed time of each nano-timed transaction is deliberately lower than its nanosecond time,
+	 * so the nanosecond time can be seen to have been used.
+	 */
+	@Test
+	public void testTrendsLoadJMeterNanoTimedTransactions() {
+		TrendsLoad.parseArguments(new String[] { "-a", "NanoTimed", "-i", "./src/test/resources/JmeterResultsNanoTimed", "-d", Mark59Constants.H2MEM, "-s","trendsmem" });
+		SpringApplication springApplication = new SpringApplication(TrendsLoad.class);
+		springApplication.setWebApplicationType(WebApplicationType.NONE);
+		springApplication.setBannerMode(Banner.Mode.OFF);
+		context = springApplication.run();
+
+		TrendsLoad trendsLoad = (TrendsLoad) context.getBean("trendsLoad");
+		PerformanceTest performanceTest = trendsLoad.getPerformanceTest();
+
+		List<Transaction> transactions = performanceTest.getTransactionSummariesThisRun();
+		assertEquals(3, transactions.size() );
+		for (Transaction transaction : transactions) {
+			if ("NT_0100_csv".equals(transaction.getTxnId())){
+				assertEquals("0.002600", transaction.getTxnMaximum().toPlainString());	// 2600000 nanos (2 ms)
+			} else if ("NT_0200_csv_ms_only".equals(transaction.getTxnId())){
+				assertEquals("0.002000", transaction.getTxnMaximum().toPlainString());
+			} else if ("NT_0300_xml".equals(transaction.getTxnId())){
+				assertEquals("0.004700", transaction.getTxnMaximum().toPlainString());	// 4700000 nanos (4 ms)
+			} else {
+				fail("unexpectedTransaction: " + transaction.getTxnId() );
+			}
+			assertEquals(1L, transaction.getTxnPass().longValue());
+		}
+		assertEquals(0, performanceTest.getMetricTransactionSummariesThisRun().size() );
+	}
+
 }
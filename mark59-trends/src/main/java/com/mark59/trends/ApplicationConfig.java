@@ -23,15 +23,26 @@ import org.h2.tools.Server;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.mark59.trends.data.application.dao.ApplicationDAO;
 import com.mark59.trends.data.application.dao.ApplicationDAOjdbcTemplateImpl;
+import com.mark59.trends.data.catalogue.dao.TransactionCatalogueDAO;
+import com.mark59.trends.data.catalogue.dao.TransactionCatalogueDAOjdbcTemplateImpl;
+import com.mark59.trends.data.copy.dao.ApplicationCopyDAO;
+import com.mark59.trends.data.copy.dao.ApplicationCopyDAOjdbcTemplateImpl;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAO;
 import com.mark59.trends.data.eventMapping.dao.EventMappingDAOjdbcTemplateImpl;
+import com.mark59.trends.data.export.dao.TrendsExportDAO;
+import com.mark59.trends.data.export.dao.TrendsExportDAOjdbcTemplateImpl;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAOjdbcTemplateImpl;
 import com.mark59.trends.data.metricSla.dao.MetricSlaDAO;
 import com.mark59.trends.data.metricSla.dao.MetricSlaDAOjdbcImpl;
+import com.mark59.trends.data.purge.dao.PurgeDAO;
+import com.mark59.trends.data.purge.dao.PurgeDAOjdbcTemplateImpl;
+import com.mark59.trends.data.rename.dao.TransactionRenameDAO;
+import com.mark59.trends.data.rename.dao.TransactionRenameDAOjdbcTemplateImpl;
 import com.mark59.trends.data.run.dao.RunDAO;
 import com.mark59.trends.data.run.dao.RunDAOjdbcTemplateImpl;
 import com.mark59.trends.data.sla.dao.SlaDAO;
@@ -40,8 +51,16 @@ import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAO;
 import com.mark59.trends.data.testTransactions.dao.TestTransactionsDAOjdbcTemplateImpl;
 import com.mark59.trends.data.transaction.dao.TransactionDAO;
 import com.mark59.trends.data.transaction.dao.TransactionDAOjdbcTemplateImpl;
+import com.mark59.trends.catalogue.TransactionCatalogue;
+import com.mark59.trends.catalogue.TransactionCatalogueInterface;
+import com.mark59.trends.copy.ApplicationCopy;
+import com.mark59.trends.copy.ApplicationCopyInterface;
 import com.mark59.trends.graphic.data.VisGraphicDataProduction;
 import com.mark59.trends.graphic.data.VisGraphicDataProductionInterface;
+import com.mark59.trends.purge.RunPurge;
+import com.mark59.trends.purge.RunPurgeInterface;
+import com.mark59.trends.rename.TransactionBulkRename;
+import com.mark59.trends.rename.TransactionBulkRenameInterface;
 import com.mark59.trends.slaIcons.SlaIconColourCodes;
 import com.mark59.trends.slaIcons.SlaIconColourCodesInterface;
 
@@ -58,6 +77,7 @@ import com.mark59.trends.slaIcons.SlaIconColourCodesInterface;
  * Written: Australian Autumn 2020  
  */
 @Configuration
+@EnableScheduling
 public class ApplicationConfig {
 
     @Value("${spring.profiles.active}")
@@ -117,6 +137,51 @@ public class ApplicationConfig {
         return new TestTransactionsDAOjdbcTemplateImpl();
     }
     
+    @Bean
+    TrendsExportDAO trendsExportDAO() {
+        return new TrendsExportDAOjdbcTemplateImpl();
+    }
+    
+    @Bean
+    PurgeDAO purgeDAO() {
+        return new PurgeDAOjdbcTemplateImpl();
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    RunPurgeInterface runPurge() {
+        return new RunPurge();
+    }
+    
+    @Bean
+    TransactionCatalogueDAO transactionCatalogueDAO() {
+        return new TransactionCatalogueDAOjdbcTemplateImpl();
+    }
+    
+    @Bean
+    TransactionCatalogueInterface transactionCatalogue() {
+        return new TransactionCatalogue();
+    }
+    
+    @Bean
+    ApplicationCopyDAO applicationCopyDAO() {
+        return new ApplicationCopyDAOjdbcTemplateImpl();
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    ApplicationCopyInterface applicationCopy() {
+        return new ApplicationCopy();
+    }
+    
+    @Bean
+    TransactionRenameDAO transactionRenameDAO() {
+        return new TransactionRenameDAOjdbcTemplateImpl();
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    TransactionBulkRenameInterface transactionBulkRename() {
+        return new TransactionBulkRename();
+    }
+    
     @Bean
     VisGraphicDataProductionInterface visGraphicDataProduction() {
         return new VisGraphicDataProduction();
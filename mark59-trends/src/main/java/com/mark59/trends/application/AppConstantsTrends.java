@@ -51,6 +51,7 @@ public class AppConstantsTrends {
 	public static final String DEFAULT_01	= "1";	
 	public static final String ALL		 	= "All";
 	public static final BigDecimal THOUSAND = new BigDecimal(1000);  
+	public static final BigDecimal BILLION  = new BigDecimal(1000000000);
 	
 	public static final String ACTIVE  		= "Active";
 	
@@ -63,10 +64,15 @@ public class AppConstantsTrends {
 	
 	public static final String RUN_TIME_YET_TO_BE_CALCULATED	= "000000000000";
 	public static final String NO_ARGUMENT_PASSED 	 		 	= "No argument passed.";
+	public static final String RUN_IN_PROGRESS	 		 		= "IN PROGRESS";
 	
 	public static final String JMETER_IGNORED_TXNS		= "IGNORE";  
 	public static final String TXN_STOPPPED_STATUS	 	= "Stop";
 	
+	public static final String EXPORT_FORMAT_JSON	= "json";
+	public static final String EXPORT_FORMAT_CSV	= "csv";
+	public static final String ALLOWED_CHARS_RUN_TIME = "^\\d{12}$";
+
 	public static final String APPLY_TO_NEW_SLAS_ONLY 	= "New SLAs only";  	
 	public static final String APPLY_TO_ALL_SLAS	  	= "All SLAs";  	
 	
@@ -0,0 +1,228 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.catalogue;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.mark59.trends.data.beans.Run;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.catalogue.dao.TransactionCatalogueDAO;
+
+/**
+ * An in-memory catalogue of the transactions (txn id, type and CDP flag) of each application, and of its runs with CDP
+ * transactions.  It answers the questions the selection screens ask on each page load without the DISTINCT / COUNT
+ * scans over all the TRANSACTION rows of the application that the equivalent DAO methods use.
+ *
+ * <p>Each request reads the runs of the application from RUNS (a primary key range), and the catalogue is kept up to
+ * date from that:
+ * <ul>
+ * <li>runs not yet in the catalogue (eg loaded by trends-load) are summarised and merged into it</li>
+ * <li>the most recent run is always summarised afresh, as it may still be loading (eg trends-load follow mode)</li>
+ * <li>when a catalogued run has gone (deleted or purged), the catalogue of the application is rebuilt</li>
+ * <li>controllers that change transactions without changing runs (renames, copies) invalidate the application</li>
+ * <li>as a backstop (eg a run reloaded with the same run time), a catalogue is rebuilt once it is
+ * <code>mark59.trends.catalogue.rebuild.ms</code> old</li>
+ * </ul>
+ * Run flags (eg 'ignored') are always taken from the RUNS rows just read, so run edits need no invalidation.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionCatalogue implements TransactionCatalogueInterface {
+
+	/** with more new runs than this the catalogue is rebuilt, rather than extended */
+	static final int MAX_RUNS_ADDED_INCREMENTALLY = 200;
+
+	private static final Comparator<Transaction> TRANSACTION_LIST_ORDER =
+			Comparator.comparing(Transaction::getTxnType, String.CASE_INSENSITIVE_ORDER).reversed()
+				.thenComparing(Transaction::getTxnId, String.CASE_INSENSITIVE_ORDER)
+				.thenComparing(Transaction::getTxnId)
+				.thenComparing(Transaction::getIsCdpTxn);
+
+	@Autowired
+	TransactionCatalogueDAO transactionCatalogueDAO;
+
+	@Value("${mark59.trends.catalogue.rebuild.ms:600000}")
+	private long rebuildMs = 600000L;
+
+	private final Map<String, CatalogueEntry> catalogue = new ConcurrentHashMap<>();
+	private final Map<String, Object> applicationLocks = new ConcurrentHashMap<>();
+
+
+	/**
+	 * The catalogue of the runs of an application, other than the most recent run at the time it was built.  Not
+	 * changed once built (an update creates a new entry), so it can be read without locking.
+	 */
+	static class CatalogueEntry {
+		final Set<String> runTimes;
+		final Map<String, Transaction> transactions;      // keyed by txn type, CDP flag and txn id
+		final Set<String> runsWithCdpTxns;
+		final long builtAtMs;
+
+		CatalogueEntry(Set<String> runTimes, Map<String, Transaction> transactions, Set<String> runsWithCdpTxns, long builtAtMs) {
+			this.runTimes = runTimes;
+			this.transactions = transactions;
+			this.runsWithCdpTxns = runsWithCdpTxns;
+			this.builtAtMs = builtAtMs;
+		}
+	}
+
+
+	/**
+	 * Same content and order as TransactionDAO.getUniqueListOfTransactionsByType
+	 */
+	@Override
+	public List<Transaction> getUniqueListOfTransactionsByType(String application) {
+		List<Run> runsMostRecentFirst = transactionCatalogueDAO.findRunsMostRecentFirst(application);
+		Map<String, Transaction> transactions = new HashMap<>(catalogueEntry(application, runsMostRecentFirst).transactions);
+		if (!runsMostRecentFirst.isEmpty()) {
+			mergeTransactions(transactions, transactionCatalogueDAO.summariseTransactions(application,
+					List.of(runsMostRecentFirst.get(0).getRunTime()), null));
+		}
+
+		List<Transaction> transactionList = new ArrayList<>(transactions.size());
+		for (Transaction catalogued : transactions.values()) {
+			Transaction transactionKey = new Transaction();
+			transactionKey.setApplication(application);
+			transactionKey.setTxnId(catalogued.getTxnId());
+			transactionKey.setTxnType(catalogued.getTxnType());
+			transactionKey.setIsCdpTxn(catalogued.getIsCdpTxn());
+			transactionKey.setRunTime(catalogued.getRunTime());
+			transactionKey.setTxnPass(catalogued.getTxnPass());   // number of runs with the transaction
+			try {
+				transactionKey.setTxnIdURLencoded(URLEncoder.encode(transactionKey.getTxnId(), "UTF-8")) ;
+			} catch (UnsupportedEncodingException e) {
+				System.out.println("TransactionCatalogue UnsupportedEncodingException (" + transactionKey.getTxnId() + ") " + e.getMessage());
+			}
+			transactionList.add(transactionKey);
+		}
+		transactionList.sort(TRANSACTION_LIST_ORDER);
+		return transactionList;
+	}
+
+
+	/**
+	 * Same as TransactionDAO.countRunsWithCdpTransactions (runs not ignored, with a CDP transaction of the TRANSACTION type)
+	 */
+	@Override
+	public long countRunsWithCdpTransactions(String application) {
+		List<Run> runsMostRecentFirst = transactionCatalogueDAO.findRunsMostRecentFirst(application);
+		Set<String> runsWithCdpTxns = catalogueEntry(application, runsMostRecentFirst).runsWithCdpTxns;
+		long runsWithCdpTxnsCount = 0;
+		for (int i = 0; i < runsMostRecentFirst.size(); i++) {
+			Run run = runsMostRecentFirst.get(i);
+			if (!"Y".equals(run.getIsRunIgnored())) {
+				boolean hasCdpTxns = i == 0
+						? !transactionCatalogueDAO.findRunsWithCdpTransactions(application, List.of(run.getRunTime()), null).isEmpty()
+						: runsWithCdpTxns.contains(run.getRunTime());
+				if (hasCdpTxns) {
+					runsWithCdpTxnsCount++;
+				}
+			}
+		}
+		return runsWithCdpTxnsCount;
+	}
+
+
+	@Override
+	public void invalidate(String application) {
+		catalogue.remove(application);
+	}
+
+
+	/**
+	 * @return the catalogue of all but the most recent of the runs, built, extended or rebuilt as needed
+	 */
+	CatalogueEntry catalogueEntry(String application, List<Run> runsMostRecentFirst) {
+		String mostRecentRunTime = runsMostRecentFirst.isEmpty() ? null : runsMostRecentFirst.get(0).getRunTime();
+		Set<String> runTimes = new HashSet<>();
+		for (int i = 1; i < runsMostRecentFirst.size(); i++) {
+			runTimes.add(runsMostRecentFirst.get(i).getRunTime());
+		}
+
+		synchronized (applicationLocks.computeIfAbsent(application, k -> new Object())) {
+			CatalogueEntry entry = catalogue.get(application);
+			if (entry != null && entry.runTimes.equals(runTimes) && System.currentTimeMillis() - entry.builtAtMs <= rebuildMs) {
+				return entry;
+			}
+			Set<String> newRunTimes = new HashSet<>(runTimes);
+			if (entry != null) {
+				newRunTimes.removeAll(entry.runTimes);
+			}
+			if (entry == null || !runTimes.containsAll(entry.runTimes) || System.currentTimeMillis() - entry.builtAtMs > rebuildMs
+					|| newRunTimes.size() > MAX_RUNS_ADDED_INCREMENTALLY) {
+				entry = addRuns(application, new CatalogueEntry(Set.of(), Map.of(), Set.of(), System.currentTimeMillis()),
+						null, mostRecentRunTime, runTimes);
+			} else {
+				entry = addRuns(application, entry, newRunTimes, null, runTimes);
+			}
+			catalogue.put(application, entry);
+			return entry;
+		}
+	}
+
+
+	/**
+	 * @param newRunTimes the runs to add (null for all runs before the beforeRunTime)
+	 * @return a copy of the entry with the runs added
+	 */
+	private CatalogueEntry addRuns(String application, CatalogueEntry entry, Collection<String> newRunTimes, String beforeRunTime,
+			Set<String> runTimes) {
+		Map<String, Transaction> transactions = new HashMap<>(entry.transactions);
+		mergeTransactions(transactions, transactionCatalogueDAO.summariseTransactions(application, newRunTimes, beforeRunTime));
+
+		Set<String> runsWithCdpTxns = new HashSet<>(entry.runsWithCdpTxns);
+		runsWithCdpTxns.addAll(transactionCatalogueDAO.findRunsWithCdpTransactions(application, newRunTimes, beforeRunTime));
+		return new CatalogueEntry(runTimes, transactions, runsWithCdpTxns, entry.builtAtMs);
+	}
+
+
+	/**
+	 * Adds the summaries to the map, combining summaries of the same transaction (latest run time, total number of runs)
+	 */
+	static void mergeTransactions(Map<String, Transaction> transactions, Collection<Transaction> summaries) {
+		for (Transaction summary : summaries) {
+			String key = summary.getTxnType() + ":" + summary.getIsCdpTxn() + ":" + summary.getTxnId();
+			Transaction existing = transactions.get(key);
+			if (existing == null) {
+				transactions.put(key, summary);
+			} else {
+				Transaction merged = new Transaction();
+				merged.setTxnId(existing.getTxnId());
+				merged.setTxnType(existing.getTxnType());
+				merged.setIsCdpTxn(existing.getIsCdpTxn());
+				merged.setRunTime(existing.getRunTime().compareTo(summary.getRunTime()) >= 0 ? existing.getRunTime() : summary.getRunTime());
+				merged.setTxnPass(existing.getTxnPass() + summary.getTxnPass());
+				transactions.put(key, merged);
+			}
+		}
+	}
+
+}
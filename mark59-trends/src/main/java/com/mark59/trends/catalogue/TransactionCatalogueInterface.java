@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.catalogue;
+
+import java.util.List;
+
+import com.mark59.trends.data.beans.Transaction;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ *
+ * Interface to allow Spring Injection for TransactionCatalogue
+ */
+public interface TransactionCatalogueInterface {
+
+	public List<Transaction> getUniqueListOfTransactionsByType(String application);
+
+	public long countRunsWithCdpTransactions(String application);
+
+	public void invalidate(String application);
+
+}
@@ -37,6 +37,7 @@ import org.springframework.web.servlet.ModelAndView;
 
 import com.mark59.trends.application.AppConstantsTrends;
 import com.mark59.trends.application.UtilsTrends;
+import com.mark59.trends.copy.ApplicationCopyInterface;
 import com.mark59.trends.data.application.dao.ApplicationDAO;
 import com.mark59.trends.data.beans.Application;
 import com.mark59.trends.data.metricSla.dao.MetricSlaDAO;
@@ -45,6 +46,7 @@ import com.mark59.trends.data.sla.dao.SlaDAO;
 import com.mark59.trends.data.transaction.dao.TransactionDAO;
 import com.mark59.trends.form.ApplicationDashboardEntry;
 import com.mark59.trends.form.CopyApplicationForm;
+import com.mark59.trends.purge.RunPurgeInterface;
 
 
 /**
@@ -70,6 +72,12 @@ public class ApplicationController {
 	@Autowired
 	TransactionDAO transactionDAO;
 
+	@Autowired
+	RunPurgeInterface runPurge;
+
+	@Autowired
+	ApplicationCopyInterface applicationCopy;
+
 
 	@GetMapping("/dashboard")
 	public ModelAndView dashboard(@RequestParam(required=false) String reqAppListSelector) {
@@ -169,23 +177,34 @@ public class ApplicationController {
 			return new ModelAndView("copyApplication", "map", map);
 		}
 
-		try {
-			applicationDAO.duplicateEntireApplication(reqApp, copyApplicationForm.getReqToApp());
-		} catch (Exception e) {
-			map.put("reqErr", "The attempt to copy Application '" + reqApp + "' to '" + copyApplicationForm.getReqToApp() + "' has failed."
-					+ "<p>The database may be of been left in an invalid or partially completed state for Application "
-					+ copyApplicationForm.getReqToApp() + "."
-					+ "<p>Please review the error message below, the Trends application log if necessary, and if possible or after "
-					+ "correction re-attempt the copy."
-					+ "<p>Database tables that may be affected (in the order the copy is attempted) : APPLICATIONS, RUNS, TRANSACTION,"
-					+ " SLA, METRICSLA."
-					+ "<p> Error Msg : " + e.getMessage());
-			System.out.println("duplicateEntireApplication: fromApp " + reqApp + ", toApp " + copyApplicationForm.getReqToApp() + " failed") ;
-			e.printStackTrace();
+		if (applicationCopy.isCopyInProgress(copyApplicationForm.getReqToApp())){
+			map.put("reqErr","<b>A copy to "+copyApplicationForm.getReqToApp()+" is already in progress</b>");
 			return new ModelAndView("copyApplication", "map", map);
 		}
 
-		return "redirect:/editApplication?reqApp="+copyApplicationForm.getReqToApp()+"&reqAppListSelector=";
+		applicationCopy.submitApplicationCopy(reqApp, copyApplicationForm.getReqToApp());
+		return "redirect:/applicationCopyProgress?reqAppListSelector=" + reqAppListSelector;
+	}
+
+
+	@GetMapping("/applicationCopyProgress")
+	public ModelAndView applicationCopyProgress(@RequestParam(required = false) String reqAppListSelector) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("reqAppListSelector",reqAppListSelector);
+		map.put("copyProgressList", applicationCopy.getCopyProgress());
+		map.put("allFinished", applicationCopy.getCopyProgress().stream().allMatch(p -> p.isFinished()));
+		return new ModelAndView("applicationCopyProgress", "map", map);
+	}
+
+
+	@GetMapping("/resumeApplicationCopy")
+	public String resumeApplicationCopy(@RequestParam String reqApp, @RequestParam String reqToApp,
+			@RequestParam(required = false) String reqAppListSelector) {
+		Application existingToApp = applicationDAO.findApplication(reqToApp);
+		if (StringUtils.isEmpty(existingToApp.getApplication()) && !applicationCopy.isCopyInProgress(reqToApp)){
+			applicationCopy.submitApplicationCopy(reqApp, reqToApp);
+		}
+		return "redirect:/applicationCopyProgress?reqAppListSelector=" + reqAppListSelector;
 	}
 
 
@@ -200,7 +219,7 @@ public class ApplicationController {
 	@GetMapping("/deleteApplication")
 	public String deleteApplication(@RequestParam String reqApp) {
 		System.out.println("deleting all application data for: " + reqApp  );
-		runDAO.deleteAllForApplication(reqApp);
+		runPurge.submitApplicationPurge(reqApp);
 		return "redirect:/dashboard?reqAppListSelector=All";
 	}
 
@@ -33,6 +33,7 @@ import org.springframework.web.servlet.ModelAndView;
 
 import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.run.dao.RunDAO;
+import com.mark59.trends.purge.RunPurgeInterface;
 
 /**
  * @author Philip Webb
@@ -45,6 +46,9 @@ public class RunsController {
 	@Autowired
 	RunDAO  runDAO; 	
 
+	@Autowired
+	RunPurgeInterface runPurge;
+
 	@GetMapping("/runsList")
 	public ModelAndView runsList(@RequestParam(required=false) String reqApp) {
 		List<String> applicationList = populateApplicationDropdown();
@@ -91,7 +95,7 @@ public class RunsController {
 	@GetMapping("/deleteRun")
 	public String deleteRun(@RequestParam String reqApp, @RequestParam String runTime) {
 		System.out.println("deleting run for application: " + reqApp  + ", runtime: " +  runTime);
-		runDAO.deleteRun(reqApp, runTime ) ;	
+		runPurge.submitRunPurge(reqApp, runTime);	
 		return "redirect:/runsList?reqApp=" + reqApp;
 	}
 
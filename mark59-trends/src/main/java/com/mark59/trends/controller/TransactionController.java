@@ -17,10 +17,13 @@
 package com.mark59.trends.controller;
 
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,9 +34,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.HtmlUtils;
 
 import com.mark59.core.utils.Mark59Constants;
 import com.mark59.trends.application.UtilsTrends;
+import com.mark59.trends.catalogue.TransactionCatalogueInterface;
 import com.mark59.trends.data.beans.MetricSla;
 import com.mark59.trends.data.beans.Sla;
 import com.mark59.trends.data.beans.Transaction;
@@ -41,7 +46,12 @@ import com.mark59.trends.data.metricSla.dao.MetricSlaDAO;
 import com.mark59.trends.data.run.dao.RunDAO;
 import com.mark59.trends.data.sla.dao.SlaDAO;
 import com.mark59.trends.data.transaction.dao.TransactionDAO;
+import com.mark59.trends.form.TransactionBulkRenameForm;
 import com.mark59.trends.form.TransactionRenameForm;
+import com.mark59.trends.rename.TransactionBulkRename;
+import com.mark59.trends.rename.TransactionBulkRenameInterface;
+import com.mark59.trends.rename.TransactionBulkRenameValidation;
+import com.mark59.trends.rename.TransactionRename;
 
 /**
  * @author Philip Webb
@@ -59,6 +69,10 @@ public class TransactionController {
 	SlaDAO slaDAO;
 	@Autowired
 	MetricSlaDAO metricSlaDAO;
+	@Autowired
+	TransactionBulkRenameInterface transactionBulkRename;
+	@Autowired
+	TransactionCatalogueInterface transactionCatalogue;
 
 
 	@GetMapping("/transactionList")
@@ -68,7 +82,7 @@ public class TransactionController {
 			// when no application request parameter has been sent, take the first application
 			reqApp = applicationList.get(0);
 		}
-		List<Transaction> transactionList = transactionDAO.getUniqueListOfTransactionsByType(reqApp);
+		List<Transaction> transactionList = transactionCatalogue.getUniqueListOfTransactionsByType(reqApp);
 
 		Map<String, Object> map = new HashMap<>();
 		map.put("applications",applicationList);
@@ -201,6 +215,7 @@ public class TransactionController {
 											transactionRenameForm.getToTxnId(),
 											transactionRenameForm.getFromIsCdpTxn(),
 											transactionRenameForm.getToIsCdpTxn());
+		transactionCatalogue.invalidate(transactionRenameForm.getApplication());
 
 		if (Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(transactionRenameForm.getTxnType())){
 
@@ -237,6 +252,134 @@ public class TransactionController {
 	}
 
 
+	@GetMapping("/transactionBulkRenameDataEntry")
+	public Object transactionBulkRenameDataEntry(@RequestParam String reqApp, @RequestParam(required=false) String reqTxnType,
+			@ModelAttribute TransactionBulkRenameForm transactionBulkRenameForm  ) {
+		transactionBulkRenameForm.setApplication(reqApp);
+		transactionBulkRenameForm.setTxnType(StringUtils.defaultIfBlank(reqTxnType, Mark59Constants.DatabaseTxnTypes.TRANSACTION.name()));
+		transactionBulkRenameForm.setRenameMode(TransactionBulkRenameForm.MAPPING);
+
+		Map<String, Object> map = createMapOfDropdowns();
+		map.put("txnTypes", Mark59Constants.DatabaseTxnTypes.listOfDatabaseTxnTypes());
+		map.put("transactionBulkRenameForm", transactionBulkRenameForm);
+		return new ModelAndView("transactionBulkRenameDataEntry",  "map", map);
+	}
+
+
+	@PostMapping("/transactionBulkRenameValidate")
+	public Object transactionBulkRenameValidate(@ModelAttribute TransactionBulkRenameForm transactionBulkRenameForm){
+		System.out.println("@ transactionBulkRenameValidate : Form=" + transactionBulkRenameForm  );
+		if (transactionBulkRenameForm.getMappingFile() != null && !transactionBulkRenameForm.getMappingFile().isEmpty()) {
+			try {
+				transactionBulkRenameForm.setMappings(new String(transactionBulkRenameForm.getMappingFile().getBytes(), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				transactionBulkRenameForm.setPassedValidation("N");
+				transactionBulkRenameForm.setValidationMsg("<p style='color:red'>Unable to read the mapping file : " + HtmlUtils.htmlEscape(e.getMessage()) + "</p>");
+				return new ModelAndView("transactionBulkRenameValidate", "transactionBulkRenameForm" , transactionBulkRenameForm  );
+			}
+		}
+		validateBulkRename(transactionBulkRenameForm);
+		return new ModelAndView("transactionBulkRenameValidate", "transactionBulkRenameForm" , transactionBulkRenameForm  );
+	}
+
+
+	@PostMapping("/transactionBulkRenameApply")
+	public Object transactionBulkRenameApply(@ModelAttribute TransactionBulkRenameForm transactionBulkRenameForm){
+
+		// validate again, as the transactions may have changed since the rename was validated
+		TransactionBulkRenameValidation validation = validateBulkRename(transactionBulkRenameForm);
+		if (validation == null || !validation.isValid()) {
+			return new ModelAndView("transactionBulkRenameValidate", "transactionBulkRenameForm" , transactionBulkRenameForm  );
+		}
+		transactionBulkRename.submitBulkRename(transactionBulkRenameForm.getApplication(), transactionBulkRenameForm.getTxnType(), validation);
+		return "redirect:/transactionBulkRenameProgress?reqApp=" + transactionBulkRenameForm.getApplication()   ;
+	}
+
+
+	@GetMapping("/transactionBulkRenameProgress")
+	public ModelAndView transactionBulkRenameProgress(@RequestParam(required=false) String reqApp) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("reqApp", reqApp);
+		map.put("renameProgressList", transactionBulkRename.getBulkRenameProgress());
+		map.put("allFinished", transactionBulkRename.getBulkRenameProgress().stream().allMatch(p -> p.isFinished()));
+		return new ModelAndView("transactionBulkRenameProgress", "map", map);
+	}
+
+
+	/**
+	 * Sets the validation outcome (and a message listing the renames, errors and warnings) on the form
+	 * @return the validation, or null if the renames could not be derived from the form
+	 */
+	private TransactionBulkRenameValidation validateBulkRename(TransactionBulkRenameForm transactionBulkRenameForm) {
+		String application = transactionBulkRenameForm.getApplication();
+		String txnType = transactionBulkRenameForm.getTxnType();
+		List<String> parseErrors = new ArrayList<>();
+		List<TransactionRename> requestedRenames;
+
+		if (TransactionBulkRenameForm.REGEX.equals(transactionBulkRenameForm.getRenameMode())) {
+			if (StringUtils.isEmpty(transactionBulkRenameForm.getRegex())) {
+				parseErrors.add("A regular expression is required");
+				requestedRenames = new ArrayList<>();
+			} else {
+				try {
+					requestedRenames = transactionBulkRename.renamesMatchingRegex(application, txnType,
+							transactionBulkRenameForm.getRegex(), transactionBulkRenameForm.getReplacement());
+				} catch (PatternSyntaxException | IndexOutOfBoundsException e) {   // bad regex, or a bad group reference in the replacement
+					parseErrors.add("Invalid regular expression or replacement : " + e.getMessage());
+					requestedRenames = new ArrayList<>();
+				}
+			}
+		} else {
+			requestedRenames = TransactionBulkRename.parseMappings(transactionBulkRenameForm.getMappings(), parseErrors);
+		}
+
+		if (!parseErrors.isEmpty()) {
+			transactionBulkRenameForm.setPassedValidation("N");
+			transactionBulkRenameForm.setValidationMsg("<p style='color:red'><b>Invalid Bulk Rename.</b></p>" + htmlList(parseErrors, "red"));
+			return null;
+		}
+
+		TransactionBulkRenameValidation validation = transactionBulkRename.validate(application, txnType, requestedRenames);
+		System.out.println("@ transactionBulkRenameValidate : " + validation);
+		boolean isTransactionType = Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(txnType);
+
+		StringBuilder msg = new StringBuilder();
+		if (!validation.getErrors().isEmpty()) {
+			msg.append("<p style='color:red'><b>Invalid Bulk Rename.</b></p>").append(htmlList(validation.getErrors(), "red"));
+		} else if (validation.getRenames().isEmpty()) {
+			msg.append("<p style='color:red'><b>No transactions to rename were found.</b></p>");
+		} else {
+			msg.append("<p>Please press the Rename button to rename the ").append(validation.getRenames().size()).append(" transaction(s) listed below.")
+				.append("<p>").append(validation.getSlaRenames().size()).append(isTransactionType ? " SLA(s)" : " metric SLA name(s)")
+				.append(" will also be renamed.");
+		}
+		if (!validation.getWarnings().isEmpty()) {
+			msg.append("<p><b>Warnings</b> (check everything is OK before you Rename !)</p>").append(htmlList(validation.getWarnings(), "darkorange"));
+		}
+		if (!validation.getRenames().isEmpty()) {
+			List<String> renameList = new ArrayList<>();
+			for (TransactionRename rename : validation.getRenames()) {
+				renameList.add(isTransactionType
+						? rename.getFromTxnId() + " (CDP=" + rename.getFromIsCdpTxn() + ")  to  " + rename.getToTxnId() + " (CDP=" + rename.getToIsCdpTxn() + ")"
+						: rename.getFromTxnId() + "  to  " + rename.getToTxnId());
+			}
+			msg.append("<p><b>Renames</b></p>").append(htmlList(renameList, "black"));
+		}
+		transactionBulkRenameForm.setPassedValidation(validation.isValid() ? "Y" : "N");
+		transactionBulkRenameForm.setValidationMsg(msg.toString());
+		return validation;
+	}
+
+
+	private String htmlList(List<String> items, String colour) {
+		StringBuilder html = new StringBuilder("<ul style='color:" + colour + "'>");
+		for (String item : items) {
+			html.append("<li>").append(HtmlUtils.htmlEscape(item)).append("</li>");
+		}
+		return html.append("</ul>").toString();
+	}
+
+
 	private Map<String, Object> createMapOfDropdowns() {
 		Map<String, Object> map = new HashMap<>();
 		List<String> applicationList   = populateApplicationDropdown();
@@ -34,6 +34,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import com.mark59.core.utils.Mark59Constants;
 import com.mark59.trends.application.AppConstantsTrends;
 import com.mark59.trends.application.UtilsTrends;
+import com.mark59.trends.catalogue.TransactionCatalogueInterface;
 import com.mark59.trends.data.application.dao.ApplicationDAO;
 import com.mark59.trends.data.beans.BarRange;
 import com.mark59.trends.data.beans.GraphMapping;
@@ -71,6 +72,8 @@ public class TrendingController {
 	@Autowired
 	TransactionDAO transactionDAO;
 	@Autowired
+	TransactionCatalogueInterface transactionCatalogue;
+	@Autowired
 	SlaDAO slaDAO;
 	@Autowired
 	MetricSlaDAO metricSlaDAO;
@@ -269,7 +272,7 @@ public class TrendingController {
 				populateFailedTransactionalSlaLists(trendingForm.getApplication(), latestRunTime, listOfTransactionsToGraph, model);
 				populateIgnoredTransactionsList(trendingForm.getApplication(), model);
 				populateDisabledSlasList(trendingForm.getApplication(), model);
-				long cdpTxnsCount = transactionDAO.countRunsWithCdpTransactions(trendingForm.getApplication());
+				long cdpTxnsCount = transactionCatalogue.countRunsWithCdpTransactions(trendingForm.getApplication());
 				model.addAttribute("cdpTxnsCount", String.valueOf(cdpTxnsCount));
 			} else {
 				populateFailedMetricSlaLists(trendingForm.getApplication(), latestRunTime, model, graphMapping);
@@ -17,13 +17,32 @@
 package com.mark59.trends.controller;
 
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.mark59.trends.application.AppConstantsTrends;
+import com.mark59.trends.copy.ApplicationCopyInterface;
+import com.mark59.trends.copy.ApplicationCopyProgress;
+import com.mark59.trends.data.export.dao.TrendsExportDAO;
+import com.mark59.trends.data.export.dao.TrendsExportRowWriter;
+import com.mark59.trends.purge.RunPurgeInterface;
+import com.mark59.trends.purge.RunPurgeProgress;
+import com.mark59.trends.rename.TransactionBulkRenameInterface;
+import com.mark59.trends.rename.TransactionBulkRenameProgress;
 import com.mark59.trends.slaIcons.SlaIconColourCodesInterface;
 
 
@@ -40,6 +59,18 @@ public class TrendsRestApiController {
 	@Autowired
 	SlaIconColourCodesInterface slaIconColourCodes;	
 	
+	@Autowired
+	TrendsExportDAO trendsExportDAO;
+	
+	@Autowired
+	RunPurgeInterface runPurge;
+	
+	@Autowired
+	TransactionBulkRenameInterface transactionBulkRename;
+	
+	@Autowired
+	ApplicationCopyInterface applicationCopy;
+	
 	
 	@GetMapping("/slaIconColoursForRun")	
 	public ResponseEntity<Object> slaIconColoursForRun(@RequestParam String reqApp, @RequestParam(required=false) String reqRunTime){  
@@ -47,4 +78,141 @@ public class TrendsRestApiController {
 		return ResponseEntity.ok(slaResultColours);
 	}
 	
+
+	
+	/**
+	 * Progress of run purges (deleted runs and applications) queued or finished within the last day
+	 */
+	@GetMapping("/purgeProgress")	
+	public ResponseEntity<List<RunPurgeProgress>> purgeProgress(){  
+		return ResponseEntity.ok(runPurge.getPurgeProgress());
+	}
+	
+	
+	/**
+	 * Progress of bulk transaction renames queued or finished within the last day
+	 */
+	@GetMapping("/transactionBulkRenameProgress")	
+	public ResponseEntity<List<TransactionBulkRenameProgress>> transactionBulkRenameProgress(){  
+		return ResponseEntity.ok(transactionBulkRename.getBulkRenameProgress());
+	}
+	
+	
+	/**
+	 * Progress of application copies queued or finished within the last day
+	 */
+	@GetMapping("/applicationCopyProgress")	
+	public ResponseEntity<List<ApplicationCopyProgress>> applicationCopyProgress(){  
+		return ResponseEntity.ok(applicationCopy.getCopyProgress());
+	}
+	
+	
+	/**
+	 * Streams the RUNS rows for an application (optionally within an inclusive run time range).
+	 * <p>eg: <code>/mark59-trends/api/export/runs?reqApp=DataHunter&amp;reqRunTimeFrom=202601010000&amp;reqFormat=csv</code>
+	 * <p>reqFormat is 'json' (JSON lines - one object per line, the default) or 'csv'
+	 */
+	@GetMapping("/export/runs")
+	public ResponseEntity<StreamingResponseBody> exportRuns(@RequestParam String reqApp,
+			@RequestParam(required=false) String reqRunTimeFrom, @RequestParam(required=false) String reqRunTimeTo,
+			@RequestParam(required=false) String reqFormat){
+		
+		String validationError = validateExportRequest(reqApp, reqRunTimeFrom, reqRunTimeTo, reqFormat);
+		if (validationError != null){
+			return exportBadRequest(validationError);
+		}
+		return exportResponse(reqApp, "runs", reqFormat, writer -> 
+				trendsExportDAO.streamRuns(reqApp, reqRunTimeFrom, reqRunTimeTo, new TrendsExportRowWriter(writer, reqFormat)));
+	}
+	
+	
+	/**
+	 * Streams the TRANSACTION (summary) rows for an application (optionally within an inclusive run time range,
+	 * and optionally for a single transaction type such as TRANSACTION, CPU_UTIL, MEMORY or DATAPOINT).
+	 * <p>reqFormat is 'json' (JSON lines - one object per line, the default) or 'csv'
+	 */
+	@GetMapping("/export/transactions")
+	public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam String reqApp,
+			@RequestParam(required=false) String reqRunTimeFrom, @RequestParam(required=false) String reqRunTimeTo,
+			@RequestParam(required=false) String reqTxnType, @RequestParam(required=false) String reqFormat){
+		
+		String validationError = validateExportRequest(reqApp, reqRunTimeFrom, reqRunTimeTo, reqFormat);
+		if (validationError != null){
+			return exportBadRequest(validationError);
+		}
+		return exportResponse(reqApp, "transactions", reqFormat, writer -> 
+				trendsExportDAO.streamTransactions(reqApp, reqRunTimeFrom, reqRunTimeTo, reqTxnType,
+						new TrendsExportRowWriter(writer, reqFormat)));
+	}
+	
+	
+	/**
+	 * Streams the raw TESTTRANSACTIONS rows for an application.  Raw rows only exist for runs loaded with 
+	 * the 'keeprawresults' option of trends-load.
+	 * <p>reqFormat is 'json' (JSON lines - one object per line, the default) or 'csv'
+	 */
+	@GetMapping("/export/testtransactions")
+	public ResponseEntity<StreamingResponseBody> exportTestTransactions(@RequestParam String reqApp,
+			@RequestParam(required=false) String reqRunTimeFrom, @RequestParam(required=false) String reqRunTimeTo,
+			@RequestParam(required=false) String reqTxnType, @RequestParam(required=false) String reqFormat){
+		
+		String validationError = validateExportRequest(reqApp, reqRunTimeFrom, reqRunTimeTo, reqFormat);
+		if (validationError != null){
+			return exportBadRequest(validationError);
+		}
+		return exportResponse(reqApp, "testtransactions", reqFormat, writer -> 
+				trendsExportDAO.streamTestTransactions(reqApp, reqRunTimeFrom, reqRunTimeTo, reqTxnType,
+						new TrendsExportRowWriter(writer, reqFormat)));
+	}
+
+	
+	private String validateExportRequest(String reqApp, String reqRunTimeFrom, String reqRunTimeTo, String reqFormat) {
+		if (StringUtils.isBlank(reqApp) || !reqApp.matches(AppConstantsTrends.ALLOWED_CHARS_APP_NAME)){
+			return "invalid application name : " + reqApp;
+		}
+		if (StringUtils.isNotBlank(reqRunTimeFrom) && !reqRunTimeFrom.matches(AppConstantsTrends.ALLOWED_CHARS_RUN_TIME)){
+			return "reqRunTimeFrom must be a 12 digit run time (yyyyMMddHHmm) : " + reqRunTimeFrom;
+		}
+		if (StringUtils.isNotBlank(reqRunTimeTo) && !reqRunTimeTo.matches(AppConstantsTrends.ALLOWED_CHARS_RUN_TIME)){
+			return "reqRunTimeTo must be a 12 digit run time (yyyyMMddHHmm) : " + reqRunTimeTo;
+		}
+		if (StringUtils.isNotBlank(reqFormat) && !AppConstantsTrends.EXPORT_FORMAT_JSON.equalsIgnoreCase(reqFormat)
+				&& !AppConstantsTrends.EXPORT_FORMAT_CSV.equalsIgnoreCase(reqFormat)){
+			return "reqFormat must be " + AppConstantsTrends.EXPORT_FORMAT_JSON + " or " + AppConstantsTrends.EXPORT_FORMAT_CSV + " : " + reqFormat;
+		}
+		return null;
+	}
+
+	
+	private ResponseEntity<StreamingResponseBody> exportBadRequest(String validationError) {
+		return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+				.body(out -> out.write(validationError.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+
+	private ResponseEntity<StreamingResponseBody> exportResponse(String reqApp, String exportName, String reqFormat,
+			ExportStreamer exportStreamer) {
+		
+		boolean csvFormat = AppConstantsTrends.EXPORT_FORMAT_CSV.equalsIgnoreCase(reqFormat);
+		String fileName = reqApp + "_" + exportName + (csvFormat ? ".csv" : ".jsonl");
+		MediaType mediaType = csvFormat ? new MediaType("text", "csv", StandardCharsets.UTF_8) 
+				                        : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+		
+		StreamingResponseBody responseBody = out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			exportStreamer.stream(writer);
+			writer.flush();
+		};
+		return ResponseEntity.ok()
+				.contentType(mediaType)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+				.body(responseBody);
+	}
+	
+	
+	@FunctionalInterface
+	private interface ExportStreamer {
+		void stream(Writer writer);
+	}
+	
 }
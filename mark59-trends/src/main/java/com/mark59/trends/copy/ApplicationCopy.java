@@ -0,0 +1,249 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.copy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.mark59.trends.catalogue.TransactionCatalogueInterface;
+import com.mark59.trends.copy.ApplicationCopyProgress.CopyStatus;
+import com.mark59.trends.data.copy.dao.ApplicationCopyDAO;
+
+/**
+ * Copies all the data of an application to a new application on a single background thread.  Each table is copied
+ * with set based <code>INSERT ... SELECT</code> statements, one key range (chunk) at a time, so no rows pass through
+ * the JVM and no single database transaction holds more than about <code>mark59.trends.copy.chunk.rows</code> rows.
+ *
+ * <p>The RUNS, TRANSACTION, TXNHISTOGRAM and TESTTRANSACTIONS tables are chunked by ranges of run time, sized using
+ * the row count of each run.  A run with more TESTTRANSACTIONS rows than a chunk allows is further chunked by ranges
+ * of txn id.  RUNS are copied first, so a purge still pending for a run of the same name (eg of a deleted application
+ * being replaced) leaves the copied rows alone.  The SLA and METRICSLA rows are then copied, and the APPLICATIONS
+ * entry last.  As an application is only listed once it has both an APPLICATIONS entry and runs, the new application
+ * appears only when the copy is complete.
+ *
+ * <p>Each chunk first deletes any rows already in its key range of the new application, so chunks can be safely
+ * repeated.  When a copy fails, submitting the same copy again resumes it from the first chunk that was not completed.
+ * (If the Trends application has been restarted in the meantime, the copy starts again from the beginning, which
+ * still gives a correct copy.)
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class ApplicationCopy implements ApplicationCopyInterface {
+
+	/** tables chunked by run time, in the order they are copied */
+	static final List<String> RUN_TABLES = List.of("RUNS", "TRANSACTION", "TXNHISTOGRAM", "TESTTRANSACTIONS");
+
+	/** tables copied in a single statement, in the order they are copied (APPLICATIONS must be last) */
+	static final List<String> APPLICATION_TABLES = List.of("SLA", "METRICSLA", "APPLICATIONS");
+
+	private static final long FINISHED_PROGRESS_RETENTION_MS = TimeUnit.HOURS.toMillis(24);
+
+	@Autowired
+	ApplicationCopyDAO applicationCopyDAO;
+
+	@Autowired
+	TransactionCatalogueInterface transactionCatalogue;
+
+	@Value("${mark59.trends.copy.chunk.rows:50000}")
+	private long chunkRows;
+
+	@Value("${mark59.trends.copy.pause.ms:0}")
+	private long pauseMs;
+
+	private final ExecutorService copyExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread copyThread = new Thread(r, "mark59-application-copy");
+		copyThread.setDaemon(true);
+		return copyThread;
+	});
+
+	private final Map<String, ApplicationCopyProgress> copyProgressMap = new ConcurrentHashMap<>();
+
+
+	/**
+	 * A range of keys (run times or txn ids), inclusive of both ends
+	 */
+	static class KeyRange {
+		final String from;
+		String to;
+		long rows;
+
+		KeyRange(String from, long rows) {
+			this.from = from;
+			this.to = from;
+			this.rows = rows;
+		}
+	}
+
+
+	/**
+	 * Groups consecutive keys into ranges of no more than rowBudget rows (a single key with more rows than the budget
+	 * is a range on its own)
+	 * @param rowsByKey the number of rows for each key, in key order
+	 */
+	static List<KeyRange> keyRanges(Map<String, Long> rowsByKey, long rowBudget) {
+		List<KeyRange> keyRanges = new ArrayList<>();
+		KeyRange current = null;
+		for (Map.Entry<String, Long> keyRows : rowsByKey.entrySet()) {
+			if (current != null && current.rows + keyRows.getValue() <= rowBudget) {
+				current.to = keyRows.getKey();
+				current.rows = current.rows + keyRows.getValue();
+			} else {
+				current = new KeyRange(keyRows.getKey(), keyRows.getValue());
+				keyRanges.add(current);
+			}
+		}
+		return keyRanges;
+	}
+
+
+	/**
+	 * Queues the copy.  If the last copy to the application failed (and was from the same application), the copy is
+	 * resumed from where it failed.
+	 */
+	@Override
+	public ApplicationCopyProgress submitApplicationCopy(String fromApp, String toApp) {
+		ApplicationCopyProgress progress = copyProgressMap.get(toApp);
+		if (progress != null && CopyStatus.FAILED.equals(progress.getStatus()) && progress.getFromApp().equals(fromApp)) {
+			System.out.println("ApplicationCopy: resuming failed copy " + progress);
+			progress.setStatus(CopyStatus.QUEUED);
+			progress.setMessage("");
+		} else {
+			progress = new ApplicationCopyProgress(fromApp, toApp);
+			copyProgressMap.put(toApp, progress);
+		}
+		ApplicationCopyProgress queuedProgress = progress;
+		copyExecutor.execute(() -> copyApplication(queuedProgress));
+		removeAgedProgressEntries();
+		return progress;
+	}
+
+
+	@Override
+	public boolean isCopyInProgress(String toApp) {
+		ApplicationCopyProgress progress = copyProgressMap.get(toApp);
+		return progress != null && !progress.isFinished();
+	}
+
+
+	@Override
+	public List<ApplicationCopyProgress> getCopyProgress() {
+		return new ArrayList<>(copyProgressMap.values());
+	}
+
+
+	public void shutdown() {
+		copyExecutor.shutdownNow();
+	}
+
+
+	private void copyApplication(ApplicationCopyProgress progress) {
+		String fromApp = progress.getFromApp();
+		String toApp = progress.getToApp();
+		progress.addAttempt();
+		System.out.println("ApplicationCopy: copy started " + progress);
+		long startMs = System.currentTimeMillis();
+		try {
+			progress.setStatus(CopyStatus.COPYING);
+
+			if (progress.getCompletedTables().isEmpty() && progress.getCopiedThroughRunTime() == null) {
+				for (int i = RUN_TABLES.size() - 1; i >= 0; i--) {    // RUNS last, as for a run purge
+					applicationCopyDAO.deleteRowsNotInSourceRuns(RUN_TABLES.get(i), fromApp, toApp);
+				}
+			}
+
+			for (String table : RUN_TABLES) {
+				if (!progress.isTableCompleted(table)) {
+					copyRunTable(progress, table);
+					progress.tableCompleted(table);
+				}
+			}
+
+			for (String table : APPLICATION_TABLES) {
+				if (!progress.isTableCompleted(table)) {
+					progress.setCurrentTable(table);
+					progress.addChunkCopied(applicationCopyDAO.copyApplicationRows(table, fromApp, toApp));
+					progress.tableCompleted(table);
+				}
+			}
+
+			progress.setStatus(CopyStatus.COMPLETED);
+			System.out.println("ApplicationCopy: copy completed in " + (System.currentTimeMillis() - startMs) + " ms " + progress);
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			progress.setStatus(CopyStatus.FAILED);
+			progress.setMessage("copy interrupted (submit the copy again to resume it)");
+		} catch (Exception e) {
+			progress.setStatus(CopyStatus.FAILED);
+			progress.setMessage(e.getMessage() + " (submit the copy again to resume it)");
+			System.out.println("ApplicationCopy: copy failed " + progress);
+			e.printStackTrace();
+		}
+		transactionCatalogue.invalidate(toApp);
+		progress.setCompletedAtMs(System.currentTimeMillis());
+	}
+
+
+	private void copyRunTable(ApplicationCopyProgress progress, String table) throws InterruptedException {
+		String fromApp = progress.getFromApp();
+		String toApp = progress.getToApp();
+		progress.setCurrentTable(table);
+
+		Map<String, Long> rowsByRunTime = applicationCopyDAO.countRowsByRunTime(table, fromApp);
+		String copiedThroughRunTime = progress.getCopiedThroughRunTime();
+		if (copiedThroughRunTime != null) {
+			rowsByRunTime.keySet().removeIf(runTime -> runTime.compareTo(copiedThroughRunTime) <= 0);
+		}
+
+		for (KeyRange runTimeRange : keyRanges(rowsByRunTime, chunkRows)) {
+			if (runTimeRange.rows > chunkRows && "TESTTRANSACTIONS".equals(table)) {   // a single large run
+				String runTime = runTimeRange.from;
+				for (KeyRange txnIdRange : keyRanges(applicationCopyDAO.countTestTransactionsByTxnId(fromApp, runTime), chunkRows)) {
+					progress.addChunkCopied(applicationCopyDAO.copyKeyRange(table, fromApp, toApp, runTime, runTime, txnIdRange.from, txnIdRange.to));
+					pauseBetweenChunks();
+				}
+			} else {
+				progress.addChunkCopied(applicationCopyDAO.copyKeyRange(table, fromApp, toApp, runTimeRange.from, runTimeRange.to, null, null));
+				pauseBetweenChunks();
+			}
+			progress.setCopiedThroughRunTime(runTimeRange.to);
+		}
+	}
+
+
+	private void pauseBetweenChunks() throws InterruptedException {
+		if (pauseMs > 0){
+			Thread.sleep(pauseMs);
+		}
+	}
+
+
+	private void removeAgedProgressEntries() {
+		long removeBefore = System.currentTimeMillis() - FINISHED_PROGRESS_RETENTION_MS;
+		copyProgressMap.values().removeIf(p -> p.isFinished() && p.getCompletedAtMs() < removeBefore);
+	}
+
+}
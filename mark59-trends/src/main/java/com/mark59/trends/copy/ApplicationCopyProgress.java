@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.copy;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Progress of the copy of an application.  Updated by the copy thread, read by web requests (hence volatile fields).
+ * <p>The tables already copied, and how far through the current table the copy has got, are kept so that a failed
+ * copy can be resumed from where it stopped.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class ApplicationCopyProgress {
+
+	public enum CopyStatus {QUEUED, COPYING, COMPLETED, FAILED}
+
+	private final String fromApp;
+	private final String toApp;
+	private volatile CopyStatus status = CopyStatus.QUEUED;
+	private volatile String currentTable = "";
+	private volatile String copiedThroughRunTime = null;
+	private final Set<String> completedTables = ConcurrentHashMap.newKeySet();
+	private volatile long chunksCopied = 0L;
+	private volatile long rowsCopied = 0L;
+	private volatile int attempts = 0;
+	private final long queuedAtMs = System.currentTimeMillis();
+	private volatile long completedAtMs = 0L;
+	private volatile String message = "";
+
+
+	public ApplicationCopyProgress(String fromApp, String toApp) {
+		this.fromApp = fromApp;
+		this.toApp = toApp;
+	}
+
+	public boolean isFinished() {
+		return CopyStatus.COMPLETED.equals(status) || CopyStatus.FAILED.equals(status);
+	}
+
+	public boolean isTableCompleted(String table) {
+		return completedTables.contains(table);
+	}
+
+	public void tableCompleted(String table) {
+		completedTables.add(table);
+		copiedThroughRunTime = null;
+	}
+
+	public String getFromApp() {
+		return fromApp;
+	}
+	public String getToApp() {
+		return toApp;
+	}
+	public CopyStatus getStatus() {
+		return status;
+	}
+	public void setStatus(CopyStatus status) {
+		this.status = status;
+	}
+	public String getCurrentTable() {
+		return currentTable;
+	}
+	public void setCurrentTable(String currentTable) {
+		this.currentTable = currentTable;
+	}
+	/**
+	 * @return the last run time of the current table for which all rows have been copied (null when none have been)
+	 */
+	public String getCopiedThroughRunTime() {
+		return copiedThroughRunTime;
+	}
+	public void setCopiedThroughRunTime(String copiedThroughRunTime) {
+		this.copiedThroughRunTime = copiedThroughRunTime;
+	}
+	public Set<String> getCompletedTables() {
+		return completedTables;
+	}
+	public long getChunksCopied() {
+		return chunksCopied;
+	}
+	public long getRowsCopied() {
+		return rowsCopied;
+	}
+	public void addChunkCopied(long rows) {
+		this.chunksCopied = this.chunksCopied + 1;
+		this.rowsCopied = this.rowsCopied + rows;
+	}
+	public int getAttempts() {
+		return attempts;
+	}
+	public void addAttempt() {
+		this.attempts = this.attempts + 1;
+	}
+	public long getQueuedAtMs() {
+		return queuedAtMs;
+	}
+	public long getCompletedAtMs() {
+		return completedAtMs;
+	}
+	public void setCompletedAtMs(long completedAtMs) {
+		this.completedAtMs = completedAtMs;
+	}
+	public String getMessage() {
+		return message;
+	}
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return   "[fromApp="+ fromApp +
+				", toApp="+ toApp +
+				", status="+ status +
+				", currentTable="+ currentTable +
+				", copiedThroughRunTime="+ copiedThroughRunTime +
+				", completedTables="+ completedTables +
+				", chunksCopied="+ chunksCopied +
+				", rowsCopied="+ rowsCopied +
+				", attempts="+ attempts +
+				", message="+ message +
+				"]";
+	}
+
+}
@@ -34,7 +34,5 @@ public interface ApplicationDAO
 	Application findApplication(String application);
 
 	List<Application> findApplications(String appListSelector);
-	
-	void duplicateEntireApplication(String fromApp, String toApp);
 
 }
\ No newline at end of file
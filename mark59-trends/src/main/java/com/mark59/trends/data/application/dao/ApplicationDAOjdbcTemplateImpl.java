@@ -132,53 +132,4 @@ public class ApplicationDAOjdbcTemplateImpl implements ApplicationDAO
 		return  application;
 	}
 
-
-	@Override
-	public void duplicateEntireApplication(String fromApp, String toApp){
-		System.out.println("duplicateEntireApplication: fromApp " + fromApp + ", toApp " + toApp);
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-
-		String sql = "DELETE FROM APPLICATIONS WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp);
-
-		sql = "INSERT INTO APPLICATIONS SELECT ?, ACTIVE, COMMENT FROM APPLICATIONS WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp, fromApp);
-
-		sql = "DELETE FROM RUNS WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp);
-
-		sql = "INSERT INTO RUNS SELECT ?, RUN_TIME, IS_RUN_IGNORED, RUN_REFERENCE, PERIOD, DURATION, BASELINE_RUN, COMMENT "
-				+ "FROM RUNS WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp, fromApp);
-
-		sql = "DELETE FROM TRANSACTION WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp);
-
-		sql = "INSERT INTO TRANSACTION SELECT ?, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, "
-				+ "TXN_MINIMUM, TXN_AVERAGE, TXN_MEDIAN, TXN_MAXIMUM, TXN_STD_DEVIATION, TXN_90TH, TXN_95TH, TXN_99TH, "
-				+ "TXN_PASS, TXN_FAIL, TXN_STOP, TXN_FIRST, TXN_LAST, TXN_SUM, TXN_DELAY "
-				+ "FROM TRANSACTION WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp, fromApp);
-
-		sql = "DELETE FROM SLA WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp);
-
-		sql = "INSERT INTO SLA "
-				+ "SELECT TXN_ID, IS_CDP_TXN, ?, IS_TXN_IGNORED, SLA_90TH_RESPONSE, SLA_95TH_RESPONSE, SLA_99TH_RESPONSE, "
-				+ "SLA_PASS_COUNT, SLA_PASS_COUNT_VARIANCE_PERCENT, SLA_FAIL_COUNT, SLA_FAIL_PERCENT, "
-				+ "TXN_DELAY, XTRA_NUM, XTRA_INT, SLA_REF_URL, COMMENT, IS_ACTIVE "
-				+ "FROM SLA WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp, fromApp);
-
-		sql = "DELETE FROM METRICSLA WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp);
-
-		sql = "INSERT INTO METRICSLA "
-				+ "SELECT ?, METRIC_NAME, METRIC_TXN_TYPE, VALUE_DERIVATION, SLA_MIN, SLA_MAX, IS_ACTIVE, COMMENT "
-				+ "FROM METRICSLA WHERE APPLICATION = ?";
-		jdbcTemplate.update(sql, toApp, fromApp);
-
-		System.out.println("duplicateEntireApplication: fromApp " + fromApp + ", toApp " + toApp + " completed") ;
-	}
-
 }
@@ -110,49 +110,49 @@ public class Transaction {
 		return txnMinimum;
 	}
 	public void setTxnMinimum(BigDecimal txnMinimum) {
-		this.txnMinimum = txnMinimum.setScale(3, RoundingMode.HALF_UP);
+		this.txnMinimum = txnMinimum.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxnAverage() {
 		return txnAverage;
 	}
 	public void setTxnAverage(BigDecimal txnAverage) {
-		this.txnAverage = txnAverage.setScale(3, RoundingMode.HALF_UP);
+		this.txnAverage = txnAverage.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxnMedian() {
 		return txnMedian;
 	}
 	public void setTxnMedian(BigDecimal txnMedian) {
-		this.txnMedian = txnMedian.setScale(3, RoundingMode.HALF_UP);
+		this.txnMedian = txnMedian.setScale(6, RoundingMode.HALF_UP);
     }
 	public BigDecimal getTxnMaximum() {
 		return txnMaximum;
 	}
 	public void setTxnMaximum(BigDecimal txnMaximum) {
-		this.txnMaximum = txnMaximum.setScale(3, RoundingMode.HALF_UP);
+		this.txnMaximum = txnMaximum.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxnStdDeviation() {
 		return txnStdDeviation;
 	}
 	public void setTxnStdDeviation(BigDecimal txnStdDeviation) {
-		this.txnStdDeviation = txnStdDeviation.setScale(3, RoundingMode.HALF_UP);
+		this.txnStdDeviation = txnStdDeviation.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxn90th() {
 		return txn90th;
 	}
 	public void setTxn90th(BigDecimal txn90th) {
-		this.txn90th = txn90th.setScale(3, RoundingMode.HALF_UP);
+		this.txn90th = txn90th.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxn95th() {
 		return txn95th;
 	}
 	public void setTxn95th(BigDecimal txn95th) {
-		this.txn95th = txn95th.setScale(3, RoundingMode.HALF_UP);
+		this.txn95th = txn95th.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxn99th() {
 		return txn99th;
 	}
 	public void setTxn99th(BigDecimal txn99th) {
-		this.txn99th = txn99th.setScale(3, RoundingMode.HALF_UP);
+		this.txn99th = txn99th.setScale(6, RoundingMode.HALF_UP);
 	}
 	public Long getTxnPass() {
 		return txnPass;
@@ -176,19 +176,19 @@ public class Transaction {
 		return txnFirst;
 	}
 	public void setTxnFirst(BigDecimal txnFirst) {
-		this.txnFirst = txnFirst.setScale(3, RoundingMode.HALF_UP);
+		this.txnFirst = txnFirst.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxnLast() {
 		return txnLast;
 	}
 	public void setTxnLast(BigDecimal txnLast) {
-		this.txnLast = txnLast.setScale(3, RoundingMode.HALF_UP);
+		this.txnLast = txnLast.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxnSum() {
 		return txnSum;
 	}
 	public void setTxnSum(BigDecimal txnSum) {
-		this.txnSum = txnSum.setScale(3, RoundingMode.HALF_UP);
+		this.txnSum = txnSum.setScale(6, RoundingMode.HALF_UP);
 	}
 	public BigDecimal getTxnDelay() {
 		return txnDelay;
@@ -0,0 +1,334 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.beans;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compact, mergeable histogram of the (passed) response times of a transaction for a run, as stored on the
+ * TXNHISTOGRAM table.  Any percentile of the run can be calculated from the histogram, so percentiles other than those
+ * held on TRANSACTION (median, 90th, 95th, 99th) can be graphed without the raw TESTTRANSACTIONS rows.
+ *
+ * <p>Values are counted in logarithmic buckets (as per the DDSketch algorithm), so that a percentile is returned within
+ * a relative accuracy of {@link #RELATIVE_ACCURACY} of the actual value.  The minimum and maximum values are held
+ * exactly, and a calculated percentile is always within them.  Zero (and negative) values are counted separately.
+ *
+ * <p>Histograms can be merged (for example, to give percentiles over a set of runs), as long as they were built with
+ * the same encoding version.
+ *
+ * <p>The stored form is a Base64 string of: version, zero count, minimum, maximum, then for each non-empty bucket the
+ * bucket index (as a delta from the previous bucket) and the count, using variable length integers.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TxnHistogram {
+
+	public static final double RELATIVE_ACCURACY = 0.01;
+
+	/** the maximum number of buckets held (the lowest buckets are collapsed together beyond this) */
+	public static final int MAX_BUCKETS = 1024;
+
+	/** maps a graph VALUE_DERIVATION such as 'Percentile(99.9)' to the percentile it requests */
+	public static final Pattern PERCENTILE_DERIVATION = Pattern.compile(
+			"^\\s*PERCENTILE\\s*\\(\\s*(100(\\.0+)?|\\d{1,2}(\\.\\d+)?)\\s*\\)\\s*$", Pattern.CASE_INSENSITIVE);
+
+	private static final byte ENCODING_VERSION = 1;
+	private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+	private static final double LOG_GAMMA = Math.log(GAMMA);
+	private static final double MIN_INDEXABLE_VALUE = 1e-9;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private long[] counts = new long[0];
+	private int offset;					// bucket index of counts[0]
+	private long zeroCount;
+	private long totalCount;
+	private double min = Double.MAX_VALUE;
+	private double max = -Double.MAX_VALUE;
+
+
+	/**
+	 * @param value a response time to be counted
+	 */
+	public void add(double value) {
+		add(value, 1);
+	}
+
+
+	private void add(double value, long count) {
+		if (value < MIN_INDEXABLE_VALUE) {
+			zeroCount += count;
+		} else {
+			addToBucket(indexOf(value), count);
+		}
+		totalCount += count;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+
+	/**
+	 * Add the counts of another histogram to this histogram
+	 * @param other the histogram to merge into this one
+	 */
+	public void merge(TxnHistogram other) {
+		if (other == null || other.totalCount == 0) {
+			return;
+		}
+		for (int i = 0; i < other.counts.length; i++) {
+			if (other.counts[i] > 0) {
+				addToBucket(other.offset + i, other.counts[i]);
+			}
+		}
+		zeroCount  += other.zeroCount;
+		totalCount += other.totalCount;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+
+	/**
+	 * The nearest-rank percentile (so the same as a PERCENTILE_DISC database function would return, within the
+	 * relative accuracy of the histogram)
+	 *
+	 * @param percentile percentile between 0 and 100 (eg 99.9)
+	 * @return the percentile value (scale 3, as the values on TRANSACTION), or null for an empty histogram
+	 */
+	public BigDecimal getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100 : " + percentile);
+		}
+		if (totalCount == 0) {
+			return null;
+		}
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * totalCount));
+
+		double value = max;
+		long cumulativeCount = zeroCount;
+		if (rank == 1 || cumulativeCount >= rank) {
+			value = min;
+		} else if (rank < totalCount) {
+			for (int i = 0; i < counts.length; i++) {
+				cumulativeCount += counts[i];
+				if (cumulativeCount >= rank) {
+					value = valueOf(offset + i);
+					break;
+				}
+			}
+		}
+		value = Math.max(min, Math.min(max, value));
+		return BigDecimal.valueOf(value).setScale(6, RoundingMode.HALF_UP);
+	}
+
+
+	/**
+	 * @param valueDerivation a graph VALUE_DERIVATION
+	 * @return the requested percentile if the derivation is of the form 'Percentile(nn.n)', otherwise null
+	 */
+	public static Double percentileRequestedBy(String valueDerivation) {
+		if (valueDerivation == null) {
+			return null;
+		}
+		Matcher matcher = PERCENTILE_DERIVATION.matcher(valueDerivation);
+		return matcher.matches() ? Double.valueOf(matcher.group(1)) : null;
+	}
+
+
+	/**
+	 * @param txnId transaction id
+	 * @param isCdpTxn 'Y' or 'N'
+	 * @return a key for the histogram of a transaction within a run
+	 */
+	public static String transactionKey(String txnId, String isCdpTxn) {
+		return isCdpTxn + ":" + txnId;
+	}
+
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+
+	/**
+	 * @return the histogram in its stored (Base64) form
+	 */
+	public String encode() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(32 + counts.length * 3);
+		out.write(ENCODING_VERSION);
+		writeVarLong(out, zeroCount);
+		writeDouble(out, totalCount == 0 ? 0 : min);
+		writeDouble(out, totalCount == 0 ? 0 : max);
+
+		int nonEmptyBuckets = 0;
+		for (long count : counts) {
+			if (count > 0) nonEmptyBuckets++;
+		}
+		writeVarLong(out, nonEmptyBuckets);
+
+		int previousIndex = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > 0) {
+				int index = offset + i;
+				writeVarLong(out, zigZag(index - previousIndex));
+				writeVarLong(out, counts[i]);
+				previousIndex = index;
+			}
+		}
+		return Base64.getEncoder().encodeToString(out.toByteArray());
+	}
+
+
+	/**
+	 * @param encoded a histogram in its stored form (see {@link #encode()})
+	 * @return the histogram, or null if encoded is null or empty
+	 */
+	public static TxnHistogram decode(String encoded) {
+		if (encoded == null || encoded.isEmpty()) {
+			return null;
+		}
+		ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+		byte version = in.get();
+		if (version != ENCODING_VERSION) {
+			throw new IllegalArgumentException("Unsupported transaction histogram encoding version : " + version);
+		}
+		TxnHistogram histogram = new TxnHistogram();
+		histogram.zeroCount = readVarLong(in);
+		double min = in.getDouble();
+		double max = in.getDouble();
+		long nonEmptyBuckets = readVarLong(in);
+
+		histogram.totalCount = histogram.zeroCount;
+		int index = 0;
+		for (long b = 0; b < nonEmptyBuckets; b++) {
+			index += unZigZag(readVarLong(in));
+			long count = readVarLong(in);
+			histogram.addToBucket(index, count);
+			histogram.totalCount += count;
+		}
+		if (histogram.totalCount > 0) {
+			histogram.min = min;
+			histogram.max = max;
+		}
+		return histogram;
+	}
+
+
+	private static int indexOf(double value) {
+		return (int)Math.ceil(Math.log(value) / LOG_GAMMA);
+	}
+
+
+	/**
+	 * the value within the bucket with the least relative error to any value in the bucket
+	 */
+	private static double valueOf(int index) {
+		return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+	}
+
+
+	private void addToBucket(int index, long count) {
+		if (counts.length == 0) {
+			counts = new long[INITIAL_CAPACITY];
+			offset = index - INITIAL_CAPACITY / 2;
+		}
+		if (index < offset || index >= offset + counts.length) {
+			resizeToInclude(index);
+		}
+		if (index < offset) {
+			counts[0] += count;		// below the range of the collapsed lowest bucket
+		} else {
+			counts[index - offset] += count;
+		}
+	}
+
+
+	/**
+	 * Grow the bucket array to include the index.  Beyond {@link #MAX_BUCKETS} the lowest buckets are collapsed into
+	 * the lowest retained bucket, so accuracy is only lost at the low end of the range (not the high percentiles).
+	 */
+	private void resizeToInclude(int index) {
+		int lowIndex  = Math.min(index, offset);
+		int highIndex = Math.max(index, offset + counts.length - 1);
+		int newLength = Math.min(MAX_BUCKETS, Math.max(highIndex - lowIndex + 1, counts.length * 2));
+
+		if (index < offset || highIndex - lowIndex + 1 > MAX_BUCKETS) {
+			lowIndex = highIndex - newLength + 1;		// any spare capacity is left below the new low index
+		}
+
+		long[] newCounts = new long[newLength];
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > 0) {
+				int newPosition = Math.max(0, offset + i - lowIndex);
+				newCounts[newPosition] += counts[i];
+			}
+		}
+		counts = newCounts;
+		offset = lowIndex;
+	}
+
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+
+	private static int unZigZag(long value) {
+		return (int)((value >>> 1) ^ -(value & 1));
+	}
+
+
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int)value);
+	}
+
+
+	private static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed transaction histogram encoding");
+	}
+
+
+	private static void writeDouble(ByteArrayOutputStream out, double value) {
+		out.write(ByteBuffer.allocate(Double.BYTES).putDouble(value).array(), 0, Double.BYTES);
+	}
+
+
+	@Override
+	public String toString() {
+		return "[totalCount=" + totalCount + ", zeroCount=" + zeroCount + ", min=" + (totalCount == 0 ? "" : min)
+				+ ", max=" + (totalCount == 0 ? "" : max) + ", buckets=" + Arrays.stream(counts).filter(c -> c > 0).count() + "]";
+	}
+
+}
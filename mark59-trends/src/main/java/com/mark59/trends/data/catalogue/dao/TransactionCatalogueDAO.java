@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.catalogue.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.mark59.trends.data.beans.Run;
+import com.mark59.trends.data.beans.Transaction;
+
+/**
+ * Queries used to build and maintain the transaction catalogue.  Each summary is restricted to given runs (or to the
+ * runs before a run time), so the catalogue can be extended a run at a time rather than re-scanning the TRANSACTION table.
+ * Only runs present on RUNS are summarised: TRANSACTION rows of a deleted run awaiting purge are ignored.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public interface TransactionCatalogueDAO
+{
+
+	/**
+	 * @return run time, baseline and ignored flags of every run of the application, most recent first (RUNS only)
+	 */
+	List<Run> findRunsMostRecentFirst(String application);
+
+	/**
+	 * @param runTimes the runs to summarise, or null for all runs of the application (before beforeRunTime)
+	 * @param beforeRunTime when not null, only runs before this run time are summarised
+	 * @return a Transaction for each distinct txn id, type and CDP flag, with the run time set to the last run
+	 * containing the transaction, and txnPass set to the number of runs containing it
+	 */
+	List<Transaction> summariseTransactions(String application, Collection<String> runTimes, String beforeRunTime);
+
+	/**
+	 * @param runTimes the runs to check, or null for all runs of the application (before beforeRunTime)
+	 * @param beforeRunTime when not null, only runs before this run time are checked
+	 * @return the runs containing a CDP transaction (of the TRANSACTION type)
+	 */
+	Set<String> findRunsWithCdpTransactions(String application, Collection<String> runTimes, String beforeRunTime);
+
+}
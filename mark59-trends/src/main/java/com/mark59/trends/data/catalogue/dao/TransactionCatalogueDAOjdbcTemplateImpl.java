@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.catalogue.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.trends.data.beans.Run;
+import com.mark59.trends.data.beans.Transaction;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionCatalogueDAOjdbcTemplateImpl implements TransactionCatalogueDAO
+{
+
+	@Autowired
+	private DataSource dataSource;
+
+
+	@Override
+	public List<Run> findRunsMostRecentFirst(String application) {
+		String sql = "SELECT RUN_TIME, BASELINE_RUN, IS_RUN_IGNORED FROM RUNS "
+				+ " WHERE APPLICATION = :application "
+				+ " ORDER BY RUN_TIME DESC";
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource().addValue("application", application);
+
+		List<Run> runs = new ArrayList<>();
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate.query(sql, sqlparameters, rs -> {
+			Run run = new Run();
+			run.setApplication(application);
+			run.setRunTime(rs.getString("RUN_TIME"));
+			run.setBaselineRun(rs.getString("BASELINE_RUN"));
+			run.setIsRunIgnored(rs.getString("IS_RUN_IGNORED"));
+			runs.add(run);
+		});
+		return runs;
+	}
+
+
+	@Override
+	public List<Transaction> summariseTransactions(String application, Collection<String> runTimes, String beforeRunTime) {
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource();
+		String sql = "SELECT TXN_ID, TXN_TYPE, IS_CDP_TXN, MAX(RUN_TIME) AS MAX_RUN_TIME, COUNT(*) AS TXN_COUNT "
+				+ " FROM TRANSACTION T "
+				+ runsCondition(application, runTimes, beforeRunTime, sqlparameters)
+				+ " GROUP BY TXN_ID, TXN_TYPE, IS_CDP_TXN ";
+
+		List<Transaction> transactions = new ArrayList<>();
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate.query(sql, sqlparameters, rs -> {
+			Transaction transaction = new Transaction();
+			transaction.setApplication(application);
+			transaction.setTxnId(rs.getString("TXN_ID"));
+			transaction.setTxnType(rs.getString("TXN_TYPE"));
+			transaction.setIsCdpTxn(rs.getString("IS_CDP_TXN"));
+			transaction.setRunTime(rs.getString("MAX_RUN_TIME"));
+			transaction.setTxnPass(rs.getLong("TXN_COUNT"));
+			transactions.add(transaction);
+		});
+		return transactions;
+	}
+
+
+	@Override
+	public Set<String> findRunsWithCdpTransactions(String application, Collection<String> runTimes, String beforeRunTime) {
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource();
+		sqlparameters.addValue("txnType", Mark59Constants.DatabaseTxnTypes.TRANSACTION.name());
+		String sql = "SELECT DISTINCT RUN_TIME FROM TRANSACTION T "
+				+ runsCondition(application, runTimes, beforeRunTime, sqlparameters)
+				+ " AND TXN_TYPE = :txnType "
+				+ " AND IS_CDP_TXN = 'Y' ";
+
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		return new HashSet<>(jdbcTemplate.queryForList(sql, sqlparameters, String.class));
+	}
+
+
+	/**
+	 * Selects the TRANSACTION rows (aliased T) of the application's runs.  Only runs on RUNS are included, so rows
+	 * left on TRANSACTION by a run which has been deleted (but not yet purged) are not catalogued.
+	 */
+	private String runsCondition(String application, Collection<String> runTimes, String beforeRunTime, MapSqlParameterSource sqlparameters) {
+		sqlparameters.addValue("application", application);
+		String condition = " WHERE T.APPLICATION = :application "
+				+ " AND EXISTS ( SELECT 1 FROM RUNS R WHERE R.APPLICATION = T.APPLICATION AND R.RUN_TIME = T.RUN_TIME ) ";
+		if (runTimes != null) {
+			sqlparameters.addValue("runTimes", new ArrayList<>(runTimes));
+			condition = condition + " AND T.RUN_TIME IN ( :runTimes ) ";
+		}
+		if (beforeRunTime != null) {
+			sqlparameters.addValue("beforeRunTime", beforeRunTime);
+			condition = condition + " AND T.RUN_TIME < :beforeRunTime ";
+		}
+		return condition;
+	}
+
+}
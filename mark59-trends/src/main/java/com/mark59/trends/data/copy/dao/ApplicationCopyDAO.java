@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.copy.dao;
+
+import java.util.Map;
+
+/**
+ * Set based (<code>INSERT ... SELECT</code>) copies of the rows of one application to another, one key range at a
+ * time.  Each call is a separate database transaction, which first deletes any rows already in the target key range,
+ * so a copy which has failed part way through can safely copy a key range again.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public interface ApplicationCopyDAO
+{
+
+	/**
+	 * @param table one of RUNS, TRANSACTION, TXNHISTOGRAM or TESTTRANSACTIONS
+	 * @return the number of rows of the application for each run time, in run time order
+	 */
+	Map<String, Long> countRowsByRunTime(String table, String application);
+
+	/**
+	 * @return the number of TESTTRANSACTIONS rows for each txn id of the run, in txn id order
+	 */
+	Map<String, Long> countTestTransactionsByTxnId(String application, String runTime);
+
+	/**
+	 * Removes rows of the target application with run times that are not runs of the source application (left over
+	 * from an earlier, incomplete, copy or purge)
+	 */
+	int deleteRowsNotInSourceRuns(String table, String fromApp, String toApp);
+
+	/**
+	 * Copies the rows of the table within an (inclusive) run time range, and optionally an (inclusive) txn id range
+	 * @param txnIdFrom null for all txn ids
+	 * @return number of rows copied
+	 */
+	int copyKeyRange(String table, String fromApp, String toApp, String runTimeFrom, String runTimeTo, String txnIdFrom, String txnIdTo);
+
+	/**
+	 * Copies all the rows of the application in the table (for the SLA, METRICSLA and APPLICATIONS tables)
+	 * @return number of rows copied
+	 */
+	int copyApplicationRows(String table, String fromApp, String toApp);
+
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.copy.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Column lists are explicit (rather than relying on the column order of each table), and the application is
+ * substituted in the select list, so each key range is copied by a single <code>INSERT ... SELECT</code> statement
+ * without any rows passing through the JVM.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class ApplicationCopyDAOjdbcTemplateImpl implements ApplicationCopyDAO
+{
+
+	/** the copied columns of each table, other than APPLICATION */
+	private static final Map<String, String> COPIED_COLUMNS = new LinkedHashMap<>();
+	static {
+		COPIED_COLUMNS.put("RUNS", "RUN_TIME, IS_RUN_IGNORED, RUN_REFERENCE, PERIOD, DURATION, BASELINE_RUN, COMMENT");
+		COPIED_COLUMNS.put("TRANSACTION", "RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, "
+				+ "TXN_MINIMUM, TXN_AVERAGE, TXN_MEDIAN, TXN_MAXIMUM, TXN_STD_DEVIATION, TXN_90TH, TXN_95TH, TXN_99TH, "
+				+ "TXN_PASS, TXN_FAIL, TXN_STOP, TXN_FIRST, TXN_LAST, TXN_SUM, TXN_DELAY");
+		COPIED_COLUMNS.put("TXNHISTOGRAM", "RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, TXN_COUNT, HISTOGRAM");
+		COPIED_COLUMNS.put("TESTTRANSACTIONS", "RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, TXN_RESULT, TXN_PASSED, TXN_EPOCH_TIME");
+		COPIED_COLUMNS.put("SLA", "TXN_ID, IS_CDP_TXN, IS_TXN_IGNORED, SLA_90TH_RESPONSE, SLA_95TH_RESPONSE, SLA_99TH_RESPONSE, "
+				+ "SLA_PASS_COUNT, SLA_PASS_COUNT_VARIANCE_PERCENT, SLA_FAIL_COUNT, SLA_FAIL_PERCENT, "
+				+ "TXN_DELAY, XTRA_NUM, XTRA_INT, SLA_REF_URL, COMMENT, IS_ACTIVE");
+		COPIED_COLUMNS.put("METRICSLA", "METRIC_NAME, METRIC_TXN_TYPE, VALUE_DERIVATION, SLA_MIN, SLA_MAX, IS_ACTIVE, COMMENT");
+		COPIED_COLUMNS.put("APPLICATIONS", "ACTIVE, COMMENT");
+	}
+
+	@Autowired
+	private DataSource dataSource;
+
+
+	@Override
+	public Map<String, Long> countRowsByRunTime(String table, String application) {
+		String sql = "SELECT RUN_TIME, COUNT(*) AS ROW_COUNT FROM " + copiedTable(table)
+				+ " WHERE APPLICATION = :application "
+				+ " GROUP BY RUN_TIME ORDER BY RUN_TIME";
+		return countRows(sql, new MapSqlParameterSource().addValue("application", application));
+	}
+
+
+	@Override
+	public Map<String, Long> countTestTransactionsByTxnId(String application, String runTime) {
+		String sql = "SELECT TXN_ID, COUNT(*) AS ROW_COUNT FROM TESTTRANSACTIONS "
+				+ " WHERE APPLICATION = :application "
+				+ "   AND RUN_TIME = :runTime "
+				+ " GROUP BY TXN_ID ORDER BY TXN_ID";
+		return countRows(sql, new MapSqlParameterSource().addValue("application", application).addValue("runTime", runTime));
+	}
+
+
+	@Override
+	public int deleteRowsNotInSourceRuns(String table, String fromApp, String toApp) {
+		String sql = "DELETE FROM " + copiedTable(table)
+				+ " WHERE APPLICATION = :toApp "
+				+ "   AND RUN_TIME NOT IN ( SELECT RUN_TIME FROM RUNS WHERE APPLICATION = :fromApp ) ";
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource()
+				.addValue("fromApp", fromApp)
+				.addValue("toApp", toApp);
+		return new NamedParameterJdbcTemplate(dataSource).update(sql, sqlparameters);
+	}
+
+
+	@Override
+	public int copyKeyRange(String table, String fromApp, String toApp, String runTimeFrom, String runTimeTo, String txnIdFrom, String txnIdTo) {
+		String keyRange = "   AND RUN_TIME BETWEEN :runTimeFrom AND :runTimeTo ";
+		if (txnIdFrom != null) {
+			keyRange = keyRange + "   AND TXN_ID BETWEEN :txnIdFrom AND :txnIdTo ";
+		}
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource()
+				.addValue("fromApp", fromApp)
+				.addValue("toApp", toApp)
+				.addValue("runTimeFrom", runTimeFrom)
+				.addValue("runTimeTo", runTimeTo)
+				.addValue("txnIdFrom", txnIdFrom)
+				.addValue("txnIdTo", txnIdTo);
+		return deleteThenCopy(table, keyRange, sqlparameters);
+	}
+
+
+	@Override
+	public int copyApplicationRows(String table, String fromApp, String toApp) {
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource()
+				.addValue("fromApp", fromApp)
+				.addValue("toApp", toApp);
+		return deleteThenCopy(table, "", sqlparameters);
+	}
+
+
+	private int deleteThenCopy(String table, String keyRange, MapSqlParameterSource sqlparameters) {
+		String columns = COPIED_COLUMNS.get(copiedTable(table));
+		String deleteSql = "DELETE FROM " + table + " WHERE APPLICATION = :toApp " + keyRange;
+		String insertSql = "INSERT INTO " + table + " (APPLICATION, " + columns + ") "
+				+ "SELECT :toApp, " + columns + " FROM " + table + " WHERE APPLICATION = :fromApp " + keyRange;
+
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		TransactionTemplate copyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		Integer copied = copyTransaction.execute(status -> {
+			jdbcTemplate.update(deleteSql, sqlparameters);
+			return jdbcTemplate.update(insertSql, sqlparameters);
+		});
+		return copied == null ? 0 : copied;
+	}
+
+
+	private Map<String, Long> countRows(String sql, MapSqlParameterSource sqlparameters) {
+		Map<String, Long> rowCounts = new LinkedHashMap<>();
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate.query(sql, sqlparameters, rs -> {
+			rowCounts.put(rs.getString(1), rs.getLong("ROW_COUNT"));
+		});
+		return rowCounts;
+	}
+
+
+	private String copiedTable(String table) {
+		if (!COPIED_COLUMNS.containsKey(table)) {
+			throw new IllegalArgumentException("Not a copied table : " + table);
+		}
+		return table;
+	}
+
+}
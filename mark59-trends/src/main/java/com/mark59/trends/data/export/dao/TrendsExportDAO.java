@@ -0,0 +1,39 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.export.dao;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Forward-only (streamed) reads of trend data for export.  Rows are handed to the callback one at a time
+ * as they are fetched from the database, so memory use does not depend on the number of runs exported.
+ *
+ * <p>Run time bounds are inclusive. A null bound means no limit in that direction.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public interface TrendsExportDAO
+{
+
+	void streamRuns(String application, String runTimeFrom, String runTimeTo, RowCallbackHandler rowHandler);
+
+	void streamTransactions(String application, String runTimeFrom, String runTimeTo, String txnType, RowCallbackHandler rowHandler);
+
+	void streamTestTransactions(String application, String runTimeFrom, String runTimeTo, String txnType, RowCallbackHandler rowHandler);
+
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.export.dao;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.trends.application.AppConstantsTrends;
+
+/**
+ * Streams RUNS, TRANSACTION and TESTTRANSACTIONS rows using a forward-only, read-only cursor.
+ *
+ * <p>Each query runs inside a read-only transaction (Postgres only uses a server side cursor when auto-commit is off),
+ * with a fetch size so that only one batch of rows is held by the JDBC driver at any time.  For MySQL the
+ * Connector/J streaming convention of a fetch size of <code>Integer.MIN_VALUE</code> is used, which reads a row at a time.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TrendsExportDAOjdbcTemplateImpl implements TrendsExportDAO
+{
+	private static final int EXPORT_FETCH_SIZE = 1000;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private String currentDatabaseProfile;
+
+
+	@Override
+	public void streamRuns(String application, String runTimeFrom, String runTimeTo, RowCallbackHandler rowHandler) {
+
+		String sql = "SELECT APPLICATION, RUN_TIME, IS_RUN_IGNORED, RUN_REFERENCE, PERIOD, DURATION, BASELINE_RUN, COMMENT "
+				   + "FROM RUNS "
+				   + "WHERE APPLICATION = :application "
+				   + runTimeRangeSql(runTimeFrom, runTimeTo)
+				   + "ORDER BY RUN_TIME ";
+
+		streamQuery(sql, runTimeRangeParameters(application, runTimeFrom, runTimeTo), rowHandler);
+	}
+
+
+	@Override
+	public void streamTransactions(String application, String runTimeFrom, String runTimeTo, String txnType,
+			RowCallbackHandler rowHandler) {
+
+		String sql = "SELECT APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, "
+				   + "TXN_MINIMUM, TXN_AVERAGE, TXN_MEDIAN, TXN_MAXIMUM, TXN_STD_DEVIATION, TXN_90TH, TXN_95TH, TXN_99TH, "
+				   + "TXN_PASS, TXN_FAIL, TXN_STOP, TXN_FIRST, TXN_LAST, TXN_SUM, TXN_DELAY "
+				   + "FROM TRANSACTION "
+				   + "WHERE APPLICATION = :application "
+				   + runTimeRangeSql(runTimeFrom, runTimeTo);
+
+		MapSqlParameterSource sqlparameters = runTimeRangeParameters(application, runTimeFrom, runTimeTo);
+		if (StringUtils.isNotBlank(txnType)){
+			sql = sql + "AND TXN_TYPE = :txnType ";
+			sqlparameters.addValue("txnType", txnType);
+		}
+		// primary key order, so no sort is required by the database
+		sql = sql + "ORDER BY APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN ";
+
+		streamQuery(sql, sqlparameters, rowHandler);
+	}
+
+
+	/**
+	 * No ORDER BY is applied, so raw rows are returned in the order the database reads them.  The TESTTRANSACTIONS indexes
+	 * (leading with APPLICATION and RUN_TIME, in both the standard and the optional partitioned layouts) let the database
+	 * find the requested rows, but ordering what can be millions of raw rows would cost a sort or a table lookup per index
+	 * entry, and an export does not need them in order.  Rows for a run being loaded at the time of the request (run time
+	 * of {@link AppConstantsTrends#RUN_TIME_YET_TO_BE_CALCULATED}) are excluded.
+	 */
+	@Override
+	public void streamTestTransactions(String application, String runTimeFrom, String runTimeTo, String txnType,
+			RowCallbackHandler rowHandler) {
+
+		String sql = "SELECT APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, TXN_RESULT, TXN_PASSED, TXN_EPOCH_TIME "
+				   + "FROM TESTTRANSACTIONS "
+				   + "WHERE APPLICATION = :application "
+				   + "AND RUN_TIME <> :runTimeYetToBeCalculated "
+				   + runTimeRangeSql(runTimeFrom, runTimeTo);
+
+		MapSqlParameterSource sqlparameters = runTimeRangeParameters(application, runTimeFrom, runTimeTo)
+				.addValue("runTimeYetToBeCalculated", AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		if (StringUtils.isNotBlank(txnType)){
+			sql = sql + "AND TXN_TYPE = :txnType ";
+			sqlparameters.addValue("txnType", txnType);
+		}
+
+		streamQuery(sql, sqlparameters, rowHandler);
+	}
+
+
+	private String runTimeRangeSql(String runTimeFrom, String runTimeTo) {
+		String sql = "";
+		if (StringUtils.isNotBlank(runTimeFrom)){
+			sql = sql + "AND RUN_TIME >= :runTimeFrom ";
+		}
+		if (StringUtils.isNotBlank(runTimeTo)){
+			sql = sql + "AND RUN_TIME <= :runTimeTo ";
+		}
+		return sql;
+	}
+
+
+	private MapSqlParameterSource runTimeRangeParameters(String application, String runTimeFrom, String runTimeTo) {
+		return new MapSqlParameterSource()
+				.addValue("application", application)
+				.addValue("runTimeFrom", runTimeFrom)
+				.addValue("runTimeTo", runTimeTo);
+	}
+
+
+	private void streamQuery(String sql, MapSqlParameterSource sqlparameters, RowCallbackHandler rowHandler) {
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
+			jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+		} else {
+			jdbcTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+		}
+		NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+		TransactionTemplate readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		readOnlyTransaction.setReadOnly(true);
+
+//		System.out.println("TrendsExportDAO streamQuery : " + sql + Mark59Utils.prettyPrintMap(sqlparameters.getValues()));
+		readOnlyTransaction.executeWithoutResult(status -> namedJdbcTemplate.query(sql, sqlparameters, rowHandler));
+	}
+
+}
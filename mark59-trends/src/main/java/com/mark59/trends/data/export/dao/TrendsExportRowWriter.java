@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.export.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.mark59.trends.application.AppConstantsTrends;
+
+/**
+ * Writes each streamed row directly to the output as either a CSV line or a JSON object on its own line
+ * ('JSON lines').  Column names are taken from the result set metadata.  The output is flushed every
+ * {@link #FLUSH_EVERY_N_ROWS} rows so that the client receives the export in chunks as it is read.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TrendsExportRowWriter implements RowCallbackHandler
+{
+	private static final int FLUSH_EVERY_N_ROWS = 1000;
+
+	private final Writer writer;
+	private final boolean csvFormat;
+
+	private String[] columnNames;
+	private long rowCount = 0L;
+
+
+	public TrendsExportRowWriter(Writer writer, String exportFormat) {
+		this.writer = writer;
+		this.csvFormat = AppConstantsTrends.EXPORT_FORMAT_CSV.equalsIgnoreCase(exportFormat);
+	}
+
+
+	@Override
+	public void processRow(ResultSet rs) throws SQLException {
+		try {
+			if (columnNames == null){
+				columnNames = columnNames(rs.getMetaData());
+				if (csvFormat){
+					writeCsvLine(columnNames);
+				}
+			}
+
+			Object[] values = new Object[columnNames.length];
+			for (int i = 0; i < columnNames.length; i++) {
+				values[i] = rs.getObject(i + 1);
+			}
+
+			if (csvFormat){
+				writeCsvLine(values);
+			} else {
+				writeJsonLine(values);
+			}
+
+			rowCount++;
+			if (rowCount % FLUSH_EVERY_N_ROWS == 0){
+				writer.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Trends export write failed after " + rowCount + " rows", e);
+		}
+	}
+
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+
+	private String[] columnNames(ResultSetMetaData metaData) throws SQLException {
+		String[] names = new String[metaData.getColumnCount()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = metaData.getColumnLabel(i + 1).toUpperCase();
+		}
+		return names;
+	}
+
+
+	private String toText(Object value) {
+		if (value == null){
+			return null;
+		} else if (value instanceof BigDecimal){
+			return ((BigDecimal)value).toPlainString();
+		}
+		return value.toString();
+	}
+
+
+	private void writeCsvLine(Object[] values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0){
+				writer.write(',');
+			}
+			String value = toText(values[i]);
+			if (value != null){
+				if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0){
+					writer.write('"');
+					writer.write(value.replace("\"", "\"\""));
+					writer.write('"');
+				} else {
+					writer.write(value);
+				}
+			}
+		}
+		writer.write('\n');
+	}
+
+
+	/**
+	 * numeric columns are written as JSON numbers (except NaN and infinite values, which JSON cannot represent, 
+	 * written as null), everything else as JSON strings
+	 */
+	private void writeJsonLine(Object[] values) throws IOException {
+		writer.write('{');
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0){
+				writer.write(',');
+			}
+			writeJsonString(columnNames[i]);
+			writer.write(':');
+			if (values[i] == null || isNaNOrInfinite(values[i])){
+				writer.write("null");
+			} else if (values[i] instanceof Number){
+				writer.write(toText(values[i]));
+			} else {
+				writeJsonString(toText(values[i]));
+			}
+		}
+		writer.write("}\n");
+	}
+
+
+	private boolean isNaNOrInfinite(Object value) {
+		if (value instanceof Double){
+			return !Double.isFinite((Double)value);
+		} else if (value instanceof Float){
+			return !Float.isFinite((Float)value);
+		}
+		return false;
+	}
+
+
+	private void writeJsonString(String value) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"'  : writer.write("\\\""); break;
+				case '\\' : writer.write("\\\\"); break;
+				case '\n' : writer.write("\\n");  break;
+				case '\r' : writer.write("\\r");  break;
+				case '\t' : writer.write("\\t");  break;
+				default:
+					if (c < 0x20){
+						writer.write(String.format("\\u%04x", (int)c));
+					} else {
+						writer.write(c);
+					}
+			}
+		}
+		writer.write('"');
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.trends.data.expression;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.mark59.trends.data.beans.BarRange;
+
+/**
+ * A graph BAR_RANGE_SQL compiled to a pair of {@link TransactionExpression}s, for the (usual) form that selects the
+ * bars of a run from its own TRANSACTION rows:
+ *
+ * <p><code>SELECT TXN_ID, <i>expression</i> AS BAR_MIN, <i>expression</i> AS BAR_MAX FROM TRANSACTION
+ * WHERE TXN_TYPE = '<i>type</i>' AND RUN_TIME = :runTime AND APPLICATION = :application</code>
+ *
+ * <p>(conditions in any order, AS optional).  Other bar range SQL (eg selecting from SLA or METRICSLA) is not compiled,
+ * and should be run as is.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionBarRange {
+
+	private static final Pattern BAR_RANGE_SQL = Pattern.compile(
+			"\\s*SELECT\\s+(?:T\\.)?TXN_ID\\s*,(.+?)\\s+(?:AS\\s+)?BAR_MIN\\s*,(.+?)\\s+(?:AS\\s+)?BAR_MAX"
+			+ "\\s+FROM\\s+TRANSACTION(?:\\s+(?:AS\\s+)?T)?\\s+WHERE\\s+(.+?)[\\s;]*",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern TXN_TYPE_CONDITION    = Pattern.compile("(?:T\\.)?TXN_TYPE\\s*=\\s*'([^']*)'", Pattern.CASE_INSENSITIVE);
+	private static final Pattern RUN_TIME_CONDITION    = Pattern.compile("(?:T\\.)?RUN_TIME\\s*=\\s*:runTime", Pattern.CASE_INSENSITIVE);
+	private static final Pattern APPLICATION_CONDITION = Pattern.compile("(?:T\\.)?APPLICATION\\s*=\\s*:application", Pattern.CASE_INSENSITIVE);
+
+	/** compiled bar ranges keyed by BAR_RANGE_SQL text (an empty Optional for SQL that cannot be compiled) */
+	private static final Map<String, Optional<TransactionBarRange>> COMPILED = new ConcurrentHashMap<>();
+
+	private final String txnType;
+	private final TransactionExpression barMin;
+	private final TransactionExpression barMax;
+
+
+	private TransactionBarRange(String txnType, TransactionExpression barMin, TransactionExpression barMax) {
+		this.txnType = txnType;
+		this.barMin = barMin;
+		this.barMax = barMax;
+	}
+
+
+	/**
+	 * @param barRangeSql a graph BAR_RANGE_SQL
+	 * @return the compiled bar range (each distinct SQL text is only compiled once), or null if the SQL is not of the
+	 * supported form
+	 */
+	public static TransactionBarRange compiled(String barRangeSql) {
+		if (barRangeSql == null) {
+			return null;
+		}
+		return COMPILED.computeIfAbsent(barRangeSql, k -> Optional.ofNullable(compile(k))).orElse(null);
+	}
+
+
+	static TransactionBarRange compile(String barRangeSql) {
+		Matcher matcher = BAR_RANGE_SQL.matcher(barRangeSql);
+		if (!matcher.matches()) {
+			return null;
+		}
+		TransactionExpression barMin = TransactionExpression.compile(matcher.group(1));
+		TransactionExpression barMax = TransactionExpression.compile(matcher.group(2));
+		if (barMin == null || barMax == null) {
+			return null;
+		}
+
+		String txnType = null;
+		boolean runTimeCondition = false;
+		boolean applicationCondition = false;
+		for (String condition : matcher.group(3).trim().split("(?i)\\s+AND\\s+")) {
+			Matcher txnTypeMatcher = TXN_TYPE_CONDITION.matcher(condition.trim());
+			if (txnType == null && txnTypeMatcher.matches()) {
+				txnType = txnTypeMatcher.group(1);
+			} else if (!runTimeCondition && RUN_TIME_CONDITION.matcher(condition.trim()).matches()) {
+				runTimeCondition = true;
+			} else if (!applicationCondition && APPLICATION_CONDITION.matcher(condition.trim()).matches()) {
+				applicationCondition = true;
+			} else {
+				return null;
+			}
+		}
+		if (txnType == null || !runTimeCondition || !applicationCondition) {
+			return null;
+		}
+		return new TransactionBarRange(txnType, barMin, barMax);
+	}
+
+
+	/**
+	 * @param txnId transaction id of the row
+	 * @param row a TRANSACTION row (keyed by column name) including each of the columns of the bar range
+	 * @return the bar for the transaction, or null when either end of the bar is null
+	 */
+	public BarRange evaluate(String txnId, Map<String, Object> row) {
+		BigDecimal min = barMin.evaluate(row);
+		BigDecimal max = barMax.evaluate(row);
+		if (min == null || max == null) {
+			return null;
+		}
+		return new BarRange(txnId, min, max);
+	}
+
+	public String getTxnType() {
+		return txnType;
+	}
+
+	/**
+	 * @return the TRANSACTION columns used by the bar range, as a comma separated select list
+	 */
+	public String columnsSql() {
+		Set<String> columns = new LinkedHashSet<>(barMin.getColumns());
+		columns.addAll(barMax.getColumns());
+		return String.join(", ", columns);
+	}
+
+	@Override
+	public String toString() {
+		return "[txnType="+ txnType + ", barMin="+ barMin + ", barMax="+ barMax + "]";
+	}
+
+}
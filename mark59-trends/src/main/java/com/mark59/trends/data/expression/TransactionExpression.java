@@ -0,0 +1,358 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.trends.data.expression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A graph value derivation (or bar range expression) compiled to an evaluator over the numeric columns of a
+ * TRANSACTION row, so the value can be calculated in Java from the columns rather than by the database on each graph
+ * render.
+ *
+ * <p>The supported subset is SQL arithmetic: numeric literals, the numeric TRANSACTION columns (optionally qualified by
+ * the alias T), <code>+ - * /</code>, parentheses and the functions COALESCE, NULLIF, ABS and ROUND.  Nulls propagate as
+ * in SQL, and a division by zero gives null (as MySQL does), so for example
+ * <code>COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)</code> gives -1 for a transaction with no pass or fail counts.
+ * A division gives four more decimal places than its dividend (again as MySQL).
+ *
+ * <p>Anything else (other functions, CASE, columns of other tables, ..) is not compiled, and should be left to the
+ * database.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionExpression {
+
+	/** the TRANSACTION columns an expression can refer to */
+	public static final List<String> NUMERIC_COLUMNS = List.of(
+			"TXN_MINIMUM", "TXN_AVERAGE", "TXN_MEDIAN", "TXN_MAXIMUM", "TXN_STD_DEVIATION",
+			"TXN_90TH", "TXN_95TH", "TXN_99TH",
+			"TXN_PASS", "TXN_FAIL", "TXN_STOP",
+			"TXN_FIRST", "TXN_LAST", "TXN_SUM", "TXN_DELAY");
+
+	/** extra decimal places given by a division (MySQL div_precision_increment default) */
+	static final int DIVISION_SCALE_INCREMENT = 4;
+
+	private static final Pattern TOKEN = Pattern.compile(
+			"\\s*(?:(\\d+(?:\\.\\d*)?|\\.\\d+)|([A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)?)|([-+*/(),]))");
+
+	/** compiled expressions keyed by expression text (an empty Optional for text that cannot be compiled) */
+	private static final Map<String, Optional<TransactionExpression>> COMPILED = new ConcurrentHashMap<>();
+
+	private final String expression;
+	private final Node root;
+	private final Set<String> columns;
+
+
+	@FunctionalInterface
+	private interface Node {
+		BigDecimal evaluate(Map<String, Object> row);
+	}
+
+
+	private TransactionExpression(String expression, Node root, Set<String> columns) {
+		this.expression = expression;
+		this.root = root;
+		this.columns = Collections.unmodifiableSet(columns);
+	}
+
+
+	/**
+	 * @param expression a graph value derivation or bar range expression
+	 * @return the compiled expression (each distinct expression text is only compiled once), or null if the
+	 * expression is outside the supported subset
+	 */
+	public static TransactionExpression compiled(String expression) {
+		if (expression == null) {
+			return null;
+		}
+		return COMPILED.computeIfAbsent(expression, k -> Optional.ofNullable(compile(k))).orElse(null);
+	}
+
+
+	/**
+	 * @return the compiled expression, or null if the expression is outside the supported subset, or does not refer to
+	 * any TRANSACTION column
+	 */
+	static TransactionExpression compile(String expression) {
+		List<String> tokens = tokenize(expression);
+		if (tokens == null || tokens.isEmpty()) {
+			return null;
+		}
+		Parser parser = new Parser(tokens);
+		Node root = parser.parseExpression();
+		if (root == null || parser.position != tokens.size() || parser.columns.isEmpty()) {
+			return null;
+		}
+		return new TransactionExpression(expression, root, parser.columns);
+	}
+
+
+	/**
+	 * @param row a TRANSACTION row (keyed by column name) including each of the columns of the expression
+	 * @return the value of the expression (null as SQL would give null)
+	 */
+	public BigDecimal evaluate(Map<String, Object> row) {
+		return root.evaluate(row);
+	}
+
+	/**
+	 * @return the TRANSACTION columns the expression refers to (upper case, without any alias)
+	 */
+	public Set<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the columns of the expression as a comma separated select list
+	 */
+	public String columnsSql() {
+		return String.join(", ", columns);
+	}
+
+	@Override
+	public String toString() {
+		return "[expression="+ expression + ", columns="+ columns + "]";
+	}
+
+
+	/**
+	 * @return the tokens of the expression, or null if it contains anything other than numbers, identifiers,
+	 * arithmetic operators, parentheses and commas
+	 */
+	private static List<String> tokenize(String expression) {
+		List<String> tokens = new ArrayList<>();
+		Matcher matcher = TOKEN.matcher(expression);
+		int position = 0;
+		while (position < expression.length()) {
+			if (!matcher.find(position) || matcher.start() != position) {
+				return expression.substring(position).trim().isEmpty() ? tokens : null;
+			}
+			tokens.add(matcher.group().trim());
+			position = matcher.end();
+		}
+		return tokens;
+	}
+
+
+	static BigDecimal toBigDecimal(Object value) {
+		if (value == null || value instanceof BigDecimal) {
+			return (BigDecimal)value;
+		} else if (value instanceof BigInteger) {
+			return new BigDecimal((BigInteger)value);
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return BigDecimal.valueOf(((Number)value).longValue());
+		} else if (value instanceof Number) {
+			return BigDecimal.valueOf(((Number)value).doubleValue());
+		}
+		return new BigDecimal(value.toString().trim());
+	}
+
+
+	/**
+	 * Recursive descent parser of the supported subset.  Each parse method returns null when the expression cannot be
+	 * compiled.
+	 */
+	private static class Parser {
+
+		private final List<String> tokens;
+		private final Set<String> columns = new LinkedHashSet<>();
+		private int position = 0;
+
+		Parser(List<String> tokens) {
+			this.tokens = tokens;
+		}
+
+		private String peek() {
+			return position < tokens.size() ? tokens.get(position) : null;
+		}
+
+		private boolean accept(String token) {
+			if (token.equals(peek())) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		// expression := term ( ('+' | '-') term )*
+		Node parseExpression() {
+			Node left = parseTerm();
+			while (left != null && ("+".equals(peek()) || "-".equals(peek()))) {
+				boolean add = "+".equals(tokens.get(position++));
+				Node l = left;
+				Node r = parseTerm();
+				if (r == null) {
+					return null;
+				}
+				left = row -> {
+					BigDecimal a = l.evaluate(row);
+					BigDecimal b = r.evaluate(row);
+					if (a == null || b == null) {
+						return null;
+					}
+					return add ? a.add(b) : a.subtract(b);
+				};
+			}
+			return left;
+		}
+
+		// term := factor ( ('*' | '/') factor )*
+		private Node parseTerm() {
+			Node left = parseFactor();
+			while (left != null && ("*".equals(peek()) || "/".equals(peek()))) {
+				boolean multiply = "*".equals(tokens.get(position++));
+				Node l = left;
+				Node r = parseFactor();
+				if (r == null) {
+					return null;
+				}
+				left = row -> {
+					BigDecimal a = l.evaluate(row);
+					BigDecimal b = r.evaluate(row);
+					if (a == null || b == null) {
+						return null;
+					}
+					if (multiply) {
+						return a.multiply(b);
+					}
+					if (b.signum() == 0) {
+						return null;
+					}
+					return a.divide(b, Math.max(a.scale(), 0) + DIVISION_SCALE_INCREMENT, RoundingMode.HALF_UP);
+				};
+			}
+			return left;
+		}
+
+		// factor := ('-' | '+') factor | number | column | function '(' arguments ')' | '(' expression ')'
+		private Node parseFactor() {
+			String token = peek();
+			if (token == null) {
+				return null;
+			}
+			position++;
+			if ("-".equals(token)) {
+				Node operand = parseFactor();
+				return operand == null ? null : row -> {
+					BigDecimal value = operand.evaluate(row);
+					return value == null ? null : value.negate();
+				};
+			}
+			if ("+".equals(token)) {
+				return parseFactor();
+			}
+			if ("(".equals(token)) {
+				Node inner = parseExpression();
+				return inner != null && accept(")") ? inner : null;
+			}
+			if (Character.isDigit(token.charAt(0)) || token.charAt(0) == '.') {
+				BigDecimal literal = new BigDecimal(token.endsWith(".") ? token.substring(0, token.length() - 1) : token);
+				return row -> literal;
+			}
+			if (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_') {
+				if ("(".equals(peek())) {
+					return parseFunction(token.toUpperCase());
+				}
+				return column(token.toUpperCase());
+			}
+			return null;
+		}
+
+		private Node column(String identifier) {
+			String column = identifier.startsWith("T.") ? identifier.substring(2) : identifier;
+			if (!NUMERIC_COLUMNS.contains(column)) {
+				return null;
+			}
+			columns.add(column);
+			return row -> toBigDecimal(row.get(column));
+		}
+
+		private Node parseFunction(String function) {
+			position++;   // the '('
+			List<Node> arguments = new ArrayList<>();
+			do {
+				Node argument = parseExpression();
+				if (argument == null) {
+					return null;
+				}
+				arguments.add(argument);
+			} while (accept(","));
+			if (!accept(")")) {
+				return null;
+			}
+
+			switch (function) {
+			case "COALESCE":
+				return row -> {
+					for (Node argument : arguments) {
+						BigDecimal value = argument.evaluate(row);
+						if (value != null) {
+							return value;
+						}
+					}
+					return null;
+				};
+			case "NULLIF":
+				if (arguments.size() != 2) {
+					return null;
+				}
+				return row -> {
+					BigDecimal a = arguments.get(0).evaluate(row);
+					BigDecimal b = arguments.get(1).evaluate(row);
+					return a != null && b != null && a.compareTo(b) == 0 ? null : a;
+				};
+			case "ABS":
+				if (arguments.size() != 1) {
+					return null;
+				}
+				return row -> {
+					BigDecimal a = arguments.get(0).evaluate(row);
+					return a == null ? null : a.abs();
+				};
+			case "ROUND":
+				if (arguments.size() > 2) {
+					return null;
+				}
+				return row -> {
+					BigDecimal a = arguments.get(0).evaluate(row);
+					BigDecimal places = arguments.size() == 2 ? arguments.get(1).evaluate(row) : BigDecimal.ZERO;
+					if (a == null || places == null) {
+						return null;
+					}
+					return a.setScale(places.intValue(), RoundingMode.HALF_UP);
+				};
+			default:
+				return null;
+			}
+		}
+	}
+
+}
@@ -31,6 +31,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import com.mark59.trends.data.beans.BarRange;
 import com.mark59.trends.data.beans.GraphMapping;
+import com.mark59.trends.data.expression.TransactionBarRange;
 
 /**
  * @author Philip Webb
@@ -173,12 +174,44 @@ public class GraphMappingDAOjdbcTemplateImpl implements GraphMappingDAO
 
 		if (StringUtils.isBlank(rangeSql) ){
 			return new ArrayList<>();
+		}
+		TransactionBarRange compiledBarRange = TransactionBarRange.compiled(rangeSql);
+		if (compiledBarRange != null ){
+			return transactionsRangeBars(application, runTime, compiledBarRange);
 		} else {
 			return transactionsRangeBars(application, runTime, rangeSql);
 		}
 	}
 
 
+	/**
+	 * Bars for a BAR_RANGE_SQL that compiles to a TransactionBarRange: only the TRANSACTION columns the bar
+	 * expressions use are read, and the bars are calculated from them here.
+	 */
+	private List<BarRange> transactionsRangeBars(String application, String runTime, TransactionBarRange compiledBarRange) {
+		List<BarRange> trxnIdsSlaRanges = new ArrayList<>();
+
+		String sql = "SELECT TXN_ID, " + compiledBarRange.columnsSql() + " FROM TRANSACTION "
+				+ "WHERE APPLICATION = :application AND RUN_TIME = :runTime AND TXN_TYPE = :txnType ";
+
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource ()
+				.addValue("application", application)
+				.addValue("runTime", runTime)
+				.addValue("txnType", compiledBarRange.getTxnType());
+
+		NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		List<Map<String, Object>> rows = namedJdbcTemplate.queryForList(sql, sqlparameters);
+
+		for (Map<String, Object> row : rows) {
+			BarRange slaRange = compiledBarRange.evaluate((String)row.get("TXN_ID"), row);
+			if (slaRange != null) {
+				trxnIdsSlaRanges.add(slaRange);
+			}
+		}
+		return trxnIdsSlaRanges;
+	}
+
+
 	private List<BarRange> transactionsRangeBars(String application, String runTime, String rangeSql) {
 		List<BarRange> trxnIdsSlaRanges = new ArrayList<>();
 
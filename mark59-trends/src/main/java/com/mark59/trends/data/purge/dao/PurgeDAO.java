@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.purge.dao;
+
+import java.util.List;
+
+import com.mark59.trends.data.beans.Run;
+
+/**
+ * Bounded (chunked) deletes used by the run purge job.  Each chunk is a separate, auto-committed
+ * statement so that no table lock is held for longer than it takes to delete one chunk.  A chunk only deletes
+ * rows of a run which has no RUNS entry, so the rows of a run loaded again while its purge is pending are kept.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public interface PurgeDAO
+{
+
+	List<String> findRunTimes(String application);
+
+	/**
+	 * Records a purge request for the run (on PURGEREQUEST) and removes its RUNS entry, in one database transaction
+	 */
+	void requestPurge(String application, String runTime);
+
+	/**
+	 * @return the runs with a recorded purge request
+	 */
+	List<Run> findPurgeRequests();
+
+	void deletePurgeRequest(String application, String runTime);
+
+	/**
+	 * @return true if the run has a RUNS entry (eg the run has been loaded again since its purge was requested)
+	 */
+	boolean isRunPresent(String application, String runTime);
+
+	int deleteTestTransactionsChunk(String application, String runTime, int chunkSize);
+
+	int deleteTxnHistogramsChunk(String application, String runTime, int chunkSize);
+
+	int deleteTransactionsChunk(String application, String runTime, int chunkSize);
+
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.purge.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.trends.data.beans.Run;
+
+/**
+ * Chunked deletes are database dependent:
+ * <ul>
+ * <li>MySQL : <code>DELETE ... LIMIT n</code></li>
+ * <li>Postgres : no LIMIT on DELETE, so a bounded set of row ids (ctid) is selected and deleted</li>
+ * <li>H2 : <code>DELETE ... FETCH FIRST n ROWS ONLY</code></li>
+ * </ul>
+ * Every chunk delete is conditional on the run having no RUNS entry.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class PurgeDAOjdbcTemplateImpl implements PurgeDAO
+{
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private String currentDatabaseProfile;
+
+
+	@Override
+	public List<String> findRunTimes(String application) {
+		String sql = "SELECT RUN_TIME FROM RUNS WHERE APPLICATION = ? ORDER BY RUN_TIME";
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		return jdbcTemplate.queryForList(sql, String.class, application);
+	}
+
+
+	@Override
+	public void requestPurge(String application, String runTime) {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		TransactionTemplate requestTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		requestTransaction.executeWithoutResult(status -> {
+			jdbcTemplate.update("DELETE FROM PURGEREQUEST WHERE APPLICATION = ? AND RUN_TIME = ?", application, runTime);
+			jdbcTemplate.update("INSERT INTO PURGEREQUEST (APPLICATION, RUN_TIME, REQUESTED_AT) VALUES (?,?,?)",
+					application, runTime, System.currentTimeMillis());
+			jdbcTemplate.update("DELETE FROM RUNS WHERE APPLICATION = ? AND RUN_TIME = ?", application, runTime);
+		});
+	}
+
+
+	@Override
+	public List<Run> findPurgeRequests() {
+		String sql = "SELECT APPLICATION, RUN_TIME FROM PURGEREQUEST ORDER BY APPLICATION, RUN_TIME";
+
+		List<Run> purgeRequests = new ArrayList<>();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
+		for (Map<String, Object> row : rows) {
+			Run run = new Run();
+			run.setApplication((String)row.get("APPLICATION"));
+			run.setRunTime((String)row.get("RUN_TIME"));
+			purgeRequests.add(run);
+		}
+		return purgeRequests;
+	}
+
+
+	@Override
+	public void deletePurgeRequest(String application, String runTime) {
+		String sql = "DELETE FROM PURGEREQUEST WHERE APPLICATION = ? AND RUN_TIME = ?";
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update(sql, application, runTime);
+	}
+
+
+	@Override
+	public boolean isRunPresent(String application, String runTime) {
+		String sql = "SELECT COUNT(*) FROM RUNS WHERE APPLICATION = ? AND RUN_TIME = ?";
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		Integer runCount = jdbcTemplate.queryForObject(sql, Integer.class, application, runTime);
+		return runCount != null && runCount > 0;
+	}
+
+
+	@Override
+	public int deleteTestTransactionsChunk(String application, String runTime, int chunkSize) {
+		return deleteChunk("TESTTRANSACTIONS", application, runTime, chunkSize);
+	}
+
+
+	@Override
+	public int deleteTxnHistogramsChunk(String application, String runTime, int chunkSize) {
+		return deleteChunk("TXNHISTOGRAM", application, runTime, chunkSize);
+	}
+
+
+	@Override
+	public int deleteTransactionsChunk(String application, String runTime, int chunkSize) {
+		return deleteChunk("TRANSACTION", application, runTime, chunkSize);
+	}
+
+
+	private int deleteChunk(String table, String application, String runTime, int chunkSize) {
+		// re-checked by every chunk, so a run loaded again (RUNS entry inserted) after its purge was requested is left alone
+		String runNotPresent = " AND NOT EXISTS ( SELECT 1 FROM RUNS R WHERE R.APPLICATION = ? AND R.RUN_TIME = ? )";
+		String sql;
+		if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
+			sql = "DELETE FROM " + table + " WHERE APPLICATION = ? AND RUN_TIME = ?" + runNotPresent + " LIMIT ?";
+		} else if (Mark59Constants.PG.equals(currentDatabaseProfile)){
+			// ctid is only unique within a partition, so the run is also re-selected (for the partitioned TESTTRANSACTIONS layout)
+			sql = "DELETE FROM " + table + " WHERE APPLICATION = ? AND RUN_TIME = ?" + runNotPresent + " AND ctid = ANY ( ARRAY ( "
+					+ "SELECT ctid FROM " + table + " WHERE APPLICATION = ? AND RUN_TIME = ? LIMIT ? ) )";
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			return jdbcTemplate.update(sql, application, runTime, application, runTime, application, runTime, chunkSize);
+		} else {
+			sql = "DELETE FROM " + table + " WHERE APPLICATION = ? AND RUN_TIME = ?" + runNotPresent + " FETCH FIRST ? ROWS ONLY";
+		}
+//		System.out.println("PurgeDAO deleteChunk : " + sql + " [" + application + ", " + runTime + ", " + chunkSize + "]");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		return jdbcTemplate.update(sql, application, runTime, application, runTime, chunkSize);
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.rename.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.rename.TransactionBulkRenameProgress;
+import com.mark59.trends.rename.TransactionRename;
+
+/**
+ * Set based lookups and batched updates used to rename many transactions of an application at once.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public interface TransactionRenameDAO
+{
+
+	/**
+	 * @return the run time, txn id and CDP flag of each TRANSACTION row of the application and type with any of the txn ids
+	 */
+	List<Transaction> findRunsContainingTxnIds(String application, String txnType, Collection<String> txnIds);
+
+	/**
+	 * @return keys (see {@link TransactionRename#txnKey(String, String)}) of the SLAs of the application
+	 */
+	Set<String> findSlaTxnKeys(String application);
+
+	/**
+	 * @return the names of the metrics with a metric SLA, for the application and metric txn type
+	 */
+	Set<String> findMetricSlaNames(String application, String txnType);
+
+	/**
+	 * Applies the renames to TRANSACTION, TXNHISTOGRAM and TESTTRANSACTIONS, and the SLA renames to SLA (for a
+	 * TRANSACTION type) or METRICSLA, in batches, all within a single database transaction.
+	 */
+	void renameTransactions(String application, String txnType, List<TransactionRename> renames, List<TransactionRename> slaRenames,
+			TransactionBulkRenameProgress progress);
+
+}
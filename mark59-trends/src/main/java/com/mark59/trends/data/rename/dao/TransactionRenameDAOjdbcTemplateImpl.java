@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.rename.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.rename.TransactionBulkRenameProgress;
+import com.mark59.trends.rename.TransactionRename;
+
+/**
+ * Each table is updated with batches of {@link #RENAME_BATCH_SIZE} parameterised updates (one per rename).  All the
+ * tables are updated in the same database transaction, so a failed bulk rename leaves every table as it was.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionRenameDAOjdbcTemplateImpl implements TransactionRenameDAO
+{
+	public static final int RENAME_BATCH_SIZE = 100;
+
+	@Autowired
+	private DataSource dataSource;
+
+
+	@Override
+	public List<Transaction> findRunsContainingTxnIds(String application, String txnType, Collection<String> txnIds) {
+		List<Transaction> transactions = new ArrayList<>();
+		if (txnIds.isEmpty()) {
+			return transactions;
+		}
+		String sql = "SELECT RUN_TIME, TXN_ID, IS_CDP_TXN FROM TRANSACTION "
+				+ " WHERE APPLICATION = :application "
+				+ "   AND TXN_TYPE = :txnType "
+				+ "   AND TXN_ID IN ( :txnIds ) ";
+
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource()
+				.addValue("application", application)
+				.addValue("txnType", txnType)
+				.addValue("txnIds", new ArrayList<>(txnIds));
+
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate.query(sql, sqlparameters, rs -> {
+			Transaction transaction = new Transaction();
+			transaction.setApplication(application);
+			transaction.setTxnType(txnType);
+			transaction.setRunTime(rs.getString("RUN_TIME"));
+			transaction.setTxnId(rs.getString("TXN_ID"));
+			transaction.setIsCdpTxn(rs.getString("IS_CDP_TXN"));
+			transactions.add(transaction);
+		});
+		return transactions;
+	}
+
+
+	@Override
+	public Set<String> findSlaTxnKeys(String application) {
+		String sql = "SELECT TXN_ID, IS_CDP_TXN FROM SLA WHERE APPLICATION = :application";
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource().addValue("application", application);
+
+		Set<String> slaTxnKeys = new HashSet<>();
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate.query(sql, sqlparameters, rs -> {
+			slaTxnKeys.add(TransactionRename.txnKey(rs.getString("TXN_ID"), rs.getString("IS_CDP_TXN")));
+		});
+		return slaTxnKeys;
+	}
+
+
+	@Override
+	public Set<String> findMetricSlaNames(String application, String txnType) {
+		String sql = "SELECT DISTINCT METRIC_NAME FROM METRICSLA WHERE APPLICATION = :application AND METRIC_TXN_TYPE = :txnType";
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource()
+				.addValue("application", application)
+				.addValue("txnType", txnType);
+
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		return new HashSet<>(jdbcTemplate.queryForList(sql, sqlparameters, String.class));
+	}
+
+
+	@Override
+	public void renameTransactions(String application, String txnType, List<TransactionRename> renames, List<TransactionRename> slaRenames,
+			TransactionBulkRenameProgress progress) {
+
+		String renameSql = " SET TXN_ID = :toTxnId, IS_CDP_TXN = :toIsCdpTxn "
+				+ " WHERE APPLICATION = :application "
+				+ "   AND TXN_TYPE    = :txnType "
+				+ "   AND TXN_ID      = :fromTxnId "
+				+ "   AND IS_CDP_TXN  = :fromIsCdpTxn ";
+
+		String slaTable = "SLA";
+		String slaSql = "UPDATE SLA SET TXN_ID = :toTxnId, IS_CDP_TXN = :toIsCdpTxn "
+				+ " WHERE APPLICATION = :application "
+				+ "   AND TXN_ID      = :fromTxnId "
+				+ "   AND IS_CDP_TXN  = :fromIsCdpTxn ";
+		if (!Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(txnType)) {
+			slaTable = "METRICSLA";
+			slaSql = "UPDATE METRICSLA SET METRIC_NAME = :toTxnId "
+				+ " WHERE APPLICATION     = :application "
+				+ "   AND METRIC_NAME     = :fromTxnId "
+				+ "   AND METRIC_TXN_TYPE = :txnType ";
+		}
+		String finalSlaTable = slaTable;
+		String finalSlaSql = slaSql;
+
+		TransactionTemplate renameTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		renameTransaction.executeWithoutResult(status -> {
+			batchUpdate("TRANSACTION", "UPDATE TRANSACTION" + renameSql, application, txnType, renames, progress,
+					progress::addTransactionRowsUpdated);
+			batchUpdate("TXNHISTOGRAM", "UPDATE TXNHISTOGRAM" + renameSql, application, txnType, renames, progress,
+					progress::addTxnHistogramRowsUpdated);
+			batchUpdate("TESTTRANSACTIONS", "UPDATE TESTTRANSACTIONS" + renameSql, application, txnType, renames, progress,
+					progress::addTestTransactionRowsUpdated);
+			batchUpdate(finalSlaTable, finalSlaSql, application, txnType, slaRenames, progress,
+					progress::addSlaRowsUpdated);
+		});
+	}
+
+
+	private void batchUpdate(String table, String sql, String application, String txnType, List<TransactionRename> renames,
+			TransactionBulkRenameProgress progress, LongConsumer rowsUpdated) {
+		progress.setCurrentTable(table);
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+		for (int batchStart = 0; batchStart < renames.size(); batchStart += RENAME_BATCH_SIZE) {
+			List<TransactionRename> batch = renames.subList(batchStart, Math.min(renames.size(), batchStart + RENAME_BATCH_SIZE));
+			SqlParameterSource[] batchParameters = new SqlParameterSource[batch.size()];
+			for (int i = 0; i < batch.size(); i++) {
+				TransactionRename rename = batch.get(i);
+				batchParameters[i] = new MapSqlParameterSource()
+						.addValue("toTxnId", rename.getToTxnId())
+						.addValue("toIsCdpTxn", rename.getToIsCdpTxn())
+						.addValue("application", application)
+						.addValue("txnType", txnType)
+						.addValue("fromTxnId", rename.getFromTxnId())
+						.addValue("fromIsCdpTxn", rename.getFromIsCdpTxn());
+			}
+			long updated = 0;
+			for (int rowCount : jdbcTemplate.batchUpdate(sql, batchParameters)) {
+				if (rowCount > 0) {   // a driver may not report counts for a batch (Statement.SUCCESS_NO_INFO)
+					updated = updated + rowCount;
+				}
+			}
+			rowsUpdated.accept(updated);
+			progress.addRenamesApplied(batch.size());
+		}
+	}
+
+}
@@ -483,12 +483,13 @@ public class RunDAOjdbcTemplateImpl implements RunDAO
 			sql = rawRunTimeSelectionSQL;
 
 		} else {
-			sql = "select distinct r.RUN_TIME, r.BASELINE_RUN, r.IS_RUN_IGNORED from "
-				 + " RUNS r, "
-				 + " TRANSACTION t "
+			// EXISTS (rather than a DISTINCT join) only probes the TRANSACTION key for each run
+			sql = "select r.RUN_TIME, r.BASELINE_RUN, r.IS_RUN_IGNORED from "
+				 + " RUNS r "
 				 + "   where r.APPLICATION = :application "
-				 + "     and r.APPLICATION = t.APPLICATION "
-				 + "     and r.RUN_TIME    = t.RUN_TIME ";
+				 + "     and exists ( select 1 from TRANSACTION t "
+				 + "                   where t.APPLICATION = r.APPLICATION "
+				 + "                     and t.RUN_TIME    = r.RUN_TIME ) ";
 
 			if (!"%".equals(sqlSelectRunLike) ){
 				sql = sql + " AND r.RUN_TIME LIKE :sqlSelectRunLike ";
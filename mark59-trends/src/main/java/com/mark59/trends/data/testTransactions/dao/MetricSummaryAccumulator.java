@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.testTransactions.dao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+
+import com.mark59.trends.application.AppConstantsTrends;
+import com.mark59.trends.application.UtilsTrends;
+import com.mark59.trends.data.beans.EventMapping;
+import com.mark59.trends.data.beans.Transaction;
+
+/**
+ * Summary statistics of the values of one metric (a transaction not of type TRANSACTION), accumulated as the metric's
+ * rows are read.
+ *
+ * <p>Values are added exactly as held on TESTTRANSACTIONS (TXN_RESULT is a decimal with a scale of 6), so the total
+ * cannot lose digits or overflow however large the values or the run.  The statistics match those previously calculated
+ * from the metric's full list of values (a minimum rounded to 3 decimals as it goes, and a maximum of the last value
+ * above that minimum).
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class MetricSummaryAccumulator {
+
+	private static final BigDecimal HUNDRED_PERCENT = new BigDecimal("100.0");
+	private static final BigDecimal NINETY_PERCENT  = new BigDecimal("90.0");
+
+	private final String txnId;
+	private final String metricTxnType;
+	private final EventMapping eventMapping;
+	private final boolean isPercentage;
+	private final boolean isInvertedPercentage;
+
+	private long count;
+	private long countPointsAtBottleneckThreshold;
+	private BigDecimal totalOfValues = new BigDecimal("0.000000");
+	private BigDecimal txnMinimum;
+	private BigDecimal txnMaximum;
+	private BigDecimal txnFirst;
+	private BigDecimal txnLast;
+
+
+	MetricSummaryAccumulator(String txnId, String metricTxnType, EventMapping eventMapping) {
+		this.txnId = txnId;
+		this.metricTxnType = metricTxnType;
+		this.eventMapping = eventMapping;
+		this.isPercentage = "Y".equals(eventMapping.getIsPercentage());
+		this.isInvertedPercentage = "Y".equals(eventMapping.getIsInvertedPercentage());
+	}
+
+	boolean isFor(String txnId, String metricTxnType) {
+		return this.txnId.equals(txnId) && this.metricTxnType.equals(metricTxnType);
+	}
+
+	void add(BigDecimal value) {
+		if (count == 0) {
+			txnMinimum = value;
+			txnMaximum = value;
+			txnFirst = value;
+		}
+		txnLast = value;
+
+		if (value.compareTo(txnMinimum) < 0) {
+			txnMinimum = value.setScale(3, RoundingMode.HALF_UP);
+		}
+		if (value.compareTo(txnMinimum) > 0) {
+			txnMaximum = value.setScale(3, RoundingMode.HALF_UP);
+		}
+
+		// if the metric value is a %idle, we need to invert it to turn it into a %utilisation ..
+		if (isInvertedPercentage) {
+			value = HUNDRED_PERCENT.subtract(value);
+		}
+		totalOfValues = totalOfValues.add(value);
+
+		// time spent over 90% of metric (or <10% inverted percentage like idle)
+		if (isPercentage && value.compareTo(NINETY_PERCENT) > 0) {
+			countPointsAtBottleneckThreshold++;
+		}
+		count++;
+	}
+
+	Transaction toTransaction(String application) {
+
+		//form the transaction id for the system metric by removing from the JMeter file label any unwanted characters using the event mapping left and right boundaries.
+		String eventTxnId = UtilsTrends.deriveEventTxnIdUsingEventMappingBoundaryRules(txnId, eventMapping);
+
+		BigDecimal tnxAverage = totalOfValues.divide(new BigDecimal(count), 3, RoundingMode.HALF_UP);
+
+		Transaction metricTransaction = new Transaction();
+		metricTransaction.setApplication(application);
+		metricTransaction.setRunTime(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		metricTransaction.setTxnId(eventTxnId);
+		metricTransaction.setTxnType(eventMapping.getTxnType());   // DATAPOINT, CPU_UTIL, MEMORY
+		metricTransaction.setIsCdpTxn("N");                        // as its a metric txn
+		metricTransaction.setTxnMinimum(txnMinimum);
+		metricTransaction.setTxnAverage(tnxAverage);
+		metricTransaction.setTxnMedian(BigDecimal.valueOf(-1.0));
+		metricTransaction.setTxnMaximum(txnMaximum);
+		metricTransaction.setTxnStdDeviation(BigDecimal.valueOf(-1.0));
+
+		metricTransaction.setTxn90th(BigDecimal.valueOf(-1.0));
+		if (isPercentage){
+			//time above 90% threshold : the number of points at >90% as a % of the total number of points ('bottlenecked')
+			double percentSpendAtBottleneckThreshold = ( countPointsAtBottleneckThreshold / (double) count) * 100.0;
+			metricTransaction.setTxn90th(new BigDecimal(new DecimalFormat("#.00").format(percentSpendAtBottleneckThreshold)));
+		}
+		metricTransaction.setTxn95th(BigDecimal.valueOf(-1.0));
+		metricTransaction.setTxn99th(BigDecimal.valueOf(-1.0));
+		metricTransaction.setTxnPass(count);
+		metricTransaction.setTxnFail((long) -1);
+		metricTransaction.setTxnStop((long) -1);
+
+		metricTransaction.setTxnFirst(txnFirst);
+		metricTransaction.setTxnLast(txnLast);
+		metricTransaction.setTxnSum(totalOfValues);
+		metricTransaction.setTxnDelay(new BigDecimal("0.0"));
+		return metricTransaction;
+	}
+
+}
@@ -17,12 +17,14 @@
 package com.mark59.trends.data.testTransactions.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.mark59.trends.data.beans.DateRangeBean;
 import com.mark59.trends.data.beans.EventMapping;
 import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.TestTransaction;
 import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
 
 /**
  * @author Philip Webb
@@ -47,12 +49,18 @@ public interface TestTransactionsDAO
 	
 	Long getLatestTimestamp(String applicationn);
 	
-	List<Transaction> extractTransactionResponsesSummary(String application, String txnType);
+	List<Transaction> extractTransactionResponsesSummary(String application, String txnType, Map<String, TxnHistogram> txnHistograms);
 
-	Transaction extractEventSummaryStats(String application, String metricTxnType, String txnId, EventMapping eventMapping);
+	List<Transaction> extractEventSummaryStats(String application, Map<String, EventMapping> txnIdToEventMapping);
 
 	int filterByTime(Run run, DateRangeBean filteredDateRangeBean);
 
+	boolean isPartitionedLayout();
+
+	void prepareForBulkLoad(String application);
+
+	void completeBulkLoad(String application);
+
 
 	
 }
\ No newline at end of file
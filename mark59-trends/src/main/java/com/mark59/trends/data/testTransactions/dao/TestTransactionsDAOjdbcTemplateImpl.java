@@ -17,8 +17,6 @@
 package com.mark59.trends.data.testTransactions.dao;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -29,15 +27,18 @@ import javax.sql.DataSource;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.mark59.core.utils.Mark59Constants;
 import com.mark59.trends.application.AppConstantsTrends;
-import com.mark59.trends.application.UtilsTrends;
 import com.mark59.trends.data.beans.DateRangeBean;
 import com.mark59.trends.data.beans.EventMapping;
 import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.TestTransaction;
 import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
 
 /**
@@ -46,6 +47,12 @@ import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
  */
 public class TestTransactionsDAOjdbcTemplateImpl implements TestTransactionsDAO
 {
+	private static final String LOADING_PARTITION       = "TESTTRANSACTIONS_LOADING";
+	private static final String LOADING_PARTITION_INDEX = "TESTTRANSACTIONS_LOADING_IX";
+	private static final String LOADING_PARTITION_MYSQL = "p_loading";
+	private static final int STREAMING_FETCH_SIZE = 1000;
+
+	private volatile Boolean partitionedLayout;
 
 	@Autowired
 	private DataSource dataSource;
@@ -243,164 +250,55 @@ public class TestTransactionsDAOjdbcTemplateImpl implements TestTransactionsDAO
 
 
 	/**
-	 * Extracts all data for an application data type (transaction or data sample).
+	 * Extracts all data for an application data type (transaction or data sample), in a single pass of the rows.
+	 *
+	 * <p>The rows are streamed in transaction order (see {@link #streamQuery}), so only the transaction currently being
+	 * read is accumulated (see {@link TransactionSummaryAccumulator}).  The histogram of the passed response times of
+	 * each transaction is built in the same pass.
 	 *
 	 * <p>NOTE 1: When this method is called currently assumed the run being processed will have a
 	 * run-time of AppConstantsMetrics.RUN_TIME_YET_TO_BE_CALCULATED (zeros) on TESTTRANSACTIONSMark59Constants.DatabaseTxnTypes.TRANSACTION.name()
 	 *
 	 * <p>NOTE 2: Currently only tested and implemented for DatabaseTxnType of TRANSACTION (see {@link Mark59Constants.DatabaseTxnTypes} ).
+	 *
+	 * @param application application
+	 * @param txnType txnType
+	 * @param txnHistograms the histogram of each transaction with passed results is added to this map, keyed by
+	 * {@link TxnHistogram#transactionKey(String, String)}
+	 * @return a summary Transaction for each transaction of the run
 	 */
 	@Override
-	public List<Transaction> extractTransactionResponsesSummary(String application, String txnType) {
-		// for MySQL : http://rpbouman.blogspot.com/2008/07/calculating-nth-percentile-in-mysql.html
-		//   - BUT "90/100 * COUNT(*) + 0.5" INSTEAD OF "90/100 * COUNT(*) + 1" to match Loadrunner results (which seems to be correct)
-		//     may have something to do with the way integer rounding is implemented in MySql
-		// https://stackoverflow.com/questions/2567000/mysql-and-group-concat-maximum-length
-		// https://dev.mysql.com/doc/refman/8.0/en/server-system-variables.html#sysvar_group_concat_max_len
-		//     SET PERSIST group_concat_max_len = 18446744073709551615; SHOW GLOBAL VARIABLES  LIKE 'group_concat_max_len'
+	public List<Transaction> extractTransactionResponsesSummary(String application, String txnType, Map<String, TxnHistogram> txnHistograms) {
 		// Note that transaction statistics are only calculated for Passed transactions
 
 		List<Transaction> transactions = new ArrayList<>();
 		long startLoadms = System.currentTimeMillis();
 		System.out.println("Collation of test transactional data starts at " + new Date(startLoadms));
 
-		String dbDependentStdDevAnd90th;
-		String dbDependent95th;
-		String dbDependent99th;
-		String dbDependentMedian;
-		if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
-			dbDependentStdDevAnd90th = " std(TXN_RESULT) txnStdDeviation, " +
-					            " SUBSTRING_INDEX(SUBSTRING_INDEX( GROUP_CONCAT(TXN_RESULT ORDER BY TXN_RESULT SEPARATOR ','), ',', CEILING(90/100 * COUNT(*) ) ), ',', -1) as txn90th, " ;
-			dbDependent95th   = " SUBSTRING_INDEX(SUBSTRING_INDEX( GROUP_CONCAT(TXN_RESULT ORDER BY TXN_RESULT SEPARATOR ','), ',', CEILING(95/100 * COUNT(*) ) ), ',', -1) as txn95th, " ;
-			dbDependent99th   = " SUBSTRING_INDEX(SUBSTRING_INDEX( GROUP_CONCAT(TXN_RESULT ORDER BY TXN_RESULT SEPARATOR ','), ',', CEILING(99/100 * COUNT(*) ) ), ',', -1) as txn99th, " ;
-			dbDependentMedian = " SUBSTRING_INDEX(SUBSTRING_INDEX( GROUP_CONCAT(TXN_RESULT ORDER BY TXN_RESULT SEPARATOR ','), ',', CEILING(50/100 * COUNT(*) ) ), ',', -1) as txnMedian, " ;
-		} else {
-			dbDependentStdDevAnd90th = 	" STDDEV_POP (TXN_RESULT) txnStdDeviation,"
-				              + " PERCENTILE_DISC(0.90) WITHIN GROUP (ORDER BY TXN_RESULT ) as txn90th, " ;
-			dbDependent95th = 	" PERCENTILE_DISC(0.95) WITHIN GROUP (ORDER BY TXN_RESULT ) as txn95th, " ;
-			dbDependent99th = 	" PERCENTILE_DISC(0.99) WITHIN GROUP (ORDER BY TXN_RESULT ) as txn99th, " ;
-			dbDependentMedian =	" PERCENTILE_DISC(0.50) WITHIN GROUP (ORDER BY TXN_RESULT ) as txnMedian, " ;
-		}
-
-		String sql =
-				"select APPLICATION, RUN_TIME, TXN_ID, IS_CDP_TXN, " +
-				"       sum(txnMinimum) txnMinimum, " +
-				"       sum(txnAverage) txnAverage, " +
-				"       sum(txnMedian)  txnMedian, " +
-				"       sum(txnMaximum) txnMaximum, " +
-				"       sum(txnStdDeviation) txnStdDeviation, " +
-				"       sum(txn90th) txn90th, " +
-				"       sum(txn95th) txn95th, " +
-				"       sum(txn99th) txn99th, " +
-				"       sum(txnPass) txnPass," +
-				"       sum(txnFail) txnFail, " +
-				"       sum(txnStop) txnStop "+
-				"from ( " +
-					"select APPLICATION, RUN_TIME, TXN_ID, IS_CDP_TXN, " +
-					 " min(TXN_RESULT) txnMinimum, " +
-					 " avg(TXN_RESULT) txnAverage, " +
-					 dbDependentMedian +
-					 " max(TXN_RESULT) txnMaximum, " +
-					 dbDependentStdDevAnd90th +
-					 dbDependent95th +
-					 dbDependent99th +
-					 " sum(case when TXN_PASSED = 'Y'  then 1 else 0 end) txnPass, " +
-					 " 0 txnFail, " +
-					 " 0 txnStop " +
-					 " from TESTTRANSACTIONS " +
-					 " where APPLICATION = ? " +
-					 "   and RUN_TIME = ? " +
-			   		 "   and TXN_TYPE = ? " +
-			   		 "   and TXN_PASSED = 'Y' " +
-			   		 " group by APPLICATION, RUN_TIME, TXN_ID, IS_CDP_TXN " +
-
-			   		 " union " +
-
-			   		 "select APPLICATION, RUN_TIME, TXN_ID, IS_CDP_TXN, " +
-			   		 " 0 txnMinimum, " +
-			   		 " 0 txnAverage, " +
-			   		 " 0 txnMedian, " +
-			   		 " 0 txnMaximum, " +
-			   		 " 0 txnStdDeviation, " +
-			   		 " 0 txn90th, " +
-			   		 " 0 txn95th, " +
-			   		 " 0 txn99th, " +
-			   		 " 0 txnPass, " +
-					 " sum(case when TXN_PASSED = 'N'  then 1 else 0 end) txnFail, " +
-					 " sum(case when TXN_PASSED = ? then 1 else 0 end) txnStop " +
-			   		 " from TESTTRANSACTIONS " +
-					 " where APPLICATION = ? " +
-					 "   and RUN_TIME = ? " +
-			   		 "   and TXN_TYPE = ? " +
-			   		 "   and TXN_PASSED != 'Y' " +
-			   		 " group by APPLICATION, RUN_TIME,TXN_ID, IS_CDP_TXN " +
-
-			   	") as txnSummary " +
-			   	"  group by APPLICATION, RUN_TIME, TXN_ID, IS_CDP_TXN "	 ;
-
-//		System.out.println("*** extractTransactionResponsesSummary sql : " + sql);
-
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-
-		// For MySQL to get around GROUP_CONCAT max length limitation
-		if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
-			jdbcTemplate.update("SET SESSION group_concat_max_len = 18446744073709551615");
-		}
-
-		List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql,
-				application,
-				AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED,
-				txnType,
-				AppConstantsTrends.TXN_STOPPPED_STATUS,
-				application,
-				AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED,
-				txnType);
-
-		for (Map<String, Object> row : rows) {
-			Transaction transaction = new Transaction();
-			transaction.setApplication(application);
-			transaction.setRunTime((String)row.get("RUN_TIME"));
-			transaction.setTxnId((String)row.get("TXN_ID"));
-			transaction.setTxnType(txnType);				// see javadoc
-			transaction.setIsCdpTxn((String)row.get("IS_CDP_TXN"));
-			transaction.setTxnMinimum((BigDecimal)row.get("txnMinimum"));
-			transaction.setTxnAverage((BigDecimal)row.get("txnAverage"));
-			transaction.setTxnMaximum((BigDecimal)row.get("txnMaximum"));
-
-
-			// Standard Deviations:   MYSQL returns Double, PG returns BigDecimal,  but for the H2 database,
-			// the type being returned has varied for the different profiles over recent releases.
-			// for h2 v2.1.210: 'h2mem' and 'h2tcpclient'/'h2tcpserver' return Double, 'h2' returns BigDecimal)
-
-			if (row.get("txnStdDeviation") instanceof Double) {
-				transaction.setTxnStdDeviation(BigDecimal.valueOf((Double) row.get("txnStdDeviation")));
-			} else {
-				transaction.setTxnStdDeviation((BigDecimal)row.get("txnStdDeviation"));
+		String sql = "select TXN_ID, IS_CDP_TXN, TXN_PASSED, TXN_RESULT from TESTTRANSACTIONS "
+				+ " where APPLICATION = ? "
+				+ "   and RUN_TIME = ? "
+				+ "   and TXN_TYPE = ? "
+				+ " order by TXN_ID, IS_CDP_TXN ";
+
+		TransactionSummaryAccumulator[] current = new TransactionSummaryAccumulator[1];
+
+		RowCallbackHandler accumulateTransaction = rs -> {
+			String txnId = rs.getString(1);
+			String isCdpTxn = rs.getString(2);
+			if (current[0] == null || !current[0].isFor(txnId, isCdpTxn)) {
+				if (current[0] != null) {
+					addSummaryOf(current[0], application, txnType, transactions, txnHistograms);
+				}
+				current[0] = new TransactionSummaryAccumulator(txnId, isCdpTxn);
 			}
+			current[0].add(rs.getString(3), rs.getBigDecimal(4));
+		};
 
-			if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
-				transaction.setTxnStdDeviation(BigDecimal.valueOf((Double) row.get("txnStdDeviation")));
-				transaction.setTxn90th(BigDecimal.valueOf((Double) row.get("txn90th")));
-				transaction.setTxn95th(BigDecimal.valueOf((Double) row.get("txn95th")));
-				transaction.setTxn99th(BigDecimal.valueOf((Double) row.get("txn99th")));
-				transaction.setTxnMedian(BigDecimal.valueOf((Double) row.get("txnMedian")));
-			} else {
-
-				transaction.setTxn90th((BigDecimal)row.get("txn90th"));
-				transaction.setTxn95th((BigDecimal)row.get("txn95th"));
-				transaction.setTxn99th((BigDecimal)row.get("txn99th"));
-				transaction.setTxnMedian((BigDecimal)row.get("txnMedian"));
-			}
+		streamQuery(sql, accumulateTransaction, application, AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED, txnType);
 
-			transaction.setTxnPass(((BigDecimal) row.get("txnPass")).longValue());
-			transaction.setTxnFail(((BigDecimal) row.get("txnFail")).longValue());
-			transaction.setTxnStop(((BigDecimal) row.get("txnStop")).longValue());
-      		transaction.setTxnFirst(BigDecimal.valueOf(-1.0));
-      		transaction.setTxnLast(BigDecimal.valueOf(-1.0));
-      		transaction.setTxnSum(BigDecimal.valueOf(-1.0));
-      		transaction.setTxnDelay(new BigDecimal("0.0"));
-      		transactions.add(transaction);
-//			System.out.println("populating extractTransactionStats: " + row.get("TXN_ID")  ) ;
+		if (current[0] != null) {
+			addSummaryOf(current[0], application, txnType, transactions, txnHistograms);
 		}
 
 		long endLoadms = System.currentTimeMillis();
@@ -409,139 +307,86 @@ public class TestTransactionsDAOjdbcTemplateImpl implements TestTransactionsDAO
 	}
 
 
+	private void addSummaryOf(TransactionSummaryAccumulator accumulator, String application, String txnType,
+			List<Transaction> transactions, Map<String, TxnHistogram> txnHistograms) {
+		Transaction transaction = accumulator.toTransaction(application, txnType);
+		transactions.add(transaction);
+		if (accumulator.getHistogram() != null) {
+			txnHistograms.put(TxnHistogram.transactionKey(transaction.getTxnId(), transaction.getIsCdpTxn()), accumulator.getHistogram());
+		}
+	}
+
+
 
 	/**
-	 * Used to find and summarize 'metric' transactions for the run being processed.
+	 * Used to find and summarize all the 'metric' transactions (those not of type TRANSACTION) for the run being processed,
+	 * in a single pass of the metric rows.
+	 *
+	 * <p>The rows are streamed in metric then epoch time order, so only the metric currently being read is accumulated
+	 * (see {@link MetricSummaryAccumulator}) and the summary for each metric is created as its last row is read.
+	 *
 	 * <p>NOTE 1. At the point this method is all called it is assumed the run being processed will have
 	 * run-time of AppConstantsMetrics.RUN_TIME_YET_TO_BE_CALCULATED (zeros) on TESTTRANSACTIONS
 	 * <p>NOTE 2. IS_CDP_TXN should always be 'N' for  metric transactions.
+	 *
+	 * @param application application
+	 * @param txnIdToEventMapping the event mapping for each metric txnId (as held on TESTTRANSACTIONS)
+	 * @return a summary Transaction for each metric of the run
 	 */
 	@Override
-	public Transaction extractEventSummaryStats(String application, String metricTxnType, String txnId, EventMapping eventMapping) {
-		Run run = new Run();
-		run.setApplication(application);
-		run.setRunTime(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED );
-		return extractEventSummaryStats(run, metricTxnType, txnId, eventMapping);
-	}
-
-
-	private Transaction extractEventSummaryStats(Run run, String metricTxnType, String txnId, EventMapping eventMapping) {
-//		System.out.println("extractEventSummaryStats txnType: " + txnType + "\n  lablel:" + dataSampleLablel + "\n  eventMapping: " + eventMapping  );
+	public List<Transaction> extractEventSummaryStats(String application, Map<String, EventMapping> txnIdToEventMapping) {
 
-		String sql = "select TXN_RESULT from TESTTRANSACTIONS "
+		String sql = "select TXN_ID, TXN_TYPE, TXN_RESULT from TESTTRANSACTIONS "
 				+ " where APPLICATION = ? "
-				+ "   and RUN_TIME = ?"
-				+ "   and TXN_ID = ?"
-		   		+ "   and TXN_TYPE = ? "
-		   		+ "   and IS_CDP_TXN = 'N' "
-		   		+ " order by TXN_EPOCH_TIME ";
-
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql,
-				run.getApplication(),
-				run.getRunTime(),
-				txnId,
-				metricTxnType);
-
-
-		BigDecimal value = new BigDecimal("0.000000").setScale(6, RoundingMode.DOWN);
-		BigDecimal totalOfValues = new BigDecimal("0.000000").setScale(6, RoundingMode.HALF_UP );
-
-		long countPointsAtBottleneckThreshold = 0L;
-		long count = 0L;
-
-		BigDecimal txnMinimum = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-		BigDecimal txnMaximum = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-
-		BigDecimal txnFirst = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-		BigDecimal txnLast  = BigDecimal.valueOf(-1.0).setScale(3, RoundingMode.HALF_UP);
-		boolean firstTimeThru = true;
-
-		BigDecimal ninetyPercent = new BigDecimal("90.0");
-
-
-		for (Map<String, Object> row : rows) {
-			value =  (BigDecimal)row.get("TXN_RESULT");  //.setScale(3, RoundingMode.HALF_UP) ;
-
-			if (firstTimeThru) {
-				txnMinimum = value;
-				txnMaximum = value;
-				txnFirst = value;
-				firstTimeThru = false;
-			}
-
-			txnLast = value;
-
-			if ( value.compareTo(txnMinimum) < 0  ){
-				txnMinimum = value.setScale(3, RoundingMode.HALF_UP);
-			}
-			if ( value.compareTo(txnMinimum) > 0  ){
-				txnMaximum = value.setScale(3, RoundingMode.HALF_UP);
-			}
-
-			// if the metric value is a %idle, we need to invert it to turn it into a %utilisation ..
-			if (eventMapping.getIsInvertedPercentage().equals("Y") ){
-				value = value.subtract( new BigDecimal("100.0")).negate();
-			}
-
-			//calculation of server utilisation average takes the total of all points captured, then divides that by number of points (also may be useful for certain Datapoints)
-			totalOfValues =  totalOfValues.add(value);
-
-			//calculation of time spent over 90% of metric (or <10% inverted percentage like idle).  Takes the number of points at >90%  and uses total number of point to get % 'bottlenecked'
-			if (eventMapping.getIsPercentage().equals("Y") &&  value.compareTo(ninetyPercent) > 0 ){
-				countPointsAtBottleneckThreshold = countPointsAtBottleneckThreshold + 1;
+				+ "   and RUN_TIME = ? "
+				+ "   and TXN_TYPE <> ? "
+				+ "   and IS_CDP_TXN = 'N' "
+				+ " order by TXN_TYPE, TXN_ID, TXN_EPOCH_TIME ";
+
+		List<Transaction> metricTransactions = new ArrayList<>();
+		MetricSummaryAccumulator[] current = new MetricSummaryAccumulator[1];
+
+		RowCallbackHandler accumulateMetric = rs -> {
+			String txnId = rs.getString(1);
+			String metricTxnType = rs.getString(2);
+			if (current[0] == null || !current[0].isFor(txnId, metricTxnType)) {
+				if (current[0] != null) {
+					metricTransactions.add(current[0].toTransaction(application));
+				}
+				EventMapping eventMapping = txnIdToEventMapping.get(txnId);
+				if (eventMapping == null) {
+					throw new RuntimeException("ERROR : No event mapping found for " + txnId);
+				}
+				current[0] = new MetricSummaryAccumulator(txnId, metricTxnType, eventMapping);
 			}
+			current[0].add(rs.getBigDecimal(3));
+		};
 
-			count = count +1;
-//			System.out.println("value = " + value + ",  count = " + count  );
+		streamQuery(sql, accumulateMetric,
+				application, AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED, Mark59Constants.DatabaseTxnTypes.TRANSACTION.name());
 
+		if (current[0] != null) {
+			metricTransactions.add(current[0].toTransaction(application));
 		}
+		return metricTransactions;
+	}
 
-		//form the transaction id for the system metric by removing from the JMeter file label any unwanted characters using the event mapping left and right boundaries.
-
-		String eventTxnId = UtilsTrends.deriveEventTxnIdUsingEventMappingBoundaryRules(txnId, eventMapping);
-
-
-		//average
-		BigDecimal tnxAverage =   totalOfValues.divide(new BigDecimal(count), 3, RoundingMode.HALF_UP  );
-
-		DecimalFormat df = new DecimalFormat("#.00");
-
-		//time above 90% threshold
-		Double percentSpendAtBottleneckThreshold = ( countPointsAtBottleneckThreshold / (double) count) * 100.0;
-		String percentSpendAtBottleneckThresholdStr =   df.format(percentSpendAtBottleneckThreshold);
-
-//		System.out.println("extractTransactionMetricsForServerStats: " + eventTxnId + " " + eventMapping.getTxnType()
-//				+ "  eventAve = " + tnxAverage + " util% = " + tnxAverage +	", 90th% threshold = " + percentSpendAtBottleneckThresholdStr + ", count was " + count );
-
-		Transaction metricTransaction = new Transaction();
-		metricTransaction.setApplication(run.getApplication());
-		metricTransaction.setRunTime(run.getRunTime());
-		metricTransaction.setTxnId(eventTxnId);
-		metricTransaction.setTxnType(eventMapping.getTxnType());   // DATAPOINT, CPU_UTIL, MEMORY
-		metricTransaction.setIsCdpTxn("N");                        // as its a metric txn
-		metricTransaction.setTxnMinimum(txnMinimum);
-		metricTransaction.setTxnAverage(tnxAverage);
-		metricTransaction.setTxnMedian(BigDecimal.valueOf(-1.0));
-		metricTransaction.setTxnMaximum(txnMaximum);
-		metricTransaction.setTxnStdDeviation(BigDecimal.valueOf(-1.0));
 
-		metricTransaction.setTxn90th(BigDecimal.valueOf(-1.0));
-		if (eventMapping.getIsPercentage().equals("Y")){
-			metricTransaction.setTxn90th(new BigDecimal(percentSpendAtBottleneckThresholdStr));
+	/**
+	 * Streams the rows of a query to the row handler, using a fetch size so that only one batch of rows is held by the
+	 * JDBC driver at any time (in a read-only transaction, as Postgres only uses a cursor when auto-commit is off).
+	 * For MySQL the Connector/J streaming convention of a fetch size of <code>Integer.MIN_VALUE</code> is used.
+	 */
+	private void streamQuery(String sql, RowCallbackHandler rowHandler, Object... args) {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
+			jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+		} else {
+			jdbcTemplate.setFetchSize(STREAMING_FETCH_SIZE);
 		}
-		metricTransaction.setTxn95th(BigDecimal.valueOf(-1.0));
-		metricTransaction.setTxn99th(BigDecimal.valueOf(-1.0));
-		metricTransaction.setTxnPass(count);
-		metricTransaction.setTxnFail((long) -1);
-		metricTransaction.setTxnStop((long) -1);
-
-		metricTransaction.setTxnFirst(txnFirst);
-		metricTransaction.setTxnLast(txnLast);
-		metricTransaction.setTxnSum(totalOfValues);
-		metricTransaction.setTxnDelay(new BigDecimal("0.0"));
-
-		return metricTransaction;
+		TransactionTemplate readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		readOnlyTransaction.setReadOnly(true);
+		readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, rowHandler, args));
 	}
 
 
@@ -549,13 +394,87 @@ public class TestTransactionsDAOjdbcTemplateImpl implements TestTransactionsDAO
 	public int filterByTime(Run run, DateRangeBean filteredDateRangeBean) {
 
 		String sql = "delete from TESTTRANSACTIONS where APPLICATION = ? "
+									+ "  and RUN_TIME = ? "
 									+ "  and TXN_EPOCH_TIME not between ? and ?";
 
 //		System.out.println("performing TestTransactionsDAOjdbcTemplateImpl.filterByTime : " + sql );
 		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
 		return jdbcTemplate.update(sql,
 				run.getApplication(),
+				AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED,
 				filteredDateRangeBean.getRunStartTime(),
 				filteredDateRangeBean.getRunEndTime());
 	}
+
+
+	/**
+	 * True when TESTTRANSACTIONS has been converted to the optional partitioned layout (see the
+	 * <code>*_mark59_optional_partitioned_TESTTRANSACTIONS.sql</code> database scripts).  Always false for H2.
+	 */
+	@Override
+	public boolean isPartitionedLayout() {
+		if (partitionedLayout == null){
+			String sql;
+			if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
+				sql = "select count(*) from information_schema.PARTITIONS "
+						+ " where TABLE_SCHEMA = DATABASE() "
+						+ "   and upper(TABLE_NAME) = 'TESTTRANSACTIONS' "
+						+ "   and PARTITION_NAME is not null";
+			} else if (Mark59Constants.PG.equals(currentDatabaseProfile)){
+				sql = "select count(*) from pg_partitioned_table p "
+						+ " join pg_class c on c.oid = p.partrelid "
+						+ " where c.relname = 'testtransactions'";
+			} else {
+				partitionedLayout = Boolean.FALSE;
+				return partitionedLayout;
+			}
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			Integer partitionCount = jdbcTemplate.queryForObject(sql, Integer.class);
+			partitionedLayout = partitionCount != null && partitionCount > 0;
+			System.out.println("TESTTRANSACTIONS partitioned layout : " + partitionedLayout);
+		}
+		return partitionedLayout;
+	}
+
+
+	/**
+	 * For the Postgres partitioned layout, drops the index on the loading partition so rows are inserted without index
+	 * maintenance.  The index is left in place if another application's run is being loaded at the same time.
+	 */
+	@Override
+	public void prepareForBulkLoad(String application) {
+		if (!isPartitionedLayout() || !Mark59Constants.PG.equals(currentDatabaseProfile)){
+			return;
+		}
+		String sql = "select count(*) from TESTTRANSACTIONS "
+				+ " where RUN_TIME = ? "
+				+ "   and APPLICATION <> ? ";
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		Integer otherLoadsRows = jdbcTemplate.queryForObject(sql, Integer.class, AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED, application);
+		if (otherLoadsRows != null && otherLoadsRows == 0){
+			jdbcTemplate.execute("drop index if exists " + LOADING_PARTITION_INDEX);
+		}
+	}
+
+
+	/**
+	 * For the partitioned layout, indexes (Postgres) and analyzes the loading partition now the raw rows of the run
+	 * have been inserted, so the summary queries of the load are planned against its actual size.
+	 */
+	@Override
+	public void completeBulkLoad(String application) {
+		if (!isPartitionedLayout()){
+			return;
+		}
+		long startms = System.currentTimeMillis();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		if (Mark59Constants.PG.equals(currentDatabaseProfile)){
+			jdbcTemplate.execute("create index if not exists " + LOADING_PARTITION_INDEX
+					+ " on " + LOADING_PARTITION + " (APPLICATION, TXN_TYPE, TXN_ID, IS_CDP_TXN)");
+			jdbcTemplate.execute("analyze " + LOADING_PARTITION);
+		} else if (Mark59Constants.MYSQL.equals(currentDatabaseProfile)){
+			jdbcTemplate.queryForList("alter table TESTTRANSACTIONS analyze partition " + LOADING_PARTITION_MYSQL);
+		}
+		System.out.println("Loading partition of TESTTRANSACTIONS indexed/analyzed. Took " + (System.currentTimeMillis() - startms) + " ms");
+	}
 }
@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.testTransactions.dao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import com.mark59.trends.application.AppConstantsTrends;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
+
+/**
+ * Summary statistics and the {@link TxnHistogram} of the response times of one transaction (of type TRANSACTION),
+ * accumulated as the transaction's rows are read.
+ *
+ * <p>As for the SQL previously used to summarize a transaction, statistics are only calculated for passed results, and a
+ * percentile is the passed result at position CEILING(percentile/100 * count) in response time order (as per
+ * PERCENTILE_DISC).  The passed results of the transaction are held (in micro-units, TXN_RESULT being a decimal with a
+ * scale of 6) until the transaction's last row has been read, so only one transaction's results are held at a time.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class TransactionSummaryAccumulator {
+
+	private static final int SCALE = 6;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final String txnId;
+	private final String isCdpTxn;
+	private final TxnHistogram txnHistogram = new TxnHistogram();
+
+	private long[] passedMicros = new long[INITIAL_CAPACITY];
+	private int passCount;
+	private long failCount;
+	private long stopCount;
+	private BigDecimal totalOfPassed = BigDecimal.ZERO.setScale(SCALE);
+
+
+	TransactionSummaryAccumulator(String txnId, String isCdpTxn) {
+		this.txnId = txnId;
+		this.isCdpTxn = isCdpTxn;
+	}
+
+	boolean isFor(String txnId, String isCdpTxn) {
+		return this.txnId.equals(txnId) && this.isCdpTxn.equals(isCdpTxn);
+	}
+
+	/**
+	 * @param txnPassed TXN_PASSED of the row ('Y', 'N' or {@link AppConstantsTrends#TXN_STOPPPED_STATUS})
+	 * @param txnResult TXN_RESULT of the row
+	 */
+	void add(String txnPassed, BigDecimal txnResult) {
+		if ("Y".equals(txnPassed)) {
+			BigDecimal value = txnResult.setScale(SCALE, RoundingMode.HALF_UP);
+			if (passCount == passedMicros.length) {
+				passedMicros = Arrays.copyOf(passedMicros, passCount * 2);
+			}
+			passedMicros[passCount++] = value.unscaledValue().longValue();
+			totalOfPassed = totalOfPassed.add(value);
+			txnHistogram.add(value.doubleValue());
+		} else if ("N".equals(txnPassed)) {
+			failCount++;
+		} else if (AppConstantsTrends.TXN_STOPPPED_STATUS.equals(txnPassed)) {
+			stopCount++;
+		}
+	}
+
+	/**
+	 * @return the histogram of the passed response times, or null if the transaction has no passed results
+	 */
+	TxnHistogram getHistogram() {
+		return passCount == 0 ? null : txnHistogram;
+	}
+
+	Transaction toTransaction(String application, String txnType) {
+		Arrays.sort(passedMicros, 0, passCount);
+
+		Transaction transaction = new Transaction();
+		transaction.setApplication(application);
+		transaction.setRunTime(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED);
+		transaction.setTxnId(txnId);
+		transaction.setTxnType(txnType);
+		transaction.setIsCdpTxn(isCdpTxn);
+		transaction.setTxnMinimum(percentile(0));
+		transaction.setTxnAverage(passCount == 0 ? BigDecimal.ZERO
+				: totalOfPassed.divide(BigDecimal.valueOf(passCount), SCALE, RoundingMode.HALF_UP));
+		transaction.setTxnMedian(percentile(50));
+		transaction.setTxnMaximum(percentile(100));
+		transaction.setTxnStdDeviation(populationStdDeviation());
+		transaction.setTxn90th(percentile(90));
+		transaction.setTxn95th(percentile(95));
+		transaction.setTxn99th(percentile(99));
+		transaction.setTxnPass((long) passCount);
+		transaction.setTxnFail(failCount);
+		transaction.setTxnStop(stopCount);
+		transaction.setTxnFirst(BigDecimal.valueOf(-1.0));
+		transaction.setTxnLast(BigDecimal.valueOf(-1.0));
+		transaction.setTxnSum(BigDecimal.valueOf(-1.0));
+		transaction.setTxnDelay(new BigDecimal("0.0"));
+		return transaction;
+	}
+
+	/**
+	 * Called once the passed results have been sorted.  A percentile of 0 is the minimum.
+	 */
+	private BigDecimal percentile(int percentile) {
+		if (passCount == 0) {
+			return BigDecimal.ZERO;
+		}
+		long rank = Math.max(1, ((long) percentile * passCount + 99) / 100);   // CEILING(percentile/100 * count)
+		return BigDecimal.valueOf(passedMicros[(int) rank - 1], SCALE);
+	}
+
+	private BigDecimal populationStdDeviation() {
+		if (passCount == 0) {
+			return BigDecimal.ZERO;
+		}
+		double mean = totalOfPassed.doubleValue() / passCount;
+		double sumOfSquares = 0.0;
+		for (int i = 0; i < passCount; i++) {
+			double deviation = passedMicros[i] / 1_000_000.0 - mean;
+			sumOfSquares += deviation * deviation;
+		}
+		return BigDecimal.valueOf(Math.sqrt(sumOfSquares / passCount));
+	}
+
+}
@@ -17,10 +17,12 @@
 package com.mark59.trends.data.transaction.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.mark59.trends.data.beans.Datapoint;
 import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
 
 /**
  * @author Philip Webb
@@ -30,6 +32,12 @@ public interface TransactionDAO
 {
 	void insert(Transaction transaction);
 
+	void insertHistograms(Map<Transaction, TxnHistogram> histogramOfTransaction);
+
+	TxnHistogram getHistogram(String application, String txnType, String isCdpTxn, String runTime, String txnId);
+
+	TxnHistogram getMergedHistogram(String application, String txnType, String isCdpTxn, String txnId, List<String> runTimes);
+
 	void deleteAllForRun(Run run);
 
 	void deleteAllForRun(String application, String runTime);
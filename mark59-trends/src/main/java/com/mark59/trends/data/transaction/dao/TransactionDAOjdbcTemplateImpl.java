@@ -43,6 +43,8 @@ import com.mark59.trends.data.beans.Datapoint;
 import com.mark59.trends.data.beans.GraphMapping;
 import com.mark59.trends.data.beans.Run;
 import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
+import com.mark59.trends.data.expression.TransactionExpression;
 import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
 
 /**
@@ -51,6 +53,13 @@ import com.mark59.trends.data.graphMapping.dao.GraphMappingDAO;
  */
 public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 {
+	/**
+	 * Selects the stored histogram of a transaction (aliased T), for graphs with a 'Percentile(nn.n)' value derivation.
+	 * The percentile is calculated from the histogram once the rows have been read (see {@link #percentileOfHistogram}).
+	 */
+	private static final String HISTOGRAM_OF_TRANSACTION_SQL = "( SELECT H.HISTOGRAM FROM TXNHISTOGRAM H "
+			+ "WHERE H.APPLICATION = T.APPLICATION AND H.RUN_TIME = T.RUN_TIME AND H.TXN_ID = T.TXN_ID "
+			+ "AND H.TXN_TYPE = T.TXN_TYPE AND H.IS_CDP_TXN = T.IS_CDP_TXN )";
 
 	@Autowired
 	private DataSource dataSource;
@@ -86,6 +95,77 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 	}
 
 
+	/**
+	 * Stores the histograms of transactions on TXNHISTOGRAM, in a single JDBC batch.  The transactions should already
+	 * have been inserted (the transaction id as stored on TRANSACTION is used).
+	 */
+	@Override
+	public void insertHistograms(Map<Transaction, TxnHistogram> histogramOfTransaction) {
+		if (histogramOfTransaction.isEmpty()) {
+			return;
+		}
+		String sql = "INSERT INTO TXNHISTOGRAM "
+				+ "(APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, TXN_COUNT, HISTOGRAM)"
+				+ " VALUES (?,?,?,?,?,?,?)";
+
+		List<Object[]> batchArgs = new ArrayList<>();
+		for (Entry<Transaction, TxnHistogram> transactionHistogram : histogramOfTransaction.entrySet()) {
+			Transaction transaction = transactionHistogram.getKey();
+			TxnHistogram txnHistogram = transactionHistogram.getValue();
+			batchArgs.add(new Object[] {
+					transaction.getApplication(), transaction.getRunTime(),
+					transaction.getTxnId(), transaction.getTxnType(), transaction.getIsCdpTxn(),
+					txnHistogram.getTotalCount(), txnHistogram.encode()});
+		}
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.batchUpdate(sql, batchArgs);
+	}
+
+
+	@Override
+	public TxnHistogram getHistogram(String application, String txnType, String isCdpTxn, String runTime, String txnId) {
+		return getMergedHistogram(application, txnType, isCdpTxn, txnId, List.of(runTime));
+	}
+
+
+	/**
+	 * @return the histograms of the transaction for the listed runs merged together, or null if none of the runs have a
+	 * histogram for the transaction
+	 */
+	@Override
+	public TxnHistogram getMergedHistogram(String application, String txnType, String isCdpTxn, String txnId, List<String> runTimes) {
+		if (runTimes == null || runTimes.isEmpty()) {
+			return null;
+		}
+		String sql = "SELECT HISTOGRAM FROM TXNHISTOGRAM WHERE APPLICATION = :application AND " +
+				                                            "RUN_TIME IN ( :runTimes ) AND " +
+				                                            "TXN_ID = :txnId AND " +
+				                                            "TXN_TYPE = :txnType AND " +
+				                                            "IS_CDP_TXN = :isCdpTxn ";
+
+		MapSqlParameterSource sqlparameters = new MapSqlParameterSource()
+				.addValue("application", application)
+				.addValue("runTimes", runTimes)
+				.addValue("txnType", txnType)
+				.addValue("isCdpTxn", isCdpTxn)
+				.addValue("txnId", txnId);
+
+		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		List<String> encodedHistograms = jdbcTemplate.queryForList(sql, sqlparameters, String.class);
+
+		TxnHistogram mergedHistogram = null;
+		for (String encodedHistogram : encodedHistograms) {
+			TxnHistogram txnHistogram = TxnHistogram.decode(encodedHistogram);
+			if (mergedHistogram == null) {
+				mergedHistogram = txnHistogram;
+			} else {
+				mergedHistogram.merge(txnHistogram);
+			}
+		}
+		return mergedHistogram;
+	}
+
+
 	@Override
 	public Transaction getTransaction(String application, String txnType, String isCdpTxn, String runTime, String txnId ) {
 
@@ -214,7 +294,14 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 	 */
 	@Override
 	public void renameTransactions(String application, String txnType, String fromTxnId, String toTxnId, String fromIsCdpTxn, String toIsCdpTxn) {
-		String sql = "UPDATE TRANSACTION"
+		renameTransactions("TRANSACTION", application, txnType, fromTxnId, toTxnId, fromIsCdpTxn, toIsCdpTxn);
+		renameTransactions("TXNHISTOGRAM", application, txnType, fromTxnId, toTxnId, fromIsCdpTxn, toIsCdpTxn);
+	}
+
+
+	private void renameTransactions(String table, String application, String txnType, String fromTxnId, String toTxnId,
+			String fromIsCdpTxn, String toIsCdpTxn) {
+		String sql = "UPDATE " + table
 					+ " SET TXN_ID = :toTxnId, IS_CDP_TXN = :toIsCdpTxn "
 					+ " WHERE APPLICATION = :application "
 					+ "   AND TXN_TYPE    = :txnType "
@@ -374,6 +461,9 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 //		System.out.println("TransactionDAO.deleteAllForRun : "+ sql + Mark59Utils.prettyPrintMap(sqlparameters.getValues()));
 		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 		jdbcTemplate.update(sql, sqlparameters);
+
+		sql = "delete from TXNHISTOGRAM where APPLICATION = :application and RUN_TIME = :runTime ";
+		jdbcTemplate.update(sql, sqlparameters);
 	}
 
 
@@ -384,6 +474,9 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 //		System.out.println("deleteAllForApplication : "+ sql + Mark59Utils.prettyPrintMap(sqlparameters.getValues()));
 		NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 		jdbcTemplate.update(sql, sqlparameters);
+
+		sql = "delete from TXNHISTOGRAM where APPLICATION = :application ";
+		jdbcTemplate.update(sql, sqlparameters);
 	}
 
 
@@ -394,7 +487,7 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 		GraphMapping graphMapping = graphMappingDAO.findGraphMapping(graph);
 
 		String sql = transactionIdsSqlNamedParms(showCdpOption, sqlSelectLike, sqlSelectNotLike, manuallySelectTxns, useRawSQL,
-				rawTransactionIdsSQL, graphMapping);
+				rawTransactionIdsSQL, graphMapping, null);
 
 		// Validate and escape all user inputs before SQL string replacement to prevent SQL injection
 		// Note: This method returns a SQL string (not a PreparedStatement) so manual validation is critical
@@ -428,9 +521,10 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 			boolean useRawSQL, String rawTransactionIdsSQL, String nthRankedTxn){
 
 		GraphMapping graphMapping = graphMappingDAO.findGraphMapping(graph);
+		TransactionExpression compiledDerivation = useRawSQL ? null : compiledDerivation(graphMapping);
 
 		String sql = transactionIdsSqlNamedParms(showCdpOption, sqlSelectLike, sqlSelectNotLike, manuallySelectTxns, useRawSQL,
-				rawTransactionIdsSQL, graphMapping);
+				rawTransactionIdsSQL, graphMapping, compiledDerivation);
 
 		MapSqlParameterSource sqlparameters = new MapSqlParameterSource();
 		sqlparameters.addValue("application", application);
@@ -449,6 +543,7 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 
 		Map<Transaction, BigDecimal> transactionListOrderedByValue = new LinkedHashMap<>();
 		BigDecimal rankedValue;
+		Double percentile = TxnHistogram.percentileRequestedBy(graphMapping.getValueDerivation());
 
 		for (Map row : rows) {
 			Transaction transaction = getTransaction((String)row.get("APPLICATION"),
@@ -457,7 +552,10 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 					                                 (String)row.get("RUN_TIME"),
 					                                 (String)row.get("TXN_ID"));
 
-			Object rankedValueObj = row.get("rankedValue");
+			Object rankedValueObj = compiledDerivation != null ? compiledDerivation.evaluate(row) : row.get("rankedValue");
+			if (percentile != null && rankedValueObj instanceof String) {
+				rankedValueObj = percentileOfHistogram((String)rankedValueObj, percentile);
+			}
 			if (rankedValueObj == null) {
 				rankedValue = BigDecimal.ZERO; // Default value for null ranked values
 			} else if (rankedValueObj instanceof BigDecimal) {
@@ -471,20 +569,32 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 			transactionListOrderedByValue.put(transaction, rankedValue);
 		}
 
+		if (percentile != null || compiledDerivation != null) {
+			// the database has ordered by the histogram text (or not at all, for a compiled derivation), so re-order by
+			// the value calculated here
+			Map<Transaction, BigDecimal> orderedByPercentile = new LinkedHashMap<>();
+			transactionListOrderedByValue.entrySet().stream()
+				.sorted(Entry.<Transaction, BigDecimal>comparingByValue().reversed())
+				.forEachOrdered(entry -> orderedByPercentile.put(entry.getKey(), entry.getValue()));
+			transactionListOrderedByValue = orderedByPercentile;
+		}
 		return selectTopNthRankedTransactionsByValue(transactionListOrderedByValue, nthRankedTxn);
 	}
 
 
 	private String transactionIdsSqlNamedParms(String showCdpOption, String sqlSelectLike, String sqlSelectNotLike,
-			boolean manuallySelectTxns, boolean useRawSQL, String rawTransactionIdsSQL, GraphMapping graphMapping) {
+			boolean manuallySelectTxns, boolean useRawSQL, String rawTransactionIdsSQL, GraphMapping graphMapping,
+			TransactionExpression compiledDerivation) {
 
 		String sql;
 		if (useRawSQL){
 			sql = rawTransactionIdsSQL;
 
 		} else {
-			sql = "SELECT APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, "
-				+ 	"( " + transactionDBColNameOrDerivationForRequestedValues(graphMapping) + " ) as rankedValue "
+			String rankedValueSql = compiledDerivation != null ? compiledDerivation.columnsSql()
+					: "( " + transactionDBColNameOrDerivationForRequestedValues(graphMapping) + " ) as rankedValue";
+
+			sql = "SELECT APPLICATION, RUN_TIME, TXN_ID, TXN_TYPE, IS_CDP_TXN, " + rankedValueSql + " "
 				+ "FROM TRANSACTION T "
 				+ "WHERE APPLICATION = :application "
 				+ "  AND TXN_TYPE =  :graphMappingGetTxnType "
@@ -518,7 +628,9 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 			} else {
 				sql = sql + " AND TXN_ID IN ( :chosenTxns ) ";
 			}
-			sql =  sql + " ORDER BY rankedValue DESC";
+			if (compiledDerivation == null) {
+				sql =  sql + " ORDER BY rankedValue DESC";
+			}
 		}
 		return sql;
 	}
@@ -582,11 +694,14 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 		}
 
 		GraphMapping graphMapping = graphMappingDAO.findGraphMapping(graph);
+		TransactionExpression compiledDerivation = compiledDerivation(graphMapping);
+		String valueToPlotSql = compiledDerivation != null ? compiledDerivation.columnsSql()
+				: transactionDBColNameOrDerivationForRequestedValues(graphMapping) + " AS VALUE_TO_PLOT";
 
 		// runs from most recent back, txn_ids case in sensitive order (actually utf8 if using suggested database collation).
 
-		String sql = "SELECT RUN_TIME, TXN_ID, IS_CDP_TXN, " + transactionDBColNameOrDerivationForRequestedValues(graphMapping) + " AS VALUE_TO_PLOT "
-			    + " FROM TRANSACTION WHERE APPLICATION = :application  AND TXN_TYPE = :graphMappingGetTxnType "
+		String sql = "SELECT RUN_TIME, TXN_ID, IS_CDP_TXN, " + valueToPlotSql
+			    + " FROM TRANSACTION T WHERE APPLICATION = :application  AND TXN_TYPE = :graphMappingGetTxnType "
 				+ " AND RUN_TIME in ( :chosenRuns ) ";
 
 		if (listOfCdpTransactionNamesToGraph.isEmpty() && !listOfStdTransactionNamesToGraph.isEmpty()){
@@ -621,6 +736,7 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 		int runTimeCount = 0;
 		String runTime;
 		String prevRunTime = "";
+		Double percentile = TxnHistogram.percentileRequestedBy(graphMapping.getValueDerivation());
 
 		for (int i = 0; i < rows.size()  &&  runTimeCount <= numRunsBeingGraphed ; i++) {
 			Map<String, Object> row = rows.get(i);
@@ -636,7 +752,10 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 				datapoint.setTxnId((String)row.get("TXN_ID"));
 			}
 
-			datapointMetric = row.get("VALUE_TO_PLOT");
+			datapointMetric = compiledDerivation != null ? compiledDerivation.evaluate(row) : row.get("VALUE_TO_PLOT");
+			if (percentile != null && datapointMetric instanceof String) {
+				datapointMetric = percentileOfHistogram((String)datapointMetric, percentile);
+			}
 
 			if (datapointMetric == null) {
 				datapoint.setValue(BigDecimal.ZERO); // Default value for null metrics
@@ -662,7 +781,26 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 	}
 
 
+	/**
+	 * The value derivation of the graph compiled to an evaluator over TRANSACTION columns, when it is an expression
+	 * within the subset {@link TransactionExpression} supports (eg 'COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)').
+	 * Null for a direct value derivation or a percentile, and for an expression outside that subset, which is left to
+	 * the database.
+	 */
+	private TransactionExpression compiledDerivation(GraphMapping graphMapping) {
+		String valueDerivation = graphMapping.getValueDerivation();
+		if (TxnHistogram.percentileRequestedBy(valueDerivation) != null
+				|| AppConstantsTrends.getValueDerivationToSourceFieldMap().containsKey(valueDerivation)) {
+			return null;
+		}
+		return TransactionExpression.compiled(valueDerivation);
+	}
+
+
 	private String transactionDBColNameOrDerivationForRequestedValues(GraphMapping graphMapping) {
+		if (TxnHistogram.percentileRequestedBy(graphMapping.getValueDerivation()) != null) {
+			return HISTOGRAM_OF_TRANSACTION_SQL;
+		}
 		String transactionDBColNameOrDerivationForRequestedValues =
 				AppConstantsTrends.getValueDerivationToSourceFieldMap().get(graphMapping.getValueDerivation());
 
@@ -676,6 +814,12 @@ public class TransactionDAOjdbcTemplateImpl implements TransactionDAO
 	}
 
 
+	private BigDecimal percentileOfHistogram(String encodedHistogram, double percentile) {
+		TxnHistogram txnHistogram = TxnHistogram.decode(encodedHistogram);
+		return txnHistogram == null ? null : txnHistogram.getPercentile(percentile);
+	}
+
+
 	/**
 	 * Validates and escapes a comma-delimited list of values for safe SQL IN clause usage.
 	 * Each value is validated to contain only safe characters and then properly escaped.
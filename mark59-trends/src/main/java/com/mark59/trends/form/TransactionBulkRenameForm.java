@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.form;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionBulkRenameForm {
+
+	public static final String MAPPING = "MAPPING";
+	public static final String REGEX = "REGEX";
+
+	private String  application;
+	private String  txnType;
+	private String  renameMode;
+	private String  mappings;
+	private MultipartFile mappingFile;
+	private String  regex;
+	private String  replacement;
+	private String  passedValidation;
+	private String  validationMsg;
+
+	public String getApplication() {
+		return application;
+	}
+	public void setApplication(String application) {
+		this.application = application;
+	}
+	public String getTxnType() {
+		return txnType;
+	}
+	public void setTxnType(String txnType) {
+		this.txnType = txnType;
+	}
+	public String getRenameMode() {
+		return renameMode;
+	}
+	public void setRenameMode(String renameMode) {
+		this.renameMode = renameMode;
+	}
+	public String getMappings() {
+		return mappings;
+	}
+	public void setMappings(String mappings) {
+		this.mappings = mappings;
+	}
+	public MultipartFile getMappingFile() {
+		return mappingFile;
+	}
+	public void setMappingFile(MultipartFile mappingFile) {
+		this.mappingFile = mappingFile;
+	}
+	public String getRegex() {
+		return regex;
+	}
+	public void setRegex(String regex) {
+		this.regex = regex;
+	}
+	public String getReplacement() {
+		return replacement;
+	}
+	public void setReplacement(String replacement) {
+		this.replacement = replacement;
+	}
+	public String getPassedValidation() {
+		return passedValidation;
+	}
+	public void setPassedValidation(String passedValidation) {
+		this.passedValidation = passedValidation;
+	}
+	public String getValidationMsg() {
+		return validationMsg;
+	}
+	public void setValidationMsg(String validationMsg) {
+		this.validationMsg = validationMsg;
+	}
+
+	@Override
+	public String toString() {
+		String prettyPrint = "application="+application
+				+ ", txnType="+txnType
+				+ ", renameMode="+renameMode
+				+ ", mappingFile="+(mappingFile == null ? null : mappingFile.getOriginalFilename())
+				+ ", regex="+regex
+				+ ", replacement="+replacement
+				+ ", passedValidation="+passedValidation
+				;
+		return prettyPrint;
+	}
+
+}
@@ -0,0 +1,291 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.purge;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.mark59.trends.application.AppConstantsTrends;
+import com.mark59.trends.data.application.dao.ApplicationDAO;
+import com.mark59.trends.data.beans.Run;
+import com.mark59.trends.data.export.dao.TrendsExportDAO;
+import com.mark59.trends.data.export.dao.TrendsExportRowWriter;
+import com.mark59.trends.data.purge.dao.PurgeDAO;
+import com.mark59.trends.purge.RunPurgeProgress.PurgeStatus;
+
+/**
+ * Removes runs from the database in bounded, throttled chunks on a single background thread, so that large
+ * deletes (particularly of raw TESTTRANSACTIONS rows) never hold long table locks while the Trends UI is in use.
+ *
+ * <p>A purge request is recorded on PURGEREQUEST, and the RUNS entry removed, in one database transaction (so the run
+ * immediately disappears from the UI).  The TESTTRANSACTIONS rows, the TXNHISTOGRAM rows and then the TRANSACTION rows
+ * for the run are then deleted chunk by chunk, pausing between each chunk, and the request is removed once the purge
+ * completes.  A request still recorded is a purge that has not completed (eg the JVM stopped part way through).  These
+ * are picked up by {@link #sweepPurgeRequests()}, which is scheduled in the Trends web application.
+ *
+ * <p>If the run is loaded again while its purge is pending (so it has a RUNS entry again), the purge is cancelled and
+ * the newly loaded rows are kept.
+ *
+ * <p>Optionally, when <code>mark59.trends.purge.archive.dir</code> is set, the raw TESTTRANSACTIONS rows of a run are
+ * written to a gzipped csv file in that directory before they are deleted.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class RunPurge implements RunPurgeInterface {
+
+	private static final long FINISHED_PROGRESS_RETENTION_MS = TimeUnit.HOURS.toMillis(24);
+
+	@Autowired
+	PurgeDAO purgeDAO;
+
+	@Autowired
+	ApplicationDAO applicationDAO;
+
+	@Autowired
+	TrendsExportDAO trendsExportDAO;
+
+	@Value("${mark59.trends.purge.chunk.size:5000}")
+	private int chunkSize;
+
+	@Value("${mark59.trends.purge.pause.ms:200}")
+	private long pauseMs;
+
+	@Value("${mark59.trends.purge.archive.dir:}")
+	private String archiveDir;
+
+	private final ExecutorService purgeExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread purgeThread = new Thread(r, "mark59-run-purge");
+		purgeThread.setDaemon(true);   // an incomplete purge is resumed by the next sweep
+		return purgeThread;
+	});
+
+	private final Map<String, RunPurgeProgress> purgeProgressMap = new ConcurrentHashMap<>();
+
+
+	@Override
+	public RunPurgeProgress submitRunPurge(String application, String runTime) {
+		purgeDAO.requestPurge(application, runTime);
+		applicationDAO.enforceRunCascadeDelete();
+		return queuePurge(application, runTime);
+	}
+
+
+	@Override
+	public List<RunPurgeProgress> submitApplicationPurge(String application) {
+		List<RunPurgeProgress> applicationPurgeProgress = new ArrayList<>();
+		for (String runTime : purgeDAO.findRunTimes(application)) {
+			purgeDAO.requestPurge(application, runTime);
+			applicationPurgeProgress.add(queuePurge(application, runTime));
+		}
+		applicationDAO.enforceRunCascadeDelete();
+		return applicationPurgeProgress;
+	}
+
+
+	/**
+	 * Queues a purge for any run with a recorded purge request which is not already queued or running.  A request for
+	 * a run which has a RUNS entry again (it has been re-loaded) is dropped.
+	 * @return number of runs queued by this sweep
+	 */
+	@Override
+	@Scheduled(initialDelayString = "${mark59.trends.purge.sweep.initial.delay.ms:60000}", fixedDelayString = "${mark59.trends.purge.sweep.ms:600000}")
+	public int sweepPurgeRequests() {
+		int queued = 0;
+		for (Run requestedRun : purgeDAO.findPurgeRequests()) {
+			String application = requestedRun.getApplication();
+			String runTime = requestedRun.getRunTime();
+			RunPurgeProgress existing = purgeProgressMap.get(progressKey(application, runTime));
+			if (existing != null && !existing.isFinished()){
+				continue;
+			}
+			if (purgeDAO.isRunPresent(application, runTime)){
+				System.out.println("RunPurge: dropping purge request for " + application + " run " + runTime + " (the run has been loaded again)");
+				purgeDAO.deletePurgeRequest(application, runTime);
+			} else {
+				System.out.println("RunPurge: queuing incomplete purge for " + application + " run " + runTime);
+				queuePurge(application, runTime);
+				queued++;
+			}
+		}
+		removeAgedProgressEntries();
+		return queued;
+	}
+
+
+	@Override
+	public List<RunPurgeProgress> getPurgeProgress() {
+		return new ArrayList<>(purgeProgressMap.values());
+	}
+
+
+	/**
+	 * Wait for all queued purges to finish
+	 * @param timeoutMs maximum wait time
+	 * @return true if no purge is still queued or running
+	 */
+	@Override
+	public boolean awaitCompletion(long timeoutMs) {
+		long waitUntil = System.currentTimeMillis() + timeoutMs;
+		while (System.currentTimeMillis() < waitUntil) {
+			if (purgeProgressMap.values().stream().allMatch(RunPurgeProgress::isFinished)){
+				return true;
+			}
+			try {
+				Thread.sleep(Math.max(pauseMs, 100L));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return purgeProgressMap.values().stream().allMatch(RunPurgeProgress::isFinished);
+	}
+
+
+	public void shutdown() {
+		purgeExecutor.shutdownNow();
+	}
+
+
+	private RunPurgeProgress queuePurge(String application, String runTime) {
+		RunPurgeProgress progress = new RunPurgeProgress(application, runTime);
+		purgeProgressMap.put(progressKey(application, runTime), progress);
+		purgeExecutor.execute(() -> purgeRun(progress));
+		return progress;
+	}
+
+
+	private void purgeRun(RunPurgeProgress progress) {
+		String application = progress.getApplication();
+		String runTime = progress.getRunTime();
+		try {
+			if (purgeDAO.isRunPresent(application, runTime)){
+				cancelPurge(progress);
+				return;
+			}
+			if (StringUtils.isNotBlank(archiveDir)){
+				progress.setStatus(PurgeStatus.ARCHIVING);
+				progress.setArchiveFile(archiveTestTransactions(application, runTime));
+			}
+
+			progress.setStatus(PurgeStatus.PURGING);
+			int deleted;
+			do {
+				deleted = purgeDAO.deleteTestTransactionsChunk(application, runTime, chunkSize);
+				progress.addTestTransactionsDeleted(deleted);
+				pauseBetweenChunks(deleted);
+			} while (deleted >= chunkSize);
+
+			do {
+				deleted = purgeDAO.deleteTxnHistogramsChunk(application, runTime, chunkSize);
+				pauseBetweenChunks(deleted);
+			} while (deleted >= chunkSize);
+
+			do {
+				deleted = purgeDAO.deleteTransactionsChunk(application, runTime, chunkSize);
+				progress.addTransactionsDeleted(deleted);
+				pauseBetweenChunks(deleted);
+			} while (deleted >= chunkSize);
+
+			if (purgeDAO.isRunPresent(application, runTime)){
+				cancelPurge(progress);   // the chunk deletes stopped when the run was loaded again
+				return;
+			}
+			purgeDAO.deletePurgeRequest(application, runTime);
+			progress.setStatus(PurgeStatus.COMPLETED);
+			System.out.println("RunPurge: purge completed " + progress);
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			progress.setStatus(PurgeStatus.FAILED);
+			progress.setMessage("purge interrupted (will be resumed by the next sweep)");
+		} catch (Exception e) {
+			progress.setStatus(PurgeStatus.FAILED);
+			progress.setMessage(e.getMessage());
+			System.out.println("RunPurge: purge failed (will be retried by the next sweep) " + progress);
+			e.printStackTrace();
+		}
+		progress.setCompletedAtMs(System.currentTimeMillis());
+	}
+
+
+	private void cancelPurge(RunPurgeProgress progress) {
+		purgeDAO.deletePurgeRequest(progress.getApplication(), progress.getRunTime());
+		progress.setStatus(PurgeStatus.CANCELLED);
+		progress.setMessage("the run has been loaded again, its purge is cancelled");
+		progress.setCompletedAtMs(System.currentTimeMillis());
+		System.out.println("RunPurge: purge cancelled " + progress);
+	}
+
+
+	private String archiveTestTransactions(String application, String runTime) throws IOException {
+		File archiveDirectory = new File(archiveDir);
+		if (!archiveDirectory.exists() && !archiveDirectory.mkdirs()){
+			throw new IOException("unable to create purge archive directory " + archiveDirectory.getAbsolutePath());
+		}
+		File archiveFile = new File(archiveDirectory, application + "_" + runTime + "_TESTTRANSACTIONS.csv.gz");
+
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(new FileOutputStream(archiveFile)), StandardCharsets.UTF_8))){
+			TrendsExportRowWriter rowWriter = new TrendsExportRowWriter(writer, AppConstantsTrends.EXPORT_FORMAT_CSV);
+			trendsExportDAO.streamTestTransactions(application, runTime, runTime, null, rowWriter);
+			if (rowWriter.getRowCount() == 0){
+				writer.close();
+				archiveFile.delete();
+				return "";
+			}
+		}
+		return archiveFile.getAbsolutePath();
+	}
+
+
+	private void pauseBetweenChunks(int deleted) throws InterruptedException {
+		if (deleted > 0 && pauseMs > 0){
+			Thread.sleep(pauseMs);
+		}
+	}
+
+
+	private void removeAgedProgressEntries() {
+		long removeBefore = System.currentTimeMillis() - FINISHED_PROGRESS_RETENTION_MS;
+		purgeProgressMap.values().removeIf(p -> p.isFinished() && p.getCompletedAtMs() < removeBefore);
+	}
+
+
+	private String progressKey(String application, String runTime) {
+		return application + ":" + runTime;
+	}
+
+}
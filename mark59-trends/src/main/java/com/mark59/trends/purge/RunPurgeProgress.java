@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License"); 
+ *  you may not use this file except in compliance with the License. 
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *      
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mark59.trends.purge;
+
+/**
+ * Progress of the purge of a single run.  Updated by the purge thread, read by web requests (hence volatile fields). 
+ * 
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class RunPurgeProgress {
+
+	public enum PurgeStatus {QUEUED, ARCHIVING, PURGING, COMPLETED, CANCELLED, FAILED}
+
+	private final String application;
+	private final String runTime;
+	private volatile PurgeStatus status = PurgeStatus.QUEUED;
+	private volatile long testTransactionsDeleted = 0L;
+	private volatile long transactionsDeleted = 0L;
+	private volatile String archiveFile = "";
+	private final long queuedAtMs = System.currentTimeMillis();
+	private volatile long completedAtMs = 0L;
+	private volatile String message = "";
+
+
+	public RunPurgeProgress(String application, String runTime) {
+		this.application = application;
+		this.runTime = runTime;
+	}
+
+	public boolean isFinished() {
+		return PurgeStatus.COMPLETED.equals(status) || PurgeStatus.CANCELLED.equals(status) || PurgeStatus.FAILED.equals(status);
+	}
+
+	public String getApplication() {
+		return application;
+	}
+	public String getRunTime() {
+		return runTime;
+	}
+	public PurgeStatus getStatus() {
+		return status;
+	}
+	public void setStatus(PurgeStatus status) {
+		this.status = status;
+	}
+	public long getTestTransactionsDeleted() {
+		return testTransactionsDeleted;
+	}
+	public void addTestTransactionsDeleted(long deleted) {
+		this.testTransactionsDeleted = this.testTransactionsDeleted + deleted;
+	}
+	public long getTransactionsDeleted() {
+		return transactionsDeleted;
+	}
+	public void addTransactionsDeleted(long deleted) {
+		this.transactionsDeleted = this.transactionsDeleted + deleted;
+	}
+	public String getArchiveFile() {
+		return archiveFile;
+	}
+	public void setArchiveFile(String archiveFile) {
+		this.archiveFile = archiveFile;
+	}
+	public long getQueuedAtMs() {
+		return queuedAtMs;
+	}
+	public long getCompletedAtMs() {
+		return completedAtMs;
+	}
+	public void setCompletedAtMs(long completedAtMs) {
+		this.completedAtMs = completedAtMs;
+	}
+	public String getMessage() {
+		return message;
+	}
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return   "[application="+ application + 
+				", runTime="+ runTime + 
+				", status="+ status + 
+				", testTransactionsDeleted="+ testTransactionsDeleted + 
+				", transactionsDeleted="+ transactionsDeleted + 
+				", archiveFile="+ archiveFile + 
+				", message="+ message + 
+				"]";
+	}
+
+}
@@ -0,0 +1,351 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.rename;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.mark59.core.utils.Mark59Constants;
+import com.mark59.trends.catalogue.TransactionCatalogueInterface;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.rename.dao.TransactionRenameDAO;
+import com.mark59.trends.rename.TransactionBulkRenameProgress.RenameStatus;
+
+/**
+ * Renames many transactions of an application (and transaction type) at once, such as after a script refactor has
+ * changed hundreds of labels.  The renames are given either as a mapping (one 'from,to' line per transaction), or as
+ * a regular expression and replacement applied to every transaction id of the application and type.
+ *
+ * <p>A bulk rename is validated with one query, which finds every run containing any of the from or to transaction
+ * ids.  A bulk rename is invalid if any run would end up with two transactions of the same name (as for a single
+ * rename), or if the renames are chained (a 'to' transaction is itself renamed).  Renaming into an existing
+ * transaction id is allowed, but is reported as a merge.
+ *
+ * <p>The renames are applied on a background thread to TRANSACTION, TXNHISTOGRAM, TESTTRANSACTIONS and SLA (or
+ * METRICSLA for a metric type), in batches within a single database transaction.  As for a single rename, an SLA is
+ * only renamed when no SLA already exists for the new name.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionBulkRename implements TransactionBulkRenameInterface {
+
+	/** maximum length of TXN_ID */
+	public static final int MAX_TXN_ID_LENGTH = 128;
+
+	private static final int MAX_MESSAGES_OF_A_KIND = 20;
+	private static final long FINISHED_PROGRESS_RETENTION_MS = TimeUnit.HOURS.toMillis(24);
+
+	@Autowired
+	TransactionRenameDAO transactionRenameDAO;
+
+	@Autowired
+	TransactionCatalogueInterface transactionCatalogue;
+
+	private final ExecutorService renameExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread renameThread = new Thread(r, "mark59-transaction-bulk-rename");
+		renameThread.setDaemon(true);
+		return renameThread;
+	});
+
+	private final Map<String, TransactionBulkRenameProgress> renameProgressMap = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Parse a rename mapping.  Each line is <code>fromTxnId,toTxnId</code> or
+	 * <code>fromTxnId,toTxnId,fromIsCdpTxn,toIsCdpTxn</code>.  Fields may be separated by tabs instead of commas (for
+	 * transaction ids containing commas).  Blank lines and lines starting with '#' are ignored.
+	 * <p>When the CDP flags are not given, the transaction is renamed for whichever CDP flag(s) it has.
+	 *
+	 * @param mappings the mapping text (eg the content of an uploaded mapping file)
+	 * @param parseErrors any invalid lines are added to this list
+	 * @return the requested renames
+	 */
+	public static List<TransactionRename> parseMappings(String mappings, List<String> parseErrors) {
+		List<TransactionRename> requestedRenames = new ArrayList<>();
+		if (StringUtils.isBlank(mappings)) {
+			return requestedRenames;
+		}
+		String[] lines = mappings.split("\\r?\\n");
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i];
+			if (StringUtils.isBlank(line) || line.trim().startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.indexOf('\t') >= 0 ? line.split("\t", -1) : line.split(",", -1);
+			for (int f = 0; f < fields.length; f++) {
+				fields[f] = fields[f].trim();
+			}
+			if (fields.length == 2) {
+				requestedRenames.add(new TransactionRename(fields[0], fields[1], null, null));
+			} else if (fields.length == 4 && isCdpFlag(fields[2]) && isCdpFlag(fields[3])) {
+				requestedRenames.add(new TransactionRename(fields[0], fields[1], fields[2], fields[3]));
+			} else {
+				parseErrors.add("Line " + (i + 1) + " is not 'fromTxnId,toTxnId' or 'fromTxnId,toTxnId,fromIsCdpTxn(Y/N),toIsCdpTxn(Y/N)' : " + line);
+			}
+		}
+		return requestedRenames;
+	}
+
+
+	/**
+	 * @return a rename for each transaction id of the application and type the regex is found in, with each match of
+	 * the regex replaced (as per {@link Matcher#replaceAll(String)}, so groups can be referred to as $1, $2 ..)
+	 * @throws java.util.regex.PatternSyntaxException for an invalid regex
+	 */
+	@Override
+	public List<TransactionRename> renamesMatchingRegex(String application, String txnType, String regex, String replacement) {
+		Pattern pattern = Pattern.compile(regex);
+		Set<String> txnIds = new LinkedHashSet<>();
+		for (Transaction transaction : transactionCatalogue.getUniqueListOfTransactionsByType(application)) {
+			if (txnType.equals(transaction.getTxnType())) {
+				txnIds.add(transaction.getTxnId());
+			}
+		}
+		List<TransactionRename> requestedRenames = new ArrayList<>();
+		for (String txnId : txnIds) {
+			Matcher matcher = pattern.matcher(txnId);
+			if (matcher.find()) {
+				requestedRenames.add(new TransactionRename(txnId, matcher.replaceAll(StringUtils.defaultString(replacement)), null, null));
+			}
+		}
+		return requestedRenames;
+	}
+
+
+	@Override
+	public TransactionBulkRenameValidation validate(String application, String txnType, List<TransactionRename> requestedRenames) {
+		Set<String> txnIds = new HashSet<>();
+		for (TransactionRename rename : requestedRenames) {
+			txnIds.add(rename.getFromTxnId());
+			txnIds.add(rename.getToTxnId());
+		}
+		List<Transaction> existingRows = transactionRenameDAO.findRunsContainingTxnIds(application, txnType, txnIds);
+
+		Set<String> slaKeys = Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(txnType)
+				? transactionRenameDAO.findSlaTxnKeys(application)
+				: transactionRenameDAO.findMetricSlaNames(application, txnType);
+
+		return validate(txnType, requestedRenames, existingRows, slaKeys);
+	}
+
+
+	/**
+	 * @param existingRows run time, txn id and CDP flag of the TRANSACTION rows for any of the from or to txn ids
+	 * @param slaKeys for a TRANSACTION type the keys of the existing SLAs, otherwise the names of the metrics with a metric SLA
+	 */
+	static TransactionBulkRenameValidation validate(String txnType, List<TransactionRename> requestedRenames,
+			List<Transaction> existingRows, Set<String> slaKeys) {
+		TransactionBulkRenameValidation validation = new TransactionBulkRenameValidation();
+		boolean isTransactionType = Mark59Constants.DatabaseTxnTypes.TRANSACTION.name().equals(txnType);
+
+		Map<String, Set<String>> cdpFlagsOfTxnId = new HashMap<>();
+		for (Transaction row : existingRows) {
+			cdpFlagsOfTxnId.computeIfAbsent(row.getTxnId(), k -> new TreeSet<>()).add(row.getIsCdpTxn());
+		}
+
+		// expand each requested rename to a rename for each transaction (txn id and CDP flag) found
+
+		Map<String, TransactionRename> renameOfFromKey = new LinkedHashMap<>();
+		List<String> notFound = new ArrayList<>();
+		for (TransactionRename requested : requestedRenames) {
+			if (StringUtils.isBlank(requested.getFromTxnId()) || StringUtils.isBlank(requested.getToTxnId())) {
+				addMessage(validation.getErrors(), "Blank transaction names are not allowed : " + requested.getFromTxnId() + " to " + requested.getToTxnId());
+				continue;
+			}
+			if (requested.getToTxnId().length() > MAX_TXN_ID_LENGTH) {
+				addMessage(validation.getErrors(), "New name longer than " + MAX_TXN_ID_LENGTH + " characters : " + requested.getToTxnId());
+				continue;
+			}
+			Set<String> fromCdpFlags = cdpFlagsOfTxnId.getOrDefault(requested.getFromTxnId(), new TreeSet<>());
+			if (requested.getFromIsCdpTxn() != null) {
+				fromCdpFlags = fromCdpFlags.contains(requested.getFromIsCdpTxn()) ? Set.of(requested.getFromIsCdpTxn()) : Set.of();
+			}
+			if (fromCdpFlags.isEmpty()) {
+				notFound.add(requested.getFromTxnId());
+				continue;
+			}
+			for (String fromIsCdpTxn : fromCdpFlags) {
+				String toIsCdpTxn = isTransactionType && requested.getToIsCdpTxn() != null ? requested.getToIsCdpTxn() : fromIsCdpTxn;
+				TransactionRename rename = new TransactionRename(requested.getFromTxnId(), requested.getToTxnId(), fromIsCdpTxn, toIsCdpTxn);
+				if (rename.getFromKey().equals(rename.getToKey())) {
+					continue;
+				}
+				TransactionRename previous = renameOfFromKey.put(rename.getFromKey(), rename);
+				if (previous != null && !previous.getToKey().equals(rename.getToKey())) {
+					addMessage(validation.getErrors(), "Transaction " + describe(rename.getFromTxnId(), fromIsCdpTxn, isTransactionType)
+							+ " is renamed more than once (to " + previous.getToTxnId() + " and " + rename.getToTxnId() + ")");
+				}
+			}
+		}
+		if (!notFound.isEmpty()) {
+			addMessage(validation.getWarnings(), notFound.size() + " transaction(s) not found for this application and type, and will be ignored : "
+					+ StringUtils.abbreviate(String.join(", ", notFound), 500));
+		}
+
+		for (TransactionRename rename : renameOfFromKey.values()) {
+			if (renameOfFromKey.containsKey(rename.getToKey())) {
+				addMessage(validation.getErrors(), "Chained renames are not allowed : " + rename.getFromTxnId() + " is renamed to "
+						+ rename.getToTxnId() + ", which is itself renamed.  Please do these renames in separate steps.");
+			}
+		}
+
+		// in each run, the transactions (renamed or not) must still be unique after the renames
+
+		Map<String, Map<String, Set<String>>> sourcesOfKeyByRun = new TreeMap<>();
+		Set<String> existingKeys = new HashSet<>();
+		for (Transaction row : existingRows) {
+			String key = TransactionRename.txnKey(row.getTxnId(), row.getIsCdpTxn());
+			existingKeys.add(key);
+			TransactionRename rename = renameOfFromKey.get(key);
+			String finalKey = rename == null ? key : rename.getToKey();
+			sourcesOfKeyByRun.computeIfAbsent(row.getRunTime(), k -> new HashMap<>()).computeIfAbsent(finalKey, k -> new TreeSet<>()).add(key);
+		}
+		Map<String, Integer> clashingRunsOfKey = new TreeMap<>();
+		for (Map<String, Set<String>> sourcesOfKey : sourcesOfKeyByRun.values()) {
+			for (Map.Entry<String, Set<String>> sources : sourcesOfKey.entrySet()) {
+				if (sources.getValue().size() > 1) {
+					clashingRunsOfKey.merge(sources.getKey(), 1, Integer::sum);
+				}
+			}
+		}
+		for (Map.Entry<String, Integer> clash : clashingRunsOfKey.entrySet()) {
+			addMessage(validation.getErrors(), clash.getValue() + " run(s) would contain more than one transaction named "
+					+ describeKey(clash.getKey(), isTransactionType));
+		}
+
+		Set<String> slaNamesTaken = new HashSet<>(slaKeys);
+		for (TransactionRename rename : renameOfFromKey.values()) {
+			validation.getRenames().add(rename);
+			if (existingKeys.contains(rename.getToKey()) && !renameOfFromKey.containsKey(rename.getToKey())) {
+				addMessage(validation.getWarnings(), "Some runs already contain " + describeKey(rename.getToKey(), isTransactionType)
+						+ ", so renaming " + rename.getFromTxnId() + " is a merge that may not be reversible");
+			}
+			addSlaRename(validation, rename, slaKeys, slaNamesTaken, isTransactionType);
+		}
+		return validation;
+	}
+
+
+	private static void addSlaRename(TransactionBulkRenameValidation validation, TransactionRename rename, Set<String> slaKeys,
+			Set<String> slaNamesTaken, boolean isTransactionType) {
+		String slaFromName = isTransactionType ? rename.getFromKey() : rename.getFromTxnId();
+		String slaToName   = isTransactionType ? rename.getToKey()   : rename.getToTxnId();
+		if (!slaKeys.contains(slaFromName) || slaFromName.equals(slaToName)) {
+			return;
+		}
+		if (slaNamesTaken.contains(slaToName)) {
+			addMessage(validation.getWarnings(), "An SLA already exists for " + rename.getToTxnId() + ", so the SLA of "
+					+ rename.getFromTxnId() + " will not be renamed");
+			return;
+		}
+		if (isTransactionType || validation.getSlaRenames().stream().noneMatch(r -> r.getFromTxnId().equals(rename.getFromTxnId()))) {
+			validation.getSlaRenames().add(rename);
+			slaNamesTaken.add(slaToName);
+		}
+	}
+
+
+	@Override
+	public TransactionBulkRenameProgress submitBulkRename(String application, String txnType, TransactionBulkRenameValidation validation) {
+		if (!validation.isValid()) {
+			throw new IllegalArgumentException("An invalid bulk rename cannot be submitted : " + validation);
+		}
+		TransactionBulkRenameProgress progress = new TransactionBulkRenameProgress(application, txnType, validation.getRenames().size());
+		renameProgressMap.put(application + ":" + txnType + ":" + progress.getQueuedAtMs(), progress);
+		renameExecutor.execute(() -> applyRenames(progress, validation));
+		removeAgedProgressEntries();
+		return progress;
+	}
+
+
+	@Override
+	public List<TransactionBulkRenameProgress> getBulkRenameProgress() {
+		return new ArrayList<>(renameProgressMap.values());
+	}
+
+
+	public void shutdown() {
+		renameExecutor.shutdownNow();
+	}
+
+
+	private void applyRenames(TransactionBulkRenameProgress progress, TransactionBulkRenameValidation validation) {
+		try {
+			progress.setStatus(RenameStatus.RENAMING);
+			transactionRenameDAO.renameTransactions(progress.getApplication(), progress.getTxnType(), validation.getRenames(),
+					validation.getSlaRenames(), progress);
+			transactionCatalogue.invalidate(progress.getApplication());
+			progress.setStatus(RenameStatus.COMPLETED);
+			System.out.println("TransactionBulkRename: rename completed " + progress);
+		} catch (Exception e) {
+			progress.setStatus(RenameStatus.FAILED);
+			progress.setMessage("rename rolled back : " + e.getMessage());
+			System.out.println("TransactionBulkRename: rename failed (no changes have been made) " + progress);
+			e.printStackTrace();
+		}
+		progress.setCompletedAtMs(System.currentTimeMillis());
+	}
+
+
+	private void removeAgedProgressEntries() {
+		long removeBefore = System.currentTimeMillis() - FINISHED_PROGRESS_RETENTION_MS;
+		renameProgressMap.values().removeIf(p -> p.isFinished() && p.getCompletedAtMs() < removeBefore);
+	}
+
+
+	private static boolean isCdpFlag(String field) {
+		return "Y".equals(field) || "N".equals(field);
+	}
+
+
+	private static String describe(String txnId, String isCdpTxn, boolean isTransactionType) {
+		return isTransactionType ? txnId + " (CDP=" + isCdpTxn + ")" : txnId;
+	}
+
+
+	private static String describeKey(String key, boolean isTransactionType) {
+		return describe(key.substring(2), key.substring(0, 1), isTransactionType);
+	}
+
+
+	private static void addMessage(List<String> messages, String message) {
+		if (messages.size() < MAX_MESSAGES_OF_A_KIND) {
+			messages.add(message);
+		} else if (messages.size() == MAX_MESSAGES_OF_A_KIND) {
+			messages.add("... (further messages not shown)");
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.rename;
+
+import java.util.List;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ *
+ * Interface to allow Spring Injection for TransactionBulkRename
+ */
+public interface TransactionBulkRenameInterface {
+
+	public List<TransactionRename> renamesMatchingRegex(String application, String txnType, String regex, String replacement);
+
+	public TransactionBulkRenameValidation validate(String application, String txnType, List<TransactionRename> requestedRenames);
+
+	public TransactionBulkRenameProgress submitBulkRename(String application, String txnType, TransactionBulkRenameValidation validation);
+
+	public List<TransactionBulkRenameProgress> getBulkRenameProgress();
+
+}
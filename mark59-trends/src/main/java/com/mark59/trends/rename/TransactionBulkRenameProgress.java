@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.rename;
+
+/**
+ * Progress of a bulk transaction rename.  Updated by the rename thread, read by web requests (hence volatile fields).
+ * Row counts are of rows updated so far, and are only committed once the rename has COMPLETED.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionBulkRenameProgress {
+
+	public enum RenameStatus {QUEUED, RENAMING, COMPLETED, FAILED}
+
+	private final String application;
+	private final String txnType;
+	private final int renamesRequested;
+	private volatile RenameStatus status = RenameStatus.QUEUED;
+	private volatile String currentTable = "";
+	private volatile int renamesApplied = 0;
+	private volatile long transactionRowsUpdated = 0L;
+	private volatile long txnHistogramRowsUpdated = 0L;
+	private volatile long testTransactionRowsUpdated = 0L;
+	private volatile long slaRowsUpdated = 0L;
+	private final long queuedAtMs = System.currentTimeMillis();
+	private volatile long completedAtMs = 0L;
+	private volatile String message = "";
+
+
+	public TransactionBulkRenameProgress(String application, String txnType, int renamesRequested) {
+		this.application = application;
+		this.txnType = txnType;
+		this.renamesRequested = renamesRequested;
+	}
+
+	public boolean isFinished() {
+		return RenameStatus.COMPLETED.equals(status) || RenameStatus.FAILED.equals(status);
+	}
+
+	public String getApplication() {
+		return application;
+	}
+	public String getTxnType() {
+		return txnType;
+	}
+	public int getRenamesRequested() {
+		return renamesRequested;
+	}
+	public RenameStatus getStatus() {
+		return status;
+	}
+	public void setStatus(RenameStatus status) {
+		this.status = status;
+	}
+	public String getCurrentTable() {
+		return currentTable;
+	}
+	/**
+	 * @param currentTable the table now being updated (the renames applied count restarts for each table)
+	 */
+	public void setCurrentTable(String currentTable) {
+		this.currentTable = currentTable;
+		this.renamesApplied = 0;
+	}
+	public int getRenamesApplied() {
+		return renamesApplied;
+	}
+	public void addRenamesApplied(int renames) {
+		this.renamesApplied = this.renamesApplied + renames;
+	}
+	public long getTransactionRowsUpdated() {
+		return transactionRowsUpdated;
+	}
+	public void addTransactionRowsUpdated(long updated) {
+		this.transactionRowsUpdated = this.transactionRowsUpdated + updated;
+	}
+	public long getTxnHistogramRowsUpdated() {
+		return txnHistogramRowsUpdated;
+	}
+	public void addTxnHistogramRowsUpdated(long updated) {
+		this.txnHistogramRowsUpdated = this.txnHistogramRowsUpdated + updated;
+	}
+	public long getTestTransactionRowsUpdated() {
+		return testTransactionRowsUpdated;
+	}
+	public void addTestTransactionRowsUpdated(long updated) {
+		this.testTransactionRowsUpdated = this.testTransactionRowsUpdated + updated;
+	}
+	public long getSlaRowsUpdated() {
+		return slaRowsUpdated;
+	}
+	public void addSlaRowsUpdated(long updated) {
+		this.slaRowsUpdated = this.slaRowsUpdated + updated;
+	}
+	public long getQueuedAtMs() {
+		return queuedAtMs;
+	}
+	public long getCompletedAtMs() {
+		return completedAtMs;
+	}
+	public void setCompletedAtMs(long completedAtMs) {
+		this.completedAtMs = completedAtMs;
+	}
+	public String getMessage() {
+		return message;
+	}
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return   "[application="+ application +
+				", txnType="+ txnType +
+				", status="+ status +
+				", renamesRequested="+ renamesRequested +
+				", currentTable="+ currentTable +
+				", renamesApplied="+ renamesApplied +
+				", transactionRowsUpdated="+ transactionRowsUpdated +
+				", txnHistogramRowsUpdated="+ txnHistogramRowsUpdated +
+				", testTransactionRowsUpdated="+ testTransactionRowsUpdated +
+				", slaRowsUpdated="+ slaRowsUpdated +
+				", message="+ message +
+				"]";
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.rename;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of validating a bulk rename: the renames to be applied (each for a single transaction id and CDP
+ * flag found in the application), the SLA (or metric SLA) renames to be applied, and any errors or warnings.
+ * A bulk rename can only be applied when there are no errors.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionBulkRenameValidation {
+
+	private final List<TransactionRename> renames = new ArrayList<>();
+	private final List<TransactionRename> slaRenames = new ArrayList<>();
+	private final List<String> errors = new ArrayList<>();
+	private final List<String> warnings = new ArrayList<>();
+
+
+	public boolean isValid() {
+		return errors.isEmpty() && !renames.isEmpty();
+	}
+
+	public List<TransactionRename> getRenames() {
+		return renames;
+	}
+	public List<TransactionRename> getSlaRenames() {
+		return slaRenames;
+	}
+	public List<String> getErrors() {
+		return errors;
+	}
+	public List<String> getWarnings() {
+		return warnings;
+	}
+
+	@Override
+	public String toString() {
+		return   "[renames="+ renames.size() +
+				", slaRenames="+ slaRenames.size() +
+				", errors="+ errors +
+				", warnings="+ warnings +
+				"]";
+	}
+
+}
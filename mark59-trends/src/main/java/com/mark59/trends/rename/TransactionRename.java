@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.rename;
+
+/**
+ * A single transaction id rename (and possibly a change of the CDP flag) within a bulk rename.
+ *
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+public class TransactionRename {
+
+	private final String fromTxnId;
+	private final String toTxnId;
+	private final String fromIsCdpTxn;
+	private final String toIsCdpTxn;
+
+
+	public TransactionRename(String fromTxnId, String toTxnId, String fromIsCdpTxn, String toIsCdpTxn) {
+		this.fromTxnId = fromTxnId;
+		this.toTxnId = toTxnId;
+		this.fromIsCdpTxn = fromIsCdpTxn;
+		this.toIsCdpTxn = toIsCdpTxn;
+	}
+
+	/**
+	 * @param txnId transaction id
+	 * @param isCdpTxn 'Y' or 'N'
+	 * @return the key of a transaction id within an application and transaction type
+	 */
+	public static String txnKey(String txnId, String isCdpTxn) {
+		return isCdpTxn + ":" + txnId;
+	}
+
+	public String getFromKey() {
+		return txnKey(fromTxnId, fromIsCdpTxn);
+	}
+
+	public String getToKey() {
+		return txnKey(toTxnId, toIsCdpTxn);
+	}
+
+	public String getFromTxnId() {
+		return fromTxnId;
+	}
+
+	public String getToTxnId() {
+		return toTxnId;
+	}
+
+	public String getFromIsCdpTxn() {
+		return fromIsCdpTxn;
+	}
+
+	public String getToIsCdpTxn() {
+		return toIsCdpTxn;
+	}
+
+	@Override
+	public String toString() {
+		return   "[fromTxnId="+ fromTxnId +
+				", toTxnId="+ toTxnId +
+				", fromIsCdpTxn="+ fromIsCdpTxn +
+				", toIsCdpTxn="+ toIsCdpTxn +
+				"]";
+	}
+
+}
@@ -0,0 +1,84 @@
+<!-- Copyright 2019 Mark59.com
+ 
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+ 
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License. 
+  
+  Author:  Philip Webb
+  Date:    Australian Spring 2026
+  -->
+  
+<%@ page language="java" contentType="text/html; charset=ISO-8859-1" pageEncoding="ISO-8859-1"%>
+<%@ taglib uri="jakarta.tags.core" prefix="c"%>
+<!DOCTYPE html>
+<html>
+<head>
+<title>Mark59 - Application Copy Progress</title>
+<link rel="shortcut icon"  href="favicon.png" />
+<meta name="viewport" content="width=device-width, initial-scale=1.0">
+<link href="css/style.css" rel="stylesheet" type="text/css" />
+<style>@font-face { font-family: "Canterbury";  src: url("fonts/Canterbury.ttf"); }</style>
+<c:if test = "${!map.allFinished}">
+<meta http-equiv="refresh" content="3">
+</c:if>
+</head>
+
+<body>
+
+<%-- Include navigation element --%>
+<jsp:include page="include/navigation.jsp" />
+
+<div class="content"> 
+
+<h1>Application Copy Progress</h1>
+
+  <table class="metricsTable">
+   <tr>
+    <th>From Application</th>
+    <th>To Application</th>
+    <th>Status</th>
+    <th>Table</th>
+    <th>Copied Through<br>Run Time</th>
+    <th>Chunks<br>Copied</th>
+    <th>Rows<br>Copied</th>
+    <th>Attempts</th>
+    <th>Message</th>
+    <th></th>
+   </tr>
+
+   <c:forEach var="progress" items="${map.copyProgressList}">
+    <tr>
+     <td>${progress.fromApp}</td>
+     <td>${progress.toApp}</td>
+     <td>${progress.status}</td>
+     <td>${progress.currentTable}</td>
+     <td>${progress.copiedThroughRunTime}</td>
+     <td>${progress.chunksCopied}</td>
+     <td>${progress.rowsCopied}</td>
+     <td>${progress.attempts}</td>
+     <td><c:out value="${progress.message}" /></td>
+     <td>
+      <c:if test = "${progress.status == 'FAILED'}">
+       <a href="resumeApplicationCopy?reqApp=${progress.fromApp}&reqToApp=${progress.toApp}&reqAppListSelector=${map.reqAppListSelector}">Resume</a>
+      </c:if>
+      <c:if test = "${progress.status == 'COMPLETED'}">
+       <a href="editApplication?reqApp=${progress.toApp}&reqAppListSelector=${map.reqAppListSelector}">Edit</a>
+      </c:if>
+     </td>
+    </tr>
+   </c:forEach>
+
+  </table>
+  
+  <p><a href="dashboard?reqAppListSelector=${map.reqAppListSelector}">Back to the Dashboard</a></p>
+ </div>
+</body>
+</html>
@@ -65,7 +65,8 @@
       <td colspan=2 style="font-size: 12px" ><br>
       		<b>predefined:</b> Minimum, Average, Median, Maximum, StdDeviation, 90th, 95th, 99th, Pass, Fail, Stop, First, Last, Sum, Delay, PercentOver90<br>
           	<b>available within sql:</b> TXN_MINIMUM, TXN_AVERAGE, TXN_MEDIAN, TXN_MAXIMUM, TXN_STD_DEVIATION, TXN_90TH, TXN_95TH, TXN_99TH, TXN_PASS, TXN_FAIL, TXN_STOP, TXN_DELAY<br>
-          	<b>sample sql computation: </b>COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)
+          	<b>sample sql computation: </b>COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)<br>
+          	<b>any percentile (TRANSACTION, from the run histogram):</b> Percentile(nn.n), eg Percentile(99.9)
       </td>          
      </tr>
           
@@ -0,0 +1,88 @@
+<!-- Copyright 2019 Mark59.com
+ 
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+ 
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License. 
+  
+  Author:  Philip Webb
+  Date:    Australian Spring 2026
+  -->
+  
+<%@ page language="java" contentType="text/html; charset=ISO-8859-1" pageEncoding="ISO-8859-1"%>
+<%@ taglib uri="http://www.springframework.org/tags/form" prefix="form"%>
+<%@ taglib uri="jakarta.tags.core" prefix="c"%>
+<%@ taglib uri="http://www.springframework.org/tags" prefix="spring"%>
+<!DOCTYPE html>
+<html>
+<head>
+<title>Mark59 - Bulk Transaction Rename</title>
+<link rel="shortcut icon"  href="favicon.png" />
+<meta name="viewport" content="width=device-width, initial-scale=1.0">
+<link href="css/style.css" rel="stylesheet" type="text/css" />
+<style>@font-face { font-family: "Canterbury";  src: url("fonts/Canterbury.ttf"); }</style>
+</head>
+
+<body>
+
+<%-- Include navigation element --%>
+<jsp:include page="include/navigation.jsp" />
+
+<div class="content"> 
+ 
+ <h1>Bulk Transaction Rename</h1>
+
+<p>&nbsp;</p>
+  
+  <div>
+   <form:form method="post" action="transactionBulkRenameValidate" modelAttribute="transactionBulkRenameForm" enctype="multipart/form-data">
+    <table>
+     <tr>
+      <td>Application</td><td>:</td><td> ${transactionBulkRenameForm.application} </td>
+     </tr>
+     <tr>
+      <td>Transaction Type</td><td>:</td>
+      <td><form:select path="txnType" items="${map.txnTypes}" /> </td>
+     </tr>
+     
+     <tr>
+      <td><form:radiobutton path="renameMode" value="MAPPING" /> Mapping</td><td>:</td>
+      <td>Upload a mapping file, or paste the mappings below. One rename per line, as <code>fromTxnId,toTxnId</code> or 
+          <code>fromTxnId,toTxnId,fromCdp(Y/N),toCdp(Y/N)</code>.<br>
+          Use tabs instead of commas to separate the fields when transaction ids contain commas.  Lines starting with # are ignored.<br>
+          <input type="file" name="mappingFile" accept=".csv,.txt,.tsv" /><br>
+          <form:textarea path="mappings" rows="12" cols="100" />
+      </td>
+     </tr>
+     <tr>
+      <td><form:radiobutton path="renameMode" value="REGEX" /> Regex</td><td>:</td>
+      <td>Rename every transaction id (of the type) the regular expression is found in, replacing each match (groups can be referenced as $1, $2 ..)<br>
+          Regex <form:input path="regex" size="50" /> &nbsp; Replacement <form:input path="replacement" size="50" />
+      </td>
+     </tr>
+     
+     <tr>
+      <td></td><td></td>
+      <td><input type="submit" value="Validate" /></td>
+     </tr>
+     
+     <tr>
+      <td colspan="3"><a href="transactionList?reqApp=${transactionBulkRenameForm.application}">Cancel</a></td>      
+     </tr>     
+     
+    </table>
+    <form:hidden path="application" />
+   </form:form>
+  </div>
+
+</div>
+
+</body>
+</html>  
@@ -0,0 +1,79 @@
+<!-- Copyright 2019 Mark59.com
+ 
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+ 
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License. 
+  
+  Author:  Philip Webb
+  Date:    Australian Spring 2026
+  -->
+  
+<%@ page language="java" contentType="text/html; charset=ISO-8859-1" pageEncoding="ISO-8859-1"%>
+<%@ taglib uri="jakarta.tags.core" prefix="c"%>
+<!DOCTYPE html>
+<html>
+<head>
+<title>Mark59 - Bulk Transaction Rename Progress</title>
+<link rel="shortcut icon"  href="favicon.png" />
+<meta name="viewport" content="width=device-width, initial-scale=1.0">
+<link href="css/style.css" rel="stylesheet" type="text/css" />
+<style>@font-face { font-family: "Canterbury";  src: url("fonts/Canterbury.ttf"); }</style>
+<c:if test = "${!map.allFinished}">
+<meta http-equiv="refresh" content="3">
+</c:if>
+</head>
+
+<body>
+
+<%-- Include navigation element --%>
+<jsp:include page="include/navigation.jsp" />
+
+<div class="content"> 
+
+<h1>Bulk Transaction Rename Progress</h1>
+
+  <table class="metricsTable">
+   <tr>
+    <th>Application</th>
+    <th>Txn Type</th>
+    <th>Status</th>
+    <th>Renames</th>
+    <th>Table</th>
+    <th>Renames Applied<br>(to Table)</th>
+    <th>TRANSACTION<br>Rows</th>
+    <th>TXNHISTOGRAM<br>Rows</th>
+    <th>TESTTRANSACTIONS<br>Rows</th>
+    <th>SLA<br>Rows</th>
+    <th>Message</th>
+   </tr>
+
+   <c:forEach var="progress" items="${map.renameProgressList}">
+    <tr>
+     <td>${progress.application}</td>
+     <td>${progress.txnType}</td>
+     <td>${progress.status}</td>
+     <td>${progress.renamesRequested}</td>
+     <td>${progress.currentTable}</td>
+     <td>${progress.renamesApplied}</td>
+     <td>${progress.transactionRowsUpdated}</td>
+     <td>${progress.txnHistogramRowsUpdated}</td>
+     <td>${progress.testTransactionRowsUpdated}</td>
+     <td>${progress.slaRowsUpdated}</td>
+     <td><c:out value="${progress.message}" /></td>
+    </tr>
+   </c:forEach>
+
+  </table>
+  
+  <p><a href="transactionList?reqApp=${map.reqApp}">Back to the Transaction Renaming Tool</a></p>
+ </div>
+</body>
+</html>
@@ -0,0 +1,90 @@
+<!-- Copyright 2019 Mark59.com
+ 
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+ 
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License. 
+  
+  Author:  Philip Webb
+  Date:    Australian Spring 2026
+  -->
+  
+<%@ page language="java" contentType="text/html; charset=ISO-8859-1" pageEncoding="ISO-8859-1"%>
+<%@ taglib uri="http://www.springframework.org/tags/form" prefix="form"%>
+<%@ taglib uri="jakarta.tags.core" prefix="c"%>
+<%@ taglib uri="http://www.springframework.org/tags" prefix="spring"%>
+<!DOCTYPE html>
+<html>
+<head>
+<title>Mark59 - Submit Bulk Transaction Rename</title>
+<link rel="shortcut icon"  href="favicon.png" />
+<meta name="viewport" content="width=device-width, initial-scale=1.0">
+<link href="css/style.css" rel="stylesheet" type="text/css" />
+<style>@font-face { font-family: "Canterbury";  src: url("fonts/Canterbury.ttf"); }</style>
+</head>
+
+<body>
+
+<%-- Include navigation element --%>
+<jsp:include page="include/navigation.jsp" />
+
+<div class="content"> 
+ 
+ <h1>Submit Bulk Transaction Rename</h1>
+
+<p>&nbsp;</p>
+  
+  <div>
+   <form:form method="post" action="transactionBulkRenameApply" modelAttribute="transactionBulkRenameForm">
+    <table>
+     <tr>
+      <td>Application</td><td>:</td><td> ${transactionBulkRenameForm.application} </td>
+     </tr>
+     <tr>
+      <td>Transaction Type</td><td>:</td><td> ${transactionBulkRenameForm.txnType} </td>
+     </tr>
+     <c:if test = "${transactionBulkRenameForm.renameMode == 'REGEX'}">
+	     <tr>
+	      <td>Regex</td><td>:</td><td><c:out value="${transactionBulkRenameForm.regex}" /></td>
+	     </tr> 
+	     <tr>
+	      <td>Replacement</td><td>:</td><td><c:out value="${transactionBulkRenameForm.replacement}" /></td>
+	     </tr>  
+	 </c:if>   
+
+     <tr>
+      <td colspan="3">${transactionBulkRenameForm.validationMsg} </td>
+     </tr>           
+  
+   	<c:if test = "${transactionBulkRenameForm.passedValidation == 'Y'}">          
+	     <tr>
+	      <td></td> <td></td>
+	      <td><input type="submit" value="Rename" /></td>
+	     </tr>
+   	</c:if>
+      
+     <tr>
+      <td colspan="3"><a href="transactionList?reqApp=${transactionBulkRenameForm.application}">Cancel</a></td>
+     </tr>     
+     
+    </table>
+    <form:hidden path="application" />
+    <form:hidden path="txnType" />
+    <form:hidden path="renameMode" />
+    <form:textarea path="mappings" style="display:none" />
+    <form:hidden path="regex" />
+    <form:hidden path="replacement" />
+   </form:form>
+  </div>
+
+</div>
+
+</body>
+</html>
@@ -55,6 +55,8 @@
 
 <h1>Transaction Renaming Tool</h1>
 
+  <p><a href="transactionBulkRenameDataEntry?reqApp=${map.reqApp}">Bulk Rename</a> &nbsp; (rename many transactions at once, using a mapping file or a regular expression)</p>
+
   <table class="metricsTable">
    <tr>
     <th></th>
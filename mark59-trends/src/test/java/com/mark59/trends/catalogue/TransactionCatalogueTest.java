@@ -0,0 +1,180 @@
+package com.mark59.trends.catalogue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.data.beans.Run;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.catalogue.dao.TransactionCatalogueDAO;
+
+/**
+ * Unit tests for TransactionCatalogue, using an in-memory TransactionCatalogueDAO
+ */
+class TransactionCatalogueTest {
+
+	private InMemoryCatalogueDAO dao;
+	private TransactionCatalogue transactionCatalogue;
+
+	@BeforeEach
+	void setUp() {
+		dao = new InMemoryCatalogueDAO();
+		transactionCatalogue = new TransactionCatalogue();
+		transactionCatalogue.transactionCatalogueDAO = dao;
+	}
+
+	@Test
+	void testTransactionListMergesRunsAndIsOrderedAsTheDao() {
+		dao.addRun("202601010000", "N", "login", "TRANSACTION", "N");
+		dao.addRun("202601020000", "N", "login", "TRANSACTION", "N", "cpu_host1", "CPU_UTIL", "N");
+		dao.addRun("202601030000", "N", "login", "TRANSACTION", "N", "Add_item", "TRANSACTION", "Y");
+
+		List<Transaction> transactions = transactionCatalogue.getUniqueListOfTransactionsByType("app");
+
+		assertEquals(3, transactions.size());
+		assertTxn(transactions.get(0), "Add_item", "TRANSACTION", "Y", "202601030000", 1L);
+		assertTxn(transactions.get(1), "login", "TRANSACTION", "N", "202601030000", 3L);
+		assertTxn(transactions.get(2), "cpu_host1", "CPU_UTIL", "N", "202601020000", 1L);
+	}
+
+	@Test
+	void testNewRunsAreAddedWithoutRebuilding() {
+		dao.addRun("202601010000", "N", "login", "TRANSACTION", "N");
+		dao.addRun("202601020000", "N", "login", "TRANSACTION", "N");
+		transactionCatalogue.getUniqueListOfTransactionsByType("app");
+		dao.summarisedRunTimes.clear();
+
+		dao.addRun("202601030000", "N", "login", "TRANSACTION", "N");
+		List<Transaction> transactions = transactionCatalogue.getUniqueListOfTransactionsByType("app");
+
+		assertEquals(3L, transactions.get(0).getTxnPass());
+		assertEquals(List.of("202601020000", "202601030000"), dao.summarisedRunTimes);   // the newly settled run, then the most recent run
+	}
+
+	@Test
+	void testRemovedRunRebuildsAndInvalidateRebuilds() {
+		dao.addRun("202601010000", "N", "login", "TRANSACTION", "N");
+		dao.addRun("202601020000", "N", "logout", "TRANSACTION", "N");
+		dao.addRun("202601030000", "N", "login", "TRANSACTION", "N");
+		assertEquals(2, transactionCatalogue.getUniqueListOfTransactionsByType("app").size());
+
+		dao.removeRun("202601020000");
+		assertEquals(1, transactionCatalogue.getUniqueListOfTransactionsByType("app").size());
+
+		dao.renameTxn("login", "DH_login");
+		assertEquals(2, transactionCatalogue.getUniqueListOfTransactionsByType("app").size());   // older run still catalogued as 'login'
+		transactionCatalogue.invalidate("app");
+		List<Transaction> transactions = transactionCatalogue.getUniqueListOfTransactionsByType("app");
+		assertEquals(1, transactions.size());
+		assertTxn(transactions.get(0), "DH_login", "TRANSACTION", "N", "202601030000", 2L);
+	}
+
+	@Test
+	void testCountRunsWithCdpTransactionsSkipsIgnoredRuns() {
+		dao.addRun("202601010000", "N", "login", "TRANSACTION", "Y");
+		dao.addRun("202601020000", "Y", "login", "TRANSACTION", "Y");
+		dao.addRun("202601030000", "N", "login", "TRANSACTION", "N");
+		assertEquals(1L, transactionCatalogue.countRunsWithCdpTransactions("app"));
+
+		dao.addRun("202601040000", "N", "login", "TRANSACTION", "Y");
+		assertEquals(2L, transactionCatalogue.countRunsWithCdpTransactions("app"));
+	}
+
+
+	private static void assertTxn(Transaction transaction, String txnId, String txnType, String isCdpTxn, String lastRunTime, long runCount) {
+		assertEquals(txnId, transaction.getTxnId());
+		assertEquals(txnType, transaction.getTxnType());
+		assertEquals(isCdpTxn, transaction.getIsCdpTxn());
+		assertEquals(lastRunTime, transaction.getRunTime());
+		assertEquals(runCount, transaction.getTxnPass());
+	}
+
+
+	private static class InMemoryCatalogueDAO implements TransactionCatalogueDAO {
+
+		final Map<String, String> ignoredOfRun = new HashMap<>();
+		final List<String[]> transactionRows = new ArrayList<>();    // run time, txn id, txn type, cdp
+		final List<String> summarisedRunTimes = new ArrayList<>();
+
+		void addRun(String runTime, String isRunIgnored, String... txns) {
+			ignoredOfRun.put(runTime, isRunIgnored);
+			for (int i = 0; i < txns.length; i += 3) {
+				transactionRows.add(new String[] {runTime, txns[i], txns[i + 1], txns[i + 2]});
+			}
+		}
+
+		void removeRun(String runTime) {
+			ignoredOfRun.remove(runTime);
+			transactionRows.removeIf(row -> row[0].equals(runTime));
+		}
+
+		void renameTxn(String fromTxnId, String toTxnId) {
+			for (String[] row : transactionRows) {
+				if (row[1].equals(fromTxnId)) {
+					row[1] = toTxnId;
+				}
+			}
+		}
+
+		@Override
+		public List<Run> findRunsMostRecentFirst(String application) {
+			List<Run> runs = new ArrayList<>();
+			ignoredOfRun.keySet().stream().sorted((a, b) -> b.compareTo(a)).forEach(runTime -> {
+				Run run = new Run();
+				run.setRunTime(runTime);
+				run.setIsRunIgnored(ignoredOfRun.get(runTime));
+				runs.add(run);
+			});
+			return runs;
+		}
+
+		@Override
+		public List<Transaction> summariseTransactions(String application, Collection<String> runTimes, String beforeRunTime) {
+			if (runTimes != null) {
+				summarisedRunTimes.addAll(runTimes);
+			}
+			Map<String, Transaction> summaries = new HashMap<>();
+			for (String[] row : selectedRows(runTimes, beforeRunTime)) {
+				Transaction summary = new Transaction();
+				summary.setTxnId(row[1]);
+				summary.setTxnType(row[2]);
+				summary.setIsCdpTxn(row[3]);
+				summary.setRunTime(row[0]);
+				summary.setTxnPass(1L);
+				TransactionCatalogue.mergeTransactions(summaries, List.of(summary));
+			}
+			return new ArrayList<>(summaries.values());
+		}
+
+		@Override
+		public Set<String> findRunsWithCdpTransactions(String application, Collection<String> runTimes, String beforeRunTime) {
+			Set<String> runsWithCdpTxns = new HashSet<>();
+			for (String[] row : selectedRows(runTimes, beforeRunTime)) {
+				if ("TRANSACTION".equals(row[2]) && "Y".equals(row[3])) {
+					runsWithCdpTxns.add(row[0]);
+				}
+			}
+			return runsWithCdpTxns;
+		}
+
+		private List<String[]> selectedRows(Collection<String> runTimes, String beforeRunTime) {
+			List<String[]> selected = new ArrayList<>();
+			for (String[] row : transactionRows) {
+				if ((runTimes == null || runTimes.contains(row[0])) && (beforeRunTime == null || row[0].compareTo(beforeRunTime) < 0)) {
+					selected.add(row);
+				}
+			}
+			return selected;
+		}
+	}
+
+}
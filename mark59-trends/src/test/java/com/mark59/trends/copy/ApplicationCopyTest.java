@@ -0,0 +1,54 @@
+package com.mark59.trends.copy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.copy.ApplicationCopy.KeyRange;
+
+/**
+ * Unit tests for the key range (chunk) sizing of ApplicationCopy
+ */
+class ApplicationCopyTest {
+
+	@Test
+	void testKeysGroupedIntoRangesWithinTheRowBudget() {
+		Map<String, Long> rowsByRunTime = new LinkedHashMap<>();
+		rowsByRunTime.put("202601010000", 40L);
+		rowsByRunTime.put("202601020000", 60L);
+		rowsByRunTime.put("202601030000", 30L);
+		rowsByRunTime.put("202601040000", 250L);
+		rowsByRunTime.put("202601050000", 10L);
+
+		List<KeyRange> keyRanges = ApplicationCopy.keyRanges(rowsByRunTime, 100L);
+
+		assertEquals(4, keyRanges.size());
+		assertRange(keyRanges.get(0), "202601010000", "202601020000", 100L);
+		assertRange(keyRanges.get(1), "202601030000", "202601030000", 30L);
+		assertRange(keyRanges.get(2), "202601040000", "202601040000", 250L);   // larger than the budget on its own
+		assertRange(keyRanges.get(3), "202601050000", "202601050000", 10L);
+	}
+
+	@Test
+	void testNoKeysGivesNoRanges() {
+		assertTrue(ApplicationCopy.keyRanges(new LinkedHashMap<>(), 100L).isEmpty());
+	}
+
+	@Test
+	void testApplicationsEntryIsCopiedLast() {
+		assertEquals("RUNS", ApplicationCopy.RUN_TABLES.get(0));
+		assertEquals("APPLICATIONS", ApplicationCopy.APPLICATION_TABLES.get(ApplicationCopy.APPLICATION_TABLES.size() - 1));
+	}
+
+
+	private static void assertRange(KeyRange keyRange, String from, String to, long rows) {
+		assertEquals(from, keyRange.from);
+		assertEquals(to, keyRange.to);
+		assertEquals(rows, keyRange.rows);
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class TxnHistogramTest {
+
+	@Test
+	void testPercentilesAreWithinRelativeAccuracyOfNearestRank() {
+		Random random = new Random(59);
+		double[] values = new double[100000];
+		TxnHistogram txnHistogram = new TxnHistogram();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.round(Math.exp(random.nextGaussian() * 1.5 - 1) * 1000) / 1000.0;
+			txnHistogram.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		for (double percentile : new double[] {1, 50, 90, 95, 99, 99.9}) {
+			double exact = values[(int)Math.ceil(percentile / 100 * values.length) - 1];
+			double fromHistogram = txnHistogram.getPercentile(percentile).doubleValue();
+			assertEquals(exact, fromHistogram, exact * TxnHistogram.RELATIVE_ACCURACY + 0.001, "percentile " + percentile);
+		}
+		assertEquals(BigDecimal.valueOf(values[0]).setScale(3), txnHistogram.getPercentile(0));
+		assertEquals(BigDecimal.valueOf(values[values.length - 1]).setScale(3), txnHistogram.getPercentile(100));
+	}
+
+
+	@Test
+	void testEncodeDecodeAndMerge() {
+		TxnHistogram run1 = new TxnHistogram();
+		TxnHistogram run2 = new TxnHistogram();
+		TxnHistogram bothRuns = new TxnHistogram();
+		for (int i = 0; i < 1000; i++) {
+			run1.add(i * 0.01);
+			run2.add(i * 0.5);
+			bothRuns.add(i * 0.01);
+			bothRuns.add(i * 0.5);
+		}
+		TxnHistogram merged = TxnHistogram.decode(run1.encode());
+		merged.merge(TxnHistogram.decode(run2.encode()));
+
+		assertEquals(2000, merged.getTotalCount());
+		assertEquals(bothRuns.encode(), merged.encode());
+		assertEquals(bothRuns.getPercentile(99.9), merged.getPercentile(99.9));
+		assertEquals(new BigDecimal("0.000000"), merged.getPercentile(0));
+		assertEquals(new BigDecimal("499.500000"), merged.getPercentile(100));
+	}
+
+
+	@Test
+	void testBucketsAreBoundedForAWideRangeOfValues() {
+		TxnHistogram txnHistogram = new TxnHistogram();
+		for (double value = 0.000001; value < 1e12; value *= 1.01) {
+			txnHistogram.add(value);
+		}
+		TxnHistogram decoded = TxnHistogram.decode(txnHistogram.encode());
+		assertEquals(txnHistogram.getTotalCount(), decoded.getTotalCount());
+		assertEquals(txnHistogram.getPercentile(99), decoded.getPercentile(99));
+		assertTrue(txnHistogram.encode().length() < 16384);
+	}
+
+
+	@Test
+	void testEmptyHistogram() {
+		TxnHistogram txnHistogram = TxnHistogram.decode(new TxnHistogram().encode());
+		assertEquals(0, txnHistogram.getTotalCount());
+		assertNull(txnHistogram.getPercentile(99));
+		assertNull(TxnHistogram.decode(null));
+	}
+
+
+	@Test
+	void testPercentileRequestedByValueDerivation() {
+		assertEquals(99.9, TxnHistogram.percentileRequestedBy("Percentile(99.9)"));
+		assertEquals(50.0, TxnHistogram.percentileRequestedBy(" percentile( 50 ) "));
+		assertEquals(100.0, TxnHistogram.percentileRequestedBy("PERCENTILE(100)"));
+		assertNull(TxnHistogram.percentileRequestedBy("Percentile(100.1)"));
+		assertNull(TxnHistogram.percentileRequestedBy("99th"));
+		assertNull(TxnHistogram.percentileRequestedBy("TXN_99TH"));
+		assertNull(TxnHistogram.percentileRequestedBy(null));
+	}
+
+}
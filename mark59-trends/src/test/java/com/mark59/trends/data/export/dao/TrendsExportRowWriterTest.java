@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.export.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.application.AppConstantsTrends;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class TrendsExportRowWriterTest {
+
+	private static SimpleResultSet exportRows() {
+		SimpleResultSet rs = new SimpleResultSet();
+		rs.addColumn("txn_id", Types.VARCHAR, 128, 0);
+		rs.addColumn("TXN_RESULT", Types.DECIMAL, 18, 6);
+		rs.addColumn("TXN_PASS", Types.BIGINT, 19, 0);
+		rs.addColumn("RATIO", Types.DOUBLE, 17, 0);
+		rs.addRow("login", new BigDecimal("0.002600"), 5L, 0.5);
+		rs.addRow("search, \"quoted\"", new BigDecimal("1E+2"), 0L, Double.NaN);
+		rs.addRow("line\nbreak", null, 1L, Double.POSITIVE_INFINITY);
+		return rs;
+	}
+
+	private static String export(String exportFormat) throws SQLException {
+		StringWriter output = new StringWriter();
+		TrendsExportRowWriter rowWriter = new TrendsExportRowWriter(output, exportFormat);
+		SimpleResultSet rs = exportRows();
+		while (rs.next()) {
+			rowWriter.processRow(rs);
+		}
+		assertEquals(3, rowWriter.getRowCount());
+		return output.toString();
+	}
+
+
+	@Test
+	void testCsvOutput() throws SQLException {
+		assertEquals(
+				"TXN_ID,TXN_RESULT,TXN_PASS,RATIO\n"
+				+ "login,0.002600,5,0.5\n"
+				+ "\"search, \"\"quoted\"\"\",100,0,NaN\n"
+				+ "\"line\nbreak\",,1,Infinity\n",
+				export(AppConstantsTrends.EXPORT_FORMAT_CSV));
+	}
+
+	@Test
+	void testJsonLinesOutput() throws SQLException {
+		assertEquals(
+				"{\"TXN_ID\":\"login\",\"TXN_RESULT\":0.002600,\"TXN_PASS\":5,\"RATIO\":0.5}\n"
+				+ "{\"TXN_ID\":\"search, \\\"quoted\\\"\",\"TXN_RESULT\":100,\"TXN_PASS\":0,\"RATIO\":null}\n"
+				+ "{\"TXN_ID\":\"line\\nbreak\",\"TXN_RESULT\":null,\"TXN_PASS\":1,\"RATIO\":null}\n",
+				export(AppConstantsTrends.EXPORT_FORMAT_JSON));
+	}
+
+	@Test
+	void testJsonLinesIsTheDefaultFormat() throws SQLException {
+		assertEquals(export(AppConstantsTrends.EXPORT_FORMAT_JSON), export(null));
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.mark59.trends.data.expression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.data.beans.BarRange;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class TransactionExpressionTest {
+
+	@Test
+	void testFailPercentDerivationAsMySqlEvaluatesIt() {
+		TransactionExpression failPercent = TransactionExpression.compiled("COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)");
+
+		assertNotNull(failPercent);
+		assertEquals(Set.of("TXN_FAIL", "TXN_PASS"), failPercent.getColumns());
+		assertEquals(new BigDecimal("33.3333"), failPercent.evaluate(row("TXN_PASS", 2L, "TXN_FAIL", 1L)));
+		assertEquals(new BigDecimal("-1"), failPercent.evaluate(row("TXN_PASS", 0L, "TXN_FAIL", 0L)));   // division by zero is null
+		assertSame(failPercent, TransactionExpression.compiled("COALESCE( 100*TXN_FAIL/(TXN_PASS+TXN_FAIL) , -1)"));
+	}
+
+
+	@Test
+	void testPrecedenceNullsAndFunctions() {
+		Map<String, Object> row = row("TXN_90TH", new BigDecimal("1.500"), "TXN_DELAY", new BigDecimal("0.250"), "TXN_STOP", 3);
+
+		assertEquals(new BigDecimal("1.250"), TransactionExpression.compiled("TXN_90TH - TXN_DELAY").evaluate(row));
+		assertEquals(new BigDecimal("1.000"), TransactionExpression.compiled("t.txn_90th - 2 * TXN_DELAY").evaluate(row));
+		assertEquals(new BigDecimal("2.000"), TransactionExpression.compiled("(TXN_90TH - -TXN_DELAY) * 2 - TXN_90TH + 0.5 * 0").evaluate(row));
+		assertEquals(new BigDecimal("2"), TransactionExpression.compiled("ROUND(TXN_90TH)").evaluate(row));
+		assertEquals(new BigDecimal("0.3"), TransactionExpression.compiled("ROUND(ABS(-TXN_DELAY), 1)").evaluate(row));
+		assertNull(TransactionExpression.compiled("NULLIF(TXN_STOP, 3)").evaluate(row));
+		assertNull(TransactionExpression.compiled("TXN_90TH + TXN_MAXIMUM").evaluate(row));   // null column
+	}
+
+
+	@Test
+	void testUnsupportedExpressionsAreNotCompiled() {
+		for (String unsupported : List.of("", "-1", "IFNULL(TXN_FAIL, 0)", "CASE WHEN TXN_FAIL > 0 THEN 1 ELSE 0 END",
+				"SLA_PASS_COUNT * 2", "TXN_ID", "TXN_PASS +", "(TXN_PASS", "TXN_PASS)", "TXN_PASS % 2", "ABS(TXN_PASS, 1)")) {
+			assertNull(TransactionExpression.compiled(unsupported), unsupported);
+		}
+	}
+
+
+	@Test
+	void testBarRangeSqlOfTransactionRowsIsCompiled() {
+		TransactionBarRange stdDeviation = TransactionBarRange.compiled("SELECT TXN_ID, TXN_90TH - TXN_STD_DEVIATION AS BAR_MIN, "
+				+ "TXN_90TH+TXN_STD_DEVIATION AS BAR_MAX FROM TRANSACTION WHERE TXN_TYPE = 'TRANSACTION' AND RUN_TIME = :runTime "
+				+ "AND APPLICATION = :application");
+		assertNotNull(stdDeviation);
+		assertEquals("TRANSACTION", stdDeviation.getTxnType());
+		assertEquals("TXN_90TH, TXN_STD_DEVIATION", stdDeviation.columnsSql());
+
+		BarRange bar = stdDeviation.evaluate("login", row("TXN_90TH", new BigDecimal("2.000"), "TXN_STD_DEVIATION", new BigDecimal("0.500")));
+		assertEquals("login", bar.getTxnId());
+		assertEquals(new BigDecimal("1.500"), bar.getBarMin());
+		assertEquals(new BigDecimal("2.500"), bar.getBarMax());
+		assertNull(stdDeviation.evaluate("login", row("TXN_90TH", new BigDecimal("2.000"))));
+
+		TransactionBarRange percentiles = TransactionBarRange.compiled(" select T.TXN_ID, TXN_90TH as bar_min, TXN_99TH BAR_MAX\r\n"
+				+ "from TRANSACTION T\r\nwhere APPLICATION = :application and T.RUN_TIME = :runTime and TXN_TYPE = 'TRANSACTION' ;");
+		assertNotNull(percentiles);
+		assertEquals("TXN_90TH, TXN_99TH", percentiles.columnsSql());
+	}
+
+
+	@Test
+	void testOtherBarRangeSqlIsLeftToTheDatabase() {
+		assertNull(TransactionBarRange.compiled("SELECT METRIC_NAME AS TXN_ID, SLA_MIN AS BAR_MIN, SLA_MAX AS BAR_MAX FROM METRICSLA "
+				+ "WHERE METRIC_TXN_TYPE = 'DATAPOINT' AND VALUE_DERIVATION = 'Average' AND APPLICATION = :application"));
+		assertNull(TransactionBarRange.compiled("select TXN_ID, SLA_PASS_COUNT-SLA_PASS_COUNT*SLA_PASS_COUNT_VARIANCE_PERCENT*0.01 as BAR_MIN,"
+				+ "SLA_PASS_COUNT as BAR_MAX from SLA where SLA_PASS_COUNT>0 and SLA.APPLICATION = :application "));
+		assertNull(TransactionBarRange.compiled("SELECT TXN_ID, TXN_90TH AS BAR_MIN, TXN_99TH AS BAR_MAX FROM TRANSACTION "
+				+ "WHERE TXN_TYPE = 'TRANSACTION' AND RUN_TIME = :runTime AND APPLICATION = :application AND IS_CDP_TXN = 'N'"));
+		assertNull(TransactionBarRange.compiled("SELECT TXN_ID, TXN_90TH AS BAR_MIN, TXN_99TH AS BAR_MAX FROM TRANSACTION "
+				+ "WHERE TXN_TYPE = 'TRANSACTION' AND APPLICATION = :application"));
+	}
+
+
+	private static Map<String, Object> row(Object... columnsAndValues) {
+		Map<String, Object> row = new HashMap<>();
+		for (int i = 0; i < columnsAndValues.length; i += 2) {
+			row.put((String)columnsAndValues[i], columnsAndValues[i + 1]);
+		}
+		return row;
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.testTransactions.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.data.beans.EventMapping;
+import com.mark59.trends.data.beans.Transaction;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class MetricSummaryAccumulatorTest {
+
+	private static EventMapping eventMapping(String txnType, String isPercentage, String isInvertedPercentage) {
+		EventMapping eventMapping = new EventMapping();
+		eventMapping.setTxnType(txnType);
+		eventMapping.setTargetNameLB("");
+		eventMapping.setTargetNameRB("");
+		eventMapping.setIsPercentage(isPercentage);
+		eventMapping.setIsInvertedPercentage(isInvertedPercentage);
+		return eventMapping;
+	}
+
+	private static Transaction summarize(EventMapping eventMapping, String... values) {
+		MetricSummaryAccumulator accumulator = new MetricSummaryAccumulator("metric", "DATAPOINT", eventMapping);
+		for (String value : values) {
+			accumulator.add(new BigDecimal(value));
+		}
+		return accumulator.toTransaction("app");
+	}
+
+	private static void assertDecimal(String expected, BigDecimal actual) {
+		assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+	}
+
+
+	@Test
+	void testLargeValuesAreSummedExactly() {
+		// 16 significant digits (not exact as a double), and a total well beyond Long.MAX_VALUE micro-units
+		String large = "9876543219876.543";
+		String[] values = new String[20];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = large;
+		}
+		Transaction summary = summarize(eventMapping("MEMORY", "N", "N"), values);
+
+		assertDecimal("197530864397530.86", summary.getTxnSum());
+		assertTrue(summary.getTxnSum().movePointRight(6).compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0);
+		assertDecimal(large, summary.getTxnAverage());
+		assertDecimal(large, summary.getTxnFirst());
+		assertDecimal(large, summary.getTxnLast());
+		assertEquals(20L, summary.getTxnPass().longValue());
+		assertDecimal("-1.0", summary.getTxn90th());
+	}
+
+
+	@Test
+	void testMinimumMaximumFirstAndLast() {
+		Transaction summary = summarize(eventMapping("DATAPOINT", "N", "N"), "5.5", "2.0004", "9.1236", "3.25");
+
+		assertDecimal("2.000", summary.getTxnMinimum());
+		assertDecimal("3.250", summary.getTxnMaximum());    // the last value above the minimum
+		assertDecimal("5.5", summary.getTxnFirst());
+		assertDecimal("3.25", summary.getTxnLast());
+		assertDecimal("19.874", summary.getTxnSum());
+		assertDecimal("4.969", summary.getTxnAverage());
+		assertEquals("metric", summary.getTxnId());
+		assertEquals("DATAPOINT", summary.getTxnType());
+	}
+
+
+	@Test
+	void testInvertedPercentageIsSummedAsUtilisation() {
+		// % idle of 95, 5, 2 and 40 is a utilisation of 5, 95, 98 and 60
+		Transaction summary = summarize(eventMapping("CPU_UTIL", "Y", "Y"), "95.0", "5.0", "2.0", "40.0");
+
+		assertDecimal("258.0", summary.getTxnSum());
+		assertDecimal("64.500", summary.getTxnAverage());
+		// minimum, maximum, first and last are of the values as captured (idle)
+		assertDecimal("2.000", summary.getTxnMinimum());
+		assertDecimal("95.0", summary.getTxnFirst());
+		assertDecimal("40.0", summary.getTxnLast());
+		// two of the four points are over 90% utilisation
+		assertDecimal("50.00", summary.getTxn90th());
+	}
+
+
+	@Test
+	void testBottleneckCountOfAPercentage() {
+		// only values over (not at) 90% count
+		Transaction summary = summarize(eventMapping("CPU_UTIL", "Y", "N"), "10", "90.0", "90.000001", "99", "100", "50", "20", "30");
+
+		assertDecimal("37.50", summary.getTxn90th());
+		assertEquals(8L, summary.getTxnPass().longValue());
+	}
+
+
+	@Test
+	void testIsForTheMetricTypeAndId() {
+		MetricSummaryAccumulator accumulator = new MetricSummaryAccumulator("metric", "MEMORY", eventMapping("MEMORY", "N", "N"));
+		assertTrue(accumulator.isFor("metric", "MEMORY"));
+		assertFalse(accumulator.isFor("metric", "DATAPOINT"));
+		assertFalse(accumulator.isFor("metric2", "MEMORY"));
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2019 Mark59.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mark59.trends.data.testTransactions.dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.application.AppConstantsTrends;
+import com.mark59.trends.data.beans.Transaction;
+import com.mark59.trends.data.beans.TxnHistogram;
+
+/**
+ * @author Philip Webb
+ * Written: Australian Spring 2026
+ */
+class TransactionSummaryAccumulatorTest {
+
+	private static void assertDecimal(String expected, BigDecimal actual) {
+		assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+	}
+
+
+	@Test
+	void testPercentilesAreTheValueAtTheCeilingRank() {
+		TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator("txn", "N");
+		// 1 to 200 ms, added out of order
+		for (int ms = 200; ms >= 1; ms--) {
+			accumulator.add("Y", BigDecimal.valueOf(ms, 3));
+		}
+		Transaction summary = accumulator.toTransaction("app", "TRANSACTION");
+
+		assertDecimal("0.001", summary.getTxnMinimum());
+		assertDecimal("0.1005", summary.getTxnAverage());
+		assertDecimal("0.100", summary.getTxnMedian());      // rank 100 of 200
+		assertDecimal("0.180", summary.getTxn90th());
+		assertDecimal("0.190", summary.getTxn95th());
+		assertDecimal("0.198", summary.getTxn99th());
+		assertDecimal("0.200", summary.getTxnMaximum());
+		assertEquals(0.057734, summary.getTxnStdDeviation().doubleValue(), 0.000001);
+		assertEquals(200L, summary.getTxnPass().longValue());
+		assertEquals("app", summary.getApplication());
+		assertEquals(AppConstantsTrends.RUN_TIME_YET_TO_BE_CALCULATED, summary.getRunTime());
+		assertEquals("TRANSACTION", summary.getTxnType());
+		assertEquals("N", summary.getIsCdpTxn());
+	}
+
+
+	@Test
+	void testMicrosecondResultsAreKept() {
+		TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator("txn", "Y");
+		accumulator.add("Y", new BigDecimal("0.000123"));
+		accumulator.add("Y", new BigDecimal("0.000456"));
+		Transaction summary = accumulator.toTransaction("app", "TRANSACTION");
+
+		assertDecimal("0.000123", summary.getTxnMinimum());
+		assertDecimal("0.000123", summary.getTxnMedian());
+		assertDecimal("0.000456", summary.getTxnMaximum());
+		assertDecimal("0.000290", summary.getTxnAverage());   // 0.0002895 rounded half up
+	}
+
+
+	@Test
+	void testFailedAndStoppedResultsAreOnlyCounted() {
+		TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator("txn", "N");
+		accumulator.add("N", new BigDecimal("99.0"));
+		accumulator.add("Y", new BigDecimal("1.5"));
+		accumulator.add(AppConstantsTrends.TXN_STOPPPED_STATUS, new BigDecimal("88.0"));
+		accumulator.add("N", new BigDecimal("77.0"));
+		Transaction summary = accumulator.toTransaction("app", "TRANSACTION");
+
+		assertEquals(1L, summary.getTxnPass().longValue());
+		assertEquals(2L, summary.getTxnFail().longValue());
+		assertEquals(1L, summary.getTxnStop().longValue());
+		assertDecimal("1.5", summary.getTxnMaximum());
+		assertDecimal("1.5", summary.getTxn99th());
+		assertDecimal("0", summary.getTxnStdDeviation());
+		assertEquals(1L, accumulator.getHistogram().getTotalCount());
+	}
+
+
+	@Test
+	void testATransactionWithNoPassedResults() {
+		TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator("txn", "N");
+		accumulator.add("N", new BigDecimal("3.0"));
+		Transaction summary = accumulator.toTransaction("app", "TRANSACTION");
+
+		assertEquals(0L, summary.getTxnPass().longValue());
+		assertEquals(1L, summary.getTxnFail().longValue());
+		assertDecimal("0", summary.getTxnMinimum());
+		assertDecimal("0", summary.getTxnAverage());
+		assertDecimal("0", summary.getTxn90th());
+		assertDecimal("0", summary.getTxnMaximum());
+		assertNull(accumulator.getHistogram());
+	}
+
+
+	@Test
+	void testTheHistogramIsBuiltFromThePassedResults() {
+		TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator("txn", "N");
+		for (int ms = 1; ms <= 1000; ms++) {
+			accumulator.add("Y", BigDecimal.valueOf(ms, 3));
+		}
+		accumulator.add("N", new BigDecimal("50.0"));
+		TxnHistogram txnHistogram = accumulator.getHistogram();
+
+		assertEquals(1000L, txnHistogram.getTotalCount());
+		assertEquals(0.999, txnHistogram.getPercentile(99.9).doubleValue(), 0.999 * TxnHistogram.RELATIVE_ACCURACY);
+		assertTrue(accumulator.isFor("txn", "N"));
+		assertFalse(accumulator.isFor("txn", "Y"));
+	}
+
+}
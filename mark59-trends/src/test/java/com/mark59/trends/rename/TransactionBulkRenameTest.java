@@ -0,0 +1,123 @@
+package com.mark59.trends.rename;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.mark59.trends.data.beans.Transaction;
+
+/**
+ * Unit tests for the mapping parse and the (database free) validation of TransactionBulkRename
+ */
+class TransactionBulkRenameTest {
+
+	private static final String TRANSACTION = "TRANSACTION";
+
+	@Test
+	void testParseMappingsCommaTabAndCdpFormats() {
+		List<String> errors = new ArrayList<>();
+		List<TransactionRename> renames = TransactionBulkRename.parseMappings(
+				"# a comment\n"
+				+ "login, DH_login\r\n"
+				+ "\n"
+				+ "add,item\tDH_add_item\n"
+				+ "cdp_step,DH_cdp_step,Y,N\n", errors);
+
+		assertTrue(errors.isEmpty());
+		assertEquals(3, renames.size());
+		assertEquals("login", renames.get(0).getFromTxnId());
+		assertEquals("DH_login", renames.get(0).getToTxnId());
+		assertNull(renames.get(0).getFromIsCdpTxn());
+		assertEquals("add,item", renames.get(1).getFromTxnId());
+		assertEquals("DH_add_item", renames.get(1).getToTxnId());
+		assertEquals("Y", renames.get(2).getFromIsCdpTxn());
+		assertEquals("N", renames.get(2).getToIsCdpTxn());
+	}
+
+	@Test
+	void testParseMappingsReportsBadLines() {
+		List<String> errors = new ArrayList<>();
+		List<TransactionRename> renames = TransactionBulkRename.parseMappings("onlyone\na,b,X,N\nc,d\n", errors);
+		assertEquals(1, renames.size());
+		assertEquals(2, errors.size());
+		assertTrue(errors.get(0).startsWith("Line 1 "));
+		assertTrue(errors.get(1).startsWith("Line 2 "));
+	}
+
+	@Test
+	void testRenameExpandsToEachCdpFlagAndRenamesSla() {
+		List<Transaction> rows = List.of(row("1", "login", "N"), row("1", "login", "Y"), row("2", "login", "N"));
+		Set<String> slaKeys = Set.of(TransactionRename.txnKey("login", "N"));
+
+		TransactionBulkRenameValidation validation = TransactionBulkRename.validate(TRANSACTION,
+				List.of(new TransactionRename("login", "DH_login", null, null), new TransactionRename("missing", "x", null, null)),
+				rows, slaKeys);
+
+		assertTrue(validation.isValid(), validation.toString());
+		assertEquals(2, validation.getRenames().size());
+		assertEquals(1, validation.getSlaRenames().size());
+		assertEquals("DH_login", validation.getSlaRenames().get(0).getToTxnId());
+		assertEquals(1, validation.getWarnings().size());   // 'missing' not found
+	}
+
+	@Test
+	void testClashWithinARunIsAnError() {
+		List<Transaction> rows = List.of(row("1", "a", "N"), row("1", "b", "N"), row("2", "a", "N"));
+		TransactionBulkRenameValidation validation = TransactionBulkRename.validate(TRANSACTION,
+				List.of(new TransactionRename("a", "c", null, null), new TransactionRename("b", "c", null, null)),
+				rows, new HashSet<>());
+		assertFalse(validation.isValid());
+		assertEquals(1, validation.getErrors().size());
+		assertTrue(validation.getErrors().get(0).startsWith("1 run(s)"));
+	}
+
+	@Test
+	void testRenameIntoExistingTxnIsAClashOrAMerge() {
+		List<Transaction> clashRows = List.of(row("1", "a", "N"), row("1", "b", "N"));
+		assertFalse(TransactionBulkRename.validate(TRANSACTION, List.of(new TransactionRename("a", "b", null, null)),
+				clashRows, new HashSet<>()).isValid());
+
+		List<Transaction> mergeRows = List.of(row("1", "a", "N"), row("2", "b", "N"));
+		Set<String> slaKeys = Set.of(TransactionRename.txnKey("a", "N"), TransactionRename.txnKey("b", "N"));
+		TransactionBulkRenameValidation merge = TransactionBulkRename.validate(TRANSACTION,
+				List.of(new TransactionRename("a", "b", null, null)), mergeRows, slaKeys);
+		assertTrue(merge.isValid());
+		assertTrue(merge.getSlaRenames().isEmpty());
+		assertEquals(2, merge.getWarnings().size());   // a merge, and the existing SLA of b
+	}
+
+	@Test
+	void testChainedRenamesAreAnError() {
+		List<Transaction> rows = List.of(row("1", "a", "N"), row("2", "b", "N"));
+		TransactionBulkRenameValidation validation = TransactionBulkRename.validate(TRANSACTION,
+				List.of(new TransactionRename("a", "b", null, null), new TransactionRename("b", "c", null, null)),
+				rows, new HashSet<>());
+		assertFalse(validation.isValid());
+		assertTrue(validation.getErrors().get(0).startsWith("Chained renames"));
+	}
+
+	@Test
+	void testMetricSlaRenamedOncePerMetricName() {
+		List<Transaction> rows = List.of(row("1", "cpu_host1", "N"), row("2", "cpu_host1", "N"));
+		TransactionBulkRenameValidation validation = TransactionBulkRename.validate("CPU_UTIL",
+				List.of(new TransactionRename("cpu_host1", "cpu_hostA", null, null)), rows, Set.of("cpu_host1"));
+		assertTrue(validation.isValid());
+		assertEquals(1, validation.getSlaRenames().size());
+		assertEquals("cpu_hostA", validation.getSlaRenames().get(0).getToTxnId());
+	}
+
+
+	private static Transaction row(String runTime, String txnId, String isCdpTxn) {
+		Transaction transaction = new Transaction();
+		transaction.setRunTime(runTime);
+		transaction.setTxnId(txnId);
+		transaction.setIsCdpTxn(isCdpTxn);
+		return transaction;
+	}
+
+}